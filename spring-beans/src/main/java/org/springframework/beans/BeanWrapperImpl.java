@@ -304,6 +304,13 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 				}
 			}
 			else {
+				FastPropertyInvoker invoker = getCachedIntrospectionResults().getFastPropertyInvoker();
+				if (invoker != null) {
+					int index = invoker.getIndex(readMethod);
+					if (index >= 0) {
+						return invoker.invoke(index, getWrappedInstance());
+					}
+				}
 				ReflectionUtils.makeAccessible(readMethod);
 				return readMethod.invoke(getWrappedInstance(), (Object[]) null);
 			}
@@ -328,6 +335,14 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 				}
 			}
 			else {
+				FastPropertyInvoker invoker = getCachedIntrospectionResults().getFastPropertyInvoker();
+				if (invoker != null) {
+					int index = invoker.getIndex(writeMethod);
+					if (index >= 0) {
+						invoker.invoke(index, getWrappedInstance(), value);
+						return;
+					}
+				}
 				ReflectionUtils.makeAccessible(writeMethod);
 				writeMethod.invoke(getWrappedInstance(), value);
 			}
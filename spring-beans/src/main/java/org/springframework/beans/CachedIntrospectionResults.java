@@ -92,10 +92,26 @@ public final class CachedIntrospectionResults {
 	 */
 	public static final String IGNORE_BEANINFO_PROPERTY_NAME = "spring.beaninfo.ignore";
 
+	/**
+	 * System property that instructs Spring to invoke bean property accessors through
+	 * generated classes rather than through reflection: "spring.beaninfo.generateAccessors".
+	 * <p>The default is "false". Switching this flag to "true" lets {@link BeanWrapperImpl}
+	 * call public getters and setters of public bean classes through a CGLIB
+	 * {@link org.springframework.cglib.reflect.FastClass} generated once per bean class,
+	 * which pays off for repeated property access such as data binding of large forms.
+	 * Any other accessor methods keep being invoked through reflection, as is the case
+	 * when running with a SecurityManager.
+	 * @since 5.1.5
+	 */
+	public static final String GENERATE_ACCESSORS_PROPERTY_NAME = "spring.beaninfo.generateAccessors";
+
 
 	private static final boolean shouldIntrospectorIgnoreBeaninfoClasses =
 			SpringProperties.getFlag(IGNORE_BEANINFO_PROPERTY_NAME);
 
+	private static final boolean shouldGenerateAccessors =
+			SpringProperties.getFlag(GENERATE_ACCESSORS_PROPERTY_NAME);
+
 	/** Stores the BeanInfoFactory instances. */
 	private static List<BeanInfoFactory> beanInfoFactories = SpringFactoriesLoader.loadFactories(
 			BeanInfoFactory.class, CachedIntrospectionResults.class.getClassLoader());
@@ -259,6 +275,13 @@ public final class CachedIntrospectionResults {
 	/** TypeDescriptor objects keyed by PropertyDescriptor. */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** Generated invoker for the bean class's accessor methods, if any (lazily resolved). */
+	@Nullable
+	private volatile FastPropertyInvoker fastPropertyInvoker;
+
+	/** Whether the generated invoker has been resolved already. */
+	private volatile boolean fastPropertyInvokerResolved;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -382,4 +405,23 @@ public final class CachedIntrospectionResults {
 		return this.typeDescriptorCache.get(pd);
 	}
 
+	/**
+	 * Return the generated invoker for the bean class's accessor methods.
+	 * @return the invoker, or {@code null} if accessor generation is not enabled
+	 * or not possible for the bean class
+	 * @since 5.1.5
+	 * @see #GENERATE_ACCESSORS_PROPERTY_NAME
+	 */
+	@Nullable
+	FastPropertyInvoker getFastPropertyInvoker() {
+		if (!shouldGenerateAccessors) {
+			return null;
+		}
+		if (!this.fastPropertyInvokerResolved) {
+			this.fastPropertyInvoker = FastPropertyInvoker.forClass(getBeanClass());
+			this.fastPropertyInvokerResolved = true;
+		}
+		return this.fastPropertyInvoker;
+	}
+
 }
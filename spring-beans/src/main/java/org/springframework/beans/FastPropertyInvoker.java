@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cglib.core.SpringNamingPolicy;
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.lang.Nullable;
+
+/**
+ * Internal helper that invokes the accessor methods of a bean class through
+ * a generated CGLIB {@link FastClass} instead of through reflection.
+ * Not intended for direct use by application code.
+ *
+ * <p>Instances are cached per bean class by {@link CachedIntrospectionResults}.
+ * Methods which the generated class cannot dispatch to (e.g. non-public methods)
+ * are reported with an index of -1, for the caller to fall back to reflection.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see CachedIntrospectionResults#GENERATE_ACCESSORS_PROPERTY_NAME
+ */
+final class FastPropertyInvoker {
+
+	private static final Log logger = LogFactory.getLog(FastPropertyInvoker.class);
+
+	private final FastClass fastClass;
+
+	/** Method index in the generated class, keyed by accessor method. */
+	private final ConcurrentMap<Method, Integer> methodIndexCache = new ConcurrentHashMap<>(16);
+
+
+	private FastPropertyInvoker(FastClass fastClass) {
+		this.fastClass = fastClass;
+	}
+
+
+	/**
+	 * Return the index of the given method in the generated class.
+	 * @param method the accessor method
+	 * @return the method index, or -1 if the method needs to be invoked through reflection
+	 */
+	int getIndex(Method method) {
+		Integer index = this.methodIndexCache.get(method);
+		if (index == null) {
+			index = (Modifier.isPublic(method.getModifiers()) ?
+					this.fastClass.getIndex(method.getName(), method.getParameterTypes()) : -1);
+			this.methodIndexCache.put(method, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Invoke the method with the given index on the given target.
+	 * @param index the method index, as returned by {@link #getIndex(Method)}
+	 * @param target the target instance
+	 * @param args the method arguments
+	 * @return the method's return value
+	 * @throws InvocationTargetException if the method threw an exception
+	 */
+	@Nullable
+	Object invoke(int index, Object target, Object... args) throws InvocationTargetException {
+		return this.fastClass.invoke(index, target, args);
+	}
+
+
+	/**
+	 * Generate a {@code FastPropertyInvoker} for the given bean class, if possible.
+	 * @param beanClass the bean class to generate an invoker for
+	 * @return the invoker, or {@code null} if no class can be generated for the bean class
+	 * (e.g. for a class loaded by the bootstrap ClassLoader)
+	 */
+	@Nullable
+	static FastPropertyInvoker forClass(Class<?> beanClass) {
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (classLoader == null || !Modifier.isPublic(beanClass.getModifiers())) {
+			return null;
+		}
+		try {
+			FastClass.Generator generator = new FastClass.Generator();
+			generator.setType(beanClass);
+			generator.setContextClass(beanClass);
+			generator.setClassLoader(classLoader);
+			generator.setNamingPolicy(SpringNamingPolicy.INSTANCE);
+			return new FastPropertyInvoker(generator.create());
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not generate property accessors for class [" + beanClass.getName() +
+						"] - falling back to reflection: " + ex);
+			}
+			return null;
+		}
+	}
+
+}
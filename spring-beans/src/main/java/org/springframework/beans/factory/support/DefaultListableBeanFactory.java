@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -40,11 +41,16 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -66,9 +72,12 @@ import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
 import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
@@ -146,6 +155,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether to allow eager class loading even for lazy-init beans. */
 	private boolean allowEagerClassLoading = true;
 
+	/** Maximum number of threads for pre-instantiating singletons. */
+	private int preInstantiationParallelism = 1;
+
 	/** Optional OrderComparator for dependency Lists and arrays. */
 	@Nullable
 	private Comparator<Object> dependencyComparator;
@@ -263,6 +275,46 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.allowEagerClassLoading;
 	}
 
+	/**
+	 * Set the maximum number of threads to use for pre-instantiating singletons
+	 * in {@link #preInstantiateSingletons()}.
+	 * <p>Default is 1, creating all non-lazy singletons sequentially on the calling
+	 * thread. A higher value groups the singletons into independent subtrees based
+	 * on the dependencies declared in their bean definitions (depends-on, bean
+	 * references, factory beans) and instantiates those subtrees in parallel on a
+	 * {@link ForkJoinPool} of the given size, with the beans of each subtree being
+	 * created in registration order. {@link SmartInitializingSingleton} callbacks
+	 * are still invoked on the calling thread, in registration order, once all
+	 * singletons have been created.
+	 * <p>This is only effective for factories whose bean definitions declare their
+	 * dependencies explicitly, e.g. through XML bean definitions or programmatic
+	 * registration. Singletons which are autowired by name, by type or through
+	 * their constructor or factory method are created sequentially on the calling
+	 * thread before any other singleton, since the grouping cannot take their
+	 * dependencies into account. If any {@link InstantiationAwareBeanPostProcessor}
+	 * is registered, dependencies may be injected into any bean, so all singletons
+	 * are created sequentially: this is always the case in annotation-driven
+	 * application contexts (e.g. with {@code <context:annotation-config/>} or
+	 * {@code AnnotationConfigApplicationContext}), which register such
+	 * post-processors for {@code @Autowired} and {@code @Resource} injection.
+	 * <p>Turn this on only if the singleton beans in this factory (in particular,
+	 * their init methods and post-processors) are safe to create concurrently.
+	 * @param preInstantiationParallelism the maximum number of threads (at least 1)
+	 * @since 5.1.5
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be greater than 0");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the maximum number of threads to use for pre-instantiating singletons.
+	 * @since 5.1.5
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
 	/**
 	 * Set a {@link java.util.Comparator} for dependency Lists and arrays.
 	 * @since 4.0
@@ -318,6 +370,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			DefaultListableBeanFactory otherListableFactory = (DefaultListableBeanFactory) otherFactory;
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(BeanUtils.instantiateClass(getAutowireCandidateResolver().getClass()));
@@ -826,33 +879,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 
 		// 遍历所有扫描出来的BeanDefinition对象
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			// 各种验证
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					// 这里只关心Z的实例化过程, 当Spring开始实例化Z的时候才进入断点
-					getBean(beanName);
-				}
+		if (this.preInstantiationParallelism > 1) {
+			preInstantiateSingletonsInParallel(beanNames);
+		}
+		else {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
 			}
 		}
 
@@ -874,6 +906,224 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	/**
+	 * Pre-instantiate the given bean if it is a non-lazy singleton,
+	 * also initializing an eager-init {@link SmartFactoryBean} object.
+	 * @param beanName the name of the bean
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		// 各种验证
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			if (isFactoryBean(beanName)) {
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					final FactoryBean<?> factory = (FactoryBean<?>) bean;
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+										((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			}
+			else {
+				// 这里只关心Z的实例化过程, 当Spring开始实例化Z的时候才进入断点
+				getBean(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Pre-instantiate the given singletons in parallel, creating each group of
+	 * {@link #determineIndependentSingletons interdependent singletons} on a
+	 * thread of a {@link ForkJoinPool} bounded by the configured parallelism.
+	 * @param beanNames the names of all beans in registration order
+	 * @see #setPreInstantiationParallelism
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames) {
+		if (hasInstantiationAwareBeanPostProcessors()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Pre-instantiating singletons sequentially since dependencies may be injected " +
+						"by InstantiationAwareBeanPostProcessors in " + this);
+			}
+			beanNames.forEach(this::preInstantiateSingleton);
+			return;
+		}
+		// Singletons with undeclared dependencies first, in registration order on the calling thread
+		List<String> independentNames = new ArrayList<>(beanNames.size());
+		for (String beanName : beanNames) {
+			if (getMergedLocalBeanDefinition(beanName).getResolvedAutowireMode() != AUTOWIRE_NO) {
+				preInstantiateSingleton(beanName);
+			}
+			else {
+				independentNames.add(beanName);
+			}
+		}
+		List<List<String>> groups = determineIndependentSingletons(independentNames);
+		if (groups.size() < 2) {
+			for (List<String> group : groups) {
+				group.forEach(this::preInstantiateSingleton);
+			}
+			return;
+		}
+		int parallelism = Math.min(this.preInstantiationParallelism, groups.size());
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiating " + groups.size() + " independent groups of singletons with " +
+					parallelism + " threads in " + this);
+		}
+		ClassLoader beanClassLoader = getBeanClassLoader();
+		ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			thread.setName("singleton-preinstantiation-" + thread.getPoolIndex());
+			thread.setContextClassLoader(beanClassLoader);
+			return thread;
+		}, null, false);
+		setParallelSingletonCreation(true);
+		try {
+			List<Future<?>> futures = new ArrayList<>(groups.size());
+			for (List<String> group : groups) {
+				futures.add(pool.submit(() -> group.forEach(this::preInstantiateSingleton)));
+			}
+			// Wait for all groups, even after a failure, before reporting the first failure
+			Throwable failure = null;
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				}
+				catch (ExecutionException ex) {
+					if (failure == null) {
+						failure = ex.getCause();
+					}
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					if (failure == null) {
+						failure = new BeanCreationException("Interrupted while pre-instantiating singletons");
+					}
+				}
+			}
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+		}
+		finally {
+			setParallelSingletonCreation(false);
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Group the non-lazy singletons among the given beans into independent subtrees:
+	 * singletons connected through dependencies declared in their bean definitions
+	 * end up in the same group. Dependencies only determined at creation time
+	 * (e.g. through autowiring) are not taken into account here: the given beans
+	 * are expected to have all of their dependencies declared.
+	 * @param beanNames the names of all beans in registration order
+	 * @return the groups of bean names, each in registration order
+	 */
+	private List<List<String>> determineIndependentSingletons(List<String> beanNames) {
+		Map<String, String> roots = new HashMap<>();
+		List<String> singletonNames = new ArrayList<>();
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				singletonNames.add(beanName);
+				Set<String> dependencies = new LinkedHashSet<>();
+				collectDependencies(bd, dependencies);
+				String[] registeredDependencies = getDependenciesForBean(beanName);
+				dependencies.addAll(Arrays.asList(registeredDependencies));
+				for (String dependency : dependencies) {
+					union(roots, beanName, transformedBeanName(dependency));
+				}
+			}
+		}
+		Map<String, List<String>> groups = new LinkedHashMap<>();
+		for (String beanName : singletonNames) {
+			groups.computeIfAbsent(findRoot(roots, beanName), root -> new ArrayList<>()).add(beanName);
+		}
+		return new ArrayList<>(groups.values());
+	}
+
+	private static String findRoot(Map<String, String> roots, String beanName) {
+		String root = beanName;
+		String parent = roots.get(root);
+		while (parent != null && !parent.equals(root)) {
+			root = parent;
+			parent = roots.get(root);
+		}
+		roots.put(beanName, root);
+		return root;
+	}
+
+	private static void union(Map<String, String> roots, String beanName, String dependency) {
+		String beanRoot = findRoot(roots, beanName);
+		String dependencyRoot = findRoot(roots, dependency);
+		if (!beanRoot.equals(dependencyRoot)) {
+			roots.put(dependencyRoot, beanRoot);
+		}
+	}
+
+	private void collectDependencies(BeanDefinition bd, Set<String> dependencies) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			dependencies.addAll(Arrays.asList(dependsOn));
+		}
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(bd.getFactoryBeanName());
+		}
+		if (bd.getParentName() != null) {
+			dependencies.add(bd.getParentName());
+		}
+		for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+			collectDependencies(pv.getValue(), dependencies);
+		}
+		for (ValueHolder valueHolder : bd.getConstructorArgumentValues().getIndexedArgumentValues().values()) {
+			collectDependencies(valueHolder.getValue(), dependencies);
+		}
+		for (ValueHolder valueHolder : bd.getConstructorArgumentValues().getGenericArgumentValues()) {
+			collectDependencies(valueHolder.getValue(), dependencies);
+		}
+	}
+
+	private void collectDependencies(@Nullable Object value, Set<String> dependencies) {
+		if (value instanceof BeanReference) {
+			dependencies.add(((BeanReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectDependencies(((BeanDefinitionHolder) value).getBeanDefinition(), dependencies);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectDependencies((BeanDefinition) value, dependencies);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectDependencies(element, dependencies);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectDependencies(entry.getKey(), dependencies);
+				collectDependencies(entry.getValue(), dependencies);
+			}
+		}
+		else if (value instanceof Object[]) {
+			for (Object element : (Object[]) value) {
+				collectDependencies(element, dependencies);
+			}
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
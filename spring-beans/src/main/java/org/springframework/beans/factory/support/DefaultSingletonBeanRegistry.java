@@ -122,6 +122,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Map between depending bean names: bean name to Set of bean names for the bean's dependencies. */
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<>(64);
 
+	/** Whether singletons may currently be created by several threads in parallel. */
+	private volatile boolean parallelSingletonCreation = false;
+
+	/** Threads creating singletons in parallel mode: bean name to creating thread. */
+	private final Map<String, Thread> singletonCreationThreads = new HashMap<>(16);
+
+	/** Threads waiting for singletons in parallel mode: waiting thread to bean name. */
+	private final Map<Thread, String> singletonsAwaitedByThread = new HashMap<>(16);
+
+	/** Suppressed Exceptions in parallel mode: creating thread to its suppressed Exceptions. */
+	private final Map<Thread, Set<Exception>> suppressedExceptionsByThread = new HashMap<>(16);
+
 
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
@@ -207,6 +219,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
 			synchronized (this.singletonObjects) {
+				if (this.parallelSingletonCreation &&
+						this.singletonCreationThreads.get(beanName) != Thread.currentThread()) {
+					// Early references are only exposed to the creating thread itself
+					return null;
+				}
 				singletonObject = this.earlySingletonObjects.get(beanName);
 				if (singletonObject == null && allowEarlyReference) {
 					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
@@ -231,6 +248,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.parallelSingletonCreation) {
+			return getSingletonInParallel(beanName, singletonFactory);
+		}
 		synchronized (this.singletonObjects) {
 			// getSingleton2 -1
 			/**
@@ -317,6 +337,163 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} for parallel singleton
+	 * creation: the singleton mutex is only held for registry state changes, not while
+	 * invoking the given factory. A thread requesting a singleton that another thread
+	 * is currently creating waits for that thread to complete it. A circular reference
+	 * between threads is resolved through an early singleton reference, as for a
+	 * circular reference within a single thread.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to lazily create the singleton with
+	 * @return the registered singleton object
+	 * @see #setParallelSingletonCreation
+	 */
+	private Object getSingletonInParallel(String beanName, ObjectFactory<?> singletonFactory) {
+		Thread currentThread = Thread.currentThread();
+		boolean recordSuppressedExceptions;
+		synchronized (this.singletonObjects) {
+			Object singletonObject = this.singletonObjects.get(beanName);
+			Thread creationThread = this.singletonCreationThreads.get(beanName);
+			while (singletonObject == null && creationThread != null && creationThread != currentThread) {
+				if (isWaitingForThread(creationThread, currentThread)) {
+					singletonObject = getEarlySingletonFromOtherThread(beanName);
+					if (singletonObject == null) {
+						throw new BeanCurrentlyInCreationException(beanName);
+					}
+					return singletonObject;
+				}
+				this.singletonsAwaitedByThread.put(currentThread, beanName);
+				try {
+					this.singletonObjects.wait();
+				}
+				catch (InterruptedException ex) {
+					currentThread.interrupt();
+					throw new BeanCreationException(beanName,
+							"Interrupted while waiting for singleton creation in thread '" + creationThread.getName() + "'");
+				}
+				finally {
+					this.singletonsAwaitedByThread.remove(currentThread);
+				}
+				singletonObject = this.singletonObjects.get(beanName);
+				creationThread = this.singletonCreationThreads.get(beanName);
+			}
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName +
+						"' in thread '" + currentThread.getName() + "'");
+			}
+			beforeSingletonCreation(beanName);
+			this.singletonCreationThreads.put(beanName, currentThread);
+			recordSuppressedExceptions = !this.suppressedExceptionsByThread.containsKey(currentThread);
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptionsByThread.put(currentThread, new LinkedHashSet<>());
+			}
+		}
+
+		Object singletonObject = null;
+		boolean newSingleton = false;
+		try {
+			singletonObject = singletonFactory.getObject();
+			newSingleton = true;
+		}
+		catch (IllegalStateException ex) {
+			// Has the singleton object implicitly appeared in the meantime ->
+			// if yes, proceed with it since the exception indicates that state.
+			singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				throw ex;
+			}
+		}
+		catch (BeanCreationException ex) {
+			if (recordSuppressedExceptions) {
+				synchronized (this.singletonObjects) {
+					for (Exception suppressedException : this.suppressedExceptionsByThread.get(currentThread)) {
+						ex.addRelatedCause(suppressedException);
+					}
+				}
+			}
+			throw ex;
+		}
+		finally {
+			synchronized (this.singletonObjects) {
+				if (recordSuppressedExceptions) {
+					this.suppressedExceptionsByThread.remove(currentThread);
+				}
+				if (newSingleton) {
+					addSingleton(beanName, singletonObject);
+				}
+				this.singletonCreationThreads.remove(beanName);
+				afterSingletonCreation(beanName);
+				this.singletonObjects.notifyAll();
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Determine whether the given creation thread is (transitively) waiting for
+	 * a singleton that the current thread is creating.
+	 * <p>To be called with the singleton mutex held.
+	 */
+	private boolean isWaitingForThread(Thread creationThread, Thread currentThread) {
+		Set<Thread> visited = new HashSet<>();
+		Thread thread = creationThread;
+		while (thread != null && visited.add(thread)) {
+			String awaitedBeanName = this.singletonsAwaitedByThread.get(thread);
+			if (awaitedBeanName == null) {
+				return false;
+			}
+			thread = this.singletonCreationThreads.get(awaitedBeanName);
+			if (thread == currentThread) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Obtain an early reference to a singleton that another thread is creating
+	 * and that is blocked on a singleton in creation by the current thread.
+	 * <p>To be called with the singleton mutex held.
+	 */
+	@Nullable
+	private Object getEarlySingletonFromOtherThread(String beanName) {
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject == null) {
+			ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory != null) {
+				singletonObject = singletonFactory.getObject();
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				this.singletonFactories.remove(beanName);
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Specify whether singletons may currently be created by several threads in parallel.
+	 * <p>While active, singleton creation no longer holds the {@link #getSingletonMutex()
+	 * singleton mutex} while invoking a singleton factory, so that independent singletons
+	 * can be created concurrently. Early references to singletons in creation are only
+	 * exposed to the creating thread, unless needed to resolve a circular reference
+	 * between threads. Only to be activated while no singleton creation is in progress.
+	 * @since 5.1.5
+	 * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+	 */
+	protected void setParallelSingletonCreation(boolean parallelSingletonCreation) {
+		synchronized (this.singletonObjects) {
+			this.parallelSingletonCreation = parallelSingletonCreation;
+		}
+	}
+
 	/**
 	 * Register an Exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
@@ -324,8 +501,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	protected void onSuppressedException(Exception ex) {
 		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
+			Set<Exception> suppressedExceptions = (this.parallelSingletonCreation ?
+					this.suppressedExceptionsByThread.get(Thread.currentThread()) : this.suppressedExceptions);
+			if (suppressedExceptions != null) {
+				suppressedExceptions.add(ex);
 			}
 		}
 	}
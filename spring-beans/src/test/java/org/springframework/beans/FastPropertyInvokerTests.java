@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link FastPropertyInvoker}.
+ *
+ * @author Nico Yates
+ */
+public class FastPropertyInvokerTests {
+
+	@Test
+	public void invokeAccessors() throws Exception {
+		FastPropertyInvoker invoker = FastPropertyInvoker.forClass(TestBean.class);
+		assertNotNull(invoker);
+		TestBean tb = new TestBean();
+
+		int setterIndex = invoker.getIndex(TestBean.class.getMethod("setName", String.class));
+		int getterIndex = invoker.getIndex(TestBean.class.getMethod("getName"));
+		assertTrue(setterIndex >= 0);
+		assertTrue(getterIndex >= 0);
+		invoker.invoke(setterIndex, tb, "juergen");
+		assertEquals("juergen", tb.getName());
+		assertEquals("juergen", invoker.invoke(getterIndex, tb));
+
+		int ageIndex = invoker.getIndex(TestBean.class.getMethod("setAge", int.class));
+		invoker.invoke(ageIndex, tb, 42);
+		assertEquals(42, tb.getAge());
+	}
+
+	@Test
+	public void nonPublicMethodNotSupported() throws Exception {
+		FastPropertyInvoker invoker = FastPropertyInvoker.forClass(AccessorBean.class);
+		assertNotNull(invoker);
+		Method method = AccessorBean.class.getDeclaredMethod("setHidden", String.class);
+		assertEquals(-1, invoker.getIndex(method));
+	}
+
+	@Test
+	public void exceptionWrappedInInvocationTargetException() throws Exception {
+		FastPropertyInvoker invoker = FastPropertyInvoker.forClass(AccessorBean.class);
+		assertNotNull(invoker);
+		int index = invoker.getIndex(AccessorBean.class.getMethod("setFailing", String.class));
+		try {
+			invoker.invoke(index, new AccessorBean(), "value");
+			fail("Should have thrown InvocationTargetException");
+		}
+		catch (InvocationTargetException ex) {
+			assertTrue(ex.getTargetException() instanceof IllegalArgumentException);
+		}
+	}
+
+	@Test
+	public void noInvokerForBootstrapOrNonPublicClass() {
+		assertNull(FastPropertyInvoker.forClass(StringBuilder.class));
+		assertNull(FastPropertyInvoker.forClass(NonPublicBean.class));
+	}
+
+
+	public static class AccessorBean {
+
+		void setHidden(String hidden) {
+		}
+
+		public void setFailing(String failing) {
+			throw new IllegalArgumentException(failing);
+		}
+	}
+
+
+	static class NonPublicBean {
+
+		public void setName(String name) {
+		}
+	}
+
+}
@@ -2393,6 +2393,28 @@ public class DefaultListableBeanFactoryTests {
 		assertNotSame(val1, val2);
 	}
 
+	@Test
+	public void testPrototypeCreationReflectsBeanPostProcessorListChanges() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		lbf.registerBeanDefinition("test", bd);
+		TestBean shortcut = new TestBean("shortcut");
+		BeanPostProcessor bpp = new InstantiationAwareBeanPostProcessorAdapter() {
+			@Override
+			public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+				return shortcut;
+			}
+		};
+		lbf.getBeanPostProcessors().add(bpp);
+		assertSame(shortcut, lbf.getBean("test"));
+		assertSame(shortcut, lbf.getBean("test"));
+
+		lbf.getBeanPostProcessors().remove(bpp);
+		assertNotSame(shortcut, lbf.getBean("test"));
+		assertEquals(0, lbf.getBeanPostProcessorCount());
+	}
+
 	@Test
 	public void testPrototypeWithArrayConversionForConstructor() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
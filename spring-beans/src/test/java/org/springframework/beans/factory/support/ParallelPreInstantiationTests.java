@@ -0,0 +1,270 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for parallel singleton pre-instantiation in {@link DefaultListableBeanFactory}.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+public class ParallelPreInstantiationTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private final List<String> events = new CopyOnWriteArrayList<>();
+
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidParallelism() {
+		this.beanFactory.setPreInstantiationParallelism(0);
+	}
+
+	@Test
+	public void independentSingletonsCreatedConcurrently() {
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		this.beanFactory.registerBeanDefinition("a", new RootBeanDefinition(Object.class, () -> awaitAndRecord(barrier, "a")));
+		this.beanFactory.registerBeanDefinition("b", new RootBeanDefinition(Object.class, () -> awaitAndRecord(barrier, "b")));
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertEquals(2, this.events.size());
+		assertTrue(this.beanFactory.containsSingleton("a"));
+		assertTrue(this.beanFactory.containsSingleton("b"));
+		assertEquals(0, barrier.getNumberWaiting());
+	}
+
+	@Test
+	public void dependentSingletonsCreatedInOrderOnSameThread() {
+		RootBeanDefinition b = new RootBeanDefinition(Object.class, () -> record("b"));
+		b.setDependsOn("a");
+		RootBeanDefinition c = new RootBeanDefinition(TestHolder.class, () -> {
+			record("c");
+			return new TestHolder();
+		});
+		c.getPropertyValues().add("value", new RuntimeBeanReference("b"));
+		this.beanFactory.registerBeanDefinition("c", c);
+		this.beanFactory.registerBeanDefinition("b", b);
+		this.beanFactory.registerBeanDefinition("a", new RootBeanDefinition(Object.class, () -> record("a")));
+		this.beanFactory.registerBeanDefinition("x", new RootBeanDefinition(Object.class, () -> record("x")));
+		this.beanFactory.setPreInstantiationParallelism(4);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertEquals(4, this.events.size());
+		assertTrue(indexOf("c") < indexOf("b"));
+		assertTrue(indexOf("a") < indexOf("b"));
+		assertEquals(threadOf(indexOf("a")), threadOf(indexOf("b")));
+		assertEquals(threadOf(indexOf("a")), threadOf(indexOf("c")));
+		assertSame(this.beanFactory.getBean("b"), this.beanFactory.getBean("c", TestHolder.class).getValue());
+	}
+
+	@Test
+	public void autowiredSingletonsCreatedSequentiallyFirst() {
+		RootBeanDefinition a = new RootBeanDefinition(CircularA.class, () -> new CircularA(record("a")));
+		a.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		RootBeanDefinition b = new RootBeanDefinition(CircularB.class, () -> new CircularB(record("b")));
+		b.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		this.beanFactory.registerBeanDefinition("x", new RootBeanDefinition(Object.class, () -> record("x")));
+		this.beanFactory.registerBeanDefinition("a", a);
+		this.beanFactory.registerBeanDefinition("b", b);
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertEquals(3, this.events.size());
+		assertEquals(0, indexOf("a"));
+		assertEquals(1, indexOf("b"));
+		assertEquals(Thread.currentThread().getName(), threadOf(0));
+		assertEquals(Thread.currentThread().getName(), threadOf(1));
+		CircularA beanA = this.beanFactory.getBean(CircularA.class);
+		CircularB beanB = this.beanFactory.getBean(CircularB.class);
+		assertSame(beanB, beanA.getB());
+		assertSame(beanA, beanB.getA());
+	}
+
+	@Test
+	public void allSingletonsCreatedSequentiallyWithInstantiationAwareBeanPostProcessor() {
+		this.beanFactory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessorAdapter() {
+		});
+		this.beanFactory.registerBeanDefinition("a", new RootBeanDefinition(Object.class, () -> record("a")));
+		this.beanFactory.registerBeanDefinition("b", new RootBeanDefinition(Object.class, () -> record("b")));
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertEquals(2, this.events.size());
+		assertEquals(0, indexOf("a"));
+		assertEquals(Thread.currentThread().getName(), threadOf(0));
+		assertEquals(Thread.currentThread().getName(), threadOf(1));
+	}
+
+	@Test
+	public void creationFailurePropagated() {
+		this.beanFactory.registerBeanDefinition("a", new RootBeanDefinition(Object.class, () -> record("a")));
+		this.beanFactory.registerBeanDefinition("b", new RootBeanDefinition(Object.class, () -> {
+			throw new IllegalArgumentException("b");
+		}));
+		this.beanFactory.setPreInstantiationParallelism(2);
+		try {
+			this.beanFactory.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("b", ex.getBeanName());
+		}
+		assertTrue(this.beanFactory.containsSingleton("a"));
+		assertFalse(this.beanFactory.containsSingleton("b"));
+	}
+
+	@Test
+	public void suppressedExceptionsRecordedAsRelatedCauses() {
+		RootBeanDefinition a = new RootBeanDefinition(NumberHolder.class);
+		a.getConstructorArgumentValues().addGenericArgumentValue("not a number");
+		this.beanFactory.registerBeanDefinition("a", a);
+		this.beanFactory.registerBeanDefinition("b", new RootBeanDefinition(Object.class, () -> record("b")));
+		this.beanFactory.setPreInstantiationParallelism(2);
+		try {
+			this.beanFactory.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("a", ex.getBeanName());
+			assertNotNull(ex.getRelatedCauses());
+			assertEquals(1, ex.getRelatedCauses().length);
+		}
+	}
+
+	@Test
+	public void smartInitializingSingletonsInvokedAfterAllSingletons() {
+		this.beanFactory.registerBeanDefinition("a", new RootBeanDefinition(SmartInitializingSingleton.class,
+				() -> () -> record("callback")));
+		this.beanFactory.registerBeanDefinition("b", new RootBeanDefinition(Object.class, () -> record("b")));
+		this.beanFactory.registerBeanDefinition("c", new RootBeanDefinition(Object.class, () -> record("c")));
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertEquals(3, this.events.size());
+		assertEquals(2, indexOf("callback"));
+		assertEquals(Thread.currentThread().getName(), threadOf(2));
+	}
+
+
+	private Object awaitAndRecord(CyclicBarrier barrier, String name) {
+		await(barrier);
+		return record(name);
+	}
+
+	private Object record(String name) {
+		this.events.add(name + "@" + Thread.currentThread().getName());
+		return new Object();
+	}
+
+	private int indexOf(String name) {
+		for (int i = 0; i < this.events.size(); i++) {
+			if (this.events.get(i).startsWith(name + "@")) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private String threadOf(int index) {
+		String event = this.events.get(index);
+		return event.substring(event.indexOf('@') + 1);
+	}
+
+
+	private static void await(CyclicBarrier barrier) {
+		try {
+			barrier.await(10, TimeUnit.SECONDS);
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException("Singletons not created concurrently", ex);
+		}
+	}
+
+
+	public static class TestHolder {
+
+		private Object value;
+
+		public Object getValue() {
+			return this.value;
+		}
+
+		public void setValue(Object value) {
+			this.value = value;
+		}
+	}
+
+
+	public static class NumberHolder {
+
+		public NumberHolder(Integer value) {
+		}
+
+		public NumberHolder(Long value) {
+		}
+	}
+
+
+	public static class CircularA {
+
+		private CircularB b;
+
+		public CircularA(Object marker) {
+		}
+
+		public CircularB getB() {
+			return this.b;
+		}
+
+		public void setB(CircularB b) {
+			this.b = b;
+		}
+	}
+
+
+	public static class CircularB {
+
+		private CircularA a;
+
+		public CircularB(Object marker) {
+		}
+
+		public CircularA getA() {
+			return this.a;
+		}
+
+		public void setA(CircularA a) {
+			this.a = a;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,10 @@ import javax.lang.model.element.TypeElement;
  * Annotation {@link Processor} that writes {@link CandidateComponentsMetadata}
  * file for spring components.
  *
+ * <p>As of 5.1.5, the structure of each candidate type and of its member types
+ * is also recorded (see {@link TypeMetadataEncoder}), allowing the metadata of
+ * indexed candidates to be resolved at runtime without reading their class files.
+ *
  * @author Stephane Nicoll
  * @author Juergen Hoeller
  * @since 5.0
@@ -54,6 +58,8 @@ public class CandidateComponentsIndexer implements Processor {
 
 	private TypeHelper typeHelper;
 
+	private TypeMetadataEncoder typeMetadataEncoder;
+
 	private List<StereotypesProvider> stereotypesProviders;
 
 
@@ -76,6 +82,7 @@ public class CandidateComponentsIndexer implements Processor {
 	public synchronized void init(ProcessingEnvironment env) {
 		this.stereotypesProviders = getStereotypesProviders(env);
 		this.typeHelper = new TypeHelper(env);
+		this.typeMetadataEncoder = new TypeMetadataEncoder(env);
 		this.metadataStore = new MetadataStore(env);
 		this.metadataCollector = new MetadataCollector(env, this.metadataStore.readMetadata());
 	}
@@ -117,9 +124,22 @@ public class CandidateComponentsIndexer implements Processor {
 		this.stereotypesProviders.forEach(p -> stereotypes.addAll(p.getStereotypes(element)));
 		if (!stereotypes.isEmpty()) {
 			this.metadataCollector.add(new ItemMetadata(this.typeHelper.getType(element), stereotypes));
+			if (element instanceof TypeElement) {
+				addTypeMetadataFor((TypeElement) element);
+				for (Element enclosedElement : element.getEnclosedElements()) {
+					if (enclosedElement instanceof TypeElement) {
+						addTypeMetadataFor((TypeElement) enclosedElement);
+					}
+				}
+			}
 		}
 	}
 
+	private void addTypeMetadataFor(TypeElement type) {
+		this.metadataCollector.addTypeMetadata(
+				this.typeMetadataEncoder.getBinaryName(type), this.typeMetadataEncoder.encode(type));
+	}
+
 	private void writeMetaData() {
 		CandidateComponentsMetadata metadata = this.metadataCollector.getMetadata();
 		if (!metadata.getItems().isEmpty()) {
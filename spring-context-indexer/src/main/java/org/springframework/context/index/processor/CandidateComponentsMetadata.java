@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,9 @@ package org.springframework.context.index.processor;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Meta-data for candidate components.
@@ -30,9 +32,12 @@ class CandidateComponentsMetadata {
 
 	private final List<ItemMetadata> items;
 
+	private final Map<String, String> typeMetadata;
+
 
 	public CandidateComponentsMetadata() {
 		this.items = new ArrayList<>();
+		this.typeMetadata = new LinkedHashMap<>();
 	}
 
 
@@ -44,9 +49,28 @@ class CandidateComponentsMetadata {
 		return Collections.unmodifiableList(this.items);
 	}
 
+	/**
+	 * Register the encoded metadata of the specified type, unless metadata
+	 * has already been registered for it.
+	 * @since 5.1.5
+	 * @see TypeMetadataEncoder
+	 */
+	public void addTypeMetadata(String type, String metadata) {
+		this.typeMetadata.putIfAbsent(type, metadata);
+	}
+
+	/**
+	 * Return the encoded metadata of the types, keyed by binary type name.
+	 * @since 5.1.5
+	 */
+	public Map<String, String> getTypeMetadata() {
+		return Collections.unmodifiableMap(this.typeMetadata);
+	}
+
 	@Override
 	public String toString() {
-		return "CandidateComponentsMetadata{" + "items=" + this.items + '}';
+		return "CandidateComponentsMetadata{" + "items=" + this.items +
+				", typeMetadata=" + this.typeMetadata.keySet() + '}';
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,9 @@ package org.springframework.context.index.processor;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
@@ -35,6 +37,8 @@ class MetadataCollector {
 
 	private final List<ItemMetadata> metadataItems = new ArrayList<>();
 
+	private final Map<String, String> typeMetadata = new LinkedHashMap<>();
+
 	private final ProcessingEnvironment processingEnvironment;
 
 	private final CandidateComponentsMetadata previousMetadata;
@@ -74,11 +78,16 @@ class MetadataCollector {
 		this.metadataItems.add(metadata);
 	}
 
+	public void addTypeMetadata(String type, String metadata) {
+		this.typeMetadata.put(type, metadata);
+	}
+
 	public CandidateComponentsMetadata getMetadata() {
 		CandidateComponentsMetadata metadata = new CandidateComponentsMetadata();
 		for (ItemMetadata item : this.metadataItems) {
 			metadata.add(item);
 		}
+		this.typeMetadata.forEach(metadata::addTypeMetadata);
 		if (this.previousMetadata != null) {
 			List<ItemMetadata> items = this.previousMetadata.getItems();
 			for (ItemMetadata item : items) {
@@ -86,12 +95,23 @@ class MetadataCollector {
 					metadata.add(item);
 				}
 			}
+			this.previousMetadata.getTypeMetadata().forEach((type, value) -> {
+				// Nested types are described along with their top-level type
+				int nestedIndex = type.indexOf('$');
+				String sourceType = (nestedIndex != -1 ? type.substring(0, nestedIndex) : type);
+				if (shouldBeMerged(sourceType) && !deletedInCurrentBuild(type.replace('$', '.'))) {
+					metadata.addTypeMetadata(type, value);
+				}
+			});
 		}
 		return metadata;
 	}
 
 	private boolean shouldBeMerged(ItemMetadata itemMetadata) {
-		String sourceType = itemMetadata.getType();
+		return shouldBeMerged(itemMetadata.getType());
+	}
+
+	private boolean shouldBeMerged(String sourceType) {
 		return (sourceType != null && !deletedInCurrentBuild(sourceType)
 				&& !processedInCurrentBuild(sourceType));
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -49,4 +49,24 @@ abstract class PropertiesMarshaller {
 		return result;
 	}
 
+	/**
+	 * Write the type metadata of the specified {@link CandidateComponentsMetadata}.
+	 * @since 5.1.5
+	 */
+	public static void writeTypeMetadata(CandidateComponentsMetadata metadata, OutputStream out) throws IOException {
+		Properties props = new Properties();
+		props.putAll(metadata.getTypeMetadata());
+		props.store(out, "");
+	}
+
+	/**
+	 * Read type metadata into the specified {@link CandidateComponentsMetadata}.
+	 * @since 5.1.5
+	 */
+	public static void readTypeMetadata(CandidateComponentsMetadata metadata, InputStream in) throws IOException {
+		Properties props = new Properties();
+		props.load(in);
+		props.forEach((type, value) -> metadata.addTypeMetadata((String) type, (String) value));
+	}
+
 }
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Encode the structure of a type, as seen by a class file reader, into the
+ * single-line representation stored in {@value MetadataStore#TYPE_METADATA_PATH}.
+ *
+ * <p>The representation is a sequence of space-separated tokens that mirrors
+ * the events of a class file visitor: the type header, its annotations (with
+ * explicitly declared attribute values only), its inner class entries and its
+ * annotated methods. Annotations with {@code SOURCE} retention are not part of
+ * the class file and are therefore skipped.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+class TypeMetadataEncoder {
+
+	private static final int ACC_PUBLIC = 0x0001;
+
+	private static final int ACC_PRIVATE = 0x0002;
+
+	private static final int ACC_PROTECTED = 0x0004;
+
+	private static final int ACC_STATIC = 0x0008;
+
+	private static final int ACC_FINAL = 0x0010;
+
+	private static final int ACC_INTERFACE = 0x0200;
+
+	private static final int ACC_ABSTRACT = 0x0400;
+
+	private static final int ACC_ANNOTATION = 0x2000;
+
+	private static final int ACC_ENUM = 0x4000;
+
+	private static final String NONE = "-";
+
+
+	private final Elements elements;
+
+	private final Types types;
+
+
+	public TypeMetadataEncoder(ProcessingEnvironment env) {
+		this.elements = env.getElementUtils();
+		this.types = env.getTypeUtils();
+	}
+
+
+	/**
+	 * Return the binary name of the specified type, as used as key of the
+	 * encoded metadata.
+	 */
+	public String getBinaryName(TypeElement type) {
+		return this.elements.getBinaryName(type).toString();
+	}
+
+	/**
+	 * Encode the specified type.
+	 */
+	public String encode(TypeElement type) {
+		List<String> tokens = new ArrayList<>();
+		tokens.add("C");
+		tokens.add(String.valueOf(getAccess(type)));
+		tokens.add(getInternalName(type));
+		TypeMirror superclass = type.getSuperclass();
+		tokens.add(superclass.getKind() == TypeKind.DECLARED ? getInternalName(superclass) : NONE);
+		List<? extends TypeMirror> interfaces = type.getInterfaces();
+		tokens.add(String.valueOf(interfaces.size()));
+		for (TypeMirror ifc : interfaces) {
+			tokens.add(getInternalName(ifc));
+		}
+		for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+			addAnnotation(tokens, null, annotation);
+		}
+		if (type.getNestingKind() == NestingKind.MEMBER) {
+			addInnerClass(tokens, type);
+		}
+		for (Element element : type.getEnclosedElements()) {
+			if (element instanceof TypeElement) {
+				addInnerClass(tokens, (TypeElement) element);
+			}
+		}
+		for (Element element : type.getEnclosedElements()) {
+			if (element.getKind() == ElementKind.METHOD) {
+				addMethod(tokens, (ExecutableElement) element);
+			}
+		}
+		StringBuilder result = new StringBuilder();
+		for (String token : tokens) {
+			if (result.length() > 0) {
+				result.append(' ');
+			}
+			result.append(escape(token));
+		}
+		return result.toString();
+	}
+
+	private void addInnerClass(List<String> tokens, TypeElement type) {
+		tokens.add("I");
+		tokens.add(getInternalName(type));
+		tokens.add(getInternalName((TypeElement) type.getEnclosingElement()));
+		tokens.add(type.getSimpleName().toString());
+		tokens.add(String.valueOf(getAccess(type)));
+	}
+
+	private void addMethod(List<String> tokens, ExecutableElement method) {
+		List<AnnotationMirror> annotations = new ArrayList<>();
+		for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+			if (isRetained(annotation)) {
+				annotations.add(annotation);
+			}
+		}
+		if (annotations.isEmpty()) {
+			return;
+		}
+		tokens.add("M");
+		tokens.add(String.valueOf(getAccess(method.getModifiers())));
+		tokens.add(method.getSimpleName().toString());
+		StringBuilder descriptor = new StringBuilder("(");
+		for (VariableElement parameter : method.getParameters()) {
+			descriptor.append(getDescriptor(parameter.asType()));
+		}
+		descriptor.append(')').append(getDescriptor(method.getReturnType()));
+		tokens.add(descriptor.toString());
+		for (AnnotationMirror annotation : annotations) {
+			addAnnotation(tokens, null, annotation);
+		}
+		tokens.add("E");
+	}
+
+	private void addAnnotation(List<String> tokens, String name, AnnotationMirror annotation) {
+		if (name == null && !isRetained(annotation)) {
+			return;
+		}
+		tokens.add("A");
+		if (name != null) {
+			tokens.add(name);
+		}
+		tokens.add(getDescriptor(annotation.getAnnotationType()));
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+				annotation.getElementValues().entrySet()) {
+			addValue(tokens, entry.getKey().getSimpleName().toString(),
+					entry.getKey().getReturnType(), entry.getValue().getValue());
+		}
+		tokens.add("E");
+	}
+
+	private void addValue(List<String> tokens, String name, TypeMirror type, Object value) {
+		if (value instanceof AnnotationMirror) {
+			addAnnotation(tokens, name, (AnnotationMirror) value);
+		}
+		else if (value instanceof VariableElement) {
+			VariableElement constant = (VariableElement) value;
+			tokens.add("N");
+			tokens.add(name);
+			tokens.add(getDescriptor(constant.getEnclosingElement().asType()));
+			tokens.add(constant.getSimpleName().toString());
+		}
+		else if (value instanceof List) {
+			List<?> values = (List<?>) value;
+			TypeMirror componentType = (type.getKind() == TypeKind.ARRAY ?
+					((ArrayType) type).getComponentType() : type);
+			if (componentType.getKind().isPrimitive()) {
+				StringBuilder literal = new StringBuilder("[").append(getDescriptor(componentType));
+				for (int i = 0; i < values.size(); i++) {
+					literal.append(i > 0 ? "," : "").append(getLiteral(((AnnotationValue) values.get(i)).getValue()));
+				}
+				tokens.add("V");
+				tokens.add(name);
+				tokens.add(literal.toString());
+			}
+			else {
+				tokens.add("[");
+				tokens.add(name);
+				for (Object element : values) {
+					addValue(tokens, NONE, componentType, ((AnnotationValue) element).getValue());
+				}
+				tokens.add("E");
+			}
+		}
+		else {
+			tokens.add("V");
+			tokens.add(name);
+			tokens.add(getTag(value) + getLiteral(value));
+		}
+	}
+
+	private String getTag(Object value) {
+		if (value instanceof String) {
+			return "s";
+		}
+		if (value instanceof TypeMirror) {
+			return "T";
+		}
+		if (value instanceof Boolean) {
+			return "Z";
+		}
+		if (value instanceof Character) {
+			return "C";
+		}
+		if (value instanceof Byte) {
+			return "B";
+		}
+		if (value instanceof Short) {
+			return "S";
+		}
+		if (value instanceof Integer) {
+			return "I";
+		}
+		if (value instanceof Long) {
+			return "J";
+		}
+		if (value instanceof Float) {
+			return "F";
+		}
+		if (value instanceof Double) {
+			return "D";
+		}
+		throw new IllegalArgumentException("Unsupported annotation value " + value);
+	}
+
+	private String getLiteral(Object value) {
+		if (value instanceof TypeMirror) {
+			return getDescriptor((TypeMirror) value);
+		}
+		if (value instanceof Character) {
+			return String.valueOf((int) (Character) value);
+		}
+		return String.valueOf(value);
+	}
+
+	private boolean isRetained(AnnotationMirror annotation) {
+		Retention retention = annotation.getAnnotationType().asElement().getAnnotation(Retention.class);
+		return (retention == null || retention.value() != RetentionPolicy.SOURCE);
+	}
+
+	private int getAccess(TypeElement type) {
+		int access = getAccess(type.getModifiers());
+		switch (type.getKind()) {
+			case ANNOTATION_TYPE:
+				return access | ACC_ANNOTATION | ACC_INTERFACE | ACC_ABSTRACT;
+			case INTERFACE:
+				return access | ACC_INTERFACE | ACC_ABSTRACT;
+			case ENUM:
+				return access | ACC_ENUM;
+			default:
+				return access;
+		}
+	}
+
+	private int getAccess(Set<Modifier> modifiers) {
+		int access = 0;
+		access |= (modifiers.contains(Modifier.PUBLIC) ? ACC_PUBLIC : 0);
+		access |= (modifiers.contains(Modifier.PRIVATE) ? ACC_PRIVATE : 0);
+		access |= (modifiers.contains(Modifier.PROTECTED) ? ACC_PROTECTED : 0);
+		access |= (modifiers.contains(Modifier.STATIC) ? ACC_STATIC : 0);
+		access |= (modifiers.contains(Modifier.FINAL) ? ACC_FINAL : 0);
+		access |= (modifiers.contains(Modifier.ABSTRACT) ? ACC_ABSTRACT : 0);
+		return access;
+	}
+
+	private String getInternalName(TypeMirror type) {
+		return getInternalName((TypeElement) this.types.asElement(type));
+	}
+
+	private String getInternalName(TypeElement type) {
+		return getBinaryName(type).replace('.', '/');
+	}
+
+	private String getDescriptor(TypeMirror type) {
+		switch (type.getKind()) {
+			case BOOLEAN:
+				return "Z";
+			case BYTE:
+				return "B";
+			case SHORT:
+				return "S";
+			case INT:
+				return "I";
+			case LONG:
+				return "J";
+			case CHAR:
+				return "C";
+			case FLOAT:
+				return "F";
+			case DOUBLE:
+				return "D";
+			case VOID:
+				return "V";
+			case ARRAY:
+				return "[" + getDescriptor(((ArrayType) type).getComponentType());
+			case DECLARED:
+				return "L" + getInternalName(type) + ";";
+			default:
+				TypeMirror erasure = this.types.erasure(type);
+				if (erasure.getKind() == type.getKind()) {
+					throw new IllegalArgumentException("Unsupported type " + type);
+				}
+				return getDescriptor(erasure);
+		}
+	}
+
+	private static String escape(String token) {
+		StringBuilder result = new StringBuilder(token.length());
+		for (int i = 0; i < token.length(); i++) {
+			char c = token.charAt(i);
+			if (c == '%' || c <= ' ') {
+				result.append('%').append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+			}
+			else {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+}
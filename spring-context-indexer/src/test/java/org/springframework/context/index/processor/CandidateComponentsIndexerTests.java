@@ -19,6 +19,10 @@ package org.springframework.context.index.processor;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.HashSet;
 import javax.annotation.ManagedBean;
 import javax.inject.Named;
 import javax.persistence.Converter;
@@ -32,9 +36,12 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
 import org.springframework.context.index.sample.AbstractController;
 import org.springframework.context.index.sample.MetaControllerIndexed;
 import org.springframework.context.index.sample.SampleComponent;
+import org.springframework.context.index.sample.SampleConfiguration;
 import org.springframework.context.index.sample.SampleController;
 import org.springframework.context.index.sample.SampleMetaController;
 import org.springframework.context.index.sample.SampleMetaIndexedController;
@@ -56,6 +63,10 @@ import org.springframework.context.index.sample.type.SampleSpecializedRepo;
 import org.springframework.context.index.sample.type.SmartRepo;
 import org.springframework.context.index.sample.type.SpecializedRepo;
 import org.springframework.context.index.test.TestCompiler;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ClassUtils;
 
@@ -221,6 +232,78 @@ public class CandidateComponentsIndexerTests {
 		assertThat(metadata.getItems(), hasSize(0));
 	}
 
+	@Test
+	public void typeMetadataForCandidateAndMemberTypes() {
+		CandidateComponentsMetadata metadata = compile(SampleConfiguration.class);
+		assertThat(metadata.getTypeMetadata().keySet(), containsInAnyOrder(
+				SampleConfiguration.class.getName(),
+				SampleConfiguration.class.getName() + "$NestedConfiguration",
+				SampleConfiguration.class.getName() + "$Inner"));
+	}
+
+	@Test
+	public void typeMetadataNotRecordedForNonCandidates() {
+		CandidateComponentsMetadata metadata = compile(SampleNone.class);
+		assertThat(metadata.getTypeMetadata().keySet(), hasSize(0));
+	}
+
+	@Test
+	public void typeMetadataMatchesClassFile() throws IOException {
+		compile(SampleConfiguration.class);
+		URL outputUrl = this.compiler.getOutputLocation().toURI().toURL();
+		CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(
+				new URLClassLoader(new URL[] {outputUrl}, getClass().getClassLoader()));
+		assertNotNull(index);
+		SimpleMetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory(getClass().getClassLoader());
+		for (String type : Arrays.asList(SampleConfiguration.class.getName(),
+				SampleConfiguration.class.getName() + "$NestedConfiguration",
+				SampleConfiguration.class.getName() + "$Inner")) {
+			MetadataReader indexedReader = index.getMetadataReader(type);
+			assertNotNull(indexedReader);
+			assertEquivalent(metadataReaderFactory.getMetadataReader(type).getAnnotationMetadata(),
+					indexedReader.getAnnotationMetadata());
+		}
+	}
+
+	private void assertEquivalent(AnnotationMetadata expected, AnnotationMetadata actual) {
+		assertEquals(expected.getClassName(), actual.getClassName());
+		assertEquals(expected.isInterface(), actual.isInterface());
+		assertEquals(expected.isAbstract(), actual.isAbstract());
+		assertEquals(expected.isFinal(), actual.isFinal());
+		assertEquals(expected.isIndependent(), actual.isIndependent());
+		assertEquals(expected.getEnclosingClassName(), actual.getEnclosingClassName());
+		assertEquals(expected.getSuperClassName(), actual.getSuperClassName());
+		assertArrayEquals(expected.getInterfaceNames(), actual.getInterfaceNames());
+		assertEquals(new HashSet<>(Arrays.asList(expected.getMemberClassNames())),
+				new HashSet<>(Arrays.asList(actual.getMemberClassNames())));
+		assertEquals(expected.getAnnotationTypes(), actual.getAnnotationTypes());
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertEquals(expected.getMetaAnnotationTypes(annotationType), actual.getMetaAnnotationTypes(annotationType));
+			for (String metaAnnotationType : expected.getMetaAnnotationTypes(annotationType)) {
+				assertEquals(String.valueOf(expected.getAnnotationAttributes(metaAnnotationType, true)),
+						String.valueOf(actual.getAnnotationAttributes(metaAnnotationType, true)));
+			}
+			assertEquals(String.valueOf(expected.getAnnotationAttributes(annotationType, true)),
+					String.valueOf(actual.getAnnotationAttributes(annotationType, true)));
+		}
+		for (String annotationType : Arrays.asList("org.springframework.context.annotation.Bean",
+				"org.springframework.context.annotation.Lazy")) {
+			MethodMetadata[] expectedMethods = expected.getAnnotatedMethods(annotationType).toArray(new MethodMetadata[0]);
+			MethodMetadata[] actualMethods = actual.getAnnotatedMethods(annotationType).toArray(new MethodMetadata[0]);
+			assertEquals(expectedMethods.length, actualMethods.length);
+			for (int i = 0; i < expectedMethods.length; i++) {
+				assertEquals(expectedMethods[i].getMethodName(), actualMethods[i].getMethodName());
+				assertEquals(expectedMethods[i].getReturnTypeName(), actualMethods[i].getReturnTypeName());
+				assertEquals(expectedMethods[i].isStatic(), actualMethods[i].isStatic());
+				assertEquals(expectedMethods[i].isOverridable(), actualMethods[i].isOverridable());
+				assertEquals(String.valueOf(expectedMethods[i].getAnnotationAttributes(annotationType)),
+						String.valueOf(actualMethods[i].getAnnotationAttributes(annotationType)));
+				assertEquals(expectedMethods[i].isAnnotated("org.springframework.beans.factory.annotation.Qualifier"),
+						actualMethods[i].isAnnotated("org.springframework.beans.factory.annotation.Qualifier"));
+			}
+		}
+	}
+
 	private void testComponent(Class<?>... classes) {
 		CandidateComponentsMetadata metadata = compile(classes);
 		for (Class<?> c : classes) {
@@ -252,7 +335,12 @@ public class CandidateComponentsIndexerTests {
 			File metadataFile = new File(outputLocation,
 					MetadataStore.METADATA_PATH);
 			if (metadataFile.isFile()) {
-				return PropertiesMarshaller.read(new FileInputStream(metadataFile));
+				CandidateComponentsMetadata metadata = PropertiesMarshaller.read(new FileInputStream(metadataFile));
+				File typeMetadataFile = new File(outputLocation, MetadataStore.TYPE_METADATA_PATH);
+				if (typeMetadataFile.isFile()) {
+					PropertiesMarshaller.readTypeMetadata(metadata, new FileInputStream(typeMetadataFile));
+				}
+				return metadata;
 			}
 			else {
 				return new CandidateComponentsMetadata();
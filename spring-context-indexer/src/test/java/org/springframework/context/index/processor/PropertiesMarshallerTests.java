@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -50,6 +50,19 @@ public class PropertiesMarshallerTests {
 		assertThat(readMetadata.getItems(), hasSize(2));
 	}
 
+	@Test
+	public void readWriteTypeMetadata() throws IOException {
+		CandidateComponentsMetadata metadata = new CandidateComponentsMetadata();
+		metadata.addTypeMetadata("com.foo", "C 1 com/foo - 0");
+		metadata.addTypeMetadata("com.foo$Bar", "C 9 com/foo$Bar java/lang/Object 0 I com/foo$Bar com/foo Bar 9");
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		PropertiesMarshaller.writeTypeMetadata(metadata, outputStream);
+		CandidateComponentsMetadata readMetadata = new CandidateComponentsMetadata();
+		PropertiesMarshaller.readTypeMetadata(readMetadata, new ByteArrayInputStream(outputStream.toByteArray()));
+		assertThat(readMetadata.getTypeMetadata(), equalTo(metadata.getTypeMetadata()));
+	}
+
 	private static ItemMetadata createItem(String type, String... stereotypes) {
 		return new ItemMetadata(type, new HashSet<>(Arrays.asList(stereotypes)));
 	}
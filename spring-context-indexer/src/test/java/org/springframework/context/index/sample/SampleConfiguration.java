@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.sample;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowire;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+
+/**
+ * Test candidate for a {@link Configuration} class with {@link Bean} methods.
+ *
+ * @author Nico Yates
+ */
+@Configuration("sample")
+@Lazy
+@Primary
+@Profile({"dev", "test"})
+@Scope(scopeName = "prototype", proxyMode = ScopedProxyMode.TARGET_CLASS)
+@ComponentScan(basePackageClasses = SampleComponent.class, lazyInit = true,
+		excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = SampleService.class))
+public class SampleConfiguration extends AbstractController implements Serializable {
+
+	@Bean(name = {"first", "firstAlias"}, autowire = Autowire.BY_NAME, initMethod = "init")
+	@Qualifier("first")
+	public SampleComponent first() {
+		return new SampleComponent();
+	}
+
+	@Bean
+	public static <T extends SampleService> List<T> second(String name, int[] counts) {
+		return null;
+	}
+
+	public String notABean() {
+		return "";
+	}
+
+
+	@Configuration
+	static class NestedConfiguration {
+
+		@Bean
+		@Lazy(false)
+		SampleService third() {
+			return new SampleService();
+		}
+	}
+
+	class Inner {
+	}
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.core.SpringVersion;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Format of the bean definition snapshot written by {@link BeanDefinitionSnapshotWriter}
+ * and read by {@link BeanDefinitionSnapshotReader}: a properties file with a fingerprint
+ * of the classes and scanned packages it was computed from, plus one group of keys per
+ * bean definition.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+abstract class BeanDefinitionSnapshot {
+
+	static final String FINGERPRINT_KEY = "fingerprint";
+
+	static final String CLASSES_KEY = "fingerprint.classes";
+
+	static final String PACKAGES_KEY = "fingerprint.packages";
+
+	static final String BEAN_COUNT_KEY = "beans";
+
+	static final String BEAN_PREFIX = "bean.";
+
+	static final String ALIAS_PREFIX = "alias.";
+
+	static final String IMPORT_PREFIX = "import.";
+
+	static final String NAME = "name";
+
+	static final String TYPE = "type";
+
+	static final String CLASS = "class";
+
+	static final String PARENT = "parent";
+
+	static final String SCOPE = "scope";
+
+	static final String ABSTRACT = "abstract";
+
+	static final String LAZY_INIT = "lazy-init";
+
+	static final String PRIMARY = "primary";
+
+	static final String AUTOWIRE_CANDIDATE = "autowire-candidate";
+
+	static final String AUTOWIRE_MODE = "autowire-mode";
+
+	static final String DEPENDENCY_CHECK = "dependency-check";
+
+	static final String DEPENDS_ON = "depends-on";
+
+	static final String ROLE = "role";
+
+	static final String DESCRIPTION = "description";
+
+	static final String FACTORY_BEAN = "factory-bean";
+
+	static final String FACTORY_METHOD = "factory-method";
+
+	static final String UNIQUE_FACTORY_METHOD = "unique-factory-method";
+
+	static final String LENIENT_CONSTRUCTOR_RESOLUTION = "lenient-constructor-resolution";
+
+	static final String INIT_METHOD = "init-method";
+
+	static final String DESTROY_METHOD = "destroy-method";
+
+	static final String SYNTHETIC = "synthetic";
+
+	static final String DECORATED_DEFINITION = "decorated-definition";
+
+	static final String ATTRIBUTE_PREFIX = "attribute.";
+
+	static final String PROPERTY_PREFIX = "property.";
+
+	static final String CONSTRUCTOR_ARG_PREFIX = "arg.";
+
+	static final String TYPE_ROOT = "root";
+
+	static final String TYPE_GENERIC = "generic";
+
+	private static final String REF_VALUE_PREFIX = "ref:";
+
+	private static final String STRING_VALUE_PREFIX = "string:";
+
+	private static final String BOOLEAN_VALUE_PREFIX = "boolean:";
+
+	private static final String INTEGER_VALUE_PREFIX = "int:";
+
+	private static final String LONG_VALUE_PREFIX = "long:";
+
+	private static final String CLASS_VALUE_PREFIX = "class:";
+
+
+	/**
+	 * Return the key prefix for the bean definition at the given index.
+	 */
+	static String beanKey(int index, String key) {
+		return BEAN_PREFIX + index + "." + key;
+	}
+
+	/**
+	 * Encode the given bean definition value into its snapshot representation.
+	 * @param value the value to encode
+	 * @return the encoded value, or {@code null} if the value is not supported
+	 */
+	@Nullable
+	static String encodeValue(@Nullable Object value) {
+		if (value instanceof RuntimeBeanReference && !((RuntimeBeanReference) value).isToParent()) {
+			return REF_VALUE_PREFIX + ((RuntimeBeanReference) value).getBeanName();
+		}
+		if (value instanceof TypedStringValue && !((TypedStringValue) value).hasTargetType() &&
+				((TypedStringValue) value).getValue() != null) {
+			return STRING_VALUE_PREFIX + ((TypedStringValue) value).getValue();
+		}
+		if (value instanceof String) {
+			return STRING_VALUE_PREFIX + value;
+		}
+		if (value instanceof Boolean) {
+			return BOOLEAN_VALUE_PREFIX + value;
+		}
+		if (value instanceof Integer) {
+			return INTEGER_VALUE_PREFIX + value;
+		}
+		if (value instanceof Long) {
+			return LONG_VALUE_PREFIX + value;
+		}
+		if (value instanceof Class) {
+			return CLASS_VALUE_PREFIX + ((Class<?>) value).getName();
+		}
+		return null;
+	}
+
+	/**
+	 * Decode the given snapshot representation of a bean definition value.
+	 * @param encoded the encoded value
+	 * @param classLoader the ClassLoader to resolve class values with
+	 * @return the decoded value
+	 * @throws IllegalArgumentException if the value cannot be decoded
+	 */
+	static Object decodeValue(String encoded, @Nullable ClassLoader classLoader) {
+		if (encoded.startsWith(REF_VALUE_PREFIX)) {
+			return new RuntimeBeanReference(encoded.substring(REF_VALUE_PREFIX.length()));
+		}
+		if (encoded.startsWith(STRING_VALUE_PREFIX)) {
+			return encoded.substring(STRING_VALUE_PREFIX.length());
+		}
+		if (encoded.startsWith(BOOLEAN_VALUE_PREFIX)) {
+			return Boolean.valueOf(encoded.substring(BOOLEAN_VALUE_PREFIX.length()));
+		}
+		if (encoded.startsWith(INTEGER_VALUE_PREFIX)) {
+			return Integer.valueOf(encoded.substring(INTEGER_VALUE_PREFIX.length()));
+		}
+		if (encoded.startsWith(LONG_VALUE_PREFIX)) {
+			return Long.valueOf(encoded.substring(LONG_VALUE_PREFIX.length()));
+		}
+		if (encoded.startsWith(CLASS_VALUE_PREFIX)) {
+			return ClassUtils.resolveClassName(encoded.substring(CLASS_VALUE_PREFIX.length()), classLoader);
+		}
+		throw new IllegalArgumentException("Unsupported snapshot value [" + encoded + "]");
+	}
+
+	/**
+	 * Compute the fingerprint for the given classes and packages: a hash over the
+	 * Spring version, the active (or else default) profiles of the given environment,
+	 * the path, size and last-modified timestamp of the class file for each of the
+	 * given classes, and of all class files in each of the given packages and their
+	 * subpackages. Class file content is not read, keeping the check cheap compared
+	 * to the scan it stands in for.
+	 * @param classNames the names of the classes that contributed bean definitions
+	 * @param packageNames the names of the packages scanned for components
+	 * @param environment the environment that conditions get evaluated against
+	 * @param classLoader the ClassLoader to load the class files from
+	 * @return the fingerprint as a hex String
+	 */
+	static String fingerprint(Collection<String> classNames, Collection<String> packageNames,
+			Environment environment, @Nullable ClassLoader classLoader) throws IOException {
+
+		MessageDigest digest = createDigest();
+		update(digest, String.valueOf(SpringVersion.getVersion()));
+		String[] profiles = environment.getActiveProfiles();
+		if (profiles.length == 0) {
+			profiles = environment.getDefaultProfiles();
+		}
+		update(digest, new TreeSet<>(Arrays.asList(profiles)).toString());
+		ClassLoader classLoaderToUse = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+		for (String className : new TreeSet<>(classNames)) {
+			String resourcePath = ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+			Resource classFile = new ClassPathResource(resourcePath, classLoaderToUse);
+			update(digest, className);
+			if (classFile.exists()) {
+				update(digest, classFile.contentLength() + ":" + classFile.lastModified());
+			}
+		}
+		ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoaderToUse);
+		for (String packageName : new TreeSet<>(packageNames)) {
+			// Key class files by their path within the package, independent of the classpath root
+			String packagePath = ClassUtils.convertClassNameToResourcePath(packageName) + "/";
+			Map<String, Resource> classFiles = new TreeMap<>();
+			for (Resource resource : scanPackage(resolver, packageName)) {
+				String url = resource.getURL().toString();
+				classFiles.putIfAbsent(url.substring(url.lastIndexOf(packagePath)), resource);
+			}
+			update(digest, packagePath);
+			for (Map.Entry<String, Resource> entry : classFiles.entrySet()) {
+				Resource classFile = entry.getValue();
+				update(digest, entry.getKey() + ":" + classFile.contentLength() + ":" + classFile.lastModified());
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("Could not find MessageDigest with algorithm \"MD5\"", ex);
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		// Separate the values so that adjacent ones cannot run into each other
+		digest.update((byte) 0);
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Find all class files in the given package and its subpackages.
+	 * @param resolver the resolver to find the class files with
+	 * @param packageName the name of the package
+	 * @return the class file resources
+	 */
+	static Resource[] scanPackage(ResourcePatternResolver resolver, String packageName) throws IOException {
+		return resolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
+				ClassUtils.convertClassNameToResourcePath(packageName) + "/**/*" + ClassUtils.CLASS_FILE_SUFFIX);
+	}
+
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinitionReader;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Bean definition reader for snapshots written by {@link BeanDefinitionSnapshotWriter},
+ * registering the bean definitions that {@link ConfigurationClassPostProcessor} would
+ * otherwise derive from parsing the configuration classes on startup.
+ *
+ * <p>The snapshot is only loaded if its fingerprint matches the current classes, the
+ * current content of the scanned packages and the active profiles. Otherwise, as well
+ * as for a non-existing snapshot resource, nothing gets registered and {@code 0} is
+ * returned, for the caller to fall back to registering its component classes for
+ * regular parsing:
+ *
+ * <pre class="code">
+ * AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+ * BeanDefinitionSnapshotReader reader = new BeanDefinitionSnapshotReader(ctx);
+ * if (reader.loadBeanDefinitions(BeanDefinitionSnapshotWriter.DEFAULT_SNAPSHOT_LOCATION) == 0) {
+ *     ctx.register(AppConfig.class);
+ * }
+ * ctx.refresh();</pre>
+ *
+ * <p>The registered configuration classes are marked as processed already, so that
+ * {@code ConfigurationClassPostProcessor} does not parse them again but still enhances
+ * {@link Configuration @Configuration} classes and supports {@link ImportAware} beans.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see BeanDefinitionSnapshotWriter
+ */
+public class BeanDefinitionSnapshotReader extends AbstractBeanDefinitionReader {
+
+	/**
+	 * Create a new {@code BeanDefinitionSnapshotReader} for the given bean factory.
+	 * @param registry the BeanFactory to load bean definitions into,
+	 * in the form of a BeanDefinitionRegistry
+	 */
+	public BeanDefinitionSnapshotReader(BeanDefinitionRegistry registry) {
+		super(registry);
+	}
+
+
+	/**
+	 * Load bean definitions from the specified snapshot.
+	 * @param resource the resource descriptor for the snapshot
+	 * @return the number of bean definitions found, or {@code 0} if the snapshot
+	 * does not exist or does not match the current classes, packages and active profiles
+	 * @throws BeanDefinitionStoreException in case of loading or parsing errors
+	 */
+	@Override
+	public int loadBeanDefinitions(Resource resource) throws BeanDefinitionStoreException {
+		if (!resource.exists()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("No bean definition snapshot found at " + resource);
+			}
+			return 0;
+		}
+		Properties snapshot;
+		try {
+			snapshot = PropertiesLoaderUtils.loadProperties(resource);
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("Could not read bean definition snapshot from " + resource, ex);
+		}
+		ClassLoader classLoader = getClassLoaderToUse();
+		String[] classNames = StringUtils.commaDelimitedListToStringArray(
+				snapshot.getProperty(BeanDefinitionSnapshot.CLASSES_KEY));
+		String[] packageNames = StringUtils.commaDelimitedListToStringArray(
+				snapshot.getProperty(BeanDefinitionSnapshot.PACKAGES_KEY));
+		try {
+			String fingerprint = BeanDefinitionSnapshot.fingerprint(
+					Arrays.asList(classNames), Arrays.asList(packageNames), getEnvironment(), classLoader);
+			if (!fingerprint.equals(snapshot.getProperty(BeanDefinitionSnapshot.FINGERPRINT_KEY))) {
+				if (logger.isInfoEnabled()) {
+					logger.info("Ignoring outdated bean definition snapshot " + resource);
+				}
+				return 0;
+			}
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("Could not compute fingerprint for " + resource, ex);
+		}
+
+		try {
+			return registerBeanDefinitions(snapshot, resource, classLoader);
+		}
+		catch (IllegalArgumentException ex) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					"Invalid bean definition snapshot: " + ex.getMessage(), ex);
+		}
+	}
+
+	private int registerBeanDefinitions(Properties snapshot, Resource resource, @Nullable ClassLoader classLoader) {
+		int beanCount = Integer.parseInt(snapshot.getProperty(BeanDefinitionSnapshot.BEAN_COUNT_KEY, "0"));
+		List<String> beanNames = new ArrayList<>(beanCount);
+		Map<String, AbstractBeanDefinition> beanDefinitions = new HashMap<>(beanCount);
+		Map<String, String> decoratedDefinitions = new HashMap<>();
+		for (int i = 0; i < beanCount; i++) {
+			String beanName = get(snapshot, i, BeanDefinitionSnapshot.NAME);
+			if (beanName == null) {
+				throw new IllegalArgumentException("No name for bean definition at index " + i);
+			}
+			AbstractBeanDefinition bd = readBeanDefinition(snapshot, i, classLoader);
+			bd.setResourceDescription(resource.getDescription());
+			String decoratedBeanName = get(snapshot, i, BeanDefinitionSnapshot.DECORATED_DEFINITION);
+			if (decoratedBeanName != null) {
+				decoratedDefinitions.put(beanName, decoratedBeanName);
+			}
+			beanNames.add(beanName);
+			beanDefinitions.put(beanName, bd);
+		}
+		decoratedDefinitions.forEach((beanName, decoratedBeanName) -> {
+			AbstractBeanDefinition decorated = beanDefinitions.get(decoratedBeanName);
+			if (decorated == null || !(beanDefinitions.get(beanName) instanceof RootBeanDefinition)) {
+				throw new IllegalArgumentException("Invalid decorated bean definition for bean '" + beanName + "'");
+			}
+			((RootBeanDefinition) beanDefinitions.get(beanName)).setDecoratedDefinition(
+					new BeanDefinitionHolder(decorated, decoratedBeanName));
+		});
+
+		BeanDefinitionRegistry registry = getRegistry();
+		for (String beanName : beanNames) {
+			registry.registerBeanDefinition(beanName, beanDefinitions.get(beanName));
+		}
+		for (String key : snapshot.stringPropertyNames()) {
+			if (key.startsWith(BeanDefinitionSnapshot.ALIAS_PREFIX)) {
+				registry.registerAlias(snapshot.getProperty(key), key.substring(BeanDefinitionSnapshot.ALIAS_PREFIX.length()));
+			}
+		}
+		registerImportRegistry(snapshot);
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Loaded " + beanCount + " bean definitions from snapshot " + resource);
+		}
+		return beanCount;
+	}
+
+	private AbstractBeanDefinition readBeanDefinition(Properties snapshot, int index, @Nullable ClassLoader classLoader) {
+		AbstractBeanDefinition bd;
+		String parentName = get(snapshot, index, BeanDefinitionSnapshot.PARENT);
+		if (BeanDefinitionSnapshot.TYPE_ROOT.equals(get(snapshot, index, BeanDefinitionSnapshot.TYPE)) &&
+				parentName == null) {
+			bd = new RootBeanDefinition();
+		}
+		else {
+			bd = new GenericBeanDefinition();
+			((GenericBeanDefinition) bd).setParentName(parentName);
+		}
+		bd.setBeanClassName(get(snapshot, index, BeanDefinitionSnapshot.CLASS));
+		String scope = get(snapshot, index, BeanDefinitionSnapshot.SCOPE);
+		if (scope != null) {
+			bd.setScope(scope);
+		}
+		bd.setAbstract(getFlag(snapshot, index, BeanDefinitionSnapshot.ABSTRACT));
+		bd.setLazyInit(getFlag(snapshot, index, BeanDefinitionSnapshot.LAZY_INIT));
+		bd.setPrimary(getFlag(snapshot, index, BeanDefinitionSnapshot.PRIMARY));
+		bd.setAutowireCandidate(getFlag(snapshot, index, BeanDefinitionSnapshot.AUTOWIRE_CANDIDATE));
+		bd.setAutowireMode(getInt(snapshot, index, BeanDefinitionSnapshot.AUTOWIRE_MODE));
+		bd.setDependencyCheck(getInt(snapshot, index, BeanDefinitionSnapshot.DEPENDENCY_CHECK));
+		String dependsOn = get(snapshot, index, BeanDefinitionSnapshot.DEPENDS_ON);
+		if (dependsOn != null) {
+			bd.setDependsOn(StringUtils.commaDelimitedListToStringArray(dependsOn));
+		}
+		bd.setRole(getInt(snapshot, index, BeanDefinitionSnapshot.ROLE));
+		bd.setDescription(get(snapshot, index, BeanDefinitionSnapshot.DESCRIPTION));
+		bd.setFactoryBeanName(get(snapshot, index, BeanDefinitionSnapshot.FACTORY_BEAN));
+		String factoryMethodName = get(snapshot, index, BeanDefinitionSnapshot.FACTORY_METHOD);
+		if (factoryMethodName != null && bd instanceof RootBeanDefinition &&
+				getFlag(snapshot, index, BeanDefinitionSnapshot.UNIQUE_FACTORY_METHOD)) {
+			((RootBeanDefinition) bd).setUniqueFactoryMethodName(factoryMethodName);
+		}
+		else {
+			bd.setFactoryMethodName(factoryMethodName);
+		}
+		bd.setLenientConstructorResolution(getFlag(snapshot, index, BeanDefinitionSnapshot.LENIENT_CONSTRUCTOR_RESOLUTION));
+		bd.setInitMethodName(get(snapshot, index, BeanDefinitionSnapshot.INIT_METHOD));
+		bd.setDestroyMethodName(get(snapshot, index, BeanDefinitionSnapshot.DESTROY_METHOD));
+		bd.setSynthetic(getFlag(snapshot, index, BeanDefinitionSnapshot.SYNTHETIC));
+
+		String prefix = BeanDefinitionSnapshot.beanKey(index, "");
+		for (String key : snapshot.stringPropertyNames()) {
+			if (!key.startsWith(prefix)) {
+				continue;
+			}
+			String name = key.substring(prefix.length());
+			String value = snapshot.getProperty(key);
+			if (name.startsWith(BeanDefinitionSnapshot.ATTRIBUTE_PREFIX)) {
+				bd.setAttribute(name.substring(BeanDefinitionSnapshot.ATTRIBUTE_PREFIX.length()),
+						BeanDefinitionSnapshot.decodeValue(value, classLoader));
+			}
+			else if (name.startsWith(BeanDefinitionSnapshot.PROPERTY_PREFIX)) {
+				bd.getPropertyValues().add(name.substring(BeanDefinitionSnapshot.PROPERTY_PREFIX.length()),
+						BeanDefinitionSnapshot.decodeValue(value, classLoader));
+			}
+			else if (name.startsWith(BeanDefinitionSnapshot.CONSTRUCTOR_ARG_PREFIX)) {
+				bd.getConstructorArgumentValues().addIndexedArgumentValue(
+						Integer.parseInt(name.substring(BeanDefinitionSnapshot.CONSTRUCTOR_ARG_PREFIX.length())),
+						BeanDefinitionSnapshot.decodeValue(value, classLoader));
+			}
+		}
+		return bd;
+	}
+
+	private void registerImportRegistry(Properties snapshot) {
+		BeanDefinitionRegistry registry = getRegistry();
+		SingletonBeanRegistry sbr;
+		if (registry instanceof SingletonBeanRegistry) {
+			sbr = (SingletonBeanRegistry) registry;
+		}
+		else if (registry instanceof ConfigurableApplicationContext) {
+			sbr = ((ConfigurableApplicationContext) registry).getBeanFactory();
+		}
+		else {
+			return;
+		}
+		if (sbr.containsSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME)) {
+			return;
+		}
+		Map<String, String> imports = new HashMap<>();
+		for (String key : snapshot.stringPropertyNames()) {
+			if (key.startsWith(BeanDefinitionSnapshot.IMPORT_PREFIX)) {
+				imports.put(key.substring(BeanDefinitionSnapshot.IMPORT_PREFIX.length()), snapshot.getProperty(key));
+			}
+		}
+		sbr.registerSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME,
+				new SnapshotImportRegistry(imports, new CachingMetadataReaderFactory(getResourceLoader())));
+	}
+
+	@Nullable
+	private ClassLoader getClassLoaderToUse() {
+		ClassLoader classLoader = getBeanClassLoader();
+		return (classLoader != null ? classLoader : getResourceLoader().getClassLoader());
+	}
+
+	@Nullable
+	private static String get(Properties snapshot, int index, String key) {
+		return snapshot.getProperty(BeanDefinitionSnapshot.beanKey(index, key));
+	}
+
+	private static boolean getFlag(Properties snapshot, int index, String key) {
+		return Boolean.parseBoolean(get(snapshot, index, key));
+	}
+
+	private static int getInt(Properties snapshot, int index, String key) {
+		String value = get(snapshot, index, key);
+		return (value != null ? Integer.parseInt(value) : 0);
+	}
+
+
+	/**
+	 * {@link ImportRegistry} restored from a snapshot, lazily reading the metadata
+	 * of importing classes for {@link ImportAware} beans.
+	 */
+	private static class SnapshotImportRegistry implements ImportRegistry {
+
+		private final Map<String, String> imports;
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		public SnapshotImportRegistry(Map<String, String> imports, MetadataReaderFactory metadataReaderFactory) {
+			this.imports = imports;
+			this.metadataReaderFactory = metadataReaderFactory;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClass = this.imports.get(importedClass);
+			if (importingClass == null) {
+				return null;
+			}
+			try {
+				return this.metadataReaderFactory.getMetadataReader(importingClass).getAnnotationMetadata();
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to read metadata for importing class " + importingClass, ex);
+			}
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			this.imports.values().removeIf(importingClass::equals);
+		}
+
+		@Override
+		public Map<String, String> getImportingClassNames() {
+			return this.imports;
+		}
+	}
+
+}
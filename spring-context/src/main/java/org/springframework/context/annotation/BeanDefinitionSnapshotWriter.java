@@ -0,0 +1,384 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Build-time processor that parses the given component classes exactly like
+ * {@link ConfigurationClassPostProcessor} does on startup, and writes the resulting
+ * bean definitions as a snapshot for {@link BeanDefinitionSnapshotReader} to load
+ * on startup instead, skipping the parsing of configuration classes, condition
+ * evaluation and classpath scanning.
+ *
+ * <p>Intended to be run from a build, e.g. through its {@link #main} method with
+ * the target file and the component class names as arguments, on the same classpath
+ * and with the same active profiles as the application itself. The snapshot is only
+ * loaded as long as the contributing classes, the content of the scanned packages and
+ * the active profiles remain the same.
+ *
+ * <p>The snapshot is restricted to bean definitions that can be represented
+ * without loss: bean definitions with qualifiers, method overrides, instance
+ * suppliers or complex property values, configuration classes with
+ * {@link PropertySource @PropertySource} declarations, and any condition other
+ * than {@link Profile @Profile} (whose inputs cannot be captured in the fingerprint)
+ * lead to an {@link IllegalStateException}, in which case the application has to
+ * keep parsing its configuration classes on startup.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see BeanDefinitionSnapshotReader
+ */
+public class BeanDefinitionSnapshotWriter {
+
+	/**
+	 * The default location of the snapshot within the application's resources.
+	 */
+	public static final String DEFAULT_SNAPSHOT_LOCATION = "META-INF/spring.definitions";
+
+
+	private final ConfigurableEnvironment environment;
+
+	private ResourceLoader resourceLoader = new DefaultResourceLoader();
+
+
+	/**
+	 * Create a new {@code BeanDefinitionSnapshotWriter} for a {@link StandardEnvironment}.
+	 */
+	public BeanDefinitionSnapshotWriter() {
+		this(new StandardEnvironment());
+	}
+
+	/**
+	 * Create a new {@code BeanDefinitionSnapshotWriter} for the given environment.
+	 * @param environment the environment to evaluate conditions against
+	 */
+	public BeanDefinitionSnapshotWriter(ConfigurableEnvironment environment) {
+		Assert.notNull(environment, "Environment must not be null");
+		this.environment = environment;
+	}
+
+
+	/**
+	 * Set the ResourceLoader to use for resolving resources and loading classes.
+	 * <p>Default is a {@link DefaultResourceLoader}.
+	 */
+	public void setResourceLoader(ResourceLoader resourceLoader) {
+		Assert.notNull(resourceLoader, "ResourceLoader must not be null");
+		this.resourceLoader = resourceLoader;
+	}
+
+
+	/**
+	 * Parse the given component classes and write the resulting snapshot.
+	 * @param out the stream to write the snapshot to (not closed)
+	 * @param componentClasses one or more component classes,
+	 * e.g. {@link Configuration @Configuration} classes
+	 * @throws IOException in case of I/O errors
+	 * @throws IllegalStateException if a bean definition cannot be represented in a snapshot
+	 */
+	public void write(OutputStream out, Class<?>... componentClasses) throws IOException {
+		Assert.notEmpty(componentClasses, "At least one component class must be specified");
+		ClassLoader classLoader = this.resourceLoader.getClassLoader();
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setBeanClassLoader(classLoader);
+		AnnotatedBeanDefinitionReader reader = new AnnotatedBeanDefinitionReader(beanFactory, this.environment);
+		Set<String> infrastructureBeanNames = new HashSet<>(Arrays.asList(beanFactory.getBeanDefinitionNames()));
+		reader.register(componentClasses);
+
+		int propertySourceCount = this.environment.getPropertySources().size();
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setEnvironment(this.environment);
+		postProcessor.setResourceLoader(this.resourceLoader);
+		postProcessor.setBeanClassLoader(classLoader);
+		postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+		Assert.state(this.environment.getPropertySources().size() == propertySourceCount,
+				"@PropertySource declarations cannot be represented in a bean definition snapshot");
+
+		Properties snapshot = new Properties();
+		Set<String> classNames = new LinkedHashSet<>();
+		List<String> beanNames = new ArrayList<>();
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			if (!infrastructureBeanNames.contains(beanName)) {
+				beanNames.add(beanName);
+			}
+		}
+		for (int i = 0; i < beanNames.size(); i++) {
+			String beanName = beanNames.get(i);
+			BeanDefinition bd = beanFactory.getBeanDefinition(beanName);
+			writeBeanDefinition(snapshot, i, beanName, bd, beanFactory, classNames);
+			for (String alias : beanFactory.getAliases(beanName)) {
+				snapshot.setProperty(BeanDefinitionSnapshot.ALIAS_PREFIX + alias, beanName);
+			}
+		}
+		snapshot.setProperty(BeanDefinitionSnapshot.BEAN_COUNT_KEY, String.valueOf(beanNames.size()));
+
+		Set<String> consideredClassNames = new LinkedHashSet<>();
+		for (Class<?> componentClass : componentClasses) {
+			consideredClassNames.add(componentClass.getName());
+		}
+		Object importRegistry = beanFactory.getSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME);
+		if (importRegistry instanceof ImportRegistry) {
+			Map<String, String> imports = ((ImportRegistry) importRegistry).getImportingClassNames();
+			imports.forEach((importedClass, importingClass) -> {
+				snapshot.setProperty(BeanDefinitionSnapshot.IMPORT_PREFIX + importedClass, importingClass);
+				classNames.add(importingClass);
+				consideredClassNames.add(importedClass);
+			});
+		}
+		consideredClassNames.addAll(classNames);
+		Set<String> packageNames = inspectConsideredClasses(consideredClassNames);
+
+		snapshot.setProperty(BeanDefinitionSnapshot.CLASSES_KEY, StringUtils.collectionToCommaDelimitedString(classNames));
+		snapshot.setProperty(BeanDefinitionSnapshot.PACKAGES_KEY, StringUtils.collectionToCommaDelimitedString(packageNames));
+		snapshot.setProperty(BeanDefinitionSnapshot.FINGERPRINT_KEY,
+				BeanDefinitionSnapshot.fingerprint(classNames, packageNames, this.environment, classLoader));
+		snapshot.store(out, "Bean definition snapshot for " + ObjectUtils.nullSafeToString(
+				Arrays.stream(componentClasses).map(Class::getName).toArray()));
+	}
+
+	/**
+	 * Inspect all classes that were considered while parsing, i.e. the given classes,
+	 * their member classes and the classes in scanned packages: reject any condition
+	 * other than {@link Profile @Profile}, since its inputs cannot be part of the
+	 * fingerprint, and determine the packages scanned for components.
+	 * @param classNames the names of the classes that were considered
+	 * @return the names of the scanned packages, to be part of the fingerprint
+	 */
+	private Set<String> inspectConsideredClasses(Set<String> classNames) throws IOException {
+		MetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory(this.resourceLoader);
+		ResourcePatternResolver resolver = ResourcePatternUtils.getResourcePatternResolver(this.resourceLoader);
+		Set<String> packageNames = new TreeSet<>();
+		Set<String> inspected = new HashSet<>();
+		Deque<String> remaining = new ArrayDeque<>(classNames);
+		while (!remaining.isEmpty()) {
+			String className = remaining.poll();
+			if (!inspected.add(className)) {
+				continue;
+			}
+			AnnotationMetadata metadata = metadataReaderFactory.getMetadataReader(className).getAnnotationMetadata();
+			assertProfileConditionsOnly(metadata, className);
+			for (MethodMetadata methodMetadata : metadata.getAnnotatedMethods(Conditional.class.getName())) {
+				assertProfileConditionsOnly(methodMetadata, className + "." + methodMetadata.getMethodName());
+			}
+			Collections.addAll(remaining, metadata.getMemberClassNames());
+			for (String packageName : getScannedPackages(metadata)) {
+				if (packageNames.add(packageName)) {
+					for (Resource resource : BeanDefinitionSnapshot.scanPackage(resolver, packageName)) {
+						remaining.add(metadataReaderFactory.getMetadataReader(resource).getClassMetadata().getClassName());
+					}
+				}
+			}
+		}
+		return packageNames;
+	}
+
+	private static void assertProfileConditionsOnly(AnnotatedTypeMetadata metadata, String source) {
+		MultiValueMap<String, Object> attributes =
+				metadata.getAllAnnotationAttributes(Conditional.class.getName(), true);
+		if (attributes != null) {
+			for (Object conditionClasses : attributes.get("value")) {
+				for (String conditionClass : (String[]) conditionClasses) {
+					Assert.state(ProfileCondition.class.getName().equals(conditionClass),
+							() -> "Condition [" + conditionClass + "] on " + source +
+									" cannot be represented in a bean definition snapshot");
+				}
+			}
+		}
+	}
+
+	private Set<String> getScannedPackages(AnnotationMetadata metadata) {
+		Set<String> packageNames = new LinkedHashSet<>();
+		for (AnnotationAttributes componentScan : AnnotationConfigUtils.attributesForRepeatable(
+				metadata, ComponentScans.class, ComponentScan.class)) {
+			Set<String> basePackages = new LinkedHashSet<>();
+			for (String pkg : componentScan.getStringArray("basePackages")) {
+				Collections.addAll(basePackages, StringUtils.tokenizeToStringArray(
+						this.environment.resolvePlaceholders(pkg), ConfigurableApplicationContext.CONFIG_LOCATION_DELIMITERS));
+			}
+			for (Class<?> basePackageClass : componentScan.getClassArray("basePackageClasses")) {
+				basePackages.add(ClassUtils.getPackageName(basePackageClass));
+			}
+			if (basePackages.isEmpty()) {
+				basePackages.add(ClassUtils.getPackageName(metadata.getClassName()));
+			}
+			packageNames.addAll(basePackages);
+		}
+		return packageNames;
+	}
+
+	private void writeBeanDefinition(Properties snapshot, int index, String beanName, BeanDefinition bd,
+			DefaultListableBeanFactory beanFactory, Set<String> classNames) {
+
+		Assert.state(bd instanceof AbstractBeanDefinition,
+				() -> "Unsupported bean definition type for bean '" + beanName + "': " + bd.getClass().getName());
+		AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+		Assert.state(abd.getInstanceSupplier() == null && !abd.hasMethodOverrides() && abd.getQualifiers().isEmpty(),
+				() -> "Bean definition for bean '" + beanName + "' cannot be represented in a snapshot: " +
+						"instance suppliers, method overrides and qualifiers are not supported");
+
+		put(snapshot, index, BeanDefinitionSnapshot.NAME, beanName);
+		put(snapshot, index, BeanDefinitionSnapshot.TYPE, (abd instanceof RootBeanDefinition ?
+				BeanDefinitionSnapshot.TYPE_ROOT : BeanDefinitionSnapshot.TYPE_GENERIC));
+		String beanClassName = abd.getBeanClassName();
+		if (beanClassName != null) {
+			put(snapshot, index, BeanDefinitionSnapshot.CLASS, beanClassName);
+			classNames.add(beanClassName);
+		}
+		put(snapshot, index, BeanDefinitionSnapshot.PARENT, abd.getParentName());
+		put(snapshot, index, BeanDefinitionSnapshot.SCOPE, abd.getScope());
+		put(snapshot, index, BeanDefinitionSnapshot.ABSTRACT, abd.isAbstract());
+		put(snapshot, index, BeanDefinitionSnapshot.LAZY_INIT, abd.isLazyInit());
+		put(snapshot, index, BeanDefinitionSnapshot.PRIMARY, abd.isPrimary());
+		put(snapshot, index, BeanDefinitionSnapshot.AUTOWIRE_CANDIDATE, abd.isAutowireCandidate());
+		put(snapshot, index, BeanDefinitionSnapshot.AUTOWIRE_MODE, String.valueOf(abd.getAutowireMode()));
+		put(snapshot, index, BeanDefinitionSnapshot.DEPENDENCY_CHECK, String.valueOf(abd.getDependencyCheck()));
+		String[] dependsOn = abd.getDependsOn();
+		if (!ObjectUtils.isEmpty(dependsOn)) {
+			put(snapshot, index, BeanDefinitionSnapshot.DEPENDS_ON, StringUtils.arrayToCommaDelimitedString(dependsOn));
+		}
+		put(snapshot, index, BeanDefinitionSnapshot.ROLE, String.valueOf(abd.getRole()));
+		put(snapshot, index, BeanDefinitionSnapshot.DESCRIPTION, abd.getDescription());
+		put(snapshot, index, BeanDefinitionSnapshot.FACTORY_BEAN, abd.getFactoryBeanName());
+		put(snapshot, index, BeanDefinitionSnapshot.FACTORY_METHOD, abd.getFactoryMethodName());
+		if (abd.getFactoryBeanName() != null && abd.getFactoryMethodName() != null &&
+				abd instanceof AnnotatedBeanDefinition) {
+			// Instance @Bean methods get resolved by unique name, see ConfigurationClassBeanDefinitionReader
+			MethodMetadata factoryMethodMetadata = ((AnnotatedBeanDefinition) abd).getFactoryMethodMetadata();
+			if (factoryMethodMetadata != null && !factoryMethodMetadata.isStatic()) {
+				put(snapshot, index, BeanDefinitionSnapshot.UNIQUE_FACTORY_METHOD, true);
+			}
+		}
+		put(snapshot, index, BeanDefinitionSnapshot.LENIENT_CONSTRUCTOR_RESOLUTION, abd.isLenientConstructorResolution());
+		put(snapshot, index, BeanDefinitionSnapshot.INIT_METHOD, abd.getInitMethodName());
+		put(snapshot, index, BeanDefinitionSnapshot.DESTROY_METHOD, abd.getDestroyMethodName());
+		put(snapshot, index, BeanDefinitionSnapshot.SYNTHETIC, abd.isSynthetic());
+
+		if (abd instanceof RootBeanDefinition) {
+			BeanDefinitionHolder decoratedDefinition = ((RootBeanDefinition) abd).getDecoratedDefinition();
+			if (decoratedDefinition != null) {
+				String decoratedBeanName = decoratedDefinition.getBeanName();
+				Assert.state(beanFactory.containsBeanDefinition(decoratedBeanName),
+						() -> "Decorated bean definition for bean '" + beanName + "' is not registered");
+				put(snapshot, index, BeanDefinitionSnapshot.DECORATED_DEFINITION, decoratedBeanName);
+			}
+		}
+		for (String attributeName : abd.attributeNames()) {
+			put(snapshot, index, BeanDefinitionSnapshot.ATTRIBUTE_PREFIX + attributeName,
+					encode(beanName, abd.getAttribute(attributeName)));
+		}
+		for (PropertyValue pv : abd.getPropertyValues().getPropertyValues()) {
+			put(snapshot, index, BeanDefinitionSnapshot.PROPERTY_PREFIX + pv.getName(), encode(beanName, pv.getValue()));
+		}
+		Assert.state(abd.getConstructorArgumentValues().getGenericArgumentValues().isEmpty(),
+				() -> "Generic constructor arguments for bean '" + beanName + "' are not supported in a snapshot");
+		for (Map.Entry<Integer, ValueHolder> entry :
+				abd.getConstructorArgumentValues().getIndexedArgumentValues().entrySet()) {
+			ValueHolder valueHolder = entry.getValue();
+			Assert.state(valueHolder.getType() == null && valueHolder.getName() == null,
+					() -> "Typed or named constructor arguments for bean '" + beanName + "' are not supported");
+			put(snapshot, index, BeanDefinitionSnapshot.CONSTRUCTOR_ARG_PREFIX + entry.getKey(),
+					encode(beanName, valueHolder.getValue()));
+		}
+	}
+
+	private static String encode(String beanName, @Nullable Object value) {
+		String encoded = BeanDefinitionSnapshot.encodeValue(value);
+		Assert.state(encoded != null, () -> "Value [" + value + "] of bean definition for bean '" + beanName +
+				"' cannot be represented in a snapshot");
+		return encoded;
+	}
+
+	private static void put(Properties snapshot, int index, String key, @Nullable Object value) {
+		if (value != null) {
+			snapshot.setProperty(BeanDefinitionSnapshot.beanKey(index, key), value.toString());
+		}
+	}
+
+
+	/**
+	 * Write a snapshot from the command line, e.g. as part of a build.
+	 * <p>Expects the target file as first argument, followed by the names
+	 * of the component classes to parse. Active profiles may be specified
+	 * through the {@code spring.profiles.active} system property.
+	 * @param args the target file and the component class names
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: BeanDefinitionSnapshotWriter <target file> <component class>...");
+			System.exit(1);
+		}
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		Class<?>[] componentClasses = new Class<?>[args.length - 1];
+		for (int i = 1; i < args.length; i++) {
+			componentClasses[i - 1] = ClassUtils.forName(args[i], classLoader);
+		}
+		File target = new File(args[0]);
+		File parent = target.getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs()) {
+			throw new IOException("Could not create directory " + parent);
+		}
+		try (OutputStream out = new FileOutputStream(target)) {
+			new BeanDefinitionSnapshotWriter().write(out, componentClasses);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,10 +32,13 @@ import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
 import org.springframework.beans.factory.annotation.Lookup;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.index.CandidateComponentsIndex;
 import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.context.index.IndexedMetadataReaderFactory;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -45,6 +48,8 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
@@ -68,7 +73,8 @@ import org.springframework.util.ClassUtils;
  * include filters. {@link AnnotationTypeFilter}, {@link AssignableTypeFilter} include
  * filters on an annotation/superclass that are annotated with {@link Indexed} are
  * supported: if any other include filter is specified, the index is ignored and
- * classpath scanning is used instead.
+ * classpath scanning is used instead. If the index also provides the metadata of
+ * its candidates, these are resolved without reading their class files.
  *
  * <p>This implementation is based on Spring's
  * {@link org.springframework.core.type.classreading.MetadataReader MetadataReader}
@@ -113,6 +119,9 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	@Nullable
+	private ApplicationStartup applicationStartup;
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -263,8 +272,10 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Override
 	public void setResourceLoader(@Nullable ResourceLoader resourceLoader) {
 		this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
-		this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
 		this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
+		this.metadataReaderFactory = (this.componentsIndex != null ?
+				new IndexedMetadataReaderFactory(this.componentsIndex, resourceLoader) :
+				new CachingMetadataReaderFactory(resourceLoader));
 	}
 
 	/**
@@ -281,6 +292,35 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return this.resourcePatternResolver;
 	}
 
+	/**
+	 * Set the {@link ApplicationStartup} to record component scanning steps with.
+	 * <p>Default is the {@code ApplicationStartup} of the underlying
+	 * {@linkplain #getRegistry() registry}, if it exposes one.
+	 * @since 5.1.5
+	 */
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	/**
+	 * Return the {@link ApplicationStartup} used by this component provider.
+	 * @since 5.1.5
+	 */
+	public ApplicationStartup getApplicationStartup() {
+		if (this.applicationStartup != null) {
+			return this.applicationStartup;
+		}
+		BeanDefinitionRegistry registry = getRegistry();
+		if (registry instanceof ConfigurableApplicationContext) {
+			return ((ConfigurableApplicationContext) registry).getApplicationStartup();
+		}
+		if (registry instanceof ConfigurableBeanFactory) {
+			return ((ConfigurableBeanFactory) registry).getApplicationStartup();
+		}
+		return ApplicationStartup.DEFAULT;
+	}
+
 	/**
 	 * Set the {@link MetadataReaderFactory} to use.
 	 * <p>Default is a {@link CachingMetadataReaderFactory} for the specified
@@ -309,11 +349,20 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	 * @return a corresponding Set of autodetected bean definitions
 	 */
 	public Set<BeanDefinition> findCandidateComponents(String basePackage) {
-		if (this.componentsIndex != null && indexSupportsIncludeFilters()) {
-			return addCandidateComponentsFromIndex(this.componentsIndex, basePackage);
+		StartupStep findCandidates = getApplicationStartup().start("spring.context.component-scan.find-candidates")
+				.tag("basePackage", basePackage);
+		try {
+			if (this.componentsIndex != null && indexSupportsIncludeFilters()) {
+				findCandidates.tag("source", "index");
+				return addCandidateComponentsFromIndex(this.componentsIndex, basePackage);
+			}
+			else {
+				findCandidates.tag("source", "classpath");
+				return scanCandidateComponents(basePackage);
+			}
 		}
-		else {
-			return scanCandidateComponents(basePackage);
+		finally {
+			findCandidates.end();
 		}
 	}
 
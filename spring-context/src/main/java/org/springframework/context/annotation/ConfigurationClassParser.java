@@ -713,6 +713,18 @@ class ConfigurationClassParser {
 			}
 		}
 
+		@Override
+		public Map<String, String> getImportingClassNames() {
+			Map<String, String> importingClassNames = new LinkedHashMap<>(this.imports.size());
+			this.imports.forEach((importedClass, importingClasses) -> {
+				AnnotationMetadata importingClass = CollectionUtils.lastElement(importingClasses);
+				if (importingClass != null) {
+					importingClassNames.put(importedClass, importingClass.getClassName());
+				}
+			});
+			return importingClassNames;
+		}
+
 		/**
 		 * Given a stack containing (in order)
 		 * <ul>
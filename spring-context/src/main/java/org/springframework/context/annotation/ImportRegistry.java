@@ -16,6 +16,8 @@
 
 package org.springframework.context.annotation;
 
+import java.util.Map;
+
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.lang.Nullable;
 
@@ -32,4 +34,10 @@ interface ImportRegistry {
 
 	void removeImportingClass(String importingClass);
 
+	/**
+	 * Return the name of the importing class for each imported class.
+	 * @since 5.1.5
+	 */
+	Map<String, String> getImportingClassNames();
+
 }
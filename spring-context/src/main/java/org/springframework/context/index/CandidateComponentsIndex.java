@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +17,19 @@
 package org.springframework.context.index;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
@@ -43,6 +51,10 @@ import org.springframework.util.MultiValueMap;
  * not a rule. Similarly, the {@code stereotype} is usually the fully qualified name of
  * a target type but it can be any marker really.
  *
+ * <p>As of 5.1.5, the index also exposes the type metadata recorded by the indexer
+ * in {@code META-INF/spring.components.metadata}, if any: see
+ * {@link #getMetadataReader(String)}.
+ *
  * @author Stephane Nicoll
  * @since 5.0
  */
@@ -50,11 +62,28 @@ public class CandidateComponentsIndex {
 
 	private static final AntPathMatcher pathMatcher = new AntPathMatcher(".");
 
+	private static final Log logger = LogFactory.getLog(CandidateComponentsIndex.class);
+
 	private final MultiValueMap<String, Entry> index;
 
+	private final Map<String, String> typeMetadata;
+
+	@Nullable
+	private final ClassLoader classLoader;
+
+	private final Map<String, MetadataReader> metadataReaderCache = new ConcurrentHashMap<>(64);
+
 
 	CandidateComponentsIndex(List<Properties> content) {
+		this(content, Collections.emptyList(), null);
+	}
+
+	CandidateComponentsIndex(List<Properties> content, List<Properties> typeMetadata,
+			@Nullable ClassLoader classLoader) {
+
 		this.index = parseIndex(content);
+		this.typeMetadata = parseTypeMetadata(typeMetadata);
+		this.classLoader = classLoader;
 	}
 
 
@@ -76,6 +105,36 @@ public class CandidateComponentsIndex {
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Return a {@link MetadataReader} for the specified type, based on the type
+	 * metadata recorded in the index.
+	 * @param type the fully qualified name of the type
+	 * @return the {@code MetadataReader}, or {@code null} if no (valid) metadata
+	 * has been recorded for the specified {@code type}
+	 * @since 5.1.5
+	 */
+	@Nullable
+	public MetadataReader getMetadataReader(String type) {
+		MetadataReader metadataReader = this.metadataReaderCache.get(type);
+		if (metadataReader == null) {
+			String metadata = this.typeMetadata.get(type);
+			if (metadata == null) {
+				return null;
+			}
+			try {
+				metadataReader = new IndexedMetadataReader(type, metadata, this.classLoader);
+			}
+			catch (IllegalArgumentException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring type metadata from index: " + ex.getMessage());
+				}
+				return null;
+			}
+			this.metadataReaderCache.put(type, metadataReader);
+		}
+		return metadataReader;
+	}
+
 	private static MultiValueMap<String, Entry> parseIndex(List<Properties> content) {
 		MultiValueMap<String, Entry> index = new LinkedMultiValueMap<>();
 		for (Properties entry : content) {
@@ -89,6 +148,14 @@ public class CandidateComponentsIndex {
 		return index;
 	}
 
+	private static Map<String, String> parseTypeMetadata(List<Properties> content) {
+		Map<String, String> typeMetadata = new HashMap<>();
+		for (Properties entry : content) {
+			entry.forEach((type, value) -> typeMetadata.put((String) type, (String) value));
+		}
+		return typeMetadata;
+	}
+
 	private static class Entry {
 		private final String type;
 		private final String packageName;
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.lang.reflect.Array;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Type;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.core.type.classreading.AnnotationMetadataReadingVisitor;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link MetadataReader} implementation backed by the type metadata recorded by
+ * the indexer in {@value CandidateComponentsIndexLoader#TYPE_METADATA_RESOURCE_LOCATION}.
+ *
+ * <p>The recorded tokens mirror the events of the class file of the type and get
+ * replayed into an {@link AnnotationMetadataReadingVisitor}, so that the resulting
+ * metadata is equivalent to the one read from the class file itself.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+final class IndexedMetadataReader implements MetadataReader {
+
+	private static final String NONE = "-";
+
+	private final Resource resource;
+
+	private final AnnotationMetadataReadingVisitor visitor;
+
+
+	/**
+	 * Create a new {@code IndexedMetadataReader} for the specified type.
+	 * @param className the name of the type
+	 * @param typeMetadata the recorded metadata of the type
+	 * @param classLoader the ClassLoader to use for annotation introspection
+	 * @throws IllegalArgumentException if the recorded metadata is invalid
+	 */
+	IndexedMetadataReader(String className, String typeMetadata, @Nullable ClassLoader classLoader) {
+		this.resource = new ClassPathResource(
+				ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX, classLoader);
+		this.visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		try {
+			new TokenReader(typeMetadata).accept(this.visitor);
+		}
+		catch (RuntimeException ex) {
+			throw new IllegalArgumentException("Invalid type metadata for [" + className + "]", ex);
+		}
+	}
+
+
+	@Override
+	public Resource getResource() {
+		return this.resource;
+	}
+
+	@Override
+	public ClassMetadata getClassMetadata() {
+		return this.visitor;
+	}
+
+	@Override
+	public AnnotationMetadata getAnnotationMetadata() {
+		return this.visitor;
+	}
+
+
+	/**
+	 * Replays the recorded tokens into a {@link ClassVisitor}.
+	 */
+	private static class TokenReader {
+
+		private final String[] tokens;
+
+		private int position;
+
+		TokenReader(String typeMetadata) {
+			this.tokens = typeMetadata.split(" ");
+		}
+
+		void accept(ClassVisitor visitor) {
+			expect("C");
+			int access = nextInt();
+			String name = next();
+			String superName = nextName();
+			String[] interfaces = new String[nextInt()];
+			for (int i = 0; i < interfaces.length; i++) {
+				interfaces[i] = next();
+			}
+			visitor.visit(0, access, name, null, superName, interfaces);
+			while (hasNext()) {
+				String token = next();
+				if ("A".equals(token)) {
+					acceptAnnotation(visitor.visitAnnotation(next(), true));
+				}
+				else if ("I".equals(token)) {
+					visitor.visitInnerClass(next(), nextName(), nextName(), nextInt());
+				}
+				else if ("M".equals(token)) {
+					MethodVisitor methodVisitor = visitor.visitMethod(nextInt(), next(), next(), null, null);
+					while (!"E".equals(token = next())) {
+						if (!"A".equals(token)) {
+							throw new IllegalStateException("Unexpected token [" + token + "]");
+						}
+						acceptAnnotation(methodVisitor.visitAnnotation(next(), true));
+					}
+					methodVisitor.visitEnd();
+				}
+				else {
+					throw new IllegalStateException("Unexpected token [" + token + "]");
+				}
+			}
+			visitor.visitEnd();
+		}
+
+		private void acceptAnnotation(AnnotationVisitor visitor) {
+			String token;
+			while (!"E".equals(token = next())) {
+				String name = nextName();
+				if ("V".equals(token)) {
+					visitor.visit(name, parseLiteral(next()));
+				}
+				else if ("N".equals(token)) {
+					visitor.visitEnum(name, next(), next());
+				}
+				else if ("A".equals(token)) {
+					acceptAnnotation(visitor.visitAnnotation(name, next()));
+				}
+				else if ("[".equals(token)) {
+					acceptAnnotation(visitor.visitArray(name));
+				}
+				else {
+					throw new IllegalStateException("Unexpected token [" + token + "]");
+				}
+			}
+			visitor.visitEnd();
+		}
+
+		private Object parseLiteral(String literal) {
+			char tag = literal.charAt(0);
+			if (tag == '[') {
+				Class<?> componentType = getPrimitiveType(literal.charAt(1));
+				String content = literal.substring(2);
+				String[] values = (content.isEmpty() ? new String[0] : content.split(","));
+				Object array = Array.newInstance(componentType, values.length);
+				for (int i = 0; i < values.length; i++) {
+					Array.set(array, i, parsePrimitive(literal.charAt(1), values[i]));
+				}
+				return array;
+			}
+			String value = literal.substring(1);
+			if (tag == 's') {
+				return value;
+			}
+			if (tag == 'T') {
+				return Type.getType(value);
+			}
+			return parsePrimitive(tag, value);
+		}
+
+		private Object parsePrimitive(char tag, String value) {
+			switch (tag) {
+				case 'Z':
+					return Boolean.valueOf(value);
+				case 'C':
+					return (char) Integer.parseInt(value);
+				case 'B':
+					return Byte.valueOf(value);
+				case 'S':
+					return Short.valueOf(value);
+				case 'I':
+					return Integer.valueOf(value);
+				case 'J':
+					return Long.valueOf(value);
+				case 'F':
+					return Float.valueOf(value);
+				case 'D':
+					return Double.valueOf(value);
+				default:
+					throw new IllegalStateException("Unsupported value type [" + tag + "]");
+			}
+		}
+
+		private Class<?> getPrimitiveType(char tag) {
+			switch (tag) {
+				case 'Z':
+					return boolean.class;
+				case 'C':
+					return char.class;
+				case 'B':
+					return byte.class;
+				case 'S':
+					return short.class;
+				case 'I':
+					return int.class;
+				case 'J':
+					return long.class;
+				case 'F':
+					return float.class;
+				case 'D':
+					return double.class;
+				default:
+					throw new IllegalStateException("Unsupported array type [" + tag + "]");
+			}
+		}
+
+		private boolean hasNext() {
+			return (this.position < this.tokens.length);
+		}
+
+		private String next() {
+			if (!hasNext()) {
+				throw new IllegalStateException("Unexpected end of type metadata");
+			}
+			return unescape(this.tokens[this.position++]);
+		}
+
+		@Nullable
+		private String nextName() {
+			String token = next();
+			return (NONE.equals(token) ? null : token);
+		}
+
+		private int nextInt() {
+			return Integer.parseInt(next());
+		}
+
+		private void expect(String expected) {
+			String token = next();
+			if (!expected.equals(token)) {
+				throw new IllegalStateException("Expected [" + expected + "] but got [" + token + "]");
+			}
+		}
+
+		private static String unescape(String token) {
+			if (token.indexOf('%') == -1) {
+				return token;
+			}
+			StringBuilder result = new StringBuilder(token.length());
+			for (int i = 0; i < token.length(); i++) {
+				char c = token.charAt(i);
+				if (c == '%') {
+					result.append((char) Integer.parseInt(token.substring(i + 1, i + 3), 16));
+					i += 2;
+				}
+				else {
+					result.append(c);
+				}
+			}
+			return result.toString();
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.IOException;
+
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CachingMetadataReaderFactory} variant that resolves the metadata of
+ * a class from the type metadata recorded in a {@link CandidateComponentsIndex},
+ * if available, and only reads the class file of types not covered by the index.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see CandidateComponentsIndex#getMetadataReader(String)
+ */
+public class IndexedMetadataReaderFactory extends CachingMetadataReaderFactory {
+
+	private final CandidateComponentsIndex index;
+
+
+	/**
+	 * Create a new IndexedMetadataReaderFactory for the given index and resource loader.
+	 * @param index the index to resolve type metadata from
+	 * @param resourceLoader the Spring ResourceLoader to use for types that are
+	 * not covered by the index (also determines the ClassLoader to use)
+	 */
+	public IndexedMetadataReaderFactory(CandidateComponentsIndex index, @Nullable ResourceLoader resourceLoader) {
+		super(resourceLoader);
+		Assert.notNull(index, "CandidateComponentsIndex must not be null");
+		this.index = index;
+	}
+
+
+	@Override
+	public MetadataReader getMetadataReader(String className) throws IOException {
+		MetadataReader metadataReader = this.index.getMetadataReader(className);
+		return (metadataReader != null ? metadataReader : super.getMetadataReader(className));
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.context.annotation;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -31,6 +33,8 @@ import org.springframework.context.annotation6.ComponentForScanning;
 import org.springframework.context.annotation6.ConfigForScanning;
 import org.springframework.context.annotation6.Jsr330NamedForScanning;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.metrics.BufferingApplicationStartup;
+import org.springframework.core.metrics.BufferingApplicationStartup.TimelineEntry;
 import org.springframework.util.ObjectUtils;
 
 import static java.lang.String.*;
@@ -367,6 +371,27 @@ public class AnnotationConfigApplicationContextTests {
 		assertEquals(FactoryBean.class, context.getType("&fb"));
 	}
 
+	@Test
+	public void refreshWithApplicationStartup() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(applicationStartup);
+		context.scan("org.springframework.context.annotation6");
+		context.refresh();
+
+		List<String> stepNames = new ArrayList<>();
+		for (TimelineEntry entry : applicationStartup.getTimeline()) {
+			stepNames.add(entry.getName());
+		}
+		assertEquals("spring.context.component-scan.find-candidates", stepNames.get(0));
+		assertThat(stepNames, hasItems("spring.context.refresh", "spring.context.beans.post-process",
+				"spring.context.beandef-registry.post-process", "spring.context.bean-factory.post-process",
+				"spring.context.config-classes.parse", "spring.context.config-classes.enhance",
+				"spring.beans.instantiate"));
+		assertThat(applicationStartup.toCollapsedStacks(),
+				containsString("spring.context.refresh;spring.beans.instantiate(beanName=testBean) "));
+	}
+
 
 	@Configuration
 	static class Config {
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.context.annotation.componentscan.simple.SimpleComponent;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BeanDefinitionSnapshotWriter} and {@link BeanDefinitionSnapshotReader}.
+ *
+ * @author Nico Yates
+ */
+public class BeanDefinitionSnapshotTests {
+
+	@Test
+	public void snapshotEquivalentToParsing() throws IOException {
+		byte[] snapshot = write(new StandardEnvironment(), SnapshotConfig.class);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		BeanDefinitionSnapshotReader reader = new BeanDefinitionSnapshotReader(ctx);
+		assertTrue(reader.loadBeanDefinitions(new ByteArrayResource(snapshot)) > 0);
+		ctx.refresh();
+
+		SnapshotConfig config = ctx.getBean(SnapshotConfig.class);
+		assertTrue(ClassUtils.isCglibProxy(config));
+		TestBean testBean = ctx.getBean("testBean", TestBean.class);
+		assertSame(testBean, ctx.getBean("testBeanAlias"));
+		assertSame(testBean, ctx.getBean("spouseHolder", TestBean.class).getSpouse());
+		assertEquals("static", ctx.getBean("staticBean", String.class));
+		assertFalse(ctx.containsBean("profileBean"));
+		assertEquals("imported", ctx.getBean("importedBean", String.class));
+		assertEquals(ImportedConfig.class.getName(), ctx.getBean(ImportAwareConfig.class).importingClassName);
+
+		ITestBean scoped = ctx.getBean("scopedBean", ITestBean.class);
+		assertTrue(AopUtils.isAopProxy(scoped));
+		assertEquals("scoped", scoped.getName());
+		assertTrue(ctx.getBeanFactory().getBeanDefinition("scopedTarget.scopedBean").isPrototype());
+		ctx.close();
+	}
+
+	@Test
+	public void snapshotConsidersActiveProfiles() throws IOException {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.setActiveProfiles("snapshot");
+		byte[] snapshot = write(environment, SnapshotConfig.class);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.getEnvironment().setActiveProfiles("snapshot");
+		new BeanDefinitionSnapshotReader(ctx).loadBeanDefinitions(new ByteArrayResource(snapshot));
+		ctx.refresh();
+		assertEquals("profile", ctx.getBean("profileBean", String.class));
+		ctx.close();
+
+		ctx = new AnnotationConfigApplicationContext();
+		assertEquals(0, new BeanDefinitionSnapshotReader(ctx).loadBeanDefinitions(new ByteArrayResource(snapshot)));
+		assertFalse(ctx.containsBeanDefinition("profileBean"));
+	}
+
+	@Test
+	public void outdatedSnapshotIgnored() throws IOException {
+		Properties props = new Properties();
+		props.load(new ByteArrayInputStream(write(new StandardEnvironment(), SnapshotConfig.class)));
+		props.setProperty(BeanDefinitionSnapshot.FINGERPRINT_KEY, "outdated");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		props.store(out, null);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		BeanDefinitionSnapshotReader reader = new BeanDefinitionSnapshotReader(ctx);
+		assertEquals(0, reader.loadBeanDefinitions(new ByteArrayResource(out.toByteArray())));
+		assertFalse(ctx.containsBeanDefinition("testBean"));
+	}
+
+	@Test
+	public void missingSnapshotIgnored() {
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		BeanDefinitionSnapshotReader reader = new BeanDefinitionSnapshotReader(ctx);
+		assertEquals(0, reader.loadBeanDefinitions(new ClassPathResource("does/not/exist.definitions")));
+	}
+
+	@Test
+	public void invalidSnapshotRejected() throws IOException {
+		Properties props = new Properties();
+		props.load(new ByteArrayInputStream(write(new StandardEnvironment(), SnapshotConfig.class)));
+		props.setProperty(BeanDefinitionSnapshot.beanKey(0, BeanDefinitionSnapshot.ATTRIBUTE_PREFIX + "invalid"), "x");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		props.store(out, null);
+
+		BeanDefinitionSnapshotReader reader = new BeanDefinitionSnapshotReader(new AnnotationConfigApplicationContext());
+		try {
+			reader.loadBeanDefinitions(new ByteArrayResource(out.toByteArray()));
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertTrue(ex.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void propertySourceNotSupported() throws IOException {
+		write(new StandardEnvironment(), PropertySourceConfig.class);
+	}
+
+	@Test
+	public void scannedPackagesPartOfFingerprint() throws IOException {
+		Properties props = new Properties();
+		props.load(new ByteArrayInputStream(write(new StandardEnvironment(), ScanningConfig.class)));
+		assertEquals(SimpleComponent.class.getPackage().getName(),
+				props.getProperty(BeanDefinitionSnapshot.PACKAGES_KEY));
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		StandardEnvironment environment = new StandardEnvironment();
+		List<String> classNames = Arrays.asList(StringUtils.commaDelimitedListToStringArray(
+				props.getProperty(BeanDefinitionSnapshot.CLASSES_KEY)));
+		assertEquals(props.getProperty(BeanDefinitionSnapshot.FINGERPRINT_KEY), BeanDefinitionSnapshot.fingerprint(
+				classNames, Collections.singleton(SimpleComponent.class.getPackage().getName()), environment, null));
+		assertNotEquals(props.getProperty(BeanDefinitionSnapshot.FINGERPRINT_KEY), BeanDefinitionSnapshot.fingerprint(
+				classNames, Collections.emptySet(), environment, null));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		props.store(out, null);
+		assertTrue(new BeanDefinitionSnapshotReader(ctx).loadBeanDefinitions(new ByteArrayResource(out.toByteArray())) > 0);
+		ctx.refresh();
+		assertEquals("example", ctx.getBean("exampleBean", String.class));
+		ctx.close();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void conditionNotSupported() throws IOException {
+		write(new StandardEnvironment(), ConditionalConfig.class);
+	}
+
+
+	private static byte[] write(StandardEnvironment environment, Class<?>... componentClasses) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new BeanDefinitionSnapshotWriter(environment).write(out, componentClasses);
+		return out.toByteArray();
+	}
+
+
+	@Configuration
+	@Import(ImportedConfig.class)
+	static class SnapshotConfig {
+
+		@Bean({"testBean", "testBeanAlias"})
+		public TestBean testBean() {
+			return new TestBean("test");
+		}
+
+		@Bean
+		public TestBean spouseHolder() {
+			TestBean spouseHolder = new TestBean("holder");
+			spouseHolder.setSpouse(testBean());
+			return spouseHolder;
+		}
+
+		@Bean
+		public static String staticBean() {
+			return "static";
+		}
+
+		@Bean
+		@Profile("snapshot")
+		public String profileBean() {
+			return "profile";
+		}
+
+		@Bean
+		@Scope(scopeName = "prototype", proxyMode = ScopedProxyMode.INTERFACES)
+		public ITestBean scopedBean() {
+			return new TestBean("scoped");
+		}
+	}
+
+
+	@Configuration
+	@Import(ImportAwareConfig.class)
+	static class ImportedConfig {
+
+		@Bean
+		public String importedBean() {
+			return "imported";
+		}
+	}
+
+
+	@Configuration
+	static class ImportAwareConfig implements ImportAware {
+
+		String importingClassName;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importingClassName = importMetadata.getClassName();
+		}
+	}
+
+
+	@Configuration
+	@PropertySource("classpath:org/springframework/context/annotation/p1.properties")
+	static class PropertySourceConfig {
+	}
+
+
+	@Configuration
+	@ComponentScan(basePackageClasses = SimpleComponent.class)
+	static class ScanningConfig {
+	}
+
+
+	@Configuration
+	static class ConditionalConfig {
+
+		@Bean
+		@Conditional(NeverCondition.class)
+		public String conditionalBean() {
+			return "conditional";
+		}
+	}
+
+
+	static class NeverCondition implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			return false;
+		}
+	}
+
+}
@@ -23,6 +23,12 @@ import java.util.Set;
 
 import org.junit.Test;
 
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Scope;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
@@ -77,6 +83,52 @@ public class CandidateComponentsIndexTests {
 				contains("com.example.Foo"));
 	}
 
+	@Test
+	public void getMetadataReader() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(
+				Collections.singletonList(createSampleProperties()),
+				Collections.singletonList(createProperties("com.example.service.One",
+						"C 1 com/example/service/One java/lang/Object 1 java/io/Serializable " +
+						"A Lorg/springframework/context/annotation/Scope; V value sprototype%20scope E " +
+						"I com/example/service/One$Two com/example/service/One Two 9 " +
+						"M 9 two ()Lcom/example/service/One$Two; A Lorg/springframework/context/annotation/Bean; E E")),
+				getClass().getClassLoader());
+		MetadataReader metadataReader = index.getMetadataReader("com.example.service.One");
+		assertNotNull(metadataReader);
+		assertSame(metadataReader, index.getMetadataReader("com.example.service.One"));
+		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+		assertEquals("com.example.service.One", metadata.getClassName());
+		assertEquals("java.lang.Object", metadata.getSuperClassName());
+		assertArrayEquals(new String[] {"java.io.Serializable"}, metadata.getInterfaceNames());
+		assertArrayEquals(new String[] {"com.example.service.One$Two"}, metadata.getMemberClassNames());
+		assertTrue(metadata.isConcrete());
+		assertTrue(metadata.isIndependent());
+		assertEquals("prototype scope", metadata.getAnnotationAttributes(Scope.class.getName()).get("scopeName"));
+		Set<MethodMetadata> beanMethods = metadata.getAnnotatedMethods(Bean.class.getName());
+		assertThat(beanMethods, hasSize(1));
+		MethodMetadata beanMethod = beanMethods.iterator().next();
+		assertEquals("two", beanMethod.getMethodName());
+		assertEquals("com.example.service.One$Two", beanMethod.getReturnTypeName());
+		assertTrue(beanMethod.isStatic());
+		assertEquals(true, beanMethod.getAnnotationAttributes(Bean.class.getName()).get("autowireCandidate"));
+	}
+
+	@Test
+	public void getMetadataReaderWithoutTypeMetadata() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(
+				Collections.singletonList(createSampleProperties()));
+		assertNull(index.getMetadataReader("com.example.service.One"));
+	}
+
+	@Test
+	public void getMetadataReaderWithInvalidTypeMetadata() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(
+				Collections.singletonList(createSampleProperties()),
+				Collections.singletonList(createProperties("com.example.service.One", "C 1 com/example/service/One")),
+				getClass().getClassLoader());
+		assertNull(index.getMetadataReader("com.example.service.One"));
+	}
+
 	private static Properties createProperties(String key, String stereotypes) {
 		Properties properties = new Properties();
 		properties.put(key, String.join(",", stereotypes));
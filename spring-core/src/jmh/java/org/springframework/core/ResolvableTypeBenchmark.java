@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link ResolvableType#forClass(Class)} and
+ * {@link ResolvableType#forMethodParameter(MethodParameter)}, including
+ * generic resolution against the resulting types.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public ResolvableType forClass() {
+		return ResolvableType.forClass(StringRepository.class);
+	}
+
+	@Benchmark
+	public Class<?> forClassResolveGeneric() {
+		return ResolvableType.forClass(StringRepository.class).as(Repository.class).resolveGeneric(0);
+	}
+
+	@Benchmark
+	public ResolvableType forMethodParameter(MethodData data) {
+		return ResolvableType.forMethodParameter(data.parameter);
+	}
+
+	@Benchmark
+	public Class<?> forMethodParameterResolveGeneric(MethodData data) {
+		return ResolvableType.forMethodParameter(data.parameter).resolveGeneric(1, 0);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class MethodData {
+
+		public MethodParameter parameter;
+
+		@Setup
+		public void setup() throws NoSuchMethodException {
+			Method method = StringRepository.class.getMethod("saveAll", Map.class);
+			this.parameter = new MethodParameter(method, 0);
+		}
+	}
+
+
+	public interface Repository<T> {
+
+		void saveAll(Map<String, List<T>> entities);
+	}
+
+
+	public static class StringRepository implements Repository<String> {
+
+		@Override
+		public void saveAll(Map<String, List<String>> entities) {
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link AnnotatedElementUtils#findMergedAnnotation}, resolving
+ * a composed annotation with {@link AliasFor @AliasFor} overrides on a class,
+ * on an interface method and for a missing annotation.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AnnotatedElementUtilsBenchmark {
+
+	@Benchmark
+	public Mapping findMergedAnnotationOnClass() {
+		return AnnotatedElementUtils.findMergedAnnotation(AnnotatedController.class, Mapping.class);
+	}
+
+	@Benchmark
+	public Mapping findMergedAnnotationOnInterfaceMethod(MethodData data) {
+		return AnnotatedElementUtils.findMergedAnnotation(data.method, Mapping.class);
+	}
+
+	@Benchmark
+	public Mapping findMergedAnnotationNotPresent(MethodData data) {
+		return AnnotatedElementUtils.findMergedAnnotation(data.plainMethod, Mapping.class);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class MethodData {
+
+		public Method method;
+
+		public Method plainMethod;
+
+		@Setup
+		public void setup() throws NoSuchMethodException {
+			this.method = AnnotatedController.class.getMethod("handle", String.class);
+			this.plainMethod = AnnotatedController.class.getMethod("toString");
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	public @interface Mapping {
+
+		@AliasFor("path")
+		String[] value() default {};
+
+		@AliasFor("value")
+		String[] path() default {};
+
+		String[] produces() default {};
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Mapping
+	public @interface GetMapping {
+
+		@AliasFor(annotation = Mapping.class)
+		String[] value() default {};
+
+		@AliasFor(annotation = Mapping.class)
+		String[] produces() default {};
+	}
+
+
+	public interface ControllerContract {
+
+		@GetMapping(value = "/items/{id}", produces = "application/json")
+		String handle(String id);
+	}
+
+
+	@GetMapping("/items")
+	public static class AnnotatedController implements ControllerContract {
+
+		@Override
+		public String handle(String id) {
+			return id;
+		}
+	}
+
+}
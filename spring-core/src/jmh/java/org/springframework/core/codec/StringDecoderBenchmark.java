@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+/**
+ * Benchmarks for {@link StringDecoder} splitting a line-oriented stream,
+ * e.g. newline-delimited JSON, into lines.
+ *
+ * <p>Every operation decodes {@link DecodeData#INPUT_SIZE 16 MB} of input,
+ * received in chunks of 8 KB; multiply the throughput by 16 for MB/s. Over
+ * the default iterations this amounts to several GB of input per parameter
+ * combination.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+@BenchmarkMode(Mode.Throughput)
+public class StringDecoderBenchmark {
+
+	@Benchmark
+	public Long decodeLines(DecodeData data) {
+		Flux<DataBuffer> input = Flux.fromArray(data.chunks).map(data.bufferFactory::wrap);
+		return data.decoder.decode(input, ResolvableType.forClass(String.class), null, Collections.emptyMap())
+				.count()
+				.block();
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class DecodeData {
+
+		public static final int INPUT_SIZE = 16 * 1024 * 1024;
+
+		public static final int CHUNK_SIZE = 8 * 1024;
+
+		@Param({"80", "1024"})
+		public int lineLength;
+
+		@Param({"LF", "CRLF"})
+		public String lineSeparator;
+
+		public final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		public final StringDecoder decoder = StringDecoder.allMimeTypes();
+
+		public byte[][] chunks;
+
+		@Setup
+		public void setup() {
+			byte[] separator = ("CRLF".equals(this.lineSeparator) ? "\r\n" : "\n").getBytes(StandardCharsets.UTF_8);
+			byte[] line = new byte[this.lineLength];
+			byte[] template = "{\"id\":42,\"message\":\"Lorem ipsum dolor sit amet\"}".getBytes(StandardCharsets.UTF_8);
+			for (int i = 0; i < line.length; i++) {
+				line[i] = template[i % template.length];
+			}
+			byte[] input = new byte[INPUT_SIZE];
+			int position = 0;
+			while (position < INPUT_SIZE) {
+				int length = Math.min(line.length, INPUT_SIZE - position);
+				System.arraycopy(line, 0, input, position, length);
+				position += length;
+				length = Math.min(separator.length, INPUT_SIZE - position);
+				System.arraycopy(separator, 0, input, position, length);
+				position += length;
+			}
+			this.chunks = new byte[INPUT_SIZE / CHUNK_SIZE][];
+			for (int i = 0; i < this.chunks.length; i++) {
+				this.chunks[i] = Arrays.copyOfRange(input, i * CHUNK_SIZE, (i + 1) * CHUNK_SIZE);
+			}
+		}
+	}
+
+}
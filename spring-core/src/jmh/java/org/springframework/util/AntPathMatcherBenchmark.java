@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AntPathMatcher#match(String, String)}, covering literal,
+ * wildcard, URI template and double-wildcard patterns against matching and
+ * non-matching paths.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AntPathMatcherBenchmark {
+
+	@Benchmark
+	public void matchPatterns(PatternData data, Blackhole bh) {
+		for (String pattern : data.patterns) {
+			for (String path : data.paths) {
+				bh.consume(data.matcher.match(pattern, path));
+			}
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PatternData {
+
+		@Param({"true", "false"})
+		public boolean cachePatterns;
+
+		public AntPathMatcher matcher;
+
+		public String[] patterns = new String[] {
+				"/api/customers",
+				"/api/customers/{id}",
+				"/api/customers/{id}/orders/{orderId}",
+				"/static/**/*.js",
+				"/api/*/settings",
+				"/**/favicon.ico"
+		};
+
+		public String[] paths = new String[] {
+				"/api/customers",
+				"/api/customers/42",
+				"/api/customers/42/orders/7",
+				"/static/js/vendor/app.min.js",
+				"/api/accounts/settings",
+				"/images/favicon.png"
+		};
+
+		@Setup
+		public void setup() {
+			this.matcher = new AntPathMatcher();
+			this.matcher.setCachePatterns(this.cachePatterns);
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link ConcurrentReferenceHashMap} under contention, with
+ * several reader threads and one writer thread sharing the same map.
+ * A {@link Collections#synchronizedMap synchronized} {@link HashMap} is
+ * measured with the same workload for comparison.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ConcurrentReferenceHashMapBenchmark {
+
+	@Benchmark
+	@Group("concurrentMap")
+	@GroupThreads(3)
+	public String concurrentMapGet(ConcurrentMapData data) {
+		return data.map.get(data.randomKey());
+	}
+
+	@Benchmark
+	@Group("concurrentMap")
+	@GroupThreads(1)
+	public String concurrentMapPut(ConcurrentMapData data) {
+		String key = data.randomKey();
+		return data.map.put(key, key);
+	}
+
+	@Benchmark
+	@Group("synchronizedMap")
+	@GroupThreads(3)
+	public String synchronizedMapGet(SynchronizedMapData data) {
+		return data.map.get(data.randomKey());
+	}
+
+	@Benchmark
+	@Group("synchronizedMap")
+	@GroupThreads(1)
+	public String synchronizedMapPut(SynchronizedMapData data) {
+		String key = data.randomKey();
+		return data.map.put(key, key);
+	}
+
+
+	@State(Scope.Group)
+	public abstract static class MapData {
+
+		@Param({"500"})
+		public int capacity;
+
+		public String[] keys;
+
+		public Map<String, String> map;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.keys = new String[this.capacity];
+			this.map = createMap();
+			Random random = new Random(this.capacity);
+			for (int i = 0; i < this.capacity; i++) {
+				String key = String.valueOf(random.nextInt());
+				this.keys[i] = key;
+				this.map.put(key, key);
+			}
+		}
+
+		public String randomKey() {
+			return this.keys[ThreadLocalRandom.current().nextInt(this.keys.length)];
+		}
+
+		protected abstract Map<String, String> createMap();
+	}
+
+
+	public static class ConcurrentMapData extends MapData {
+
+		@Override
+		protected Map<String, String> createMap() {
+			return new ConcurrentReferenceHashMap<>();
+		}
+	}
+
+
+	public static class SynchronizedMapData extends MapData {
+
+		@Override
+		protected Map<String, String> createMap() {
+			return Collections.synchronizedMap(new HashMap<>());
+		}
+	}
+
+}
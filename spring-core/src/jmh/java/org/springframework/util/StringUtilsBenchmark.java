@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link StringUtils#tokenizeToStringArray(String, String)},
+ * as used for comma-delimited configuration values and path segments.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+@BenchmarkMode(Mode.Throughput)
+public class StringUtilsBenchmark {
+
+	@Benchmark
+	public String[] tokenizeToStringArray(TokenizeData data) {
+		return StringUtils.tokenizeToStringArray(data.input, data.delimiters);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class TokenizeData {
+
+		@Param({"5", "50"})
+		public int tokenCount;
+
+		public String delimiters = ",; \t\n";
+
+		public String input;
+
+		@Setup
+		public void setup() {
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < this.tokenCount; i++) {
+				if (i > 0) {
+					builder.append(i % 2 == 0 ? ", " : ";");
+				}
+				builder.append("org.springframework.sample.Token").append(i);
+			}
+			this.input = builder.toString();
+		}
+	}
+
+}
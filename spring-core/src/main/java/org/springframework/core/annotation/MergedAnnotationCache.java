@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Cache for the merged, synthesized annotations that {@link AnnotatedElementUtils}
+ * resolves for an {@link AnnotatedElement}, avoiding repeated traversal of the
+ * annotation hierarchy and repeated synthesis for the same element.
+ *
+ * <p>The results for each element are kept in an immutable array of annotation
+ * types and results that gets replaced on every addition, so that lookups do
+ * not need to allocate a cache key and do not need to synchronize. Since merged
+ * annotations are immutable, the same instance can be safely handed out to all
+ * callers. Only classes and members are cached; other (typically transient)
+ * {@code AnnotatedElement} implementations are always resolved anew.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see AnnotatedElementUtils#getMergedAnnotation(AnnotatedElement, Class)
+ * @see AnnotatedElementUtils#findMergedAnnotation(AnnotatedElement, Class)
+ */
+final class MergedAnnotationCache {
+
+	/** Cache for <em>get semantics</em> lookups. */
+	static final MergedAnnotationCache GET = new MergedAnnotationCache();
+
+	/** Cache for <em>find semantics</em> lookups. */
+	static final MergedAnnotationCache FIND = new MergedAnnotationCache();
+
+	/** Marker for an annotation type that is known to be absent on an element. */
+	private static final Object NOT_FOUND = new Object();
+
+	private static final Object[] EMPTY_RESULTS = new Object[0];
+
+
+	private final Map<AnnotatedElement, Object[]> cache = new ConcurrentReferenceHashMap<>(256);
+
+
+	private MergedAnnotationCache() {
+	}
+
+
+	/**
+	 * Resolve the merged annotation of the given type on the given element,
+	 * using the cached result if available.
+	 * @param element the annotated element
+	 * @param annotationType the annotation type to look for
+	 * @param resolver the callback that resolves the annotation if not cached yet
+	 * @return the merged annotation, or {@code null} if not found
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	<A extends Annotation> A get(AnnotatedElement element, Class<A> annotationType, Resolver<A> resolver) {
+		if (!isCacheable(element)) {
+			return resolver.resolve(element, annotationType);
+		}
+		Object[] results = this.cache.get(element);
+		if (results != null) {
+			for (int i = 0; i < results.length; i += 2) {
+				if (results[i] == annotationType) {
+					Object result = results[i + 1];
+					return (result != NOT_FOUND ? (A) result : null);
+				}
+			}
+		}
+		A result = resolver.resolve(element, annotationType);
+		put(element, annotationType, result);
+		return result;
+	}
+
+	private void put(AnnotatedElement element, Class<? extends Annotation> annotationType, @Nullable Annotation result) {
+		Object value = (result != null ? result : NOT_FOUND);
+		this.cache.compute(element, (key, results) -> {
+			if (results == null) {
+				results = EMPTY_RESULTS;
+			}
+			for (int i = 0; i < results.length; i += 2) {
+				if (results[i] == annotationType) {
+					// Resolved concurrently in the meantime
+					return results;
+				}
+			}
+			Object[] newResults = new Object[results.length + 2];
+			System.arraycopy(results, 0, newResults, 0, results.length);
+			newResults[results.length] = annotationType;
+			newResults[results.length + 1] = value;
+			return newResults;
+		});
+	}
+
+	/**
+	 * Clear this cache.
+	 */
+	void clear() {
+		this.cache.clear();
+	}
+
+
+	private static boolean isCacheable(AnnotatedElement element) {
+		return (element instanceof Class || element instanceof Member);
+	}
+
+
+	/**
+	 * Callback for resolving the merged annotation of an element on a cache miss.
+	 */
+	@FunctionalInterface
+	interface Resolver<A extends Annotation> {
+
+		@Nullable
+		A resolve(AnnotatedElement element, Class<A> annotationType);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,9 +21,8 @@ import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -45,7 +44,10 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 
 	private final AnnotationAttributeExtractor<?> attributeExtractor;
 
-	private final Map<String, Object> valueCache = new ConcurrentHashMap<>(8);
+	private final List<Method> attributeMethods;
+
+	/** Resolved attribute values, indexed like the attribute methods. */
+	private final AtomicReferenceArray<Object> valueCache;
 
 
 	/**
@@ -56,6 +58,8 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 	SynthesizedAnnotationInvocationHandler(AnnotationAttributeExtractor<?> attributeExtractor) {
 		Assert.notNull(attributeExtractor, "AnnotationAttributeExtractor must not be null");
 		this.attributeExtractor = attributeExtractor;
+		this.attributeMethods = AnnotationUtils.getAttributeMethods(attributeExtractor.getAnnotationType());
+		this.valueCache = new AtomicReferenceArray<>(this.attributeMethods.size());
 	}
 
 
@@ -77,17 +81,29 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 			throw new AnnotationConfigurationException(String.format(
 					"Method [%s] is unsupported for synthesized annotation type [%s]", method, annotationType()));
 		}
-		return getAttributeValue(method);
+		return getAttributeValue(attributeIndex(method));
 	}
 
 	private Class<? extends Annotation> annotationType() {
 		return this.attributeExtractor.getAnnotationType();
 	}
 
-	private Object getAttributeValue(Method attributeMethod) {
+	private int attributeIndex(Method attributeMethod) {
 		String attributeName = attributeMethod.getName();
-		Object value = this.valueCache.get(attributeName);
+		for (int i = 0; i < this.attributeMethods.size(); i++) {
+			if (this.attributeMethods.get(i).getName().equals(attributeName)) {
+				return i;
+			}
+		}
+		throw new AnnotationConfigurationException(String.format(
+				"Method [%s] is unsupported for synthesized annotation type [%s]", attributeMethod, annotationType()));
+	}
+
+	private Object getAttributeValue(int attributeIndex) {
+		Object value = this.valueCache.get(attributeIndex);
 		if (value == null) {
+			Method attributeMethod = this.attributeMethods.get(attributeIndex);
+			String attributeName = attributeMethod.getName();
 			value = this.attributeExtractor.getAttributeValue(attributeMethod);
 			if (value == null) {
 				String msg = String.format("%s returned null for attribute name [%s] from attribute source [%s]",
@@ -103,7 +119,7 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 				value = AnnotationUtils.synthesizeAnnotationArray((Annotation[]) value, this.attributeExtractor.getAnnotatedElement());
 			}
 
-			this.valueCache.put(attributeName, value);
+			this.valueCache.set(attributeIndex, value);
 		}
 
 		// Clone arrays so that users cannot alter the contents of values in our cache.
@@ -161,8 +177,9 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 			return false;
 		}
 
-		for (Method attributeMethod : AnnotationUtils.getAttributeMethods(annotationType())) {
-			Object thisValue = getAttributeValue(attributeMethod);
+		for (int i = 0; i < this.attributeMethods.size(); i++) {
+			Method attributeMethod = this.attributeMethods.get(i);
+			Object thisValue = getAttributeValue(i);
 			Object otherValue = ReflectionUtils.invokeMethod(attributeMethod, other);
 			if (!ObjectUtils.nullSafeEquals(thisValue, otherValue)) {
 				return false;
@@ -178,8 +195,8 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 	private int annotationHashCode() {
 		int result = 0;
 
-		for (Method attributeMethod : AnnotationUtils.getAttributeMethods(annotationType())) {
-			Object value = getAttributeValue(attributeMethod);
+		for (int i = 0; i < this.attributeMethods.size(); i++) {
+			Object value = getAttributeValue(i);
 			int hashCode;
 			if (value.getClass().isArray()) {
 				hashCode = hashCodeForArray(value);
@@ -187,7 +204,7 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 			else {
 				hashCode = value.hashCode();
 			}
-			result += (127 * attributeMethod.getName().hashCode()) ^ hashCode;
+			result += (127 * this.attributeMethods.get(i).getName().hashCode()) ^ hashCode;
 		}
 
 		return result;
@@ -236,13 +253,11 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 	private String annotationToString() {
 		StringBuilder sb = new StringBuilder("@").append(annotationType().getName()).append("(");
 
-		Iterator<Method> iterator = AnnotationUtils.getAttributeMethods(annotationType()).iterator();
-		while (iterator.hasNext()) {
-			Method attributeMethod = iterator.next();
-			sb.append(attributeMethod.getName());
+		for (int i = 0; i < this.attributeMethods.size(); i++) {
+			sb.append(this.attributeMethods.get(i).getName());
 			sb.append('=');
-			sb.append(attributeValueToString(getAttributeValue(attributeMethod)));
-			sb.append(iterator.hasNext() ? ", " : "");
+			sb.append(attributeValueToString(getAttributeValue(i)));
+			sb.append(i < this.attributeMethods.size() - 1 ? ", " : "");
 		}
 
 		return sb.append(")").toString();
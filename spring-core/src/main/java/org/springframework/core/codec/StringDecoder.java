@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,15 +25,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.stream.Collectors;
 
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
-import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.core.io.buffer.PooledDataBuffer;
 import org.springframework.core.log.LogFormatUtils;
 import org.springframework.lang.Nullable;
@@ -46,6 +45,8 @@ import org.springframework.util.MimeTypeUtils;
  * realigns the incoming data buffers so that each buffer ends with a newline.
  * This is to make sure that multibyte characters are decoded properly, and do not cross buffer
  * boundaries. The default delimiters ({@code \n}, {@code \r\n})can be customized.
+ * Where custom delimiters overlap, the input is split at the delimiter that ends first,
+ * and at the longest one of those that end at the same position.
  *
  * <p>Partially inspired by Netty's {@code DelimiterBasedFrameDecoder}.
  *
@@ -58,8 +59,6 @@ import org.springframework.util.MimeTypeUtils;
  */
 public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 
-	private static final DataBuffer END_FRAME = new DefaultDataBufferFactory().wrap(new byte[0]);
-
 	/** The default charset to use, i.e. "UTF-8". */
 	public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
 
@@ -71,7 +70,7 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 
 	private final boolean stripDelimiter;
 
-	private final ConcurrentMap<Charset, List<byte[]>> delimitersCache = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Charset, byte[][]> delimitersCache = new ConcurrentHashMap<>();
 
 
 	private StringDecoder(List<String> delimiters, boolean stripDelimiter, MimeType... mimeTypes) {
@@ -91,112 +90,65 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 	public Flux<String> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
-		List<byte[]> delimiterBytes = getDelimiterBytes(mimeType);
+		byte[][] delimiterBytes = getDelimiterBytes(mimeType);
 
-		Flux<DataBuffer> inputFlux = Flux.from(inputStream)
-				.flatMapIterable(dataBuffer -> splitOnDelimiter(dataBuffer, delimiterBytes))
-				.bufferUntil(StringDecoder::isEndFrame)
-				.map(StringDecoder::joinUntilEndFrame)
-				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+		Flux<DataBuffer> inputFlux = Flux.defer(() -> {
+			DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(delimiterBytes);
+			Chunks chunks = new Chunks();
+			return Flux.from(inputStream)
+					.concatMapIterable(dataBuffer -> splitOnDelimiter(dataBuffer, matcher, chunks))
+					.concatWith(Mono.fromSupplier(chunks::join))
+					.doFinally(signalType -> chunks.release())
+					.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+		});
 
 		return super.decode(inputFlux, elementType, mimeType, hints);
 	}
 
-	private List<byte[]> getDelimiterBytes(@Nullable MimeType mimeType) {
+	private byte[][] getDelimiterBytes(@Nullable MimeType mimeType) {
 		return this.delimitersCache.computeIfAbsent(getCharset(mimeType),
 				charset -> this.delimiters.stream()
 						.map(s -> s.getBytes(charset))
-						.collect(Collectors.toList()));
+						.toArray(byte[][]::new));
 	}
 
 	/**
-	 * Split the given data buffer on delimiter boundaries.
-	 * The returned Flux contains an {@link #END_FRAME} buffer after each delimiter.
+	 * Split the given data buffer on delimiter boundaries, in a single pass
+	 * for all delimiters. Bytes after the last delimiter are kept in the given
+	 * chunks, and prepended to the first frame of the next buffer.
 	 */
-	private List<DataBuffer> splitOnDelimiter(DataBuffer dataBuffer, List<byte[]> delimiterBytes) {
+	private List<DataBuffer> splitOnDelimiter(DataBuffer dataBuffer, DataBufferUtils.Matcher matcher, Chunks chunks) {
+
 		List<DataBuffer> frames = new ArrayList<>();
-		do {
-			int length = Integer.MAX_VALUE;
-			byte[] matchingDelimiter = null;
-			for (byte[] delimiter : delimiterBytes) {
-				int index = indexOf(dataBuffer, delimiter);
-				if (index >= 0 && index < length) {
-					length = index;
-					matchingDelimiter = delimiter;
+		try {
+			do {
+				int readPosition = dataBuffer.readPosition();
+				int endIndex = matcher.match(dataBuffer);
+				if (endIndex == -1) {
+					int length = dataBuffer.readableByteCount();
+					chunks.add(DataBufferUtils.retain(dataBuffer.slice(readPosition, length)));
+					dataBuffer.readPosition(readPosition + length);
+					break;
 				}
-			}
-			DataBuffer frame;
-			int readPosition = dataBuffer.readPosition();
-			if (matchingDelimiter != null) {
+				DataBuffer frame = DataBufferUtils.retain(dataBuffer.slice(readPosition, endIndex + 1 - readPosition));
+				dataBuffer.readPosition(endIndex + 1);
+				// The delimiter may start in one of the chunks
+				frame = chunks.join(frame);
 				if (this.stripDelimiter) {
-					frame = dataBuffer.slice(readPosition, length);
-				}
-				else {
-					frame = dataBuffer.slice(readPosition, length + matchingDelimiter.length);
+					frame.writePosition(frame.writePosition() - matcher.delimiter().length);
 				}
-				dataBuffer.readPosition(readPosition + length + matchingDelimiter.length);
-
-				frames.add(DataBufferUtils.retain(frame));
-				frames.add(END_FRAME);
-			}
-			else {
-				frame = dataBuffer.slice(readPosition, dataBuffer.readableByteCount());
-				dataBuffer.readPosition(readPosition + dataBuffer.readableByteCount());
-				frames.add(DataBufferUtils.retain(frame));
+				frames.add(frame);
 			}
+			while (dataBuffer.readableByteCount() > 0);
 		}
-		while (dataBuffer.readableByteCount() > 0);
-
-		DataBufferUtils.release(dataBuffer);
-		return frames;
-	}
-
-	/**
-	 * Find the given delimiter in the given data buffer.
-	 * @return the index of the delimiter, or -1 if not found.
-	 */
-	private static int indexOf(DataBuffer dataBuffer, byte[] delimiter) {
-		for (int i = dataBuffer.readPosition(); i < dataBuffer.writePosition(); i++) {
-			int dataBufferPos = i;
-			int delimiterPos = 0;
-			while (delimiterPos < delimiter.length) {
-				if (dataBuffer.getByte(dataBufferPos) != delimiter[delimiterPos]) {
-					break;
-				}
-				else {
-					dataBufferPos++;
-					if (dataBufferPos == dataBuffer.writePosition() &&
-							delimiterPos != delimiter.length - 1) {
-						return -1;
-					}
-				}
-				delimiterPos++;
-			}
-			if (delimiterPos == delimiter.length) {
-				return i - dataBuffer.readPosition();
-			}
+		catch (Throwable ex) {
+			frames.forEach(DataBufferUtils::release);
+			throw ex;
 		}
-		return -1;
-	}
-
-	/**
-	 * Check whether the given buffer is {@link #END_FRAME}.
-	 */
-	private static boolean isEndFrame(DataBuffer dataBuffer) {
-		return dataBuffer == END_FRAME;
-	}
-
-	/**
-	 * Join the given list of buffers into a single buffer.
-	 */
-	private static DataBuffer joinUntilEndFrame(List<DataBuffer> dataBuffers) {
-		if (!dataBuffers.isEmpty()) {
-			int lastIdx = dataBuffers.size() - 1;
-			if (isEndFrame(dataBuffers.get(lastIdx))) {
-				dataBuffers.remove(lastIdx);
-			}
+		finally {
+			DataBufferUtils.release(dataBuffer);
 		}
-		return dataBuffers.get(0).factory().join(dataBuffers);
+		return frames;
 	}
 
 	@Override
@@ -281,4 +233,55 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 				new MimeType("text", "plain", DEFAULT_CHARSET), MimeTypeUtils.ALL);
 	}
 
+
+	/**
+	 * The bytes after the last delimiter seen so far. Guarded since they get
+	 * released on cancellation, which may happen while a buffer is being split.
+	 */
+	private static class Chunks {
+
+		private final List<DataBuffer> chunks = new ArrayList<>();
+
+		private boolean released;
+
+		public synchronized void add(DataBuffer chunk) {
+			if (this.released) {
+				DataBufferUtils.release(chunk);
+			}
+			else {
+				this.chunks.add(chunk);
+			}
+		}
+
+		/**
+		 * Join the chunks, if any, with the given frame.
+		 */
+		public synchronized DataBuffer join(DataBuffer frame) {
+			if (this.chunks.isEmpty()) {
+				return frame;
+			}
+			this.chunks.add(frame);
+			return join();
+		}
+
+		/**
+		 * Join the chunks into the final frame, if any.
+		 */
+		@Nullable
+		public synchronized DataBuffer join() {
+			if (this.chunks.isEmpty()) {
+				return null;
+			}
+			DataBuffer frame = DataBufferUtils.compose(this.chunks);
+			this.chunks.clear();
+			return frame;
+		}
+
+		public synchronized void release() {
+			this.released = true;
+			this.chunks.forEach(DataBufferUtils::release);
+			this.chunks.clear();
+		}
+	}
+
 }
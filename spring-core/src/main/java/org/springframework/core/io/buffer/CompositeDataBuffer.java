@@ -0,0 +1,583 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * {@link DataBuffer} that is composed of the readable bytes of other buffers,
+ * without copying them. Inspired by Netty's {@code CompositeByteBuf}, and used
+ * by {@link DataBufferUtils#compose(List)} for buffers that do not come from a
+ * {@link NettyDataBufferFactory}.
+ *
+ * <p>Reading, {@linkplain #indexOf(IntPredicate, int) searching} and
+ * {@linkplain #slice(int, int) slicing} operate across component boundaries.
+ * {@link #asByteBuffer(int, int)} returns a shared view if the requested range
+ * lies within a single component, and a copy otherwise. Writes beyond the
+ * capacity add a newly allocated component.
+ *
+ * <p>The component buffers are owned by the composite: they are
+ * {@linkplain DataBufferUtils#release(DataBuffer) released} once the
+ * composite itself is released.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see DataBufferUtils#compose(List)
+ */
+class CompositeDataBuffer implements PooledDataBuffer {
+
+	private static final int MIN_COMPONENT_CAPACITY = 256;
+
+
+	private final DataBufferFactory dataBufferFactory;
+
+	/** The buffer holding the reference count and the component buffers. */
+	private final CompositeDataBuffer root;
+
+	private final List<DataBuffer> componentBuffers;
+
+	private final List<Component> components;
+
+	private final AtomicInteger refCount = new AtomicInteger(1);
+
+	/** The most recently accessed component, for sequential access. */
+	private int lastComponent;
+
+	private int capacity;
+
+	private int readPosition;
+
+	private int writePosition;
+
+
+	/**
+	 * Create a composite of the readable bytes of the given buffers.
+	 * @param dataBufferFactory the factory to allocate additional components with
+	 * @param dataBuffers the buffers to compose
+	 */
+	CompositeDataBuffer(DataBufferFactory dataBufferFactory, List<? extends DataBuffer> dataBuffers) {
+		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
+		Assert.notNull(dataBuffers, "DataBuffer List must not be null");
+		this.dataBufferFactory = dataBufferFactory;
+		this.root = this;
+		this.componentBuffers = new ArrayList<>(dataBuffers);
+		this.components = new ArrayList<>(dataBuffers.size());
+		for (DataBuffer dataBuffer : dataBuffers) {
+			addComponent(dataBuffer.asByteBuffer());
+		}
+		this.writePosition = this.capacity;
+	}
+
+	private CompositeDataBuffer(CompositeDataBuffer root, List<ByteBuffer> byteBuffers) {
+		this.dataBufferFactory = root.dataBufferFactory;
+		this.root = root;
+		this.componentBuffers = root.componentBuffers;
+		this.components = new ArrayList<>(byteBuffers.size());
+		byteBuffers.forEach(this::addComponent);
+		this.writePosition = this.capacity;
+	}
+
+	private void addComponent(ByteBuffer byteBuffer) {
+		// Zero-length components would only get in the way of index lookups
+		int length = byteBuffer.remaining();
+		if (length > 0) {
+			this.components.add(new Component(byteBuffer.slice(), this.capacity));
+			this.capacity += length;
+		}
+	}
+
+
+	/**
+	 * Return the number of components in this buffer.
+	 */
+	int componentCount() {
+		return this.components.size();
+	}
+
+	@Override
+	public DataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= this.writePosition) {
+			return -1;
+		}
+		int componentIndex = componentIndex(fromIndex);
+		int i = fromIndex;
+		while (i < this.writePosition) {
+			Component component = this.components.get(componentIndex++);
+			int end = Math.min(component.offset + component.length, this.writePosition);
+			for (; i < end; i++) {
+				if (predicate.test(component.byteBuffer.get(i - component.offset))) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		int i = Math.min(fromIndex, this.writePosition - 1);
+		if (i < 0) {
+			return -1;
+		}
+		int componentIndex = componentIndex(i);
+		while (i >= 0) {
+			Component component = this.components.get(componentIndex--);
+			for (; i >= component.offset; i--) {
+				if (predicate.test(component.byteBuffer.get(i - component.offset))) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.writePosition - this.readPosition;
+	}
+
+	@Override
+	public int writableByteCount() {
+		return this.capacity - this.writePosition;
+	}
+
+	@Override
+	public int capacity() {
+		return this.capacity;
+	}
+
+	@Override
+	public CompositeDataBuffer capacity(int newCapacity) {
+		if (newCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("'newCapacity' %d must be higher than 0", newCapacity));
+		}
+		if (this.root != this) {
+			throw new UnsupportedOperationException("Changing the capacity of a sliced buffer is not supported");
+		}
+		if (newCapacity > this.capacity) {
+			DataBuffer dataBuffer = this.dataBufferFactory.allocateBuffer(newCapacity - this.capacity);
+			this.componentBuffers.add(dataBuffer);
+			addComponent(dataBuffer.asByteBuffer(0, newCapacity - this.capacity));
+		}
+		else if (newCapacity < this.capacity) {
+			int componentIndex = componentIndex(newCapacity - 1);
+			Component last = this.components.get(componentIndex);
+			ByteBuffer byteBuffer = last.byteBuffer.duplicate();
+			((Buffer) byteBuffer).limit(newCapacity - last.offset);
+			this.components.set(componentIndex, new Component(byteBuffer.slice(), last.offset));
+			this.components.subList(componentIndex + 1, this.components.size()).clear();
+			this.lastComponent = 0;
+			this.capacity = newCapacity;
+			this.writePosition = Math.min(this.writePosition, newCapacity);
+			this.readPosition = Math.min(this.readPosition, this.writePosition);
+		}
+		return this;
+	}
+
+	@Override
+	public DataBuffer ensureCapacity(int length) {
+		if (length > writableByteCount()) {
+			capacity(this.capacity + Math.max(length - writableByteCount(), MIN_COMPONENT_CAPACITY));
+		}
+		return this;
+	}
+
+	@Override
+	public int readPosition() {
+		return this.readPosition;
+	}
+
+	@Override
+	public CompositeDataBuffer readPosition(int readPosition) {
+		assertIndex(readPosition >= 0, "'readPosition' %d must be >= 0", readPosition);
+		assertIndex(readPosition <= this.writePosition, "'readPosition' %d must be <= %d",
+				readPosition, this.writePosition);
+		this.readPosition = readPosition;
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.writePosition;
+	}
+
+	@Override
+	public CompositeDataBuffer writePosition(int writePosition) {
+		assertIndex(writePosition >= this.readPosition, "'writePosition' %d must be >= %d",
+				writePosition, this.readPosition);
+		assertIndex(writePosition <= this.capacity, "'writePosition' %d must be <= %d",
+				writePosition, this.capacity);
+		this.writePosition = writePosition;
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(index <= this.writePosition - 1, "index %d must be <= %d", index, this.writePosition - 1);
+		Component component = this.components.get(componentIndex(index));
+		return component.byteBuffer.get(index - component.offset);
+	}
+
+	@Override
+	public byte read() {
+		assertIndex(this.readPosition <= this.writePosition - 1, "readPosition %d must be <= %d",
+				this.readPosition, this.writePosition - 1);
+		byte b = getByte(this.readPosition);
+		this.readPosition++;
+		return b;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination) {
+		Assert.notNull(destination, "Byte array must not be null");
+		read(destination, 0, destination.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination, int offset, int length) {
+		Assert.notNull(destination, "Byte array must not be null");
+		assertIndex(this.readPosition <= this.writePosition - length,
+				"readPosition %d and length %d should be smaller than writePosition %d",
+				this.readPosition, length, this.writePosition);
+		getBytes(this.readPosition, destination, offset, length);
+		this.readPosition += length;
+		return this;
+	}
+
+	private void getBytes(int index, byte[] destination, int offset, int length) {
+		while (length > 0) {
+			Component component = this.components.get(componentIndex(index));
+			int componentPosition = index - component.offset;
+			int count = Math.min(length, component.length - componentPosition);
+			ByteBuffer tmp = component.byteBuffer.duplicate();
+			((Buffer) tmp).position(componentPosition);
+			tmp.get(destination, offset, count);
+			index += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte b) {
+		ensureCapacity(1);
+		Component component = this.components.get(componentIndex(this.writePosition));
+		component.byteBuffer.put(this.writePosition - component.offset, b);
+		this.writePosition++;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source) {
+		Assert.notNull(source, "Byte array must not be null");
+		write(source, 0, source.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source, int offset, int length) {
+		Assert.notNull(source, "Byte array must not be null");
+		write(ByteBuffer.wrap(source, offset, length));
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(DataBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			for (DataBuffer buffer : buffers) {
+				write(buffer.asByteBuffer());
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(ByteBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			int length = 0;
+			for (ByteBuffer buffer : buffers) {
+				length += buffer.remaining();
+			}
+			ensureCapacity(length);
+			for (ByteBuffer buffer : buffers) {
+				write(buffer);
+			}
+		}
+		return this;
+	}
+
+	private void write(ByteBuffer source) {
+		ensureCapacity(source.remaining());
+		while (source.hasRemaining()) {
+			Component component = this.components.get(componentIndex(this.writePosition));
+			int componentPosition = this.writePosition - component.offset;
+			int count = Math.min(source.remaining(), component.length - componentPosition);
+			ByteBuffer tmp = component.byteBuffer.duplicate();
+			((Buffer) tmp).position(componentPosition);
+			ByteBuffer chunk = source.duplicate();
+			((Buffer) chunk).limit(chunk.position() + count);
+			tmp.put(chunk);
+			((Buffer) source).position(source.position() + count);
+			this.writePosition += count;
+		}
+	}
+
+	@Override
+	public CompositeDataBuffer slice(int index, int length) {
+		checkIndex(index, length);
+		List<ByteBuffer> byteBuffers = new ArrayList<>();
+		int end = index + length;
+		while (index < end) {
+			Component component = this.components.get(componentIndex(index));
+			int componentPosition = index - component.offset;
+			int count = Math.min(end - index, component.length - componentPosition);
+			byteBuffers.add(component.view(componentPosition, count));
+			index += count;
+		}
+		return new CompositeDataBuffer(this.root, byteBuffers);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return asByteBuffer(this.readPosition, readableByteCount());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Note that a range spanning multiple components is returned as a copy,
+	 * in which case changes to the returned buffer will not be reflected in
+	 * this buffer.
+	 */
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		checkIndex(index, length);
+		if (length == 0) {
+			return ByteBuffer.allocate(0);
+		}
+		Component component = this.components.get(componentIndex(index));
+		int componentPosition = index - component.offset;
+		if (componentPosition + length <= component.length) {
+			return component.view(componentPosition, length);
+		}
+		byte[] bytes = new byte[length];
+		getBytes(index, bytes, 0, length);
+		return ByteBuffer.wrap(bytes);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return new CompositeDataBufferInputStream(false);
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		return new CompositeDataBufferInputStream(releaseOnClose);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return new CompositeDataBufferOutputStream();
+	}
+
+	@Override
+	public boolean isAllocated() {
+		return (this.root.refCount.get() > 0);
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		AtomicInteger refCount = this.root.refCount;
+		while (true) {
+			int count = refCount.get();
+			if (count <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+			if (refCount.compareAndSet(count, count + 1)) {
+				return this;
+			}
+		}
+	}
+
+	@Override
+	public boolean release() {
+		AtomicInteger refCount = this.root.refCount;
+		while (true) {
+			int count = refCount.get();
+			if (count <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+			if (refCount.compareAndSet(count, count - 1)) {
+				if (count > 1) {
+					return false;
+				}
+				this.componentBuffers.forEach(DataBufferUtils::release);
+				return true;
+			}
+		}
+	}
+
+
+	/**
+	 * Return the index of the component that contains the given index.
+	 */
+	private int componentIndex(int index) {
+		Component last = this.components.get(this.lastComponent);
+		if (index >= last.offset && index < last.offset + last.length) {
+			return this.lastComponent;
+		}
+		int low = 0;
+		int high = this.components.size() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.components.get(mid).offset <= index) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		this.lastComponent = low;
+		return low;
+	}
+
+	private void checkIndex(int index, int length) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(length >= 0, "length %d must be >= 0", length);
+		assertIndex(index + length <= this.capacity, "index %d and length %d must be <= %d",
+				index, length, this.capacity);
+	}
+
+	private void assertIndex(boolean expression, String format, Object... args) {
+		if (!expression) {
+			String message = String.format(format, args);
+			throw new IndexOutOfBoundsException(message);
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return String.format("CompositeDataBuffer (r: %d, w: %d, c: %d, components: %d)",
+				this.readPosition, this.writePosition, this.capacity, this.components.size());
+	}
+
+
+	/**
+	 * A component's bytes, located at the given offset within the composite.
+	 */
+	private static final class Component {
+
+		final ByteBuffer byteBuffer;
+
+		final int offset;
+
+		final int length;
+
+		Component(ByteBuffer byteBuffer, int offset) {
+			this.byteBuffer = byteBuffer;
+			this.offset = offset;
+			this.length = byteBuffer.remaining();
+		}
+
+		ByteBuffer view(int position, int length) {
+			ByteBuffer duplicate = this.byteBuffer.duplicate();
+			((Buffer) duplicate).position(position).limit(position + length);
+			return duplicate.slice();
+		}
+	}
+
+
+	private class CompositeDataBufferInputStream extends InputStream {
+
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		CompositeDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
+		@Override
+		public int available() {
+			return readableByteCount();
+		}
+
+		@Override
+		public int read() {
+			return available() > 0 ? CompositeDataBuffer.this.read() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) throws IOException {
+			int available = available();
+			if (available > 0) {
+				len = Math.min(len, available);
+				CompositeDataBuffer.this.read(bytes, off, len);
+				return len;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				DataBufferUtils.release(CompositeDataBuffer.this);
+			}
+		}
+	}
+
+
+	private class CompositeDataBufferOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) throws IOException {
+			CompositeDataBuffer.this.write((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) throws IOException {
+			CompositeDataBuffer.this.write(bytes, off, len);
+		}
+	}
+
+}
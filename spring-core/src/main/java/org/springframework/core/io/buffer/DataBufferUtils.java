@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,11 +28,16 @@ import java.nio.channels.CompletionHandler;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.IntPredicate;
 
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscription;
@@ -437,11 +442,91 @@ public abstract class DataBufferUtils {
 		return Flux.from(dataBuffers)
 				.collectList()
 				.filter(list -> !list.isEmpty())
-				.map(list -> list.get(0).factory().join(list))
+				.map(DataBufferUtils::compose)
 				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 
 	}
 
+	/**
+	 * Return a new {@code DataBuffer} composed from the given {@code dataBuffers},
+	 * avoiding copies where possible. Buffers from a {@link DefaultDataBufferFactory}
+	 * are composed into a buffer that references their readable bytes, in the
+	 * same way that {@link NettyDataBufferFactory#join(List)} composes Netty
+	 * buffers; others are joined through {@link DataBufferFactory#join(List)}.
+	 * <p>Note that the given data buffers do <strong>not</strong> have to be
+	 * released. They will be released as part of the returned composite.
+	 * @param dataBuffers the data buffers that are to be composed
+	 * @return a buffer that is composed from the {@code dataBuffers} argument
+	 * @since 5.1.5
+	 * @see #join(Publisher)
+	 */
+	public static DataBuffer compose(List<? extends DataBuffer> dataBuffers) {
+		Assert.notEmpty(dataBuffers, "DataBuffer List must not be empty");
+		if (dataBuffers.size() == 1) {
+			return dataBuffers.get(0);
+		}
+		DataBufferFactory factory = dataBuffers.get(0).factory();
+		if (factory instanceof DefaultDataBufferFactory) {
+			return new CompositeDataBuffer(factory, dataBuffers);
+		}
+		return factory.join(dataBuffers);
+	}
+
+	/**
+	 * Return a {@link Matcher} for the given delimiter.
+	 * @param delimiter the delimiter bytes to find
+	 * @return the matcher
+	 * @since 5.1.5
+	 */
+	public static Matcher matcher(byte[] delimiter) {
+		return matcher(new byte[][] {delimiter});
+	}
+
+	/**
+	 * Return a {@link Matcher} for the given delimiters, finding all of them
+	 * in a single pass over the data.
+	 * @param delimiters the delimiters bytes to find
+	 * @return the matcher
+	 * @since 5.1.5
+	 */
+	public static Matcher matcher(byte[]... delimiters) {
+		Assert.notEmpty(delimiters, "Delimiters must not be empty");
+		return new DelimiterMatcher(delimiters);
+	}
+
+
+	/**
+	 * Contract to find delimiters in a stream of data buffers.
+	 * <p>A matcher is stateful: a delimiter that starts at the end of one
+	 * buffer is matched when the remainder of it is found at the start of the
+	 * next buffer. A matcher should therefore be used for a single stream only.
+	 * @since 5.1.5
+	 * @see #matcher(byte[]...)
+	 */
+	public interface Matcher {
+
+		/**
+		 * Find the first delimiter in the readable bytes of the given buffer,
+		 * taking into account a partial match at the end of previous buffers.
+		 * Where delimiters overlap, the delimiter that ends first is found,
+		 * and the longest one of those that end at the same index.
+		 * @param dataBuffer the buffer to search in
+		 * @return the index of the last byte of the delimiter in the given
+		 * buffer, or {@code -1} if no delimiter ends in the buffer
+		 */
+		int match(DataBuffer dataBuffer);
+
+		/**
+		 * Return the delimiter found by the most recent {@link #match} call.
+		 */
+		byte[] delimiter();
+
+		/**
+		 * Discard any partial match, e.g. before matching another stream.
+		 */
+		void reset();
+	}
+
 
 	private static class ReadableByteChannelGenerator implements Consumer<SynchronousSink<DataBuffer>> {
 
@@ -676,4 +761,123 @@ public abstract class DataBufferUtils {
 		}
 	}
 
+
+	/**
+	 * {@link Matcher} that finds any number of delimiters in a single pass,
+	 * using a finite automaton in the manner of Aho-Corasick: each state
+	 * represents the longest delimiter prefix seen at the end of the data so
+	 * far, and every byte causes exactly one state transition.
+	 */
+	private static class DelimiterMatcher implements Matcher, IntPredicate {
+
+		private static final byte[] NO_DELIMITER = new byte[0];
+
+		/** The next state for each state and (unsigned) byte value. */
+		private final int[][] transitions;
+
+		/** The longest delimiter ending in each state, or {@code null} for none. */
+		private final byte[][] delimiters;
+
+		private int state;
+
+		private byte[] matchingDelimiter = NO_DELIMITER;
+
+		DelimiterMatcher(byte[][] delimiters) {
+			int maxStates = 1;
+			for (byte[] delimiter : delimiters) {
+				Assert.isTrue(delimiter != null && delimiter.length > 0, "Delimiters must not be empty");
+				maxStates += delimiter.length;
+			}
+			int[][] transitions = new int[maxStates][];
+			byte[][] stateDelimiters = new byte[maxStates][];
+			transitions[0] = newStateTransitions();
+			int stateCount = 1;
+
+			// Build a trie of all delimiters...
+			for (byte[] delimiter : delimiters) {
+				int state = 0;
+				for (byte b : delimiter) {
+					int next = transitions[state][b & 0xFF];
+					if (next == -1) {
+						next = stateCount++;
+						transitions[next] = newStateTransitions();
+						transitions[state][b & 0xFF] = next;
+					}
+					state = next;
+				}
+				if (stateDelimiters[state] == null) {
+					stateDelimiters[state] = delimiter;
+				}
+			}
+
+			// ... and complete it into an automaton, breadth first
+			int[] fallbacks = new int[stateCount];
+			Deque<Integer> queue = new ArrayDeque<>();
+			for (int b = 0; b < 256; b++) {
+				int next = transitions[0][b];
+				if (next == -1) {
+					transitions[0][b] = 0;
+				}
+				else {
+					queue.add(next);
+				}
+			}
+			while (!queue.isEmpty()) {
+				int state = queue.poll();
+				int fallback = fallbacks[state];
+				for (int b = 0; b < 256; b++) {
+					int next = transitions[state][b];
+					if (next == -1) {
+						transitions[state][b] = transitions[fallback][b];
+					}
+					else {
+						fallbacks[next] = transitions[fallback][b];
+						if (stateDelimiters[next] == null) {
+							stateDelimiters[next] = stateDelimiters[fallbacks[next]];
+						}
+						queue.add(next);
+					}
+				}
+			}
+			this.transitions = Arrays.copyOf(transitions, stateCount);
+			this.delimiters = Arrays.copyOf(stateDelimiters, stateCount);
+		}
+
+		private static int[] newStateTransitions() {
+			int[] transitions = new int[256];
+			Arrays.fill(transitions, -1);
+			return transitions;
+		}
+
+		@Override
+		public int match(DataBuffer dataBuffer) {
+			int index = dataBuffer.indexOf(this, dataBuffer.readPosition());
+			if (index != -1) {
+				byte[] delimiter = this.delimiters[this.state];
+				Assert.state(delimiter != null, "No delimiter for matching state");
+				this.matchingDelimiter = delimiter;
+				this.state = 0;
+			}
+			return index;
+		}
+
+		@Override
+		public boolean test(int b) {
+			int state = this.transitions[this.state][b & 0xFF];
+			this.state = state;
+			return (this.delimiters[state] != null);
+		}
+
+		@Override
+		public byte[] delimiter() {
+			return this.matchingDelimiter;
+		}
+
+		@Override
+		public void reset() {
+			this.state = 0;
+			this.matchingDelimiter = NO_DELIMITER;
+		}
+	}
+
 }
@@ -0,0 +1,614 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Pooling variant of {@link DefaultDataBufferFactory}, for runtimes that do
+ * not use Netty's pooled allocator, e.g. Servlet containers and Undertow.
+ * Buffers allocated by this factory implement {@link PooledDataBuffer} and
+ * return their memory to the pool once released, e.g. through
+ * {@link DataBufferUtils#release(DataBuffer)}.
+ *
+ * <p>Memory is pooled in power-of-two size classes up to a
+ * {@linkplain #getMaxPooledCapacity() maximum capacity}; larger buffers are
+ * allocated without pooling. Released memory is kept in a bounded pool shared
+ * by all threads and, if {@linkplain #setThreadLocalCacheEnabled enabled}, in
+ * a small cache local to the releasing thread first. A buffer that grows beyond
+ * its initial capacity keeps its pooled memory until it is released, since
+ * slices may still refer to it.
+ *
+ * <p>Unreleased buffers can be detected by enabling
+ * {@link #setLeakDetectionSamplingInterval leak detection}, which tracks a
+ * sample of the allocated buffers and logs an error for every tracked buffer
+ * that is garbage-collected without having been released.
+ *
+ * <p>Note that, just like with Netty, a buffer must not be used after it has
+ * been released, since its memory may already be in use by another buffer.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see PooledDataBuffer
+ * @see DataBufferUtils#release(DataBuffer)
+ */
+public class PooledDefaultDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The default maximum capacity of pooled buffers: 64 KB.
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/** Capacity of the smallest size class. */
+	private static final int MIN_POOLED_CAPACITY = 256;
+
+	/** Number of bytes per size class that a thread-local cache holds at most. */
+	private static final int THREAD_CACHE_CAPACITY = 32 * 1024;
+
+	/** Maximum number of buffers per size class in a thread-local cache. */
+	private static final int THREAD_CACHE_MAX_BUFFERS = 8;
+
+	/** Number of bytes per size class that the shared pool holds at most. */
+	private static final int SHARED_POOL_CAPACITY = 4 * 1024 * 1024;
+
+	/** Maximum number of buffers per size class in the shared pool. */
+	private static final int SHARED_POOL_MAX_BUFFERS = 1024;
+
+	private static final Log logger = LogFactory.getLog(PooledDefaultDataBufferFactory.class);
+
+
+	private final boolean preferDirect;
+
+	private final int maxPooledCapacity;
+
+	private final SizeClass[] sizeClasses;
+
+	private final ThreadLocal<ThreadCache> threadCache;
+
+	private volatile boolean threadLocalCacheEnabled;
+
+	private volatile int leakDetectionSamplingInterval;
+
+	private final ReferenceQueue<Object> leakQueue = new ReferenceQueue<>();
+
+	private final Set<LeakTracker> leakTrackers = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder allocationCount = new LongAdder();
+
+	private final LongAdder cacheHitCount = new LongAdder();
+
+	private final LongAdder activeBufferCount = new LongAdder();
+
+	private final LongAdder leakCount = new LongAdder();
+
+
+	/**
+	 * Create a new {@code PooledDefaultDataBufferFactory} with default settings,
+	 * pooling heap buffers.
+	 */
+	public PooledDefaultDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PooledDefaultDataBufferFactory}, indicating whether
+	 * direct buffers should be pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDefaultDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_MAX_POOLED_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code PooledDefaultDataBufferFactory}, indicating whether
+	 * direct buffers should be pooled, and up to which capacity.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param maxPooledCapacity the maximum capacity of pooled buffers,
+	 * rounded up to the next power of two
+	 */
+	public PooledDefaultDataBufferFactory(boolean preferDirect, int maxPooledCapacity) {
+		super(preferDirect);
+		Assert.isTrue(maxPooledCapacity > 0, "'maxPooledCapacity' should be larger than 0");
+		this.preferDirect = preferDirect;
+		this.maxPooledCapacity = sizeClassCapacity(maxPooledCapacity);
+		this.sizeClasses = new SizeClass[sizeClassIndex(this.maxPooledCapacity) + 1];
+		for (int i = 0; i < this.sizeClasses.length; i++) {
+			this.sizeClasses[i] = new SizeClass(MIN_POOLED_CAPACITY << i);
+		}
+		this.threadCache = new NamedThreadLocal<ThreadCache>("Pooled DataBuffer cache") {
+			@Override
+			protected ThreadCache initialValue() {
+				return new ThreadCache(sizeClasses);
+			}
+		};
+	}
+
+
+	/**
+	 * Return the maximum capacity of pooled buffers.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.maxPooledCapacity;
+	}
+
+	/**
+	 * Whether to keep released memory in a small cache local to the releasing
+	 * thread, in front of the shared pool. This avoids contention on the shared
+	 * pool, at the expense of up to a few hundred KB of memory retained by
+	 * every thread that released buffers, even once idle.
+	 * <p>By default this is set to {@code false}. It is meant to be set before
+	 * the factory is used, and suits a small, fixed number of event loop threads.
+	 */
+	public void setThreadLocalCacheEnabled(boolean threadLocalCacheEnabled) {
+		this.threadLocalCacheEnabled = threadLocalCacheEnabled;
+	}
+
+	/**
+	 * Return whether released memory is cached per thread.
+	 */
+	public boolean isThreadLocalCacheEnabled() {
+		return this.threadLocalCacheEnabled;
+	}
+
+	/**
+	 * Enable leak detection for one out of the given number of allocated
+	 * buffers on average, recording where each tracked buffer was allocated.
+	 * <p>By default this is set to 0, i.e. leak detection is turned off.
+	 * Set this to 1 in order to track all buffers, e.g. in tests.
+	 */
+	public void setLeakDetectionSamplingInterval(int leakDetectionSamplingInterval) {
+		Assert.isTrue(leakDetectionSamplingInterval >= 0, "'leakDetectionSamplingInterval' must be >= 0");
+		this.leakDetectionSamplingInterval = leakDetectionSamplingInterval;
+	}
+
+	/**
+	 * Return the leak detection sampling interval, or 0 if turned off.
+	 */
+	public int getLeakDetectionSamplingInterval() {
+		return this.leakDetectionSamplingInterval;
+	}
+
+	/**
+	 * Return the number of buffers allocated up to the maximum pooled capacity,
+	 * including those served from the pool.
+	 */
+	public long getAllocationCount() {
+		return this.allocationCount.sum();
+	}
+
+	/**
+	 * Return the number of allocations that were served from the pool.
+	 */
+	public long getCacheHitCount() {
+		return this.cacheHitCount.sum();
+	}
+
+	/**
+	 * Return the number of pooled buffers that are currently allocated,
+	 * i.e. that have not been released yet.
+	 */
+	public long getActiveBufferCount() {
+		return this.activeBufferCount.sum();
+	}
+
+	/**
+	 * Return the number of buffers currently held in the shared pool,
+	 * not counting those in thread-local caches.
+	 */
+	public int getPooledBufferCount() {
+		int count = 0;
+		for (SizeClass sizeClass : this.sizeClasses) {
+			count += sizeClass.count.get();
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of tracked buffers that were garbage-collected
+	 * without having been released.
+	 * @see #setLeakDetectionSamplingInterval
+	 */
+	public long getLeakCount() {
+		return this.leakCount.sum();
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		if (initialCapacity > this.maxPooledCapacity) {
+			return super.allocateBuffer(initialCapacity);
+		}
+		int index = sizeClassIndex(initialCapacity);
+		SizeClass sizeClass = this.sizeClasses[index];
+		ByteBuffer memory = (this.threadLocalCacheEnabled ? this.threadCache.get().poll(index) : null);
+		if (memory == null) {
+			memory = sizeClass.poll();
+		}
+		if (memory != null) {
+			this.cacheHitCount.increment();
+		}
+		else {
+			memory = (this.preferDirect ?
+					ByteBuffer.allocateDirect(sizeClass.capacity) : ByteBuffer.allocate(sizeClass.capacity));
+		}
+		this.allocationCount.increment();
+		this.activeBufferCount.increment();
+
+		((Buffer) memory).clear();
+		((Buffer) memory).limit(initialCapacity);
+		PooledBuffer buffer = new PooledBuffer(this, memory, index);
+		int samplingInterval = this.leakDetectionSamplingInterval;
+		if (samplingInterval > 0) {
+			detectLeaks();
+			if (samplingInterval == 1 || ThreadLocalRandom.current().nextInt(samplingInterval) == 0) {
+				LeakTracker tracker = new LeakTracker(buffer, this.leakQueue);
+				this.leakTrackers.add(tracker);
+				buffer.leakTracker = tracker;
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * Report tracked buffers that were garbage-collected without release.
+	 */
+	private void detectLeaks() {
+		Reference<?> reference;
+		while ((reference = this.leakQueue.poll()) != null) {
+			if (this.leakTrackers.remove(reference)) {
+				this.leakCount.increment();
+				this.activeBufferCount.decrement();
+				logger.error("DataBuffer was garbage-collected without having been released: " +
+						"use DataBufferUtils.release(DataBuffer) once done with a buffer",
+						((LeakTracker) reference).allocation);
+			}
+		}
+	}
+
+	/**
+	 * Return the memory of a buffer to the pool, once it has been released.
+	 */
+	private void recycle(ByteBuffer memory, int index) {
+		if (!this.threadLocalCacheEnabled || !this.threadCache.get().offer(index, memory)) {
+			this.sizeClasses[index].offer(memory);
+		}
+	}
+
+	private void deallocated(PooledBuffer buffer) {
+		LeakTracker tracker = buffer.leakTracker;
+		if (tracker != null) {
+			this.leakTrackers.remove(tracker);
+			tracker.clear();
+		}
+		this.activeBufferCount.decrement();
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDefaultDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity + ")";
+	}
+
+
+	private static int sizeClassCapacity(int capacity) {
+		return (capacity <= MIN_POOLED_CAPACITY ? MIN_POOLED_CAPACITY :
+				Integer.highestOneBit(capacity - 1) << 1);
+	}
+
+	private static int sizeClassIndex(int capacity) {
+		return Integer.numberOfTrailingZeros(sizeClassCapacity(capacity)) -
+				Integer.numberOfTrailingZeros(MIN_POOLED_CAPACITY);
+	}
+
+
+	/**
+	 * Shared pool of buffer memory of one size class.
+	 */
+	private static class SizeClass {
+
+		private final int capacity;
+
+		private final int maxBuffers;
+
+		private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		SizeClass(int capacity) {
+			this.capacity = capacity;
+			this.maxBuffers = Math.min(SHARED_POOL_MAX_BUFFERS, Math.max(16, SHARED_POOL_CAPACITY / capacity));
+		}
+
+		@Nullable
+		public ByteBuffer poll() {
+			ByteBuffer memory = this.buffers.poll();
+			if (memory != null) {
+				this.count.decrementAndGet();
+			}
+			return memory;
+		}
+
+		public void offer(ByteBuffer memory) {
+			if (this.count.incrementAndGet() <= this.maxBuffers) {
+				this.buffers.offer(memory);
+			}
+			else {
+				this.count.decrementAndGet();
+			}
+		}
+	}
+
+
+	/**
+	 * Cache of buffer memory for a single thread, with a small stack per size class.
+	 */
+	private static class ThreadCache {
+
+		private final ByteBuffer[][] buffers;
+
+		private final int[] counts;
+
+		ThreadCache(SizeClass[] sizeClasses) {
+			this.buffers = new ByteBuffer[sizeClasses.length][];
+			for (int i = 0; i < sizeClasses.length; i++) {
+				int maxBuffers = Math.min(THREAD_CACHE_MAX_BUFFERS,
+						Math.max(1, THREAD_CACHE_CAPACITY / sizeClasses[i].capacity));
+				this.buffers[i] = new ByteBuffer[maxBuffers];
+			}
+			this.counts = new int[sizeClasses.length];
+		}
+
+		@Nullable
+		public ByteBuffer poll(int index) {
+			int count = this.counts[index];
+			if (count == 0) {
+				return null;
+			}
+			count--;
+			ByteBuffer memory = this.buffers[index][count];
+			this.buffers[index][count] = null;
+			this.counts[index] = count;
+			return memory;
+		}
+
+		public boolean offer(int index, ByteBuffer memory) {
+			int count = this.counts[index];
+			if (count == this.buffers[index].length) {
+				return false;
+			}
+			this.buffers[index][count] = memory;
+			this.counts[index] = count + 1;
+			return true;
+		}
+	}
+
+
+	/**
+	 * Weak reference to a tracked buffer, recording where it was allocated.
+	 */
+	private static class LeakTracker extends WeakReference<Object> {
+
+		private final Throwable allocation = new Throwable("DataBuffer allocated here");
+
+		LeakTracker(Object buffer, ReferenceQueue<Object> queue) {
+			super(buffer, queue);
+		}
+	}
+
+
+	/**
+	 * {@link DefaultDataBuffer} backed by pooled memory, with reference counting.
+	 */
+	private static class PooledBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDefaultDataBufferFactory factory;
+
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		/**
+		 * The pooled memory, recycled once the buffer and its slices are released,
+		 * or {@code null} afterwards.
+		 */
+		@Nullable
+		private ByteBuffer memory;
+
+		private final int sizeClassIndex;
+
+		@Nullable
+		private LeakTracker leakTracker;
+
+		PooledBuffer(PooledDefaultDataBufferFactory factory, ByteBuffer memory, int sizeClassIndex) {
+			super(factory, memory);
+			this.factory = factory;
+			this.memory = memory;
+			this.sizeClassIndex = sizeClassIndex;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return (this.refCount.get() > 0);
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			while (true) {
+				int refCount = this.refCount.get();
+				if (refCount <= 0) {
+					throw new IllegalStateException("DataBuffer has already been released");
+				}
+				if (this.refCount.compareAndSet(refCount, refCount + 1)) {
+					return this;
+				}
+			}
+		}
+
+		@Override
+		public boolean release() {
+			while (true) {
+				int refCount = this.refCount.get();
+				if (refCount <= 0) {
+					throw new IllegalStateException("DataBuffer has already been released");
+				}
+				if (this.refCount.compareAndSet(refCount, refCount - 1)) {
+					if (refCount > 1) {
+						return false;
+					}
+					deallocate();
+					return true;
+				}
+			}
+		}
+
+		private void deallocate() {
+			ByteBuffer memory = this.memory;
+			this.memory = null;
+			this.factory.deallocated(this);
+			if (memory != null) {
+				this.factory.recycle(memory, this.sizeClassIndex);
+			}
+		}
+
+		@Override
+		public DefaultDataBuffer slice(int index, int length) {
+			return new PooledSlice(this, asByteBuffer(index, length));
+		}
+
+		@Override
+		public InputStream asInputStream(boolean releaseOnClose) {
+			InputStream inputStream = asInputStream();
+			if (!releaseOnClose) {
+				return inputStream;
+			}
+			return new ReleasingInputStream(inputStream, this);
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledBuffer}, sharing its memory and reference count.
+	 */
+	private static class PooledSlice extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledBuffer parent;
+
+		PooledSlice(PooledBuffer parent, ByteBuffer slice) {
+			super(parent.factory, slice);
+			this.parent = parent;
+			writePosition(slice.remaining());
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			throw new UnsupportedOperationException("Changing the capacity of a sliced buffer is not supported");
+		}
+
+		@Override
+		public DefaultDataBuffer slice(int index, int length) {
+			return new PooledSlice(this.parent, asByteBuffer(index, length));
+		}
+
+		@Override
+		public InputStream asInputStream(boolean releaseOnClose) {
+			InputStream inputStream = asInputStream();
+			if (!releaseOnClose) {
+				return inputStream;
+			}
+			return new ReleasingInputStream(inputStream, this);
+		}
+	}
+
+
+	/**
+	 * {@code InputStream} that releases a buffer when closed.
+	 */
+	private static class ReleasingInputStream extends InputStream {
+
+		private final InputStream delegate;
+
+		private final PooledDataBuffer buffer;
+
+		private boolean closed;
+
+		ReleasingInputStream(InputStream delegate, PooledDataBuffer buffer) {
+			this.delegate = delegate;
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return this.delegate.available();
+		}
+
+		@Override
+		public int read() throws IOException {
+			return this.delegate.read();
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) throws IOException {
+			return this.delegate.read(bytes, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!this.closed) {
+				this.closed = true;
+				this.buffer.release();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.support;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Sorted index of the entry names of a jar file, built once from its central
+ * directory and shared JVM-wide, allowing for resolving path patterns against
+ * the entries below a given root path without iterating the whole jar again.
+ *
+ * <p>Indexes for jar files in the file system are validated against the
+ * last-modified timestamp and length of the file on every lookup. Indexes for
+ * nested jar files (e.g. within a fat jar) are not validated, since their
+ * content cannot change without their enclosing jar file being replaced.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see PathMatchingResourcePatternResolver#setUseJarEntryIndex
+ */
+final class JarEntryIndex {
+
+	/** Cache of indexes, keyed by jar file URL, softly referenced. */
+	private static final Map<String, JarEntryIndex> cache = new ConcurrentReferenceHashMap<>(64);
+
+
+	private final String[] entryNames;
+
+	@Nullable
+	private final File file;
+
+	private final long lastModified;
+
+	private final long length;
+
+
+	private JarEntryIndex(String[] entryNames, @Nullable File file) {
+		this.entryNames = entryNames;
+		this.file = file;
+		this.lastModified = (file != null ? file.lastModified() : 0);
+		this.length = (file != null ? file.length() : 0);
+	}
+
+
+	/**
+	 * Return the paths of all entries below the given root entry path that
+	 * match the given pattern, relative to the root entry path.
+	 * @param rootEntryPath the root entry path, ending with a slash (or empty)
+	 * @param subPattern the pattern to match against the relative paths
+	 * @param pathMatcher the PathMatcher to use
+	 * @return the matching relative paths, in entry name order
+	 */
+	List<String> findMatchingPaths(String rootEntryPath, String subPattern, PathMatcher pathMatcher) {
+		List<String> result = new ArrayList<>();
+		int index = Arrays.binarySearch(this.entryNames, rootEntryPath);
+		for (int i = (index >= 0 ? index : -index - 1); i < this.entryNames.length; i++) {
+			String entryName = this.entryNames[i];
+			if (!entryName.startsWith(rootEntryPath)) {
+				break;
+			}
+			String relativePath = entryName.substring(rootEntryPath.length());
+			if (pathMatcher.match(subPattern, relativePath)) {
+				result.add(relativePath);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the number of indexed entries.
+	 */
+	int size() {
+		return this.entryNames.length;
+	}
+
+	private boolean isValid() {
+		return (this.file == null ||
+				(this.file.lastModified() == this.lastModified && this.file.length() == this.length));
+	}
+
+
+	/**
+	 * Return the index key for the given jar URL, i.e. the URL of the jar file
+	 * (which may itself be nested in another jar file).
+	 * @param jarUrl the URL of a location within a jar file
+	 * @return the index key, or {@code null} if the URL does not point into a jar file
+	 */
+	@Nullable
+	static String getJarFileUrl(URL jarUrl) {
+		String urlString = jarUrl.toExternalForm();
+		int separatorIndex = getSeparatorIndex(urlString);
+		return (separatorIndex != -1 ? urlString.substring(0, separatorIndex) : null);
+	}
+
+	/**
+	 * Return the decoded entry path within its jar file that the given URL points to.
+	 * @param jarUrl the URL of a location within a jar file
+	 * @return the entry path (possibly empty)
+	 */
+	static String getEntryPath(URL jarUrl) {
+		String urlString = jarUrl.toExternalForm();
+		int separatorIndex = getSeparatorIndex(urlString);
+		String entryPath = (separatorIndex != -1 ? urlString.substring(separatorIndex + 2) : "");
+		return StringUtils.uriDecode(entryPath, StandardCharsets.UTF_8);
+	}
+
+	private static int getSeparatorIndex(String urlString) {
+		int separatorIndex = urlString.lastIndexOf(ResourceUtils.WAR_URL_SEPARATOR);
+		return (separatorIndex != -1 ? separatorIndex : urlString.lastIndexOf(ResourceUtils.JAR_URL_SEPARATOR));
+	}
+
+	/**
+	 * Return the cached index for the given jar file, if available and still valid.
+	 * @param jarFileUrl the jar file URL, as returned by {@link #getJarFileUrl}
+	 * @return the index, or {@code null} if none available
+	 */
+	@Nullable
+	static JarEntryIndex get(String jarFileUrl) {
+		JarEntryIndex index = cache.get(jarFileUrl);
+		if (index != null && !index.isValid()) {
+			cache.remove(jarFileUrl, index);
+			return null;
+		}
+		return index;
+	}
+
+	/**
+	 * Build an index from the central directory of the given jar file and cache it.
+	 * @param jarFileUrl the jar file URL, as returned by {@link #getJarFileUrl}
+	 * @param jarFile the jar file to index
+	 * @return the new index
+	 */
+	static JarEntryIndex create(String jarFileUrl, JarFile jarFile) {
+		List<String> entryNames = new ArrayList<>(jarFile.size());
+		for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+			entryNames.add(entries.nextElement().getName());
+		}
+		String[] sortedEntryNames = StringUtils.toStringArray(entryNames);
+		Arrays.sort(sortedEntryNames);
+		JarEntryIndex index = new JarEntryIndex(sortedEntryNames, getFile(jarFileUrl));
+		cache.put(jarFileUrl, index);
+		return index;
+	}
+
+	@Nullable
+	private static File getFile(String jarFileUrl) {
+		String fileUrl = (jarFileUrl.startsWith(ResourceUtils.JAR_URL_PREFIX) ?
+				jarFileUrl.substring(ResourceUtils.JAR_URL_PREFIX.length()) : jarFileUrl);
+		if (!fileUrl.startsWith(ResourceUtils.FILE_URL_PREFIX) || getSeparatorIndex(fileUrl) != -1) {
+			// Not in the file system, or nested within another jar file
+			return null;
+		}
+		try {
+			return ResourceUtils.getFile(ResourceUtils.toURI(fileUrl));
+		}
+		catch (Exception ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Clear the JVM-wide cache of jar entry indexes.
+	 */
+	static void clearCache() {
+		cache.clear();
+	}
+
+}
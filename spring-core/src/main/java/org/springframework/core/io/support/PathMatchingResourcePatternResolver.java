@@ -40,6 +40,7 @@ import java.util.zip.ZipException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
@@ -182,6 +183,15 @@ import org.springframework.util.StringUtils;
  */
 public class PathMatchingResourcePatternResolver implements ResourcePatternResolver {
 
+	/**
+	 * System property that instructs Spring to index the entries of each jar file
+	 * once per JVM and to resolve subsequent pattern lookups against that index:
+	 * "spring.resources.jarindex". Default is "false".
+	 * @since 5.1.5
+	 * @see #setUseJarEntryIndex
+	 */
+	public static final String JAR_ENTRY_INDEX_PROPERTY_NAME = "spring.resources.jarindex";
+
 	private static final Log logger = LogFactory.getLog(PathMatchingResourcePatternResolver.class);
 
 	@Nullable
@@ -205,6 +215,8 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	private boolean useJarEntryIndex = SpringProperties.getFlag(JAR_ENTRY_INDEX_PROPERTY_NAME);
+
 
 	/**
 	 * Create a new PathMatchingResourcePatternResolver with a DefaultResourceLoader.
@@ -268,6 +280,29 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Specify whether to resolve patterns within jar files against a JVM-wide
+	 * index of their entry names, built once per jar file from its central
+	 * directory, instead of iterating all entries of the jar file for every lookup.
+	 * <p>Default is "false", unless the {@value #JAR_ENTRY_INDEX_PROPERTY_NAME}
+	 * system property has been set to "true". Recommended for applications that
+	 * scan the same large jar files repeatedly, e.g. for several base packages.
+	 * @since 5.1.5
+	 * @see #doFindPathMatchingJarResources
+	 */
+	public void setUseJarEntryIndex(boolean useJarEntryIndex) {
+		this.useJarEntryIndex = useJarEntryIndex;
+	}
+
+	/**
+	 * Return whether patterns within jar files get resolved against a JVM-wide
+	 * index of their entry names.
+	 * @since 5.1.5
+	 */
+	public boolean isUseJarEntryIndex() {
+		return this.useJarEntryIndex;
+	}
+
 
 	@Override
 	public Resource getResource(String location) {
@@ -590,6 +625,19 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 	protected Set<Resource> doFindPathMatchingJarResources(Resource rootDirResource, URL rootDirURL, String subPattern)
 			throws IOException {
 
+		String indexKey = (this.useJarEntryIndex ? JarEntryIndex.getJarFileUrl(rootDirURL) : null);
+		if (indexKey != null) {
+			JarEntryIndex index = JarEntryIndex.get(indexKey);
+			if (index != null) {
+				// Previously indexed jar file -> no need to open it again.
+				if (logger.isTraceEnabled()) {
+					logger.trace("Looking for matching resources in index of jar file [" + indexKey + "]");
+				}
+				return doFindPathMatchingIndexedJarResources(
+						rootDirResource, index, JarEntryIndex.getEntryPath(rootDirURL), subPattern);
+			}
+		}
+
 		URLConnection con = rootDirURL.openConnection();
 		JarFile jarFile;
 		String jarFileUrl;
@@ -641,6 +689,10 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 			if (logger.isTraceEnabled()) {
 				logger.trace("Looking for matching resources in jar file [" + jarFileUrl + "]");
 			}
+			if (indexKey != null) {
+				return doFindPathMatchingIndexedJarResources(
+						rootDirResource, JarEntryIndex.create(indexKey, jarFile), rootEntryPath, subPattern);
+			}
 			if (!"".equals(rootEntryPath) && !rootEntryPath.endsWith("/")) {
 				// Root entry path must end with slash to allow for proper matching.
 				// The Sun JRE does not return a slash here, but BEA JRockit does.
@@ -666,6 +718,23 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		}
 	}
 
+	/**
+	 * Find all resources in the given jar entry index that match the given
+	 * location pattern via the Ant-style PathMatcher.
+	 */
+	private Set<Resource> doFindPathMatchingIndexedJarResources(
+			Resource rootDirResource, JarEntryIndex index, String rootEntryPath, String subPattern) throws IOException {
+
+		if (!"".equals(rootEntryPath) && !rootEntryPath.endsWith("/")) {
+			rootEntryPath = rootEntryPath + "/";
+		}
+		Set<Resource> result = new LinkedHashSet<>(8);
+		for (String relativePath : index.findMatchingPaths(rootEntryPath, subPattern, getPathMatcher())) {
+			result.add(rootDirResource.createRelative(relativePath));
+		}
+		return result;
+	}
+
 	/**
 	 * Resolve the given jar file URL into a JarFile object.
 	 */
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationStartup} implementation that buffers {@link StartupStep steps}
+ * in memory and exposes them as a timeline once they are ended.
+ *
+ * <p>Steps are nested per thread: a step started while another step is still
+ * running on the same thread becomes its child. The buffered timeline can be
+ * written out in the "collapsed stack" format understood by flame graph tools,
+ * with each stack weighted by the self time of its last step in microseconds.
+ *
+ * <p>The buffer is bounded by the given capacity; steps ended once the buffer
+ * is full are not recorded.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see #getTimeline()
+ * @see #writeCollapsedStacks(Writer)
+ */
+public class BufferingApplicationStartup implements ApplicationStartup {
+
+	private final int capacity;
+
+	private final long startTime = System.nanoTime();
+
+	private final AtomicLong idSeq = new AtomicLong();
+
+	private final ThreadLocal<BufferedStartupStep> currentStep =
+			new NamedThreadLocal<>("Current startup step");
+
+	private final Queue<TimelineEntry> entries = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger entryCount = new AtomicInteger();
+
+
+	/**
+	 * Create a new buffered {@link ApplicationStartup} with a limited capacity.
+	 * @param capacity the maximum number of ended steps to buffer
+	 */
+	public BufferingApplicationStartup(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		BufferedStartupStep parent = this.currentStep.get();
+		BufferedStartupStep step = new BufferedStartupStep(
+				this.idSeq.getAndIncrement(), name, parent, System.nanoTime());
+		this.currentStep.set(step);
+		return step;
+	}
+
+	private void record(BufferedStartupStep step, long endTime) {
+		BufferedStartupStep parent = step.parent;
+		// Unwind the current step on this thread, including nested steps left open
+		for (BufferedStartupStep current = this.currentStep.get(); current != null; current = current.parent) {
+			if (current == step) {
+				if (parent != null) {
+					this.currentStep.set(parent);
+				}
+				else {
+					this.currentStep.remove();
+				}
+				break;
+			}
+		}
+		long duration = endTime - step.startTime;
+		if (parent != null) {
+			parent.childrenDuration.addAndGet(duration);
+		}
+		if (this.entryCount.incrementAndGet() <= this.capacity) {
+			this.entries.add(new TimelineEntry(step, step.startTime - this.startTime, duration));
+		}
+		else {
+			this.entryCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Return the buffered steps as a timeline, ordered by start time.
+	 * <p>Only steps that have been {@link StartupStep#end() ended} are included.
+	 */
+	public List<TimelineEntry> getTimeline() {
+		List<TimelineEntry> timeline = new ArrayList<>(this.entries);
+		timeline.sort(Comparator.comparingLong(TimelineEntry::getStartTime));
+		return Collections.unmodifiableList(timeline);
+	}
+
+	/**
+	 * Write the buffered timeline in the "collapsed stack" format, one line per
+	 * distinct stack of step names followed by its self time in microseconds:
+	 * e.g. {@code spring.context.refresh;spring.beans.instantiate(beanName=foo) 1200}.
+	 * <p>The output can be fed directly into flame graph tools such as
+	 * {@code flamegraph.pl} or speedscope.
+	 * @param writer the writer to write to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeCollapsedStacks(Writer writer) throws IOException {
+		Map<Long, TimelineEntry> entriesById = new HashMap<>();
+		for (TimelineEntry entry : this.entries) {
+			entriesById.put(entry.getId(), entry);
+		}
+		Map<String, Long> stacks = new LinkedHashMap<>();
+		for (TimelineEntry entry : getTimeline()) {
+			String stack = buildStack(entry, entriesById);
+			long selfTime = TimeUnit.NANOSECONDS.toMicros(entry.getSelfTime());
+			stacks.merge(stack, selfTime, Long::sum);
+		}
+		for (Map.Entry<String, Long> stack : stacks.entrySet()) {
+			writer.write(stack.getKey());
+			writer.write(' ');
+			writer.write(String.valueOf(stack.getValue()));
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Return the buffered timeline in the "collapsed stack" format.
+	 * @see #writeCollapsedStacks(Writer)
+	 */
+	public String toCollapsedStacks() {
+		StringWriter writer = new StringWriter();
+		try {
+			writeCollapsedStacks(writer);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * Discard all buffered steps.
+	 */
+	public void clear() {
+		this.entries.clear();
+		this.entryCount.set(0);
+	}
+
+	private static String buildStack(TimelineEntry entry, Map<Long, TimelineEntry> entriesById) {
+		StringBuilder stack = new StringBuilder(entry.getFrame());
+		Long parentId = entry.getParentId();
+		while (parentId != null) {
+			TimelineEntry parent = entriesById.get(parentId);
+			if (parent == null) {
+				// Parent not ended yet or dropped from the buffer
+				break;
+			}
+			stack.insert(0, ';').insert(0, parent.getFrame());
+			parentId = parent.getParentId();
+		}
+		return stack.toString();
+	}
+
+
+	/**
+	 * An ended {@link StartupStep} as recorded in the buffered timeline.
+	 */
+	public static final class TimelineEntry {
+
+		private final long id;
+
+		@Nullable
+		private final Long parentId;
+
+		private final String name;
+
+		private final List<StartupStep.Tag> tags;
+
+		private final String threadName;
+
+		private final long startTime;
+
+		private final long duration;
+
+		private final long selfTime;
+
+		TimelineEntry(BufferedStartupStep step, long startTime, long duration) {
+			this.id = step.getId();
+			this.parentId = step.getParentId();
+			this.name = step.getName();
+			this.tags = step.tags.getTagList();
+			this.threadName = step.threadName;
+			this.startTime = startTime;
+			this.duration = duration;
+			this.selfTime = Math.max(0, duration - step.childrenDuration.get());
+		}
+
+		/**
+		 * Return the id of the recorded step.
+		 */
+		public long getId() {
+			return this.id;
+		}
+
+		/**
+		 * Return the id of the parent step, if any.
+		 */
+		@Nullable
+		public Long getParentId() {
+			return this.parentId;
+		}
+
+		/**
+		 * Return the name of the recorded step.
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Return the tags attached to the recorded step.
+		 */
+		public List<StartupStep.Tag> getTags() {
+			return this.tags;
+		}
+
+		/**
+		 * Return the name of the thread that started the step.
+		 */
+		public String getThreadName() {
+			return this.threadName;
+		}
+
+		/**
+		 * Return the start time of the step in nanoseconds,
+		 * relative to the creation of the {@link BufferingApplicationStartup}.
+		 */
+		public long getStartTime() {
+			return this.startTime;
+		}
+
+		/**
+		 * Return the total duration of the step in nanoseconds.
+		 */
+		public long getDuration() {
+			return this.duration;
+		}
+
+		/**
+		 * Return the duration of the step in nanoseconds,
+		 * excluding the time spent in nested steps.
+		 */
+		public long getSelfTime() {
+			return this.selfTime;
+		}
+
+		String getFrame() {
+			if (this.tags.isEmpty()) {
+				return this.name;
+			}
+			StringBuilder frame = new StringBuilder(this.name).append('(');
+			for (Iterator<StartupStep.Tag> it = this.tags.iterator(); it.hasNext();) {
+				StartupStep.Tag tag = it.next();
+				frame.append(tag.getKey()).append('=').append(tag.getValue());
+				if (it.hasNext()) {
+					frame.append(',');
+				}
+			}
+			return frame.append(')').toString().replace(';', ',').replace('\n', ' ');
+		}
+
+		@Override
+		public String toString() {
+			return getFrame() + " [" + this.threadName + "] +" + TimeUnit.NANOSECONDS.toMicros(this.startTime) +
+					"us (" + TimeUnit.NANOSECONDS.toMicros(this.duration) + "us)";
+		}
+	}
+
+
+	private class BufferedStartupStep implements StartupStep {
+
+		private final long id;
+
+		private final String name;
+
+		@Nullable
+		private final BufferedStartupStep parent;
+
+		private final long startTime;
+
+		private final String threadName = Thread.currentThread().getName();
+
+		private final BufferedTags tags = new BufferedTags();
+
+		private final AtomicLong childrenDuration = new AtomicLong();
+
+		private volatile boolean ended;
+
+		BufferedStartupStep(long id, String name, @Nullable BufferedStartupStep parent, long startTime) {
+			this.id = id;
+			this.name = name;
+			this.parent = parent;
+			this.startTime = startTime;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return (this.parent != null ? this.parent.id : null);
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(!this.ended, "StartupStep has already ended.");
+			this.tags.add(key, value);
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public Tags getTags() {
+			return this.tags;
+		}
+
+		@Override
+		public void end() {
+			Assert.state(!this.ended, "StartupStep has already ended.");
+			this.ended = true;
+			record(this, System.nanoTime());
+		}
+	}
+
+
+	private static class BufferedTags implements StartupStep.Tags {
+
+		private final List<StartupStep.Tag> tags = new ArrayList<>(2);
+
+		void add(String key, String value) {
+			this.tags.add(new BufferedTag(key, value));
+		}
+
+		List<StartupStep.Tag> getTagList() {
+			return Collections.unmodifiableList(new ArrayList<>(this.tags));
+		}
+
+		@Override
+		public Iterator<StartupStep.Tag> iterator() {
+			return Collections.unmodifiableList(this.tags).iterator();
+		}
+	}
+
+
+	private static class BufferedTag implements StartupStep.Tag {
+
+		private final String key;
+
+		private final String value;
+
+		BufferedTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+
+}
@@ -0,0 +1,10 @@
+/**
+ * Support package for recording metrics during application startup,
+ * such as the duration of context refresh phases and bean creation.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.core.metrics;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
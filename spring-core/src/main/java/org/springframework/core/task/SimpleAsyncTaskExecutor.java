@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadFactory;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ConcurrencyThrottleSupport;
@@ -40,9 +41,17 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  * thread-pooling TaskExecutor implementation instead, in particular for
  * executing a large number of short-lived tasks.
  *
+ * <p>On JDK 21 and higher, this executor may also be switched to virtual
+ * threads, either through {@link #setVirtualThreads} or globally through
+ * the {@link #VIRTUAL_THREADS_PROPERTY_NAME} system property. On older JVMs,
+ * that setting is ignored and a new platform thread is created per task as
+ * usual. Note that these are not bounded by default: set the "concurrencyLimit"
+ * bean property to throttle them.
+ *
  * @author Juergen Hoeller
  * @since 2.0
  * @see #setConcurrencyLimit
+ * @see #setVirtualThreads
  * @see SyncTaskExecutor
  * @see org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor
  * @see org.springframework.scheduling.commonj.WorkManagerTaskExecutor
@@ -63,6 +72,17 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	 */
 	public static final int NO_CONCURRENCY = ConcurrencyThrottleSupport.NO_CONCURRENCY;
 
+	/**
+	 * System property that instructs Spring to use virtual threads for
+	 * newly created {@code SimpleAsyncTaskExecutor} instances by default,
+	 * if supported by the JVM: "spring.threads.virtual.enabled".
+	 * <p>This applies to the default executors for Spring MVC async request
+	 * processing and for {@code @Async} methods as well.
+	 * @since 5.1.5
+	 * @see #setVirtualThreads
+	 */
+	public static final String VIRTUAL_THREADS_PROPERTY_NAME = "spring.threads.virtual.enabled";
+
 
 	/** Internal concurrency throttle used by this executor. */
 	private final ConcurrencyThrottleAdapter concurrencyThrottle = new ConcurrencyThrottleAdapter();
@@ -73,6 +93,9 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	@Nullable
 	private TaskDecorator taskDecorator;
 
+	private boolean virtualThreads =
+			(SpringProperties.getFlag(VIRTUAL_THREADS_PROPERTY_NAME) && VirtualThreadDelegate.isSupported());
+
 
 	/**
 	 * Create a new SimpleAsyncTaskExecutor with default thread name prefix.
@@ -132,6 +155,31 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 		this.taskDecorator = taskDecorator;
 	}
 
+	/**
+	 * Specify whether to create virtual threads instead of platform threads,
+	 * if supported by the JVM (JDK 21 or higher). Default is "false", unless
+	 * the {@link #VIRTUAL_THREADS_PROPERTY_NAME} system property is set.
+	 * <p>Virtual threads are named according to the "threadNamePrefix" but
+	 * always run as daemon threads with normal priority. On JVMs without
+	 * virtual thread support, this flag is ignored and platform threads are
+	 * created, one per task and without any bound unless a "concurrencyLimit"
+	 * is set.
+	 * <p>An external {@link #setThreadFactory ThreadFactory} takes precedence.
+	 * @since 5.1.5
+	 * @see VirtualThreadTaskExecutor
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = (virtualThreads && VirtualThreadDelegate.isSupported());
+	}
+
+	/**
+	 * Return whether this executor creates virtual threads.
+	 * @since 5.1.5
+	 */
+	public final boolean isVirtualThreads() {
+		return this.virtualThreads;
+	}
+
 	/**
 	 * Set the maximum number of parallel accesses allowed.
 	 * -1 indicates no concurrency limit at all.
@@ -226,14 +274,25 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 
 	/**
 	 * Template method for the actual execution of a task.
-	 * <p>The default implementation creates a new Thread and starts it.
+	 * <p>The default implementation creates a new Thread and starts it,
+	 * using a virtual thread if so configured.
 	 * @param task the Runnable to execute
 	 * @see #setThreadFactory
+	 * @see #setVirtualThreads
 	 * @see #createThread
 	 * @see java.lang.Thread#start()
 	 */
 	protected void doExecute(Runnable task) {
-		Thread thread = (this.threadFactory != null ? this.threadFactory.newThread(task) : createThread(task));
+		Thread thread;
+		if (this.threadFactory != null) {
+			thread = this.threadFactory.newThread(task);
+		}
+		else if (this.virtualThreads) {
+			thread = VirtualThreadDelegate.newVirtualThread(nextThreadName(), task);
+		}
+		else {
+			thread = createThread(task);
+		}
 		thread.start();
 	}
 
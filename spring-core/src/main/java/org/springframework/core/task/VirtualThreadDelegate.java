@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Internal delegate for creating virtual threads through the
+ * {@code Thread.Builder} API of JDK 21+, accessed reflectively
+ * since the framework itself is compiled against Java 8.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see VirtualThreadTaskExecutor
+ * @see SimpleAsyncTaskExecutor#setVirtualThreads
+ */
+abstract class VirtualThreadDelegate {
+
+	@Nullable
+	private static final Method ofVirtualMethod;
+
+	@Nullable
+	private static final Method nameMethod;
+
+	@Nullable
+	private static final Method nameWithCounterMethod;
+
+	@Nullable
+	private static final Method factoryMethod;
+
+	@Nullable
+	private static final Method unstartedMethod;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method nameWithCounter = null;
+		Method factory = null;
+		Method unstarted = null;
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			name = builderClass.getMethod("name", String.class);
+			nameWithCounter = builderClass.getMethod("name", String.class, long.class);
+			factory = builderClass.getMethod("factory");
+			unstarted = builderClass.getMethod("unstarted", Runnable.class);
+			// Thread.ofVirtual() throws on JDK 19/20 without --enable-preview
+			unstarted.invoke(ofVirtual.invoke(null), (Runnable) () -> {});
+		}
+		catch (Throwable ex) {
+			// No virtual threads on this JVM
+			ofVirtual = null;
+		}
+		ofVirtualMethod = ofVirtual;
+		nameMethod = name;
+		nameWithCounterMethod = nameWithCounter;
+		factoryMethod = factory;
+		unstartedMethod = unstarted;
+	}
+
+
+	/**
+	 * Return whether virtual threads are supported on the current JVM,
+	 * i.e. whether a virtual thread could actually be created.
+	 */
+	public static boolean isSupported() {
+		return (ofVirtualMethod != null);
+	}
+
+	/**
+	 * Create a factory for unnamed virtual threads.
+	 * @throws IllegalStateException if virtual threads are not supported
+	 */
+	public static ThreadFactory virtualThreadFactory() {
+		return (ThreadFactory) invoke(factoryMethod, ofVirtual());
+	}
+
+	/**
+	 * Create a factory for virtual threads with the given name prefix,
+	 * followed by a counter starting at 1.
+	 * @throws IllegalStateException if virtual threads are not supported
+	 */
+	public static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+		Object builder = invoke(nameWithCounterMethod, ofVirtual(), threadNamePrefix, 1L);
+		return (ThreadFactory) invoke(factoryMethod, builder);
+	}
+
+	/**
+	 * Create a new, unstarted virtual thread with the given name.
+	 * @throws IllegalStateException if virtual threads are not supported
+	 */
+	public static Thread newVirtualThread(String name, Runnable task) {
+		Object builder = invoke(nameMethod, ofVirtual(), name);
+		return (Thread) invoke(unstartedMethod, builder, task);
+	}
+
+
+	private static Object ofVirtual() {
+		Assert.state(isSupported(), "Virtual threads not supported on this JVM: JDK 21 or higher required");
+		return invoke(ofVirtualMethod, null);
+	}
+
+	private static Object invoke(@Nullable Method method, @Nullable Object target, Object... args) {
+		Assert.state(method != null, "Virtual threads not supported on this JVM");
+		Object result = ReflectionUtils.invokeMethod(method, target, args);
+		Assert.state(result != null, "No result from Thread.Builder");
+		return result;
+	}
+
+}
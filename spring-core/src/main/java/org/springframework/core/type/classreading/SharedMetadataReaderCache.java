@@ -0,0 +1,401 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.FieldVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * JVM-wide cache of {@link MetadataReader} instances, shared by all
+ * {@link CachingMetadataReaderFactory} instances behind their own local cache.
+ * Allows for reusing class metadata across application contexts, e.g. in
+ * test suites that create many contexts over the same classpath.
+ *
+ * <p>Entries are keyed by the URL of the class file (including the jar entry,
+ * if any), its last-modified timestamp and the ClassLoader that the metadata
+ * was introspected with. Only ClassLoaders that are the same as, or a parent
+ * of, the ClassLoader of this class are supported, so that the cache does not
+ * keep application ClassLoaders alive.
+ *
+ * <p>The cache is disabled by default and has to be turned on through
+ * {@link #CACHE_LIMIT_PROPERTY_NAME}. It is bounded by the summed size of the
+ * class file data that the entries have been read from, evicting the least
+ * recently used entries first. Note that this is not the heap memory retained
+ * by the cached metadata, which is typically a multiple of it. Entries are held
+ * for the lifetime of the JVM unless evicted or {@link #clear() cleared}: they
+ * are not affected by {@link CachingMetadataReaderFactory#clearCache()}.
+ *
+ * <p>If {@link #CACHE_DIRECTORY_PROPERTY_NAME} is set, a compact snapshot of
+ * each class file (without method bodies, fields and debug information) is
+ * additionally stored in that directory and used in subsequent runs instead
+ * of the original class file, as long as its last-modified timestamp is
+ * unchanged. Stale snapshots are not removed automatically.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see CachingMetadataReaderFactory
+ */
+public final class SharedMetadataReaderCache {
+
+	/**
+	 * System property that specifies the maximum summed size (in bytes) of the
+	 * class files backing the cached metadata: e.g. "16777216" for 16 MB.
+	 * <p>Not set by default, i.e. the shared cache is disabled.
+	 * @see org.springframework.core.SpringProperties
+	 */
+	public static final String CACHE_LIMIT_PROPERTY_NAME = "spring.metadata.cache.limit";
+
+	/**
+	 * System property that specifies a directory to persist class metadata
+	 * snapshots to, for reuse across JVM runs.
+	 * <p>Not set by default, i.e. no snapshots are stored.
+	 * @see org.springframework.core.SpringProperties
+	 */
+	public static final String CACHE_DIRECTORY_PROPERTY_NAME = "spring.metadata.cache.dir";
+
+	private static final String SNAPSHOT_SUFFIX = ".class";
+
+	private static final Log logger = LogFactory.getLog(SharedMetadataReaderCache.class);
+
+	private static final SharedMetadataReaderCache sharedInstance = new SharedMetadataReaderCache(
+			getCacheLimit(SpringProperties.getProperty(CACHE_LIMIT_PROPERTY_NAME)),
+			getCacheDirectory(SpringProperties.getProperty(CACHE_DIRECTORY_PROPERTY_NAME)));
+
+
+	private final long cacheLimit;
+
+	@Nullable
+	private final File cacheDirectory;
+
+	/** Cached entries in access order, guarded by itself. */
+	private final LinkedHashMap<CacheKey, CacheEntry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+	private long weight;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong snapshotHitCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+
+	/**
+	 * Create a new {@code SharedMetadataReaderCache}.
+	 * @param cacheLimit the maximum summed size of the cached class files
+	 * @param cacheDirectory the directory to persist snapshots to, if any
+	 */
+	SharedMetadataReaderCache(long cacheLimit, @Nullable File cacheDirectory) {
+		this.cacheLimit = cacheLimit;
+		this.cacheDirectory = cacheDirectory;
+	}
+
+
+	/**
+	 * Return the JVM-wide {@code SharedMetadataReaderCache} instance.
+	 */
+	public static SharedMetadataReaderCache getSharedInstance() {
+		return sharedInstance;
+	}
+
+
+	/**
+	 * Return whether this cache is active, i.e. whether it may hold any entries.
+	 */
+	public boolean isActive() {
+		return (this.cacheLimit > 0);
+	}
+
+	/**
+	 * Return the number of lookups served from the in-memory cache.
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of lookups that required class metadata to be read,
+	 * either from a snapshot or from the original class file.
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Return the number of misses served from a persisted snapshot.
+	 */
+	public long getSnapshotHitCount() {
+		return this.snapshotHitCount.get();
+	}
+
+	/**
+	 * Return the number of entries evicted because of the cache limit.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+	/**
+	 * Return the number of entries currently held in memory.
+	 */
+	public int getSize() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	/**
+	 * Return the summed size of the class files backing the current entries.
+	 */
+	public long getWeight() {
+		synchronized (this.entries) {
+			return this.weight;
+		}
+	}
+
+	/**
+	 * Remove all entries from the in-memory cache. Persisted snapshots are retained.
+	 */
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+			this.weight = 0;
+		}
+	}
+
+
+	/**
+	 * Obtain a {@link MetadataReader} for the given class file resource.
+	 * @param resource the resource (pointing to a ".class" file)
+	 * @param classLoader the ClassLoader to introspect annotations with
+	 * @return the MetadataReader, or {@code null} if the given resource or
+	 * ClassLoader is not supported by the shared cache
+	 * @throws IOException in case of I/O failure
+	 */
+	@Nullable
+	MetadataReader getMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
+		if (!isActive() || !isCacheSafe(classLoader)) {
+			return null;
+		}
+		String location;
+		long lastModified;
+		try {
+			location = resource.getURL().toString();
+			lastModified = resource.lastModified();
+		}
+		catch (IOException ex) {
+			// Not a URL-based resource, or no timestamp available
+			return null;
+		}
+		if (lastModified <= 0) {
+			return null;
+		}
+
+		CacheKey key = new CacheKey(location, lastModified, classLoader);
+		synchronized (this.entries) {
+			CacheEntry entry = this.entries.get(key);
+			if (entry != null) {
+				this.hitCount.incrementAndGet();
+				return entry.metadataReader;
+			}
+		}
+		this.missCount.incrementAndGet();
+
+		File snapshot = getSnapshotFile(location, lastModified);
+		byte[] classFile = null;
+		if (snapshot != null && snapshot.isFile()) {
+			try {
+				classFile = Files.readAllBytes(snapshot.toPath());
+				this.snapshotHitCount.incrementAndGet();
+			}
+			catch (IOException ex) {
+				logger.debug("Could not read class metadata snapshot " + snapshot, ex);
+			}
+		}
+		if (classFile == null) {
+			try (InputStream is = resource.getInputStream()) {
+				classFile = StreamUtils.copyToByteArray(is);
+			}
+			if (snapshot != null) {
+				writeSnapshot(snapshot, classFile);
+			}
+		}
+		MetadataReader metadataReader = new SimpleMetadataReader(resource, classFile, classLoader);
+		int weight = classFile.length;
+
+		synchronized (this.entries) {
+			CacheEntry previous = this.entries.put(key, new CacheEntry(metadataReader, weight));
+			this.weight += weight - (previous != null ? previous.weight : 0);
+			Iterator<CacheEntry> it = this.entries.values().iterator();
+			while (this.weight > this.cacheLimit && it.hasNext()) {
+				CacheEntry eldest = it.next();
+				it.remove();
+				this.weight -= eldest.weight;
+				this.evictionCount.incrementAndGet();
+			}
+		}
+		return metadataReader;
+	}
+
+	@Nullable
+	private File getSnapshotFile(String location, long lastModified) {
+		if (this.cacheDirectory == null) {
+			return null;
+		}
+		String name = DigestUtils.md5DigestAsHex(
+				(location + '@' + lastModified).getBytes(StandardCharsets.UTF_8));
+		return new File(this.cacheDirectory, name + SNAPSHOT_SUFFIX);
+	}
+
+	private void writeSnapshot(File snapshot, byte[] classFile) {
+		try {
+			ClassWriter classWriter = new ClassWriter(0);
+			new ClassReader(classFile).accept(new SnapshotClassVisitor(classWriter),
+					ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+			Path directory = snapshot.getParentFile().toPath();
+			Files.createDirectories(directory);
+			Path tempFile = Files.createTempFile(directory, snapshot.getName(), ".tmp");
+			Files.write(tempFile, classWriter.toByteArray());
+			Files.move(tempFile, snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException | RuntimeException ex) {
+			logger.debug("Could not write class metadata snapshot " + snapshot, ex);
+		}
+	}
+
+
+	private static boolean isCacheSafe(@Nullable ClassLoader classLoader) {
+		ClassLoader current = SharedMetadataReaderCache.class.getClassLoader();
+		while (current != null) {
+			if (current == classLoader) {
+				return true;
+			}
+			current = current.getParent();
+		}
+		return false;
+	}
+
+	private static long getCacheLimit(@Nullable String value) {
+		if (value == null) {
+			return 0;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		}
+		catch (NumberFormatException ex) {
+			logger.warn("Invalid value for '" + CACHE_LIMIT_PROPERTY_NAME + "': " + value +
+					" - keeping the shared metadata cache disabled");
+			return 0;
+		}
+	}
+
+	@Nullable
+	private static File getCacheDirectory(@Nullable String value) {
+		return (value != null && !value.trim().isEmpty() ? new File(value.trim()) : null);
+	}
+
+
+	/**
+	 * Visitor that drops the parts of a class file that are not part of
+	 * its metadata: fields here, method bodies and debug information
+	 * through the corresponding {@link ClassReader} flags.
+	 */
+	private static class SnapshotClassVisitor extends ClassVisitor {
+
+		SnapshotClassVisitor(ClassVisitor classVisitor) {
+			super(SpringAsmInfo.ASM_VERSION, classVisitor);
+		}
+
+		@Override
+		@Nullable
+		public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+			return null;
+		}
+	}
+
+
+	private static final class CacheKey {
+
+		private final String location;
+
+		private final long lastModified;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		CacheKey(String location, long lastModified, @Nullable ClassLoader classLoader) {
+			this.location = location;
+			this.lastModified = lastModified;
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey otherKey = (CacheKey) other;
+			return (this.location.equals(otherKey.location) && this.lastModified == otherKey.lastModified &&
+					this.classLoader == otherKey.classLoader);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.location.hashCode() * 29 + Long.hashCode(this.lastModified);
+		}
+	}
+
+
+	private static final class CacheEntry {
+
+		private final MetadataReader metadataReader;
+
+		private final int weight;
+
+		CacheEntry(MetadataReader metadataReader, int weight) {
+			this.metadataReader = metadataReader;
+			this.weight = weight;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -739,6 +739,42 @@ public class AnnotatedElementUtilsTests {
 		assertNotNull(order);
 	}
 
+	@Test
+	public void findMergedAnnotationIsCachedPerElement() {
+		Class<?> element = SpringAppConfigClass.class;
+		ContextConfig contextConfig = findMergedAnnotation(element, ContextConfig.class);
+		assertNotNull(contextConfig);
+		assertSame(contextConfig, findMergedAnnotation(element, ContextConfig.class));
+		assertNull(findMergedAnnotation(element, Transactional.class));
+		assertNull(findMergedAnnotation(element, Transactional.class));
+		assertSame(contextConfig, findMergedAnnotation(element, ContextConfig.class));
+
+		AnnotationUtils.clearCache();
+		ContextConfig recreated = findMergedAnnotation(element, ContextConfig.class);
+		assertNotSame(contextConfig, recreated);
+		assertEquals(contextConfig, recreated);
+	}
+
+	@Test
+	public void getMergedAnnotationIsCachedPerElement() {
+		Class<?> element = ImplicitAliasesContextConfigClass1.class;
+		ImplicitAliasesContextConfig config = getMergedAnnotation(element, ImplicitAliasesContextConfig.class);
+		assertNotNull(config);
+		assertSame(config, getMergedAnnotation(element, ImplicitAliasesContextConfig.class));
+
+		// Attribute arrays must not be shared between callers of the cached annotation
+		config.xmlFiles()[0] = "modified.xml";
+		assertNotEquals("modified.xml", getMergedAnnotation(element, ImplicitAliasesContextConfig.class).xmlFiles()[0]);
+	}
+
+	@Test
+	public void findMergedAnnotationIsNotCachedForTransientElements() {
+		AnnotatedElement element = forAnnotations(SpringAppConfigClass.class.getAnnotations());
+		ContextConfig contextConfig = findMergedAnnotation(element, ContextConfig.class);
+		assertNotNull(contextConfig);
+		assertNotSame(contextConfig, findMergedAnnotation(element, ContextConfig.class));
+	}
+
 
 	// -------------------------------------------------------------------------
 
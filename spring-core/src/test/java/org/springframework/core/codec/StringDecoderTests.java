@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.core.codec;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -174,6 +175,58 @@ public class StringDecoderTests extends AbstractDecoderTestCase<StringDecoder> {
 				.verify());
 	}
 
+	@Test
+	public void decodeDelimiterAcrossBuffers() {
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("abc\r"),
+				stringBuffer("\ndef\r"),
+				stringBuffer("\n"),
+				stringBuffer("ghi")
+		);
+
+		testDecode(input, String.class, step -> step
+				.expectNext("abc")
+				.expectNext("def")
+				.expectNext("ghi")
+				.expectComplete()
+				.verify());
+	}
+
+	@Test
+	public void decodeCustomDelimiters() {
+		this.decoder = StringDecoder.allMimeTypes(Arrays.asList("--", "---", "|"), false);
+
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("abc-"),
+				stringBuffer("-def|g"),
+				stringBuffer("hi---")
+		);
+
+		testDecode(input, String.class, step -> step
+				.expectNext("abc--")
+				.expectNext("def|")
+				.expectNext("ghi--")
+				.expectNext("-")
+				.expectComplete()
+				.verify());
+	}
+
+	@Test
+	public void decodeOverlappingDelimiters() {
+		this.decoder = StringDecoder.allMimeTypes(Arrays.asList("abc", "b"), false);
+
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("xab"),
+				stringBuffer("cy")
+		);
+
+		testDecode(input, String.class, step -> step
+				.expectNext("xab")
+				.expectNext("cy")
+				.expectComplete()
+				.verify());
+	}
+
 	@Test
 	public void decodeEmptyFlux() {
 		Flux<DataBuffer> input = Flux.empty();
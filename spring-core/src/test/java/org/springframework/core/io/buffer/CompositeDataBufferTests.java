@@ -0,0 +1,187 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import org.springframework.core.io.buffer.support.DataBufferTestUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CompositeDataBuffer}.
+ *
+ * @author Nico Yates
+ */
+public class CompositeDataBufferTests {
+
+	private final PooledDefaultDataBufferFactory bufferFactory = new PooledDefaultDataBufferFactory();
+
+
+	@Test
+	public void compose() {
+		DataBuffer composite = compose("foo", "", "bar", "baz");
+		assertTrue(composite instanceof CompositeDataBuffer);
+		assertEquals(3, ((CompositeDataBuffer) composite).componentCount());
+		assertEquals(9, composite.readableByteCount());
+		assertEquals(0, composite.writableByteCount());
+		assertEquals('b', composite.getByte(3));
+		assertEquals("foobarbaz", DataBufferTestUtils.dumpString(composite, StandardCharsets.UTF_8));
+
+		assertTrue(DataBufferUtils.release(composite));
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void composeSingleBuffer() {
+		DataBuffer buffer = stringBuffer("foo");
+		assertSame(buffer, DataBufferUtils.compose(Arrays.asList(buffer)));
+		DataBufferUtils.release(buffer);
+	}
+
+	@Test
+	public void read() {
+		DataBuffer composite = compose("foo", "bar", "baz");
+		assertEquals('f', composite.read());
+
+		byte[] bytes = new byte[6];
+		composite.read(bytes);
+		assertArrayEquals("oobarb".getBytes(StandardCharsets.UTF_8), bytes);
+		assertEquals(7, composite.readPosition());
+		assertEquals(2, composite.readableByteCount());
+
+		DataBufferUtils.release(composite);
+	}
+
+	@Test
+	public void indexOf() {
+		DataBuffer composite = compose("foo", "bar", "baz");
+		assertEquals(3, composite.indexOf(b -> b == 'b', 0));
+		assertEquals(6, composite.indexOf(b -> b == 'b', 4));
+		assertEquals(8, composite.indexOf(b -> b == 'z', -1));
+		assertEquals(-1, composite.indexOf(b -> b == 'x', 0));
+		assertEquals(-1, composite.indexOf(b -> b == 'f', 9));
+
+		assertEquals(6, composite.lastIndexOf(b -> b == 'b', 8));
+		assertEquals(3, composite.lastIndexOf(b -> b == 'b', 5));
+		assertEquals(2, composite.lastIndexOf(b -> b == 'o', 100));
+		assertEquals(-1, composite.lastIndexOf(b -> b == 'z', 7));
+
+		DataBufferUtils.release(composite);
+	}
+
+	@Test
+	public void slice() {
+		DataBuffer composite = compose("foo", "bar", "baz");
+		DataBuffer slice = composite.slice(2, 5);
+		assertEquals("obarb", DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8));
+		assertEquals(3, slice.indexOf(b -> b == 'r', 0));
+
+		// Shared content and reference count
+		composite.asByteBuffer(3, 1).put(0, (byte) 'c');
+		assertEquals('c', slice.getByte(1));
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(composite));
+		assertTrue(DataBufferUtils.release(slice));
+		assertFalse(((PooledDataBuffer) composite).isAllocated());
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void sliceCapacity() {
+		DataBuffer composite = compose("foo", "bar");
+		try {
+			composite.slice(1, 3).capacity(10);
+		}
+		finally {
+			DataBufferUtils.release(composite);
+		}
+	}
+
+	@Test
+	public void asByteBuffer() {
+		DataBuffer composite = compose("foo", "bar");
+
+		ByteBuffer view = composite.asByteBuffer(3, 3);
+		view.put(0, (byte) 'c');
+		assertEquals('c', composite.getByte(3));
+
+		ByteBuffer copy = composite.asByteBuffer(2, 2);
+		assertEquals(2, copy.remaining());
+		assertEquals('o', copy.get(0));
+		assertEquals('c', copy.get(1));
+		assertEquals(0, composite.asByteBuffer(6, 0).remaining());
+
+		DataBufferUtils.release(composite);
+	}
+
+	@Test
+	public void write() {
+		DataBuffer composite = compose("foo", "bar");
+		composite.write((byte) 'b');
+		composite.write("az".getBytes(StandardCharsets.UTF_8));
+		composite.write(ByteBuffer.wrap("qux".getBytes(StandardCharsets.UTF_8)));
+		assertEquals("foobarbazqux", DataBufferTestUtils.dumpString(composite, StandardCharsets.UTF_8));
+		assertEquals(3, ((CompositeDataBuffer) composite).componentCount());
+
+		DataBufferUtils.release(composite);
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void decreaseCapacity() {
+		DataBuffer composite = compose("foo", "bar", "baz");
+		composite.capacity(4);
+		assertEquals(4, composite.capacity());
+		assertEquals(2, ((CompositeDataBuffer) composite).componentCount());
+		assertEquals("foob", DataBufferTestUtils.dumpString(composite, StandardCharsets.UTF_8));
+
+		DataBufferUtils.release(composite);
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void inputStream() throws Exception {
+		DataBuffer composite = compose("foo", "bar");
+		byte[] bytes = new byte[6];
+		try (InputStream inputStream = composite.asInputStream(true)) {
+			assertEquals(6, inputStream.read(bytes, 0, 10));
+			assertEquals(-1, inputStream.read());
+		}
+		assertArrayEquals("foobar".getBytes(StandardCharsets.UTF_8), bytes);
+		assertFalse(((PooledDataBuffer) composite).isAllocated());
+	}
+
+
+	private DataBuffer compose(String... values) {
+		return DataBufferUtils.compose(Arrays.stream(values).map(this::stringBuffer).collect(Collectors.toList()));
+	}
+
+	private DataBuffer stringBuffer(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(bytes.length);
+		buffer.write(bytes);
+		return buffer;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -734,6 +734,53 @@ public class DataBufferUtilsTests extends AbstractDataBufferAllocatingTestCase {
 				.verify();
 	}
 
+	@Test
+	public void matcher() {
+		DataBuffer foo = stringBuffer("foo\r\nbar\nbaz");
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(
+				"\r\n".getBytes(StandardCharsets.UTF_8), "\n".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(4, matcher.match(foo));
+		assertArrayEquals("\r\n".getBytes(StandardCharsets.UTF_8), matcher.delimiter());
+		foo.readPosition(5);
+		assertEquals(8, matcher.match(foo));
+		assertArrayEquals("\n".getBytes(StandardCharsets.UTF_8), matcher.delimiter());
+		foo.readPosition(9);
+		assertEquals(-1, matcher.match(foo));
+
+		release(foo);
+	}
+
+	@Test
+	public void matcherAcrossBuffers() {
+		DataBuffer foo = stringBuffer("fooba");
+		DataBuffer bar = stringBuffer("rbaz");
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher("bar".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(-1, matcher.match(foo));
+		assertEquals(0, matcher.match(bar));
+		assertArrayEquals("bar".getBytes(StandardCharsets.UTF_8), matcher.delimiter());
 
+		matcher.reset();
+		foo.readPosition(0);
+		assertEquals(-1, matcher.match(foo));
+		matcher.reset();
+		bar.readPosition(0);
+		assertEquals(-1, matcher.match(bar));
+
+		release(foo, bar);
+	}
+
+	@Test
+	public void matcherOverlappingDelimiters() {
+		DataBuffer foo = stringBuffer("abaabc");
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(
+				"aab".getBytes(StandardCharsets.UTF_8), "abc".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(4, matcher.match(foo));
+		assertArrayEquals("aab".getBytes(StandardCharsets.UTF_8), matcher.delimiter());
+
+		release(foo);
+	}
 
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import org.springframework.core.io.buffer.support.DataBufferTestUtils;
+
+import static org.junit.Assert.*;
+import static org.springframework.core.io.buffer.DataBufferUtils.release;
+
+/**
+ * Unit tests for {@link PooledDefaultDataBufferFactory}.
+ *
+ * @author Nico Yates
+ */
+public class PooledDefaultDataBufferFactoryTests {
+
+	private final PooledDefaultDataBufferFactory bufferFactory = new PooledDefaultDataBufferFactory();
+
+
+	@Test
+	public void allocateFromPool() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		assertTrue(buffer instanceof PooledDataBuffer);
+		assertEquals(100, buffer.capacity());
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		assertEquals(1, this.bufferFactory.getActiveBufferCount());
+		assertTrue(release(buffer));
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+
+		buffer = this.bufferFactory.allocateBuffer(200);
+		assertEquals(200, buffer.capacity());
+		assertEquals(0, buffer.readableByteCount());
+		assertEquals(2, this.bufferFactory.getAllocationCount());
+		assertEquals(1, this.bufferFactory.getCacheHitCount());
+		release(buffer);
+	}
+
+	@Test
+	public void allocateLargerThanMaxPooledCapacity() {
+		PooledDefaultDataBufferFactory bufferFactory = new PooledDefaultDataBufferFactory(false, 1000);
+		assertEquals(1024, bufferFactory.getMaxPooledCapacity());
+
+		DataBuffer buffer = bufferFactory.allocateBuffer(2048);
+		assertFalse(buffer instanceof PooledDataBuffer);
+		assertEquals(2048, buffer.capacity());
+		assertEquals(0, bufferFactory.getAllocationCount());
+	}
+
+	@Test
+	public void sharedPool() throws Exception {
+		DataBuffer[] buffers = new DataBuffer[20];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = this.bufferFactory.allocateBuffer(4096);
+		}
+		for (DataBuffer buffer : buffers) {
+			release(buffer);
+		}
+		assertEquals(20, this.bufferFactory.getPooledBufferCount());
+
+		Thread thread = new Thread(() -> release(this.bufferFactory.allocateBuffer(4096)));
+		thread.start();
+		thread.join();
+		assertEquals(1, this.bufferFactory.getCacheHitCount());
+		assertEquals(20, this.bufferFactory.getPooledBufferCount());
+	}
+
+	@Test
+	public void threadLocalCache() throws Exception {
+		this.bufferFactory.setThreadLocalCacheEnabled(true);
+		DataBuffer[] buffers = new DataBuffer[20];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = this.bufferFactory.allocateBuffer(4096);
+		}
+		for (DataBuffer buffer : buffers) {
+			release(buffer);
+		}
+		// 8 buffers held by the thread-local cache, the rest in the shared pool
+		assertEquals(12, this.bufferFactory.getPooledBufferCount());
+
+		Thread thread = new Thread(() -> this.bufferFactory.allocateBuffer(4096));
+		thread.start();
+		thread.join();
+		assertEquals(1, this.bufferFactory.getCacheHitCount());
+		assertEquals(11, this.bufferFactory.getPooledBufferCount());
+	}
+
+	@Test
+	public void increaseCapacity() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(256);
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		buffer.capacity(1024);
+		assertEquals(1024, buffer.capacity());
+		assertEquals("foo", DataBufferTestUtils.dumpString(buffer, StandardCharsets.UTF_8));
+
+		// Initial memory not recycled before the buffer is released
+		DataBuffer other = this.bufferFactory.allocateBuffer(256);
+		assertEquals(0, this.bufferFactory.getCacheHitCount());
+		release(other);
+		assertTrue(release(buffer));
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+		assertEquals(2, this.bufferFactory.getPooledBufferCount());
+	}
+
+	@Test
+	public void increaseCapacityWithSlice() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(256);
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(0, 3);
+		buffer.capacity(1024);
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(256);
+		other.write("bar".getBytes(StandardCharsets.UTF_8));
+		assertEquals("foo", DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8));
+		release(other);
+		assertTrue(release(buffer));
+	}
+
+	@Test
+	public void slice() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(3);
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(1, 2);
+		assertTrue(slice instanceof PooledDataBuffer);
+		assertEquals("oo", DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8));
+
+		DataBufferUtils.retain(slice);
+		assertFalse(release(buffer));
+		assertTrue(((PooledDataBuffer) buffer).isAllocated());
+		assertTrue(release(slice));
+		assertFalse(((PooledDataBuffer) slice).isAllocated());
+	}
+
+	@Test
+	public void inputStreamReleaseOnClose() throws Exception {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(3);
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		try (InputStream inputStream = buffer.asInputStream(true)) {
+			assertEquals('f', inputStream.read());
+		}
+		assertFalse(((PooledDataBuffer) buffer).isAllocated());
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void retainAfterRelease() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.bufferFactory.allocateBuffer(3);
+		buffer.release();
+		buffer.retain();
+	}
+
+	@Test
+	public void leakDetection() throws Exception {
+		this.bufferFactory.setLeakDetectionSamplingInterval(1);
+		this.bufferFactory.allocateBuffer(10);
+
+		for (int i = 0; i < 50 && this.bufferFactory.getLeakCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(20);
+			release(this.bufferFactory.allocateBuffer(10));
+		}
+		assertEquals(1, this.bufferFactory.getLeakCount());
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+}
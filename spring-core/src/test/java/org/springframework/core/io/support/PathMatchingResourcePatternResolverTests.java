@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.Ignore;
@@ -118,6 +119,31 @@ public class PathMatchingResourcePatternResolverTests {
 		assertTrue("Could not find aspectj_1_5_0.dtd in the root of the aspectjweaver jar", found);
 	}
 
+	@Test
+	public void classpathStarWithPatternInJarUsingJarEntryIndex() throws IOException {
+		JarEntryIndex.clearCache();
+		resolver.setUseJarEntryIndex(true);
+		Resource[] resources = resolver.getResources("classpath*:org/reactivestreams/*.class");
+		assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTIVESTREAMS);
+
+		// Resolved against the index built on first access
+		Resource[] indexedResources = resolver.getResources("classpath*:org/reactivestreams/*.class");
+		assertArrayEquals(resources, indexedResources);
+		assertNotNull(JarEntryIndex.get(JarEntryIndex.getJarFileUrl(indexedResources[0].getURL())));
+	}
+
+	@Test
+	public void multiplePatternsInJarUsingJarEntryIndex() throws IOException {
+		JarEntryIndex.clearCache();
+		PathMatchingResourcePatternResolver indexingResolver = new PathMatchingResourcePatternResolver();
+		indexingResolver.setUseJarEntryIndex(true);
+		for (String pattern : new String[] {"classpath*:org/reactivestreams/**/*.class",
+				"classpath*:org/reactivestreams/P*.class", "classpath*:*.dtd"}) {
+			assertEquals(new HashSet<>(Arrays.asList(resolver.getResources(pattern))),
+					new HashSet<>(Arrays.asList(indexingResolver.getResources(pattern))));
+		}
+	}
+
 
 	private void assertProtocolAndFilenames(Resource[] resources, String protocol, String... filenames)
 			throws IOException {
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.core.metrics.BufferingApplicationStartup.TimelineEntry;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BufferingApplicationStartup}.
+ *
+ * @author Nico Yates
+ */
+public class BufferingApplicationStartupTests {
+
+	@Test
+	public void nestedStepsAreRecordedWithParent() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep refresh = startup.start("spring.context.refresh");
+		StartupStep bean = startup.start("spring.beans.instantiate").tag("beanName", "foo");
+		bean.end();
+		refresh.end();
+
+		List<TimelineEntry> timeline = startup.getTimeline();
+		assertEquals(2, timeline.size());
+		assertEquals("spring.context.refresh", timeline.get(0).getName());
+		assertNull(timeline.get(0).getParentId());
+		assertEquals("spring.beans.instantiate", timeline.get(1).getName());
+		assertEquals(Long.valueOf(refresh.getId()), timeline.get(1).getParentId());
+		assertEquals("beanName", timeline.get(1).getTags().get(0).getKey());
+		assertEquals("foo", timeline.get(1).getTags().get(0).getValue());
+		assertTrue(timeline.get(0).getDuration() >= timeline.get(1).getDuration());
+	}
+
+	@Test
+	public void siblingStepsShareParent() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep parent = startup.start("parent");
+		startup.start("first").end();
+		startup.start("second").end();
+		parent.end();
+		StartupStep next = startup.start("next");
+
+		List<TimelineEntry> timeline = startup.getTimeline();
+		assertEquals(Long.valueOf(parent.getId()), timeline.get(1).getParentId());
+		assertEquals(Long.valueOf(parent.getId()), timeline.get(2).getParentId());
+		assertNull(next.getParentId());
+	}
+
+	@Test
+	public void endingParentUnwindsUnfinishedChildren() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep parent = startup.start("parent");
+		startup.start("unfinished");
+		parent.end();
+
+		assertNull(startup.start("next").getParentId());
+	}
+
+	@Test
+	public void stepsBeyondCapacityAreDropped() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(2);
+		startup.start("first").end();
+		startup.start("second").end();
+		startup.start("third").end();
+
+		List<String> names = new ArrayList<>();
+		for (TimelineEntry entry : startup.getTimeline()) {
+			names.add(entry.getName());
+		}
+		assertEquals(2, names.size());
+		assertFalse(names.contains("third"));
+
+		startup.clear();
+		startup.start("fourth").end();
+		assertEquals("fourth", startup.getTimeline().get(0).getName());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void cannotTagEndedStep() {
+		StartupStep step = new BufferingApplicationStartup(2).start("step");
+		step.end();
+		step.tag("key", "value");
+	}
+
+	@Test
+	public void collapsedStacks() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep refresh = startup.start("spring.context.refresh");
+		startup.start("spring.beans.instantiate").tag("beanName", "a;b").end();
+		refresh.end();
+
+		String[] lines = startup.toCollapsedStacks().split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].matches("spring\\.context\\.refresh \\d+"));
+		assertTrue(lines[1].matches("spring\\.context\\.refresh;spring\\.beans\\.instantiate\\(beanName=a,b\\) \\d+"));
+	}
+
+	@Test
+	public void defaultStartupIsNoOp() {
+		StartupStep step = ApplicationStartup.DEFAULT.start("step").tag("key", "value");
+		assertFalse(step.getTags().iterator().hasNext());
+		step.end();
+		step.end();
+	}
+
+}
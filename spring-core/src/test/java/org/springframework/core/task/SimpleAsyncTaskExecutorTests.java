@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.core.task;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.ThreadFactory;
 
 import org.junit.Rule;
@@ -23,6 +24,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import org.springframework.util.ConcurrencyThrottleSupport;
+import org.springframework.util.ReflectionUtils;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
@@ -77,6 +79,23 @@ public class SimpleAsyncTaskExecutorTests {
 		assertEquals("test", task.getThreadName());
 	}
 
+	@Test
+	public void virtualThreads() throws Exception {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("virtual#");
+		executor.setVirtualThreads(true);
+		assertEquals(VirtualThreadTaskExecutor.isSupported(), executor.isVirtualThreads());
+
+		Thread thread = executor.submit(Thread::currentThread).get();
+		assertThat(thread.getName(), startsWith("virtual#"));
+		Method isVirtual = ReflectionUtils.findMethod(Thread.class, "isVirtual");
+		if (isVirtual != null) {
+			assertEquals(Boolean.TRUE, ReflectionUtils.invokeMethod(isVirtual, thread));
+		}
+		else {
+			assertFalse(executor.isVirtualThreads());
+		}
+	}
+
 	@Test
 	public void throwsExceptionWhenSuppliedWithNullRunnable() throws Exception {
 		exception.expect(IllegalArgumentException.class);
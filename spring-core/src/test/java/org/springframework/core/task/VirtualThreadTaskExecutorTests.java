@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.util.concurrent.ListenableFuture;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Unit tests for {@link VirtualThreadTaskExecutor}.
+ *
+ * @author Nico Yates
+ */
+public class VirtualThreadTaskExecutorTests {
+
+	@Test
+	public void execute() throws Exception {
+		assumeTrue(VirtualThreadTaskExecutor.isSupported());
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("test-");
+		CountDownLatch latch = new CountDownLatch(100);
+		for (int i = 0; i < 100; i++) {
+			executor.execute(latch::countDown);
+		}
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void threadNames() throws Exception {
+		assumeTrue(VirtualThreadTaskExecutor.isSupported());
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("test-");
+		assertEquals("test-1", executor.submit(() -> Thread.currentThread().getName()).get());
+		ListenableFuture<String> future = executor.submitListenable(() -> Thread.currentThread().getName());
+		assertEquals("test-2", future.get());
+		assertTrue(executor.submit(() -> Thread.currentThread().isDaemon()).get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void notSupported() {
+		assumeFalse(VirtualThreadTaskExecutor.isSupported());
+		new VirtualThreadTaskExecutor();
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.Scope;
+import org.springframework.core.type.TestAutowired;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SharedMetadataReaderCache}.
+ *
+ * @author Nico Yates
+ */
+public class SharedMetadataReaderCacheTests {
+
+	private static final long CACHE_LIMIT = 1024 * 1024;
+
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final ClassLoader classLoader = getClass().getClassLoader();
+
+
+	@Test
+	public void sharedInstanceDisabledByDefault() throws IOException {
+		assertFalse(SharedMetadataReaderCache.getSharedInstance().isActive());
+		MetadataReader metadataReader = new CachingMetadataReaderFactory(this.classLoader)
+				.getMetadataReader(SampleComponent.class.getName());
+		assertNotSame(metadataReader, new CachingMetadataReaderFactory(this.classLoader)
+				.getMetadataReader(SampleComponent.class.getName()));
+	}
+
+	@Test
+	public void hitAndMissStatistics() throws IOException {
+		SharedMetadataReaderCache cache = new SharedMetadataReaderCache(CACHE_LIMIT, null);
+		MetadataReader metadataReader = cache.getMetadataReader(classResource(SampleComponent.class), this.classLoader);
+		assertNotNull(metadataReader);
+		assertSame(metadataReader, cache.getMetadataReader(classResource(SampleComponent.class), this.classLoader));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getSize());
+		assertEquals(classResource(SampleComponent.class).contentLength(), cache.getWeight());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedEntries() throws IOException {
+		long limit = classResource(SampleComponent.class).contentLength() +
+				classResource(SampleService.class).contentLength();
+		SharedMetadataReaderCache cache = new SharedMetadataReaderCache(limit, null);
+		cache.getMetadataReader(classResource(SampleComponent.class), this.classLoader);
+		cache.getMetadataReader(classResource(SampleService.class), this.classLoader);
+		cache.getMetadataReader(classResource(SampleComponent.class), this.classLoader);
+		assertEquals(0, cache.getEvictionCount());
+
+		cache.getMetadataReader(classResource(SharedMetadataReaderCacheTests.class), this.classLoader);
+		assertTrue(cache.getEvictionCount() > 0);
+		assertTrue(cache.getWeight() <= limit);
+		long misses = cache.getMissCount();
+		cache.getMetadataReader(classResource(SampleService.class), this.classLoader);
+		assertEquals(misses + 1, cache.getMissCount());
+	}
+
+	@Test
+	public void snapshotsReusedAcrossCaches() throws IOException {
+		File directory = this.temporaryFolder.newFolder();
+		SharedMetadataReaderCache cache = new SharedMetadataReaderCache(CACHE_LIMIT, directory);
+		AnnotationMetadata expected = cache.getMetadataReader(
+				classResource(SampleComponent.class), this.classLoader).getAnnotationMetadata();
+		assertEquals(0, cache.getSnapshotHitCount());
+		File[] snapshots = directory.listFiles();
+		assertEquals(1, snapshots.length);
+		assertTrue(snapshots[0].length() < classResource(SampleComponent.class).contentLength());
+
+		SharedMetadataReaderCache otherCache = new SharedMetadataReaderCache(CACHE_LIMIT, directory);
+		AnnotationMetadata actual = otherCache.getMetadataReader(
+				classResource(SampleComponent.class), this.classLoader).getAnnotationMetadata();
+		assertEquals(1, otherCache.getSnapshotHitCount());
+		assertEquals(expected.getClassName(), actual.getClassName());
+		assertEquals(expected.getSuperClassName(), actual.getSuperClassName());
+		assertEquals(expected.getAnnotationTypes(), actual.getAnnotationTypes());
+		assertEquals(expected.getAnnotationAttributes(Scope.class.getName()),
+				actual.getAnnotationAttributes(Scope.class.getName()));
+		assertEquals(1, actual.getAnnotatedMethods(TestAutowired.class.getName()).size());
+		assertEquals("java.lang.String", actual.getAnnotatedMethods(TestAutowired.class.getName())
+				.iterator().next().getReturnTypeName());
+	}
+
+	@Test
+	public void unsupportedResource() throws IOException {
+		SharedMetadataReaderCache cache = new SharedMetadataReaderCache(CACHE_LIMIT, null);
+		assertNull(cache.getMetadataReader(new ByteArrayResource(new byte[0]), this.classLoader));
+		assertEquals(0, cache.getMissCount());
+	}
+
+	@Test
+	public void unsupportedClassLoader() throws IOException {
+		SharedMetadataReaderCache cache = new SharedMetadataReaderCache(CACHE_LIMIT, null);
+		ClassLoader childClassLoader = new URLClassLoader(new URL[0], this.classLoader);
+		assertNull(cache.getMetadataReader(classResource(SampleComponent.class), childClassLoader));
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void disabledCache() throws IOException {
+		SharedMetadataReaderCache cache = new SharedMetadataReaderCache(0, null);
+		assertFalse(cache.isActive());
+		assertNull(cache.getMetadataReader(classResource(SampleComponent.class), this.classLoader));
+	}
+
+
+	private static Resource classResource(Class<?> clazz) {
+		return new ClassPathResource(clazz.getName().replace('.', '/') + ".class");
+	}
+
+
+	@Scope("prototype")
+	public static class SampleComponent {
+
+		private String name;
+
+		@TestAutowired
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+
+	public static class SampleService extends SampleComponent {
+	}
+
+}
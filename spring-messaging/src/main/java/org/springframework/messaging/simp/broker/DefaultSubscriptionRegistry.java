@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,14 @@
 
 package org.springframework.messaging.simp.broker;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -55,6 +59,11 @@ import org.springframework.util.StringUtils;
  * header on subscription messages with Spring EL expressions evaluated against
  * the headers to filter out messages in addition to destination matching.
  *
+ * <p>As of 5.1.5, the distinct destinations subscribed to are kept in an index
+ * keyed by their leading literal words. With an {@link AntPathMatcher}, only
+ * the destinations whose literal prefix matches the message destination are
+ * checked, instead of all destinations of all sessions.
+ *
  * @author Rossen Stoyanchev
  * @author Sebastien Deleuze
  * @author Juergen Hoeller
@@ -85,6 +94,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	private final SessionSubscriptionRegistry subscriptionRegistry = new SessionSubscriptionRegistry();
 
+	private final DestinationIndex destinationIndex = new DestinationIndex();
+
 
 	/**
 	 * Specify the {@link PathMatcher} to use.
@@ -148,7 +159,9 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			String sessionId, String subsId, String destination, Message<?> message) {
 
 		Expression expression = getSelectorExpression(message.getHeaders());
-		this.subscriptionRegistry.addSubscription(sessionId, subsId, destination, expression);
+		SessionSubscriptionInfo info =
+				this.subscriptionRegistry.addSubscription(sessionId, subsId, destination, expression);
+		this.destinationIndex.addDestination(destination, info);
 		this.destinationCache.updateAfterNewSubscription(destination, sessionId, subsId);
 	}
 
@@ -181,6 +194,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		if (info != null) {
 			String destination = info.removeSubscription(subsId);
 			if (destination != null) {
+				this.destinationIndex.removeDestinationIfUnused(destination, info);
 				this.destinationCache.updateAfterRemovedSubscription(sessionId, subsId);
 			}
 		}
@@ -190,13 +204,16 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	public void unregisterAllSubscriptions(String sessionId) {
 		SessionSubscriptionInfo info = this.subscriptionRegistry.removeSubscriptions(sessionId);
 		if (info != null) {
+			for (String destination : info.getDestinations()) {
+				this.destinationIndex.removeDestination(destination, info);
+			}
 			this.destinationCache.updateAfterRemovedSession(info);
 		}
 	}
 
 	@Override
 	protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
-		MultiValueMap<String, String> result = this.destinationCache.getSubscriptions(destination, message);
+		MultiValueMap<String, String> result = this.destinationCache.getSubscriptions(destination);
 		return filterSubscriptions(result, message);
 	}
 
@@ -242,7 +259,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	@Override
 	public String toString() {
-		return "DefaultSubscriptionRegistry[" + this.destinationCache + ", " + this.subscriptionRegistry + "]";
+		return "DefaultSubscriptionRegistry[" + this.destinationCache + ", " +
+				this.destinationIndex + ", " + this.subscriptionRegistry + "]";
 	}
 
 
@@ -273,20 +291,13 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 				};
 
 
-		public LinkedMultiValueMap<String, String> getSubscriptions(String destination, Message<?> message) {
+		public LinkedMultiValueMap<String, String> getSubscriptions(String destination) {
 			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
 			if (result == null) {
+				// Compute under the update lock, so that concurrent (un)subscriptions
+				// either see the cached result or are reflected in it
 				synchronized (this.updateCache) {
-					result = new LinkedMultiValueMap<>();
-					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
-						for (String destinationPattern : info.getDestinations()) {
-							if (getPathMatcher().match(destinationPattern, destination)) {
-								for (Subscription sub : info.getSubscriptions(destinationPattern)) {
-									result.add(info.sessionId, sub.getId());
-								}
-							}
-						}
-					}
+					result = computeMatchingSubscriptions(destination);
 					if (!result.isEmpty()) {
 						this.updateCache.put(destination, result.deepCopy());
 						this.accessCache.put(destination, result);
@@ -296,6 +307,34 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return result;
 		}
 
+		private LinkedMultiValueMap<String, String> computeMatchingSubscriptions(String destination) {
+			Set<String> matchingDestinations = new HashSet<>();
+			Set<SessionSubscriptionInfo> sessions = new LinkedHashSet<>();
+			for (String destinationPattern : destinationIndex.getCandidateDestinations(destination)) {
+				if (getPathMatcher().match(destinationPattern, destination)) {
+					matchingDestinations.add(destinationPattern);
+					sessions.addAll(destinationIndex.getSessions(destinationPattern));
+				}
+			}
+			LinkedMultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+			for (SessionSubscriptionInfo info : sessions) {
+				// Keep the order of destinations within the session
+				Collection<String> destinations = (matchingDestinations.size() == 1 ?
+						matchingDestinations : info.getDestinations());
+				for (String destinationPattern : destinations) {
+					if (matchingDestinations.contains(destinationPattern)) {
+						Set<Subscription> subscriptions = info.getSubscriptions(destinationPattern);
+						if (subscriptions != null) {
+							for (Subscription subscription : subscriptions) {
+								result.add(info.getSessionId(), subscription.getId());
+							}
+						}
+					}
+				}
+			}
+			return result;
+		}
+
 		public void updateAfterNewSubscription(String destination, String sessionId, String subsId) {
 			synchronized (this.updateCache) {
 				this.updateCache.forEach((cachedDestination, subscriptions) -> {
@@ -363,6 +402,166 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	}
 
 
+	/**
+	 * Index of the destinations subscribed to, mapping each destination to the
+	 * sessions with subscriptions to it, and organized as a trie keyed by the
+	 * leading literal words of each destination.
+	 * <p>The index is conservative: for an {@link AntPathMatcher}, the candidates
+	 * returned for a message destination are a superset of the subscribed
+	 * destinations that match it, regardless of the path separator and case
+	 * sensitivity in use. Words are runs of letters and digits, compared in
+	 * lower-case form, and a word directly followed by a wildcard is not used
+	 * as a key. For any other {@link PathMatcher}, all subscribed destinations
+	 * are candidates.
+	 * <p>Look-ups do not lock; modifications are synchronized on the index.
+	 */
+	private class DestinationIndex {
+
+		/** Map from destination (pattern) to the sessions subscribed to it. */
+		private final Map<String, Set<SessionSubscriptionInfo>> sessionLookup = new ConcurrentHashMap<>();
+
+		private final DestinationNode root = new DestinationNode();
+
+
+		public synchronized void addDestination(String destination, SessionSubscriptionInfo info) {
+			Set<SessionSubscriptionInfo> sessions = this.sessionLookup.get(destination);
+			if (sessions == null) {
+				sessions = ConcurrentHashMap.newKeySet();
+				this.sessionLookup.put(destination, sessions);
+				DestinationNode node = this.root;
+				for (String word : getLiteralWords(destination)) {
+					node = node.children.computeIfAbsent(word, key -> new DestinationNode());
+				}
+				node.destinations.add(destination);
+			}
+			sessions.add(info);
+		}
+
+		/**
+		 * Remove the given session from the sessions subscribed to the given
+		 * destination, unless it still has subscriptions to it. Checked while
+		 * holding the lock, so that a concurrent subscription of the same
+		 * session to the same destination is not lost from the index.
+		 */
+		public synchronized void removeDestinationIfUnused(String destination, SessionSubscriptionInfo info) {
+			if (info.getSubscriptions(destination) == null) {
+				removeDestination(destination, info);
+			}
+		}
+
+		public synchronized void removeDestination(String destination, SessionSubscriptionInfo info) {
+			Set<SessionSubscriptionInfo> sessions = this.sessionLookup.get(destination);
+			if (sessions == null || !sessions.remove(info) || !sessions.isEmpty()) {
+				return;
+			}
+			this.sessionLookup.remove(destination);
+			List<String> words = getLiteralWords(destination);
+			List<DestinationNode> path = new ArrayList<>(words.size() + 1);
+			DestinationNode node = this.root;
+			path.add(node);
+			for (String word : words) {
+				node = node.children.get(word);
+				if (node == null) {
+					return;
+				}
+				path.add(node);
+			}
+			node.destinations.remove(destination);
+			for (int i = words.size(); i > 0 && path.get(i).isEmpty(); i--) {
+				path.get(i - 1).children.remove(words.get(i - 1));
+			}
+		}
+
+		public Collection<String> getCandidateDestinations(String destination) {
+			if (getPathMatcher().getClass() != AntPathMatcher.class) {
+				return this.sessionLookup.keySet();
+			}
+			List<String> candidates = new ArrayList<>(this.root.destinations);
+			DestinationNode node = this.root;
+			int length = destination.length();
+			int start = 0;
+			while (node != null && start < length) {
+				while (start < length && !Character.isLetterOrDigit(destination.charAt(start))) {
+					start++;
+				}
+				int end = start;
+				while (end < length && Character.isLetterOrDigit(destination.charAt(end))) {
+					end++;
+				}
+				if (end == start) {
+					break;
+				}
+				node = node.children.get(destination.substring(start, end).toLowerCase(Locale.ROOT));
+				if (node != null) {
+					candidates.addAll(node.destinations);
+				}
+				start = end;
+			}
+			return candidates;
+		}
+
+		public Set<SessionSubscriptionInfo> getSessions(String destination) {
+			Set<SessionSubscriptionInfo> sessions = this.sessionLookup.get(destination);
+			return (sessions != null ? sessions : Collections.emptySet());
+		}
+
+		/**
+		 * Split the literal prefix of the given destination, up to the first
+		 * wildcard or URI variable, into lower-case words, leaving out a word
+		 * that is directly followed by a wildcard (and therefore incomplete).
+		 */
+		private List<String> getLiteralWords(String destination) {
+			List<String> words = new ArrayList<>();
+			int length = destination.length();
+			int start = 0;
+			while (start < length) {
+				char c = destination.charAt(start);
+				if (isWildcard(c)) {
+					break;
+				}
+				if (!Character.isLetterOrDigit(c)) {
+					start++;
+					continue;
+				}
+				int end = start;
+				while (end < length && Character.isLetterOrDigit(destination.charAt(end))) {
+					end++;
+				}
+				if (end < length && isWildcard(destination.charAt(end))) {
+					break;
+				}
+				words.add(destination.substring(start, end).toLowerCase(Locale.ROOT));
+				start = end;
+			}
+			return words;
+		}
+
+		private boolean isWildcard(char c) {
+			return (c == '*' || c == '?' || c == '{');
+		}
+
+		@Override
+		public String toString() {
+			return "index[" + this.sessionLookup.size() + " destination(s)]";
+		}
+	}
+
+
+	/**
+	 * Node in the {@link DestinationIndex} trie.
+	 */
+	private static class DestinationNode {
+
+		private final Map<String, DestinationNode> children = new ConcurrentHashMap<>(4);
+
+		private final Set<String> destinations = new CopyOnWriteArraySet<>();
+
+		public boolean isEmpty() {
+			return (this.children.isEmpty() && this.destinations.isEmpty());
+		}
+	}
+
+
 	/**
 	 * Provide access to session subscriptions by sessionId.
 	 */
@@ -376,10 +575,6 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return this.sessions.get(sessionId);
 		}
 
-		public Collection<SessionSubscriptionInfo> getAllSubscriptions() {
-			return this.sessions.values();
-		}
-
 		public SessionSubscriptionInfo addSubscription(String sessionId, String subscriptionId,
 				String destination, @Nullable Expression selectorExpression) {
 
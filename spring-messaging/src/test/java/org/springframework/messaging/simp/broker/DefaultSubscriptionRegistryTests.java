@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,10 +28,12 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.MultiValueMap;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test fixture for
@@ -257,6 +259,75 @@ public class DefaultSubscriptionRegistryTests {
 		assertEquals("Expected no elements " + actual, 0, actual.size());
 	}
 
+	@Test
+	public void registerSubscriptionsWithDotSeparator() {
+		this.registry.setPathMatcher(new AntPathMatcher("."));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "topic.price.*"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "topic.**"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs03", "topic.pri*.ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "topic.price.ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs02", "topic.price"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs03", "other.*"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("topic.price.ibm"));
+		assertEquals(2, actual.size());
+		assertEquals(3, actual.get("sess01").size());
+		assertEquals(Collections.singletonList("subs01"), actual.get("sess02"));
+
+		actual = this.registry.findSubscriptions(createMessage("topic"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("subs02"), actual.get("sess01"));
+	}
+
+	@Test
+	public void registerSubscriptionsCaseInsensitive() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		this.registry.setPathMatcher(pathMatcher);
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/Topic/Price.*"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/topic/PRICE.IBM"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/TOPIC/price.ibm"));
+		assertEquals(1, actual.size());
+		assertEquals(2, actual.get("sess01").size());
+	}
+
+	@Test
+	public void registerSubscriptionsWithCustomPathMatcher() {
+		this.registry.setPathMatcher(new AntPathMatcher() {
+			@Override
+			public boolean match(String pattern, String path) {
+				return path.startsWith(pattern);
+			}
+		});
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/to"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs03", "/queue"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topics"));
+		assertEquals(2, actual.get("sess01").size());
+	}
+
+	@Test
+	public void unregisterSubscriptionsUpdatesDestinationIndex() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/PRICE.STOCK.*.IBM"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/topic/PRICE.STOCK.*.IBM"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs02", "/topic/PRICE.STOCK.NYSE.IBM"));
+		assertTrue(this.registry.toString().contains("index[2 destination(s)]"));
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess02", "subs02"));
+		this.registry.unregisterAllSubscriptions("sess01");
+		assertTrue(this.registry.toString().contains("index[1 destination(s)]"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/PRICE.STOCK.NYSE.IBM"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("subs01"), actual.get("sess02"));
+
+		this.registry.unregisterAllSubscriptions("sess02");
+		assertTrue(this.registry.toString().contains("index[0 destination(s)]"));
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/PRICE.STOCK.NYSE.IBM")).size());
+	}
+
 	@Test
 	public void registerSubscriptionWithSelector() {
 		String sessionId = "sess01";
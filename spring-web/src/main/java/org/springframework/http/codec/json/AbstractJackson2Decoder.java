@@ -31,6 +31,8 @@ import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ResolvableType;
@@ -38,6 +40,7 @@ import org.springframework.core.codec.CodecException;
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.codec.Hints;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.core.log.LogFormatUtils;
 import org.springframework.http.codec.HttpMessageDecoder;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -63,6 +66,13 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 	 */
 	private final JsonFactory jsonFactory;
 
+	private int maxInMemorySize = -1;
+
+	@Nullable
+	private Scheduler decodingScheduler;
+
+	private int decodingConcurrency = Schedulers.DEFAULT_POOL_SIZE;
+
 
 	/**
 	 * Constructor with a Jackson {@link ObjectMapper} to use.
@@ -74,6 +84,72 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 	}
 
 
+	/**
+	 * Set the maximum number of bytes that can be buffered for a single JSON
+	 * value, i.e. for every element of a JSON array stream, or for the entire
+	 * input when decoding to a single value. If the limit is exceeded, a
+	 * {@link DataBufferLimitException} is raised.
+	 * <p>By default this is set to -1, i.e. unlimited.
+	 * @param byteCount the maximum number of bytes, or -1 for unlimited
+	 * @since 5.1.5
+	 */
+	public void setMaxInMemorySize(int byteCount) {
+		this.maxInMemorySize = byteCount;
+	}
+
+	/**
+	 * Return the {@link #setMaxInMemorySize configured} byte count limit.
+	 * @since 5.1.5
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+	/**
+	 * Set a {@link Scheduler} to deserialize the elements of a JSON array
+	 * stream on, in parallel and up to the {@link #setDecodingConcurrency
+	 * decoding concurrency}. Tokenizing the input remains sequential, and the
+	 * decoded elements are still emitted in their original order.
+	 * <p>This is worthwhile for large array uploads with elements that are
+	 * expensive to deserialize. By default this is not set, and elements are
+	 * deserialized one by one on the thread that delivers the input.
+	 * @param decodingScheduler the scheduler to use, e.g.
+	 * {@link Schedulers#parallel()}, or {@code null} for sequential decoding
+	 * @since 5.1.5
+	 */
+	public void setDecodingScheduler(@Nullable Scheduler decodingScheduler) {
+		this.decodingScheduler = decodingScheduler;
+	}
+
+	/**
+	 * Return the {@link #setDecodingScheduler configured} decoding scheduler.
+	 * @since 5.1.5
+	 */
+	@Nullable
+	public Scheduler getDecodingScheduler() {
+		return this.decodingScheduler;
+	}
+
+	/**
+	 * Set the maximum number of elements to deserialize in parallel when a
+	 * {@link #setDecodingScheduler decoding scheduler} is set.
+	 * <p>By default this is set to {@link Schedulers#DEFAULT_POOL_SIZE}.
+	 * @since 5.1.5
+	 */
+	public void setDecodingConcurrency(int decodingConcurrency) {
+		Assert.isTrue(decodingConcurrency > 0, "'decodingConcurrency' must be larger than 0");
+		this.decodingConcurrency = decodingConcurrency;
+	}
+
+	/**
+	 * Return the {@link #setDecodingConcurrency configured} decoding concurrency.
+	 * @since 5.1.5
+	 */
+	public int getDecodingConcurrency() {
+		return this.decodingConcurrency;
+	}
+
+
 	@Override
 	public boolean canDecode(ResolvableType elementType, @Nullable MimeType mimeType) {
 		JavaType javaType = getObjectMapper().getTypeFactory().constructType(elementType.getType());
@@ -86,22 +162,30 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 	public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
-		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(Flux.from(input), this.jsonFactory, true);
-		return decodeInternal(tokens, elementType, mimeType, hints);
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(
+				Flux.from(input), this.jsonFactory, true, this.maxInMemorySize);
+		ObjectReader reader = getObjectReader(elementType, hints);
+
+		Scheduler scheduler = this.decodingScheduler;
+		if (scheduler != null) {
+			return tokens.flatMapSequential(tokenBuffer ->
+					Mono.defer(() -> readValue(reader, tokenBuffer, hints)).subscribeOn(scheduler),
+					this.decodingConcurrency);
+		}
+		return tokens.flatMap(tokenBuffer -> readValue(reader, tokenBuffer, hints));
 	}
 
 	@Override
 	public Mono<Object> decodeToMono(Publisher<DataBuffer> input, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
-		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(Flux.from(input), this.jsonFactory, false);
-		return decodeInternal(tokens, elementType, mimeType, hints).singleOrEmpty();
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(
+				Flux.from(input), this.jsonFactory, false, this.maxInMemorySize);
+		ObjectReader reader = getObjectReader(elementType, hints);
+		return tokens.flatMap(tokenBuffer -> readValue(reader, tokenBuffer, hints)).singleOrEmpty();
 	}
 
-	private Flux<Object> decodeInternal(Flux<TokenBuffer> tokens, ResolvableType elementType,
-			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
-
-		Assert.notNull(tokens, "'tokens' must not be null");
+	private ObjectReader getObjectReader(ResolvableType elementType, @Nullable Map<String, Object> hints) {
 		Assert.notNull(elementType, "'elementType' must not be null");
 
 		MethodParameter param = getParameter(elementType);
@@ -109,31 +193,33 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 		JavaType javaType = getJavaType(elementType.getType(), contextClass);
 		Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
 
-		ObjectReader reader = (jsonView != null ?
+		return (jsonView != null ?
 				getObjectMapper().readerWithView(jsonView).forType(javaType) :
 				getObjectMapper().readerFor(javaType));
+	}
 
-		return tokens.flatMap(tokenBuffer -> {
-			try {
-				Object value = reader.readValue(tokenBuffer.asParser(getObjectMapper()));
-				if (!Hints.isLoggingSuppressed(hints)) {
-					LogFormatUtils.traceDebug(logger, traceOn -> {
-						String formatted = LogFormatUtils.formatValue(value, !traceOn);
-						return Hints.getLogPrefix(hints) + "Decoded [" + formatted + "]";
-					});
-				}
-				return Mono.justOrEmpty(value);
-			}
-			catch (InvalidDefinitionException ex) {
-				return Mono.error(new CodecException("Type definition error: " + ex.getType(), ex));
-			}
-			catch (JsonProcessingException ex) {
-				return Mono.error(new DecodingException("JSON decoding error: " + ex.getOriginalMessage(), ex));
-			}
-			catch (IOException ex) {
-				return Mono.error(new DecodingException("I/O error while parsing input stream", ex));
+	private Mono<Object> readValue(ObjectReader reader, TokenBuffer tokenBuffer,
+			@Nullable Map<String, Object> hints) {
+
+		try {
+			Object value = reader.readValue(tokenBuffer.asParser(getObjectMapper()));
+			if (!Hints.isLoggingSuppressed(hints)) {
+				LogFormatUtils.traceDebug(logger, traceOn -> {
+					String formatted = LogFormatUtils.formatValue(value, !traceOn);
+					return Hints.getLogPrefix(hints) + "Decoded [" + formatted + "]";
+				});
 			}
-		});
+			return Mono.justOrEmpty(value);
+		}
+		catch (InvalidDefinitionException ex) {
+			return Mono.error(new CodecException("Type definition error: " + ex.getType(), ex));
+		}
+		catch (JsonProcessingException ex) {
+			return Mono.error(new DecodingException("JSON decoding error: " + ex.getOriginalMessage(), ex));
+		}
+		catch (IOException ex) {
+			return Mono.error(new DecodingException("I/O error while parsing input stream", ex));
+		}
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,11 +27,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.async.ByteArrayFeeder;
 import com.fasterxml.jackson.databind.util.TokenBuffer;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
 import org.springframework.util.Assert;
 
 /**
@@ -48,22 +51,31 @@ final class Jackson2Tokenizer {
 
 	private final boolean tokenizeArrayElements;
 
+	private final int maxInMemorySize;
+
 	private TokenBuffer tokenBuffer;
 
 	private int objectDepth;
 
 	private int arrayDepth;
 
+	/** The number of bytes fed into the parser so far. */
+	private long inputByteCount;
+
+	/** The input offset at which the value that is currently being tokenized started. */
+	private long valueStartOffset;
+
 	// TODO: change to ByteBufferFeeder when supported by Jackson
 	// See https://github.com/FasterXML/jackson-core/issues/478
 	private final ByteArrayFeeder inputFeeder;
 
 
-	private Jackson2Tokenizer(JsonParser parser, boolean tokenizeArrayElements) {
+	private Jackson2Tokenizer(JsonParser parser, boolean tokenizeArrayElements, int maxInMemorySize) {
 		Assert.notNull(parser, "'parser' must not be null");
 
 		this.parser = parser;
 		this.tokenizeArrayElements = tokenizeArrayElements;
+		this.maxInMemorySize = maxInMemorySize;
 		this.tokenBuffer = new TokenBuffer(parser);
 		this.inputFeeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
 	}
@@ -80,49 +92,70 @@ final class Jackson2Tokenizer {
 	public static Flux<TokenBuffer> tokenize(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
 			boolean tokenizeArrayElements) {
 
+		return tokenize(dataBuffers, jsonFactory, tokenizeArrayElements, -1);
+	}
+
+	/**
+	 * Tokenize the given {@code Flux<DataBuffer>} into {@code Flux<TokenBuffer>}.
+	 * @param dataBuffers the source data buffers
+	 * @param jsonFactory the factory to use
+	 * @param tokenizeArrayElements if {@code true} and the "top level" JSON
+	 * object is an array, each element is returned individually, immediately
+	 * after it is received.
+	 * @param maxInMemorySize the maximum number of bytes to buffer for a single
+	 * returned token buffer, or -1 for unlimited
+	 * @return the result token buffers
+	 * @since 5.1.5
+	 */
+	public static Flux<TokenBuffer> tokenize(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
+			boolean tokenizeArrayElements, int maxInMemorySize) {
+
 		try {
 			JsonParser parser = jsonFactory.createNonBlockingByteArrayParser();
-			Jackson2Tokenizer tokenizer = new Jackson2Tokenizer(parser, tokenizeArrayElements);
-			return dataBuffers.flatMap(tokenizer::tokenize, Flux::error, tokenizer::endOfInput);
+			Jackson2Tokenizer tokenizer = new Jackson2Tokenizer(parser, tokenizeArrayElements, maxInMemorySize);
+			return dataBuffers.concatMapIterable(tokenizer::tokenize)
+					.concatWith(Flux.defer(() -> Flux.fromIterable(tokenizer.endOfInput())))
+					.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 		}
 		catch (IOException ex) {
 			return Flux.error(ex);
 		}
 	}
 
-	private Flux<TokenBuffer> tokenize(DataBuffer dataBuffer) {
+	private List<TokenBuffer> tokenize(DataBuffer dataBuffer) {
 		byte[] bytes = new byte[dataBuffer.readableByteCount()];
 		dataBuffer.read(bytes);
 		DataBufferUtils.release(dataBuffer);
 
 		try {
 			this.inputFeeder.feedInput(bytes, 0, bytes.length);
-			return parseTokenBufferFlux();
+			this.inputByteCount += bytes.length;
+			List<TokenBuffer> result = parseTokenBuffers();
+			assertInMemorySize(this.inputByteCount);
+			return result;
 		}
 		catch (JsonProcessingException ex) {
-			return Flux.error(new DecodingException(
-					"JSON decoding error: " + ex.getOriginalMessage(), ex));
+			throw new DecodingException("JSON decoding error: " + ex.getOriginalMessage(), ex);
 		}
 		catch (IOException ex) {
-			return Flux.error(ex);
+			throw Exceptions.propagate(ex);
 		}
 	}
 
-	private Flux<TokenBuffer> endOfInput() {
+	private List<TokenBuffer> endOfInput() {
 		this.inputFeeder.endOfInput();
 		try {
-			return parseTokenBufferFlux();
+			return parseTokenBuffers();
 		}
 		catch (JsonProcessingException ex) {
-			return Flux.error(new DecodingException(
-					"JSON decoding error: " + ex.getOriginalMessage(), ex));
+			throw new DecodingException("JSON decoding error: " + ex.getOriginalMessage(), ex);
 		}
 		catch (IOException ex) {
-			return Flux.error(ex);
+			throw Exceptions.propagate(ex);
 		}
 	}
 
-	private Flux<TokenBuffer> parseTokenBufferFlux() throws IOException {
+	private List<TokenBuffer> parseTokenBuffers() throws IOException {
 		List<TokenBuffer> result = new ArrayList<>();
 
 		while (true) {
@@ -141,7 +174,19 @@ final class Jackson2Tokenizer {
 				processTokenArray(token, result);
 			}
 		}
-		return Flux.fromIterable(result);
+		return result;
+	}
+
+	/**
+	 * Check the bytes buffered for the value that is currently being
+	 * tokenized, up to the given input offset, against the configured
+	 * maximum, if any.
+	 */
+	private void assertInMemorySize(long offset) {
+		if (this.maxInMemorySize >= 0 && offset - this.valueStartOffset > this.maxInMemorySize) {
+			throw new DataBufferLimitException(
+					"Exceeded limit on max bytes per JSON value: " + this.maxInMemorySize);
+		}
 	}
 
 	private void updateDepth(JsonToken token) {
@@ -166,8 +211,7 @@ final class Jackson2Tokenizer {
 
 		if ((token.isStructEnd() || token.isScalarValue()) &&
 				this.objectDepth == 0 && this.arrayDepth == 0) {
-			result.add(this.tokenBuffer);
-			this.tokenBuffer = new TokenBuffer(this.parser);
+			addTokenBuffer(result);
 		}
 
 	}
@@ -180,11 +224,18 @@ final class Jackson2Tokenizer {
 		if (this.objectDepth == 0 &&
 				(this.arrayDepth == 0 || this.arrayDepth == 1) &&
 				(token == JsonToken.END_OBJECT || token.isScalarValue())) {
-			result.add(this.tokenBuffer);
-			this.tokenBuffer = new TokenBuffer(this.parser);
+			addTokenBuffer(result);
 		}
 	}
 
+	private void addTokenBuffer(List<TokenBuffer> result) {
+		long valueEndOffset = this.parser.getCurrentLocation().getByteOffset();
+		assertInMemorySize(valueEndOffset);
+		result.add(this.tokenBuffer);
+		this.tokenBuffer = new TokenBuffer(this.parser);
+		this.valueStartOffset = valueEndOffset;
+	}
+
 	private boolean isTopLevelArrayToken(JsonToken token) {
 		return this.objectDepth == 0 && ((token == JsonToken.START_ARRAY && this.arrayDepth == 1) ||
 				(token == JsonToken.END_ARRAY && this.arrayDepth == 0));
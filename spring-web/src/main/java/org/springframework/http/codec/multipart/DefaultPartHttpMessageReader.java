@@ -0,0 +1,280 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.codec.Hints;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.log.LogFormatUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.codec.LoggingCodecSupport;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Default {@code HttpMessageReader} for parsing {@code "multipart/form-data"}
+ * requests to a stream of {@link Part}'s, without any third-party dependency.
+ *
+ * <p>The request body is parsed as it arrives. Form fields, and other parts up
+ * to the {@link #setMaxInMemorySize in-memory size}, are held in memory. The
+ * content of larger parts is written to a temporary file in the
+ * {@link #setFileStorageDirectory file storage directory} instead, on the
+ * {@link #setBlockingOperationScheduler blocking operation scheduler}. The
+ * input is only consumed as fast as the file can be written, so memory usage
+ * remains flat even for very large uploads.
+ *
+ * <p>The content of a part stored in a temporary file can be consumed once:
+ * the file is deleted after {@link Part#content()} completes, and moved to
+ * the destination by {@link FilePart#transferTo}. The files of parts that are
+ * not consumed are deleted by {@link Part#delete()}, as done for the
+ * {@link org.springframework.web.server.ServerWebExchange#getMultipartData()
+ * multipart data} of an exchange when it completes, and for all parts of a
+ * request if reading it fails.
+ *
+ * <p>This reader can be provided to {@link MultipartHttpMessageReader} in order
+ * to aggregate all parts into a Map.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see MultipartHttpMessageReader
+ * @see SynchronossPartHttpMessageReader
+ */
+public class DefaultPartHttpMessageReader extends LoggingCodecSupport implements HttpMessageReader<Part> {
+
+	private static final String FILE_STORAGE_DIRECTORY_PREFIX = "spring-multipart-";
+
+
+	private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private int maxInMemorySize = 256 * 1024;
+
+	private int maxHeadersSize = 8 * 1024;
+
+	private long maxDiskUsagePerPart = -1;
+
+	private int maxParts = -1;
+
+	@Nullable
+	private volatile Path fileStorageDirectory;
+
+	private Scheduler blockingOperationScheduler = Schedulers.elastic();
+
+
+	/**
+	 * Set the maximum number of bytes of a part to hold in memory. Parts with
+	 * more content are stored in a temporary file, except for form fields: if
+	 * a form field exceeds the limit, a {@link DataBufferLimitException} is
+	 * raised.
+	 * <p>By default this is set to 256K.
+	 * @param byteCount the maximum number of bytes, or -1 to hold all parts in
+	 * memory
+	 */
+	public void setMaxInMemorySize(int byteCount) {
+		this.maxInMemorySize = byteCount;
+	}
+
+	/**
+	 * Return the {@link #setMaxInMemorySize configured} maximum in-memory size.
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+	/**
+	 * Set the maximum number of bytes of the headers of a single part. If the
+	 * limit is exceeded, a {@link DataBufferLimitException} is raised.
+	 * <p>By default this is set to 8K.
+	 */
+	public void setMaxHeadersSize(int byteCount) {
+		Assert.isTrue(byteCount > 0, "'maxHeadersSize' must be larger than 0");
+		this.maxHeadersSize = byteCount;
+	}
+
+	/**
+	 * Return the {@link #setMaxHeadersSize configured} maximum headers size.
+	 */
+	public int getMaxHeadersSize() {
+		return this.maxHeadersSize;
+	}
+
+	/**
+	 * Set the maximum number of bytes of a single part stored in a temporary
+	 * file. If the limit is exceeded, a {@link DataBufferLimitException} is
+	 * raised, and the file is deleted.
+	 * <p>By default this is set to -1, i.e. unlimited.
+	 * @param byteCount the maximum number of bytes, or -1 for unlimited
+	 */
+	public void setMaxDiskUsagePerPart(long byteCount) {
+		this.maxDiskUsagePerPart = byteCount;
+	}
+
+	/**
+	 * Return the {@link #setMaxDiskUsagePerPart configured} maximum disk usage
+	 * per part.
+	 */
+	public long getMaxDiskUsagePerPart() {
+		return this.maxDiskUsagePerPart;
+	}
+
+	/**
+	 * Set the maximum number of parts of a single request. If the limit is
+	 * exceeded, a {@link DataBufferLimitException} is raised.
+	 * <p>By default this is set to -1, i.e. unlimited.
+	 * @param maxParts the maximum number of parts, or -1 for unlimited
+	 */
+	public void setMaxParts(int maxParts) {
+		this.maxParts = maxParts;
+	}
+
+	/**
+	 * Return the {@link #setMaxParts configured} maximum number of parts.
+	 */
+	public int getMaxParts() {
+		return this.maxParts;
+	}
+
+	/**
+	 * Set the directory to store the content of large parts in. The directory
+	 * is created if it does not exist yet.
+	 * <p>By default, a new directory is created in the system temporary
+	 * directory when a part is stored for the first time.
+	 * @param fileStorageDirectory the directory to use
+	 */
+	public void setFileStorageDirectory(Path fileStorageDirectory) {
+		Assert.notNull(fileStorageDirectory, "'fileStorageDirectory' must not be null");
+		this.fileStorageDirectory = fileStorageDirectory;
+	}
+
+	/**
+	 * Return the {@link #setFileStorageDirectory configured} file storage
+	 * directory, or the default one if it was created already.
+	 */
+	@Nullable
+	public Path getFileStorageDirectory() {
+		return this.fileStorageDirectory;
+	}
+
+	/**
+	 * Set the {@link Scheduler} to perform blocking file operations on, i.e.
+	 * writing large parts to their temporary file, and reading them back.
+	 * <p>By default, this is the shared {@link Schedulers#elastic() elastic}
+	 * scheduler, which is meant for blocking work.
+	 * @param blockingOperationScheduler the scheduler to use
+	 */
+	public void setBlockingOperationScheduler(Scheduler blockingOperationScheduler) {
+		Assert.notNull(blockingOperationScheduler, "'blockingOperationScheduler' must not be null");
+		this.blockingOperationScheduler = blockingOperationScheduler;
+	}
+
+	/**
+	 * Return the {@link #setBlockingOperationScheduler configured} scheduler
+	 * for blocking file operations.
+	 */
+	public Scheduler getBlockingOperationScheduler() {
+		return this.blockingOperationScheduler;
+	}
+
+
+	@Override
+	public List<MediaType> getReadableMediaTypes() {
+		return Collections.singletonList(MediaType.MULTIPART_FORM_DATA);
+	}
+
+	@Override
+	public boolean canRead(ResolvableType elementType, @Nullable MediaType mediaType) {
+		return Part.class.equals(elementType.toClass()) &&
+				(mediaType == null || MediaType.MULTIPART_FORM_DATA.isCompatibleWith(mediaType));
+	}
+
+
+	@Override
+	public Flux<Part> read(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Flux.defer(() -> {
+			MediaType contentType = message.getHeaders().getContentType();
+			byte[] boundary = boundary(contentType);
+			if (boundary == null) {
+				return Flux.error(new DecodingException("No multipart boundary found in Content-Type: \"" +
+						contentType + "\""));
+			}
+			Charset headersCharset = (contentType.getCharset() != null ?
+					contentType.getCharset() : StandardCharsets.UTF_8);
+			Flux<MultipartParser.Token> tokens =
+					MultipartParser.parse(message.getBody(), boundary, this.maxHeadersSize, headersCharset);
+			return PartGenerator.createParts(tokens, this.maxInMemorySize, this.maxDiskUsagePerPart,
+					this.maxParts, this::getOrCreateFileStorageDirectory, this.blockingOperationScheduler,
+					this.bufferFactory);
+		}).doOnNext(part -> {
+			if (!Hints.isLoggingSuppressed(hints)) {
+				LogFormatUtils.traceDebug(logger, traceOn -> Hints.getLogPrefix(hints) + "Parsed " +
+						(isEnableLoggingRequestDetails() ?
+								LogFormatUtils.formatValue(part, !traceOn) :
+								"parts '" + part.name() + "' (content masked)"));
+			}
+		});
+	}
+
+	@Nullable
+	private static byte[] boundary(@Nullable MediaType contentType) {
+		String boundary = (contentType != null ? contentType.getParameter("boundary") : null);
+		if (boundary == null || boundary.isEmpty()) {
+			return null;
+		}
+		int length = boundary.length();
+		if (length > 2 && boundary.charAt(0) == '"' && boundary.charAt(length - 1) == '"') {
+			boundary = boundary.substring(1, length - 1);
+		}
+		return boundary.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	private synchronized Path getOrCreateFileStorageDirectory() throws IOException {
+		Path directory = this.fileStorageDirectory;
+		if (directory == null) {
+			directory = Files.createTempDirectory(FILE_STORAGE_DIRECTORY_PREFIX);
+			this.fileStorageDirectory = directory;
+		}
+		else if (!Files.isDirectory(directory)) {
+			Files.createDirectories(directory);
+		}
+		return directory;
+	}
+
+
+	@Override
+	public Mono<Part> readMono(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Mono.error(new UnsupportedOperationException("Cannot read multipart request body into single Part"));
+	}
+
+}
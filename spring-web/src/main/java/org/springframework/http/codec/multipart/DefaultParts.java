@@ -0,0 +1,333 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Default implementations of {@link Part} and its subtypes, as created by
+ * {@link DefaultPartHttpMessageReader}.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+abstract class DefaultParts {
+
+	private static final OpenOption[] FILE_CHANNEL_OPTIONS =
+			{StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE};
+
+	private static final int FILE_BUFFER_SIZE = 8192;
+
+
+	/**
+	 * Create a new {@link FormFieldPart} with the given parameters.
+	 * @param headers the part headers
+	 * @param value the form field value
+	 * @param bufferFactory the factory to create buffers for the content with
+	 * @return the created part
+	 */
+	public static FormFieldPart formFieldPart(HttpHeaders headers, String value, DataBufferFactory bufferFactory) {
+		return new DefaultFormFieldPart(headers, value, bufferFactory);
+	}
+
+	/**
+	 * Create a new {@link Part} or {@link FilePart} with the given content
+	 * held in memory.
+	 * @param headers the part headers
+	 * @param content the content chunks
+	 * @param bufferFactory the factory to wrap the content with
+	 * @param scheduler the scheduler for {@link FilePart#transferTo} to write on
+	 * @return the created part
+	 */
+	public static Part part(HttpHeaders headers, List<byte[]> content, DataBufferFactory bufferFactory,
+			Scheduler scheduler) {
+
+		return part(headers, new MemoryContent(content, bufferFactory, scheduler));
+	}
+
+	/**
+	 * Create a new {@link Part} or {@link FilePart} with the content stored in
+	 * the given file. The file is deleted once the content is consumed, or by
+	 * {@link Part#delete()}, or moved by {@link FilePart#transferTo}.
+	 * @param headers the part headers
+	 * @param file the file holding the content
+	 * @param bufferFactory the factory to create buffers for the content with
+	 * @param scheduler the scheduler for blocking file operations
+	 * @return the created part
+	 */
+	public static Part part(HttpHeaders headers, Path file, DataBufferFactory bufferFactory, Scheduler scheduler) {
+		return part(headers, new FileContent(file, bufferFactory, scheduler));
+	}
+
+	private static Part part(HttpHeaders headers, Content content) {
+		String filename = headers.getContentDisposition().getFilename();
+		return (filename != null ?
+				new DefaultFilePart(headers, filename, content) : new DefaultPart(headers, content));
+	}
+
+
+	/**
+	 * Return the charset of the given part headers, or UTF-8 if not specified.
+	 */
+	static Charset charset(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		Charset charset = (contentType != null ? contentType.getCharset() : null);
+		return (charset != null ? charset : StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Delete the given file, if any, ignoring any failure to do so.
+	 */
+	static void deleteFile(@Nullable Path file) {
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+
+	private abstract static class AbstractPart implements Part {
+
+		private final HttpHeaders headers;
+
+		AbstractPart(HttpHeaders headers) {
+			Assert.notNull(headers, "HttpHeaders is required");
+			this.headers = headers;
+		}
+
+		@Override
+		public String name() {
+			String name = this.headers.getContentDisposition().getName();
+			Assert.state(name != null, "No name available");
+			return name;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+	}
+
+
+	private static class DefaultFormFieldPart extends AbstractPart implements FormFieldPart {
+
+		private final String value;
+
+		private final DataBufferFactory bufferFactory;
+
+		DefaultFormFieldPart(HttpHeaders headers, String value, DataBufferFactory bufferFactory) {
+			super(headers);
+			this.value = value;
+			this.bufferFactory = bufferFactory;
+		}
+
+		@Override
+		public String value() {
+			return this.value;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.defer(() -> {
+				byte[] bytes = this.value.getBytes(charset(headers()));
+				return Flux.just(this.bufferFactory.wrap(bytes));
+			});
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "=" + this.value + "'";
+		}
+	}
+
+
+	private static class DefaultPart extends AbstractPart {
+
+		private final Content content;
+
+		DefaultPart(HttpHeaders headers, Content content) {
+			super(headers);
+			this.content = content;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return this.content.content();
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return this.content.delete();
+		}
+
+		protected Content getContent() {
+			return this.content;
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "', headers=" + headers();
+		}
+	}
+
+
+	private static class DefaultFilePart extends DefaultPart implements FilePart {
+
+		private final String filename;
+
+		DefaultFilePart(HttpHeaders headers, String filename, Content content) {
+			super(headers, content);
+			this.filename = filename;
+		}
+
+		@Override
+		public String filename() {
+			return this.filename;
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return getContent().transferTo(dest);
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "', filename='" + this.filename + "'";
+		}
+	}
+
+
+	/**
+	 * The content of a part, held in memory or stored in a file.
+	 */
+	private interface Content {
+
+		Flux<DataBuffer> content();
+
+		Mono<Void> transferTo(Path dest);
+
+		Mono<Void> delete();
+	}
+
+
+	private static class MemoryContent implements Content {
+
+		private final List<byte[]> content;
+
+		private final DataBufferFactory bufferFactory;
+
+		private final Scheduler scheduler;
+
+		MemoryContent(List<byte[]> content, DataBufferFactory bufferFactory, Scheduler scheduler) {
+			this.content = content;
+			this.bufferFactory = bufferFactory;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.fromIterable(this.content).map(this.bufferFactory::wrap);
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.<Void>fromCallable(() -> {
+				try (FileChannel channel = FileChannel.open(dest, FILE_CHANNEL_OPTIONS)) {
+					for (byte[] bytes : this.content) {
+						ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+						while (byteBuffer.hasRemaining()) {
+							channel.write(byteBuffer);
+						}
+					}
+				}
+				return null;
+			}).subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.empty();
+		}
+	}
+
+
+	private static class FileContent implements Content {
+
+		private final Path file;
+
+		private final DataBufferFactory bufferFactory;
+
+		private final Scheduler scheduler;
+
+		FileContent(Path file, DataBufferFactory bufferFactory, Scheduler scheduler) {
+			this.file = file;
+			this.bufferFactory = bufferFactory;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return DataBufferUtils.readByteChannel(
+					() -> FileChannel.open(this.file, StandardOpenOption.READ), this.bufferFactory, FILE_BUFFER_SIZE)
+					.doFinally(signalType -> deleteFile(this.file))
+					.subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.<Void>fromCallable(() -> {
+				Files.move(this.file, dest, StandardCopyOption.REPLACE_EXISTING);
+				return null;
+			}).subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.<Void>fromCallable(() -> {
+				deleteFile(this.file);
+				return null;
+			}).subscribeOn(this.scheduler);
+		}
+	}
+
+}
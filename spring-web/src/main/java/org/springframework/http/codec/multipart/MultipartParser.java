@@ -0,0 +1,305 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Parses a stream of {@link DataBuffer DataBuffers} containing a multipart
+ * body into a stream of {@link Token Tokens}: a {@link HeadersToken} at the
+ * start of every part, followed by any number of {@link BodyToken BodyTokens}
+ * with the content of the part.
+ *
+ * <p>Body tokens are slices of the input buffers, so part content is passed
+ * on as it arrives, without being aggregated. Only the few bytes at the end of
+ * a buffer that might be the start of a boundary are held back.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+final class MultipartParser {
+
+	private static final byte[] EMPTY_BYTES = new byte[0];
+
+	private static final byte[] HEADERS_END = {'\r', '\n', '\r', '\n'};
+
+	private static final byte HYPHEN = '-';
+
+
+	private final int maxHeadersSize;
+
+	private final Charset headersCharset;
+
+	/** The first boundary, i.e. "--" followed by the boundary. */
+	private final DataBufferUtils.Matcher firstBoundaryMatcher;
+
+	/** Any following boundary, i.e. CRLF, "--", and the boundary. */
+	private final DataBufferUtils.Matcher boundaryMatcher;
+
+	private final int boundaryLength;
+
+	private final DataBufferUtils.Matcher headersEndMatcher = DataBufferUtils.matcher(HEADERS_END);
+
+	private State state = State.PREAMBLE;
+
+	private byte[] headerBytes = EMPTY_BYTES;
+
+	private int headerByteCount;
+
+	/** Trailing body bytes that might be the start of the next boundary. */
+	private byte[] heldBack = EMPTY_BYTES;
+
+
+	private MultipartParser(byte[] boundary, int maxHeadersSize, Charset headersCharset) {
+		byte[] firstBoundary = new byte[boundary.length + 2];
+		firstBoundary[0] = HYPHEN;
+		firstBoundary[1] = HYPHEN;
+		System.arraycopy(boundary, 0, firstBoundary, 2, boundary.length);
+		byte[] nextBoundary = new byte[firstBoundary.length + 2];
+		nextBoundary[0] = '\r';
+		nextBoundary[1] = '\n';
+		System.arraycopy(firstBoundary, 0, nextBoundary, 2, firstBoundary.length);
+
+		this.maxHeadersSize = maxHeadersSize;
+		this.headersCharset = headersCharset;
+		this.firstBoundaryMatcher = DataBufferUtils.matcher(firstBoundary);
+		this.boundaryMatcher = DataBufferUtils.matcher(nextBoundary);
+		this.boundaryLength = nextBoundary.length;
+	}
+
+
+	/**
+	 * Parse the given stream of buffers into a stream of tokens.
+	 * @param buffers the input buffers
+	 * @param boundary the multipart boundary, as found in the content type
+	 * @param maxHeadersSize the maximum number of bytes of the headers of a
+	 * single part; if exceeded, a {@link DataBufferLimitException} is raised
+	 * @param headersCharset the charset to decode part headers with
+	 * @return the tokens
+	 */
+	public static Flux<Token> parse(Flux<DataBuffer> buffers, byte[] boundary, int maxHeadersSize,
+			Charset headersCharset) {
+
+		Assert.isTrue(boundary.length > 0, "Boundary must not be empty");
+		Assert.isTrue(maxHeadersSize > 0, "'maxHeadersSize' must be larger than 0");
+		return Flux.defer(() -> {
+			MultipartParser parser = new MultipartParser(boundary, maxHeadersSize, headersCharset);
+			return buffers.concatMapIterable(parser::parse)
+					.concatWith(Flux.defer(parser::endOfInput));
+		}).doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release)
+				.doOnDiscard(BodyToken.class, token -> DataBufferUtils.release(token.buffer()));
+	}
+
+	private List<Token> parse(DataBuffer buffer) {
+		List<Token> tokens = new ArrayList<>(2);
+		try {
+			while (buffer.readableByteCount() > 0) {
+				switch (this.state) {
+					case PREAMBLE:
+						parsePreamble(buffer);
+						break;
+					case HEADERS:
+						parseHeaders(buffer, tokens);
+						break;
+					case BODY:
+						parseBody(buffer, tokens);
+						break;
+					default:
+						buffer.readPosition(buffer.writePosition());
+				}
+			}
+			return tokens;
+		}
+		catch (RuntimeException ex) {
+			tokens.forEach(token -> {
+				if (token instanceof BodyToken) {
+					DataBufferUtils.release(((BodyToken) token).buffer());
+				}
+			});
+			throw ex;
+		}
+		finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+	private void parsePreamble(DataBuffer buffer) {
+		int end = this.firstBoundaryMatcher.match(buffer);
+		if (end != -1) {
+			buffer.readPosition(end + 1);
+			this.state = State.HEADERS;
+		}
+		else {
+			buffer.readPosition(buffer.writePosition());
+		}
+	}
+
+	private void parseHeaders(DataBuffer buffer, List<Token> tokens) {
+		int end = this.headersEndMatcher.match(buffer);
+		int length = (end != -1 ? end + 1 : buffer.writePosition()) - buffer.readPosition();
+		if (this.headerByteCount + length > this.maxHeadersSize) {
+			throw new DataBufferLimitException(
+					"Part headers exceeded the memory usage limit of " + this.maxHeadersSize + " bytes");
+		}
+		if (this.headerByteCount + length > this.headerBytes.length) {
+			int newLength = Math.max(this.headerBytes.length * 2, this.headerByteCount + length);
+			this.headerBytes = Arrays.copyOf(this.headerBytes, Math.min(newLength, this.maxHeadersSize));
+		}
+		buffer.read(this.headerBytes, this.headerByteCount, length);
+		this.headerByteCount += length;
+
+		if (this.headerByteCount >= 2 && this.headerBytes[0] == HYPHEN && this.headerBytes[1] == HYPHEN) {
+			// Closing boundary: ignore whatever follows
+			this.state = State.EPILOGUE;
+			buffer.readPosition(buffer.writePosition());
+		}
+		else if (end != -1) {
+			tokens.add(new HeadersToken(toHeaders(this.headerBytes, this.headerByteCount)));
+			this.headerByteCount = 0;
+			this.headersEndMatcher.reset();
+			this.boundaryMatcher.reset();
+			this.state = State.BODY;
+		}
+	}
+
+	private HttpHeaders toHeaders(byte[] bytes, int length) {
+		HttpHeaders headers = new HttpHeaders();
+		String lines = new String(bytes, 0, length, this.headersCharset);
+		for (String line : StringUtils.delimitedListToStringArray(lines, "\r\n")) {
+			int index = line.indexOf(':');
+			if (index > 0) {
+				headers.add(line.substring(0, index).trim(), line.substring(index + 1).trim());
+			}
+		}
+		return headers;
+	}
+
+	private void parseBody(DataBuffer buffer, List<Token> tokens) {
+		int readPosition = buffer.readPosition();
+		int end = this.boundaryMatcher.match(buffer);
+		int heldBackCount;
+		int bodyEnd;
+		if (end != -1) {
+			int boundaryStart = end + 1 - this.boundaryLength;
+			heldBackCount = this.heldBack.length - Math.max(readPosition - boundaryStart, 0);
+			bodyEnd = Math.max(boundaryStart, readPosition);
+		}
+		else {
+			// Hold back as many bytes as could be the start of a boundary
+			int count = this.heldBack.length + buffer.readableByteCount();
+			int bodyCount = count - Math.min(count, this.boundaryLength - 1);
+			heldBackCount = Math.min(this.heldBack.length, bodyCount);
+			bodyEnd = readPosition + bodyCount - heldBackCount;
+		}
+
+		if (heldBackCount > 0) {
+			byte[] bytes = Arrays.copyOf(this.heldBack, heldBackCount);
+			tokens.add(new BodyToken(buffer.factory().wrap(bytes)));
+		}
+		if (bodyEnd > readPosition) {
+			DataBuffer slice = buffer.slice(readPosition, bodyEnd - readPosition);
+			tokens.add(new BodyToken(DataBufferUtils.retain(slice)));
+		}
+
+		if (end != -1) {
+			buffer.readPosition(end + 1);
+			this.heldBack = EMPTY_BYTES;
+			this.state = State.HEADERS;
+		}
+		else {
+			int remaining = this.heldBack.length - heldBackCount;
+			byte[] heldBack = new byte[remaining + buffer.writePosition() - bodyEnd];
+			System.arraycopy(this.heldBack, heldBackCount, heldBack, 0, remaining);
+			buffer.readPosition(bodyEnd);
+			buffer.read(heldBack, remaining, heldBack.length - remaining);
+			this.heldBack = heldBack;
+		}
+	}
+
+	private Flux<Token> endOfInput() {
+		switch (this.state) {
+			case EPILOGUE:
+				return Flux.empty();
+			case PREAMBLE:
+				return Flux.error(new DecodingException("Could not find first boundary"));
+			default:
+				return Flux.error(new DecodingException("Could not find end of multipart body"));
+		}
+	}
+
+
+	private enum State {
+
+		PREAMBLE, HEADERS, BODY, EPILOGUE
+	}
+
+
+	/**
+	 * Output of the parser.
+	 */
+	abstract static class Token {
+	}
+
+
+	/**
+	 * Token containing the headers of a new part.
+	 */
+	static final class HeadersToken extends Token {
+
+		private final HttpHeaders headers;
+
+		HeadersToken(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+	}
+
+
+	/**
+	 * Token containing a chunk of the content of the current part.
+	 */
+	static final class BodyToken extends Token {
+
+		private final DataBuffer buffer;
+
+		BodyToken(DataBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		public DataBuffer buffer() {
+			return this.buffer;
+		}
+	}
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Turns a stream of {@link MultipartParser.Token Tokens} into a stream of
+ * {@link Part Parts}. The content of a part is held in memory up to a
+ * threshold; beyond that, it is written to a temporary file on a scheduler
+ * for blocking operations.
+ *
+ * <p>Each token is processed only after the file writes for the previous
+ * one are done, so the memory use for a part beyond the threshold remains
+ * flat regardless of its size.
+ *
+ * <p>If the stream of parts fails, the temporary files of all parts of the
+ * request are deleted, including those of parts emitted already. If it is
+ * cancelled, the file of the part in progress is deleted.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ */
+final class PartGenerator {
+
+	private final int maxInMemorySize;
+
+	private final long maxDiskUsagePerPart;
+
+	private final int maxParts;
+
+	private final Callable<Path> fileStorageDirectory;
+
+	private final Scheduler blockingOperationScheduler;
+
+	private final DataBufferFactory bufferFactory;
+
+	/** Temporary files created for the parts of the request. */
+	private final List<Path> files = new CopyOnWriteArrayList<>();
+
+	private int partCount;
+
+	@Nullable
+	private volatile PartState state;
+
+
+	private PartGenerator(int maxInMemorySize, long maxDiskUsagePerPart, int maxParts,
+			Callable<Path> fileStorageDirectory, Scheduler blockingOperationScheduler,
+			DataBufferFactory bufferFactory) {
+
+		this.maxInMemorySize = maxInMemorySize;
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+		this.maxParts = maxParts;
+		this.fileStorageDirectory = fileStorageDirectory;
+		this.blockingOperationScheduler = blockingOperationScheduler;
+		this.bufferFactory = bufferFactory;
+	}
+
+
+	/**
+	 * Create parts from the given stream of tokens.
+	 * @param tokens the tokens produced by the {@link MultipartParser}
+	 * @param maxInMemorySize the maximum number of bytes to hold in memory per
+	 * part, or -1 for no limit
+	 * @param maxDiskUsagePerPart the maximum number of bytes to store on disk
+	 * per part, or -1 for no limit
+	 * @param maxParts the maximum number of parts, or -1 for no limit
+	 * @param fileStorageDirectory supplier of the directory for temporary
+	 * files, invoked on the given scheduler
+	 * @param blockingOperationScheduler the scheduler for file operations
+	 * @param bufferFactory the factory to create buffers for part content with
+	 * @return the parts
+	 */
+	public static Flux<Part> createParts(Flux<MultipartParser.Token> tokens, int maxInMemorySize,
+			long maxDiskUsagePerPart, int maxParts, Callable<Path> fileStorageDirectory,
+			Scheduler blockingOperationScheduler, DataBufferFactory bufferFactory) {
+
+		return Flux.defer(() -> {
+			PartGenerator generator = new PartGenerator(maxInMemorySize, maxDiskUsagePerPart, maxParts,
+					fileStorageDirectory, blockingOperationScheduler, bufferFactory);
+			return tokens.concatMap(generator::onToken)
+					.doOnDiscard(MultipartParser.BodyToken.class, token -> DataBufferUtils.release(token.buffer()))
+					.concatWith(Mono.defer(generator::completePart))
+					.doFinally(generator::dispose);
+		});
+	}
+
+	private Publisher<Part> onToken(MultipartParser.Token token) {
+		if (token instanceof MultipartParser.HeadersToken) {
+			HttpHeaders headers = ((MultipartParser.HeadersToken) token).headers();
+			if (this.maxParts != -1 && this.partCount >= this.maxParts) {
+				return completePart().concatWith(
+						Mono.error(new DataBufferLimitException("Too many parts (" + this.maxParts + " allowed)")));
+			}
+			this.partCount++;
+			return completePart().doOnSuccess(part -> this.state = new PartState(headers));
+		}
+		else {
+			DataBuffer buffer = ((MultipartParser.BodyToken) token).buffer();
+			PartState state = this.state;
+			if (state == null) {
+				DataBufferUtils.release(buffer);
+				return Mono.error(new IllegalStateException("Part content without headers"));
+			}
+			return state.body(buffer).then(Mono.empty());
+		}
+	}
+
+	private Mono<Part> completePart() {
+		PartState state = this.state;
+		if (state == null) {
+			return Mono.empty();
+		}
+		return state.complete().doOnSuccess(part -> this.state = null);
+	}
+
+	private void dispose(SignalType signalType) {
+		PartState state = this.state;
+		this.state = null;
+		if (state != null) {
+			state.dispose();
+		}
+		if (signalType == SignalType.ON_ERROR && !this.files.isEmpty()) {
+			// Parts emitted before the failure are dropped along with the request
+			List<Path> files = new ArrayList<>(this.files);
+			this.blockingOperationScheduler.schedule(() -> files.forEach(DefaultParts::deleteFile));
+		}
+	}
+
+	private static boolean isFormField(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		return ((contentType == null || MediaType.TEXT_PLAIN.equalsTypeAndSubtype(contentType)) &&
+				headers.getContentDisposition().getFilename() == null);
+	}
+
+
+	/**
+	 * The content received so far for the current part.
+	 * <p>File operations run on different workers of the scheduler, and are
+	 * serialized by synchronizing on the state, so that disposing it deletes
+	 * a file created by a pending write, and prevents any further writes.
+	 */
+	private final class PartState {
+
+		private final HttpHeaders headers;
+
+		private final boolean formField;
+
+		private final List<byte[]> content = new ArrayList<>();
+
+		private long byteCount;
+
+		private volatile boolean spilled;
+
+		@Nullable
+		private Path file;
+
+		@Nullable
+		private FileChannel channel;
+
+		private boolean disposed;
+
+		PartState(HttpHeaders headers) {
+			this.headers = headers;
+			this.formField = isFormField(headers);
+		}
+
+		public Mono<Void> body(DataBuffer buffer) {
+			byte[] bytes = new byte[buffer.readableByteCount()];
+			buffer.read(bytes);
+			DataBufferUtils.release(buffer);
+			this.byteCount += bytes.length;
+			this.content.add(bytes);
+
+			int maxInMemorySize = PartGenerator.this.maxInMemorySize;
+			if (!this.spilled && (maxInMemorySize == -1 || this.byteCount <= maxInMemorySize)) {
+				return Mono.empty();
+			}
+			if (this.formField) {
+				return Mono.error(new DataBufferLimitException(
+						"Form field value exceeded the memory usage limit of " + maxInMemorySize + " bytes"));
+			}
+			long maxDiskUsagePerPart = PartGenerator.this.maxDiskUsagePerPart;
+			if (maxDiskUsagePerPart != -1 && this.byteCount > maxDiskUsagePerPart) {
+				return Mono.error(new DataBufferLimitException(
+						"Part exceeded the disk usage limit of " + maxDiskUsagePerPart + " bytes"));
+			}
+			this.spilled = true;
+			List<byte[]> chunks = new ArrayList<>(this.content);
+			this.content.clear();
+			return Mono.<Void>fromCallable(() -> {
+				writeToFile(chunks);
+				return null;
+			}).subscribeOn(PartGenerator.this.blockingOperationScheduler);
+		}
+
+		private synchronized void writeToFile(List<byte[]> chunks) throws Exception {
+			if (this.disposed) {
+				return;
+			}
+			FileChannel channel = this.channel;
+			if (channel == null) {
+				Path file = Files.createTempFile(PartGenerator.this.fileStorageDirectory.call(), null, ".multipart");
+				this.file = file;
+				PartGenerator.this.files.add(file);
+				channel = FileChannel.open(file, StandardOpenOption.WRITE);
+				this.channel = channel;
+			}
+			for (byte[] chunk : chunks) {
+				ByteBuffer byteBuffer = ByteBuffer.wrap(chunk);
+				while (byteBuffer.hasRemaining()) {
+					channel.write(byteBuffer);
+				}
+			}
+		}
+
+		public Mono<Part> complete() {
+			if (this.spilled) {
+				return Mono.fromCallable(() -> {
+					synchronized (this) {
+						if (this.disposed) {
+							return null;
+						}
+						Path file = this.file;
+						FileChannel channel = this.channel;
+						Assert.state(file != null && channel != null, "No file written");
+						channel.close();
+						return DefaultParts.part(this.headers, file, PartGenerator.this.bufferFactory,
+								PartGenerator.this.blockingOperationScheduler);
+					}
+				}).subscribeOn(PartGenerator.this.blockingOperationScheduler);
+			}
+			else if (this.formField) {
+				byte[] bytes = new byte[(int) this.byteCount];
+				int position = 0;
+				for (byte[] chunk : this.content) {
+					System.arraycopy(chunk, 0, bytes, position, chunk.length);
+					position += chunk.length;
+				}
+				String value = new String(bytes, DefaultParts.charset(this.headers));
+				return Mono.just(DefaultParts.formFieldPart(this.headers, value, PartGenerator.this.bufferFactory));
+			}
+			else {
+				return Mono.just(DefaultParts.part(this.headers, this.content, PartGenerator.this.bufferFactory,
+						PartGenerator.this.blockingOperationScheduler));
+			}
+		}
+
+		public void dispose() {
+			this.content.clear();
+			if (this.spilled) {
+				PartGenerator.this.blockingOperationScheduler.schedule(() -> {
+					synchronized (this) {
+						this.disposed = true;
+						FileChannel channel = this.channel;
+						if (channel != null) {
+							try {
+								channel.close();
+							}
+							catch (IOException ex) {
+								// ignore
+							}
+						}
+						DefaultParts.deleteFile(this.file);
+					}
+				});
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.fasterxml.jackson.core.JsonEncoding;
@@ -33,6 +34,7 @@ import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationConfig;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -51,6 +53,8 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.TypeUtils;
 
 /**
@@ -59,6 +63,11 @@ import org.springframework.util.TypeUtils;
  *
  * <p>Compatible with Jackson 2.9 and higher, as of Spring 5.0.
  *
+ * <p>The {@link ObjectReader} and {@link ObjectWriter} instances derived from the
+ * {@code ObjectMapper} for a given target type and JSON view are cached, so the
+ * {@code ObjectMapper} needs to be fully configured before the converter is used,
+ * as generally required by Jackson for thread-safe use of an {@code ObjectMapper}.
+ *
  * @author Arjen Poutsma
  * @author Keith Donald
  * @author Rossen Stoyanchev
@@ -83,6 +92,10 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 	@Nullable
 	private PrettyPrinter ssePrettyPrinter;
 
+	private final Map<CacheKey, ObjectReader> objectReaderCache = new ConcurrentReferenceHashMap<>(64);
+
+	private final Map<CacheKey, ObjectWriter> objectWriterCache = new ConcurrentReferenceHashMap<>(64);
+
 
 	protected AbstractJackson2HttpMessageConverter(ObjectMapper objectMapper) {
 		this.objectMapper = objectMapper;
@@ -145,6 +158,8 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 		if (this.prettyPrint != null) {
 			this.objectMapper.configure(SerializationFeature.INDENT_OUTPUT, this.prettyPrint);
 		}
+		this.objectReaderCache.clear();
+		this.objectWriterCache.clear();
 	}
 
 
@@ -229,14 +244,11 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 
 	private Object readJavaType(JavaType javaType, HttpInputMessage inputMessage) throws IOException {
 		try {
+			Class<?> deserializationView = null;
 			if (inputMessage instanceof MappingJacksonInputMessage) {
-				Class<?> deserializationView = ((MappingJacksonInputMessage) inputMessage).getDeserializationView();
-				if (deserializationView != null) {
-					return this.objectMapper.readerWithView(deserializationView).forType(javaType).
-							readValue(inputMessage.getBody());
-				}
+				deserializationView = ((MappingJacksonInputMessage) inputMessage).getDeserializationView();
 			}
-			return this.objectMapper.readValue(inputMessage.getBody(), javaType);
+			return getObjectReader(javaType, deserializationView).readValue(inputMessage.getBody());
 		}
 		catch (InvalidDefinitionException ex) {
 			throw new HttpMessageConversionException("Type definition error: " + ex.getType(), ex);
@@ -271,19 +283,12 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 				javaType = getJavaType(type, null);
 			}
 
-			ObjectWriter objectWriter = (serializationView != null ?
-					this.objectMapper.writerWithView(serializationView) : this.objectMapper.writer());
+			ObjectWriter objectWriter = getObjectWriter(
+					(javaType != null && javaType.isContainerType() ? javaType : null), serializationView,
+					(contentType != null && contentType.isCompatibleWith(MediaType.TEXT_EVENT_STREAM)));
 			if (filters != null) {
 				objectWriter = objectWriter.with(filters);
 			}
-			if (javaType != null && javaType.isContainerType()) {
-				objectWriter = objectWriter.forType(javaType);
-			}
-			SerializationConfig config = objectWriter.getConfig();
-			if (contentType != null && contentType.isCompatibleWith(MediaType.TEXT_EVENT_STREAM) &&
-					config.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
-				objectWriter = objectWriter.with(this.ssePrettyPrinter);
-			}
 			objectWriter.writeValue(generator, value);
 
 			writeSuffix(generator, object);
@@ -297,6 +302,38 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 		}
 	}
 
+	/**
+	 * Return the {@link ObjectReader} for the given target type and
+	 * deserialization view, creating and caching it if necessary.
+	 */
+	private ObjectReader getObjectReader(JavaType javaType, @Nullable Class<?> deserializationView) {
+		return this.objectReaderCache.computeIfAbsent(new CacheKey(javaType, deserializationView, false),
+				key -> (deserializationView != null ?
+						this.objectMapper.readerWithView(deserializationView).forType(javaType) :
+						this.objectMapper.readerFor(javaType)));
+	}
+
+	/**
+	 * Return the {@link ObjectWriter} for the given root type and serialization
+	 * view, creating and caching it if necessary.
+	 */
+	private ObjectWriter getObjectWriter(@Nullable JavaType javaType, @Nullable Class<?> serializationView,
+			boolean eventStream) {
+
+		return this.objectWriterCache.computeIfAbsent(new CacheKey(javaType, serializationView, eventStream), key -> {
+			ObjectWriter objectWriter = (serializationView != null ?
+					this.objectMapper.writerWithView(serializationView) : this.objectMapper.writer());
+			if (javaType != null) {
+				objectWriter = objectWriter.forType(javaType);
+			}
+			SerializationConfig config = objectWriter.getConfig();
+			if (eventStream && config.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+				objectWriter = objectWriter.with(this.ssePrettyPrinter);
+			}
+			return objectWriter;
+		});
+	}
+
 	/**
 	 * Write a prefix before the main content.
 	 * @param generator the generator to use for writing content.
@@ -359,4 +396,44 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 		return super.getContentLength(object, contentType);
 	}
 
+
+	/**
+	 * Key for the cached {@link ObjectReader} and {@link ObjectWriter} instances.
+	 */
+	private static final class CacheKey {
+
+		@Nullable
+		private final JavaType javaType;
+
+		@Nullable
+		private final Class<?> view;
+
+		private final boolean eventStream;
+
+		CacheKey(@Nullable JavaType javaType, @Nullable Class<?> view, boolean eventStream) {
+			this.javaType = javaType;
+			this.view = view;
+			this.eventStream = eventStream;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey otherKey = (CacheKey) other;
+			return (ObjectUtils.nullSafeEquals(this.javaType, otherKey.javaType) &&
+					this.view == otherKey.view && this.eventStream == otherKey.eventStream);
+		}
+
+		@Override
+		public int hashCode() {
+			return (ObjectUtils.nullSafeHashCode(this.javaType) * 31 + ObjectUtils.nullSafeHashCode(this.view)) * 2 +
+					(this.eventStream ? 1 : 0);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.web.context.request;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
 /**
@@ -35,6 +36,10 @@ public abstract class AbstractRequestAttributes implements RequestAttributes {
 	/** Map from attribute name String to destruction callback Runnable. */
 	protected final Map<String, Runnable> requestDestructionCallbacks = new LinkedHashMap<>(8);
 
+	/** Scoped objects by slot index, as managed by {@link IndexedRequestScope}. */
+	@Nullable
+	private Object[] scopedObjectSlots;
+
 	private volatile boolean requestActive = true;
 
 
@@ -46,6 +51,7 @@ public abstract class AbstractRequestAttributes implements RequestAttributes {
 	public void requestCompleted() {
 		executeRequestDestructionCallbacks();
 		updateAccessedSessionAttributes();
+		this.scopedObjectSlots = null;
 		this.requestActive = false;
 	}
 
@@ -57,6 +63,39 @@ public abstract class AbstractRequestAttributes implements RequestAttributes {
 		return this.requestActive;
 	}
 
+	/**
+	 * Return the scoped object in the given slot, if any.
+	 * @param index the slot index, as assigned by {@link IndexedRequestScope}
+	 * @since 5.1.5
+	 */
+	@Nullable
+	final Object getScopedObjectSlot(int index) {
+		Object[] slots = this.scopedObjectSlots;
+		return (slots != null && index < slots.length ? slots[index] : null);
+	}
+
+	/**
+	 * Put the given scoped object into the given slot, growing the slot table
+	 * as necessary, or clear the slot if the given object is {@code null}.
+	 * @param index the slot index, as assigned by {@link IndexedRequestScope}
+	 * @param scopedObject the scoped object, or {@code null} to clear the slot
+	 * @since 5.1.5
+	 */
+	final void setScopedObjectSlot(int index, @Nullable Object scopedObject) {
+		Object[] slots = this.scopedObjectSlots;
+		if (slots == null || index >= slots.length) {
+			if (scopedObject == null || !isRequestActive()) {
+				return;
+			}
+			Object[] newSlots = new Object[Math.max(index + 1, slots != null ? slots.length * 2 : 16)];
+			if (slots != null) {
+				System.arraycopy(slots, 0, newSlots, 0, slots.length);
+			}
+			this.scopedObjectSlots = slots = newSlots;
+		}
+		slots[index] = scopedObject;
+	}
+
 	/**
 	 * Register the given callback as to be executed after request completion.
 	 * @param name the name of the attribute to register the callback for
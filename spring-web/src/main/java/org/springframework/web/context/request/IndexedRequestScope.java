@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.context.request;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.lang.Nullable;
+
+/**
+ * Variant of {@link RequestScope} that keeps scoped objects in an array-based
+ * slot table on the current {@link AbstractRequestAttributes} instance, with a
+ * slot index assigned once per bean name. Repeated access to the same scoped
+ * bean within a request, e.g. through a scoped proxy, then costs an array
+ * access instead of a request attribute lookup.
+ *
+ * <p>Scoped objects are still exposed as request attributes, so they remain
+ * visible to views and survive async dispatches (where the slot table is
+ * repopulated from the request attributes on first access). However, removing
+ * the attribute directly from the request does not clear the slot: removal
+ * needs to go through {@link #remove} instead, as done by
+ * {@link org.springframework.beans.factory.config.ConfigurableBeanFactory#destroyScopedBean}.
+ *
+ * <p>For {@link RequestAttributes} implementations other than
+ * {@link AbstractRequestAttributes} (e.g. {@link FacesRequestAttributes}),
+ * this scope behaves exactly like a regular {@link RequestScope}.
+ *
+ * <p>To use this scope, register it under the "request" name in place of the
+ * default {@code RequestScope}, e.g. through a
+ * {@link org.springframework.beans.factory.config.CustomScopeConfigurer}.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see AbstractRequestAttributes
+ */
+public class IndexedRequestScope extends RequestScope {
+
+	/**
+	 * Slot indexes by bean name, shared by all scope instances, analogous to
+	 * the attribute namespace of the request that scoped objects are kept in.
+	 */
+	private static final Map<String, Integer> slotIndexes = new ConcurrentHashMap<>(64);
+
+	private static final AtomicInteger slotCounter = new AtomicInteger();
+
+
+	@Override
+	public Object get(String name, ObjectFactory<?> objectFactory) {
+		RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+		if (!(attributes instanceof AbstractRequestAttributes)) {
+			return super.get(name, objectFactory);
+		}
+		AbstractRequestAttributes requestAttributes = (AbstractRequestAttributes) attributes;
+		int index = getSlotIndex(name);
+		Object scopedObject = requestAttributes.getScopedObjectSlot(index);
+		if (scopedObject == null) {
+			scopedObject = super.get(name, objectFactory);
+			requestAttributes.setScopedObjectSlot(index, scopedObject);
+		}
+		return scopedObject;
+	}
+
+	@Override
+	@Nullable
+	public Object remove(String name) {
+		RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+		if (attributes instanceof AbstractRequestAttributes) {
+			((AbstractRequestAttributes) attributes).setScopedObjectSlot(getSlotIndex(name), null);
+		}
+		return super.remove(name);
+	}
+
+
+	private static int getSlotIndex(String name) {
+		Integer index = slotIndexes.get(name);
+		if (index == null) {
+			index = slotIndexes.computeIfAbsent(name, key -> slotCounter.getAndIncrement());
+		}
+		return index;
+	}
+
+}
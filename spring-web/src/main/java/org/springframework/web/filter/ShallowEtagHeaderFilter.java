@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,15 +18,19 @@ package org.springframework.web.filter;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRequest;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.DigestUtils;
 import org.springframework.web.util.ContentCachingResponseWrapper;
@@ -42,6 +46,11 @@ import org.springframework.web.util.WebUtils;
  * (e.g. a {@link org.springframework.web.servlet.View}) is still rendered.
  * As such, this filter only saves bandwidth, not server performance.
  *
+ * <p>The response content is buffered in order to compute the ETag before any
+ * of it is sent. A {@linkplain #setContentCacheLimit content cache limit} can
+ * be set to bound the memory used per response: larger responses are streamed
+ * to the client as they are written, without an ETag.
+ *
  * <p><b>NOTE:</b> As of Spring Framework 5.0, this filter uses request/response
  * decorators built on the Servlet 3.1 API.
  *
@@ -66,6 +75,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 	private boolean writeWeakETag = false;
 
+	private int contentCacheLimit = -1;
+
 
 	/**
 	 * Set whether the ETag value written to the response should be weak, as per RFC 7232.
@@ -86,6 +97,31 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		return this.writeWeakETag;
 	}
 
+	/**
+	 * Set the maximum number of bytes of response content to buffer for
+	 * generating the ETag. Once a response exceeds this limit, or declares a
+	 * larger content length, the content buffered so far is written out and
+	 * the rest of the content is passed through to the response as it is
+	 * written, without generating an ETag for that response.
+	 * <p>Default is -1, indicating no limit: the entire response content is
+	 * buffered. Should be configured using an {@code <init-param>} for
+	 * parameter name "contentCacheLimit" in the filter definition in
+	 * {@code web.xml}.
+	 * @since 5.1.5
+	 */
+	public void setContentCacheLimit(int contentCacheLimit) {
+		this.contentCacheLimit = contentCacheLimit;
+	}
+
+	/**
+	 * Return the maximum number of bytes of response content to buffer for
+	 * generating the ETag, or -1 for no limit.
+	 * @since 5.1.5
+	 */
+	public int getContentCacheLimit() {
+		return this.contentCacheLimit;
+	}
+
 
 	/**
 	 * The default value is {@code false} so that the filter may delay the generation
@@ -102,7 +138,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		HttpServletResponse responseToUse = response;
 		if (!isAsyncDispatch(request) && !(response instanceof ContentCachingResponseWrapper)) {
-			responseToUse = new HttpStreamingAwareContentCachingResponseWrapper(response, request);
+			responseToUse = new HttpStreamingAwareContentCachingResponseWrapper(
+					response, request, this.contentCacheLimit);
 		}
 
 		filterChain.doFilter(request, responseToUse);
@@ -119,6 +156,12 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		HttpServletResponse rawResponse = (HttpServletResponse) responseWrapper.getResponse();
 		int statusCode = responseWrapper.getStatusCode();
 
+		if (responseWrapper instanceof HttpStreamingAwareContentCachingResponseWrapper &&
+				((HttpStreamingAwareContentCachingResponseWrapper) responseWrapper).completeContentOverflow()) {
+			// Content exceeded the content cache limit and has been passed through already
+			return;
+		}
+
 		if (rawResponse.isCommitted()) {
 			responseWrapper.copyBodyToResponse();
 		}
@@ -215,24 +258,220 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		private final HttpServletRequest request;
 
-		public HttpStreamingAwareContentCachingResponseWrapper(HttpServletResponse response, HttpServletRequest request) {
+		private final int contentCacheLimit;
+
+		private boolean contentOverflow;
+
+		@Nullable
+		private ServletOutputStream limitedOutputStream;
+
+		@Nullable
+		private PrintWriter limitedWriter;
+
+		public HttpStreamingAwareContentCachingResponseWrapper(
+				HttpServletResponse response, HttpServletRequest request, int contentCacheLimit) {
+
 			super(response);
 			this.request = request;
+			this.contentCacheLimit = contentCacheLimit;
 		}
 
 		@Override
 		public ServletOutputStream getOutputStream() throws IOException {
-			return (useRawResponse() ? getResponse().getOutputStream() : super.getOutputStream());
+			if (useRawResponse()) {
+				return getResponse().getOutputStream();
+			}
+			if (this.contentCacheLimit < 0) {
+				return super.getOutputStream();
+			}
+			if (this.limitedOutputStream == null) {
+				this.limitedOutputStream = new LimitedServletOutputStream(
+						super.getOutputStream(), getResponse().getOutputStream());
+			}
+			return this.limitedOutputStream;
 		}
 
 		@Override
 		public PrintWriter getWriter() throws IOException {
-			return (useRawResponse() ? getResponse().getWriter() : super.getWriter());
+			if (useRawResponse()) {
+				return getResponse().getWriter();
+			}
+			if (this.contentCacheLimit < 0) {
+				return super.getWriter();
+			}
+			if (this.limitedWriter == null) {
+				String characterEncoding = getCharacterEncoding();
+				this.limitedWriter = new LimitedPrintWriter(getOutputStream(),
+						(characterEncoding != null ? characterEncoding : WebUtils.DEFAULT_CHARACTER_ENCODING));
+			}
+			return this.limitedWriter;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if (this.contentOverflow) {
+				getResponse().flushBuffer();
+			}
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			if (isBeyondLimit(len)) {
+				getResponse().setContentLength(len);
+			}
+			else {
+				super.setContentLength(len);
+			}
+		}
+
+		@Override
+		public void setContentLengthLong(long len) {
+			if (isBeyondLimit(len)) {
+				getResponse().setContentLengthLong(len);
+			}
+			else {
+				super.setContentLengthLong(len);
+			}
+		}
+
+		@Override
+		public void setBufferSize(int size) {
+			super.setBufferSize(this.contentCacheLimit >= 0 ? Math.min(size, this.contentCacheLimit) : size);
+		}
+
+		/**
+		 * Check whether the content exceeded the content cache limit and, if so,
+		 * write out any content that is still held by the writer.
+		 * @return {@code true} if the content has been passed through to the
+		 * response, {@code false} if it is buffered
+		 */
+		public boolean completeContentOverflow() {
+			if (!this.contentOverflow) {
+				return false;
+			}
+			if (this.limitedWriter != null) {
+				this.limitedWriter.flush();
+			}
+			return true;
 		}
 
 		private boolean useRawResponse() {
 			return isContentCachingDisabled(this.request);
 		}
+
+		private boolean isBeyondLimit(long contentLength) {
+			if (this.contentCacheLimit < 0 || (!this.contentOverflow && contentLength <= this.contentCacheLimit)) {
+				return false;
+			}
+			try {
+				overflow();
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to write buffered content to the response", ex);
+			}
+			return true;
+		}
+
+		/**
+		 * Write out the content buffered so far, and pass all further content
+		 * through to the response.
+		 */
+		private void overflow() throws IOException {
+			if (!this.contentOverflow) {
+				this.contentOverflow = true;
+				copyBodyToResponse(false);
+			}
+		}
+
+
+		private class LimitedServletOutputStream extends ServletOutputStream {
+
+			private final ServletOutputStream cachingStream;
+
+			private final ServletOutputStream responseStream;
+
+			public LimitedServletOutputStream(ServletOutputStream cachingStream, ServletOutputStream responseStream) {
+				this.cachingStream = cachingStream;
+				this.responseStream = responseStream;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				getTargetStream(1).write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				getTargetStream(len).write(b, off, len);
+			}
+
+			@Override
+			public void flush() throws IOException {
+				if (contentOverflow) {
+					this.responseStream.flush();
+				}
+			}
+
+			@Override
+			public boolean isReady() {
+				return getTargetStream().isReady();
+			}
+
+			@Override
+			public void setWriteListener(WriteListener writeListener) {
+				getTargetStream().setWriteListener(writeListener);
+			}
+
+			private ServletOutputStream getTargetStream(int len) throws IOException {
+				if (!contentOverflow && getContentSize() + len > contentCacheLimit) {
+					overflow();
+				}
+				return getTargetStream();
+			}
+
+			private ServletOutputStream getTargetStream() {
+				return (contentOverflow ? this.responseStream : this.cachingStream);
+			}
+		}
+
+
+		/**
+		 * Writer that flushes after every write while content is buffered, so
+		 * that the buffered content is complete, but not once content is passed
+		 * through to the response, so as not to flush the response every time.
+		 */
+		private class LimitedPrintWriter extends PrintWriter {
+
+			public LimitedPrintWriter(ServletOutputStream outputStream, String characterEncoding)
+					throws UnsupportedEncodingException {
+
+				super(new OutputStreamWriter(outputStream, characterEncoding));
+			}
+
+			@Override
+			public void write(char[] buf, int off, int len) {
+				super.write(buf, off, len);
+				flushIfBuffering();
+			}
+
+			@Override
+			public void write(String s, int off, int len) {
+				super.write(s, off, len);
+				flushIfBuffering();
+			}
+
+			@Override
+			public void write(int c) {
+				super.write(c);
+				flushIfBuffering();
+			}
+
+			private void flushIfBuffering() {
+				if (!contentOverflow) {
+					super.flush();
+				}
+			}
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.MethodParameter;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 
@@ -48,12 +49,16 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 	private final Map<MethodParameter, HandlerMethodArgumentResolver> argumentResolverCache =
 			new ConcurrentHashMap<>(256);
 
+	private final Map<MethodParameter[], HandlerMethodArgumentResolver[]> argumentResolversCache =
+			new ConcurrentReferenceHashMap<>(256);
+
 
 	/**
 	 * Add the given {@link HandlerMethodArgumentResolver}.
 	 */
 	public HandlerMethodArgumentResolverComposite addResolver(HandlerMethodArgumentResolver resolver) {
 		this.argumentResolvers.add(resolver);
+		this.argumentResolversCache.clear();
 		return this;
 	}
 
@@ -64,6 +69,7 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 	public HandlerMethodArgumentResolverComposite addResolvers(@Nullable HandlerMethodArgumentResolver... resolvers) {
 		if (resolvers != null) {
 			Collections.addAll(this.argumentResolvers, resolvers);
+			this.argumentResolversCache.clear();
 		}
 		return this;
 	}
@@ -76,6 +82,7 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 
 		if (resolvers != null) {
 			this.argumentResolvers.addAll(resolvers);
+			this.argumentResolversCache.clear();
 		}
 		return this;
 	}
@@ -93,6 +100,8 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 	 */
 	public void clear() {
 		this.argumentResolvers.clear();
+		this.argumentResolverCache.clear();
+		this.argumentResolversCache.clear();
 	}
 
 
@@ -126,6 +135,32 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 		return resolver.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
 	}
 
+	/**
+	 * Return the registered {@link HandlerMethodArgumentResolver} for each of
+	 * the given method parameters, bound once per parameter array so that
+	 * repeated invocations of the same handler method can go straight to the
+	 * resolver for every argument.
+	 * <p>The given array is expected to be the shared parameter array of a
+	 * {@link org.springframework.web.method.HandlerMethod} and is used as
+	 * cache key by identity; the returned array must not be modified.
+	 * @param parameters the method parameters to resolve arguments for
+	 * @return the resolver for each parameter, with a {@code null} element
+	 * for a parameter that is not supported by any registered resolver
+	 * (until a resolver is added that supports it)
+	 * @since 5.1.5
+	 */
+	public HandlerMethodArgumentResolver[] getArgumentResolvers(MethodParameter[] parameters) {
+		HandlerMethodArgumentResolver[] result = this.argumentResolversCache.get(parameters);
+		if (result == null) {
+			result = new HandlerMethodArgumentResolver[parameters.length];
+			for (int i = 0; i < parameters.length; i++) {
+				result[i] = getArgumentResolver(parameters[i]);
+			}
+			this.argumentResolversCache.put(parameters, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Find a registered {@link HandlerMethodArgumentResolver} that supports
 	 * the given method parameter.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -94,6 +94,8 @@ public class DefaultServerWebExchange implements ServerWebExchange {
 	@Nullable
 	private final ApplicationContext applicationContext;
 
+	private volatile boolean multipartRead;
+
 	private volatile boolean notModified;
 
 	private Function<String, String> urlTransformer = url -> url;
@@ -218,7 +220,25 @@ public class DefaultServerWebExchange implements ServerWebExchange {
 
 	@Override
 	public Mono<MultiValueMap<String, Part>> getMultipartData() {
-		return this.multipartDataMono;
+		return this.multipartDataMono.doOnSubscribe(subscription -> this.multipartRead = true);
+	}
+
+	/**
+	 * Delete the underlying storage of the multipart data, if it was read,
+	 * e.g. the temporary files of parts whose content was not consumed.
+	 * @since 5.1.5
+	 * @see Part#delete()
+	 */
+	Mono<Void> cleanupMultipart() {
+		if (!this.multipartRead) {
+			return Mono.empty();
+		}
+		return this.multipartDataMono
+				.onErrorResume(ex -> Mono.empty())
+				.flatMapIterable(Map::values)
+				.flatMapIterable(Function.identity())
+				.concatMap(part -> part.delete().onErrorResume(ex -> Mono.empty()))
+				.then();
 	}
 
 	@Override
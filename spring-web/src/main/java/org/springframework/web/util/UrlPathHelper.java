@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -47,6 +47,15 @@ import org.springframework.util.StringUtils;
  */
 public class UrlPathHelper {
 
+	/**
+	 * Name of the request attribute that holds the lookup path resolved via
+	 * {@link #resolveAndCacheLookupPath}, for reuse by all components that
+	 * take part in the mapping of the current request.
+	 * @since 5.1.5
+	 * @see #getResolvedLookupPath
+	 */
+	public static final String PATH_ATTRIBUTE = UrlPathHelper.class.getName() + ".PATH";
+
 	/**
 	 * Special WebSphere request attribute, indicating the original request URI.
 	 * Preferable over the standard Servlet 2.4 forward attribute on WebSphere,
@@ -175,6 +184,34 @@ public class UrlPathHelper {
 		}
 	}
 
+	/**
+	 * Resolve the {@link #getLookupPathForRequest lookup path} for the given
+	 * request and expose it as {@link #PATH_ATTRIBUTE request attribute}, so
+	 * that it is resolved only once while mapping the request.
+	 * @param request current HTTP request
+	 * @return the lookup path
+	 * @since 5.1.5
+	 * @see #getResolvedLookupPath
+	 */
+	public String resolveAndCacheLookupPath(HttpServletRequest request) {
+		String lookupPath = getLookupPathForRequest(request);
+		request.setAttribute(PATH_ATTRIBUTE, lookupPath);
+		return lookupPath;
+	}
+
+	/**
+	 * Return the lookup path previously exposed through
+	 * {@link #resolveAndCacheLookupPath}, or resolve it with this helper
+	 * if none has been exposed for the current request.
+	 * @param request current HTTP request
+	 * @return the lookup path
+	 * @since 5.1.5
+	 */
+	public String getResolvedLookupPath(HttpServletRequest request) {
+		Object lookupPath = request.getAttribute(PATH_ATTRIBUTE);
+		return (lookupPath instanceof String ? (String) lookupPath : getLookupPathForRequest(request));
+	}
+
 	/**
 	 * Return the path within the servlet mapping for the given request,
 	 * i.e. the part of the request's URL beyond the part that called the servlet,
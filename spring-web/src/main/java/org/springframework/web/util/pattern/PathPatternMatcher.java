@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.Assert;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * {@link PathMatcher} implementation that matches paths with pre-parsed
+ * {@link PathPattern PathPatterns}, allowing for the servlet stack to use the
+ * same efficient matching as WebFlux through the existing {@code PathMatcher}
+ * extension points, e.g. {@code PathMatchConfigurer#setPathMatcher} in Spring MVC.
+ *
+ * <p>Patterns are parsed once through the configured {@link PathPatternParser}
+ * and then cached. Within a request bound through {@link RequestContextHolder},
+ * the most recently matched path is kept in parsed form as a request attribute,
+ * next to the lookup path cached as {@link UrlPathHelper#PATH_ATTRIBUTE}, so that
+ * matching the lookup path against many patterns (as is common when resolving
+ * the handler for a request) parses the path only once.
+ *
+ * <p>Please note the differences in pattern syntax compared to
+ * {@link org.springframework.util.AntPathMatcher}: "**" only matches multiple
+ * path segments at the end of a pattern, and "{*name}" captures the rest of
+ * the path. Since {@code PathPattern} supports neither suffix pattern matching
+ * nor encoded paths, this matcher is best combined with suffix pattern matching
+ * switched off and with lookup paths that are not URL-decoded, matching the
+ * semantics of WebFlux.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @see PathPattern
+ * @see PathPatternParser
+ */
+public class PathPatternMatcher implements PathMatcher {
+
+	/**
+	 * Name of the request attribute that holds the most recently matched path
+	 * in parsed form.
+	 */
+	public static final String PARSED_PATH_ATTRIBUTE = PathPatternMatcher.class.getName() + ".PARSED_PATH";
+
+	private static final int CACHE_TURNOFF_THRESHOLD = 65536;
+
+
+	private final PathPatternParser parser;
+
+	private final Map<String, PathPattern> patternCache = new ConcurrentHashMap<>(256);
+
+
+	/**
+	 * Create a new {@code PathPatternMatcher} with a default {@link PathPatternParser}.
+	 */
+	public PathPatternMatcher() {
+		this(new PathPatternParser());
+	}
+
+	/**
+	 * Create a new {@code PathPatternMatcher} with the given {@link PathPatternParser}.
+	 * @param parser the parser to use for patterns
+	 */
+	public PathPatternMatcher(PathPatternParser parser) {
+		Assert.notNull(parser, "PathPatternParser must not be null");
+		this.parser = parser;
+	}
+
+
+	/**
+	 * Return the parser used for patterns.
+	 */
+	public PathPatternParser getParser() {
+		return this.parser;
+	}
+
+
+	@Override
+	public boolean isPattern(String path) {
+		return (path.indexOf('*') != -1 || path.indexOf('?') != -1 || path.indexOf('{') != -1);
+	}
+
+	@Override
+	public boolean match(String pattern, String path) {
+		return getPathPattern(pattern).matches(parsePath(path));
+	}
+
+	@Override
+	public boolean matchStart(String pattern, String path) {
+		return (getPathPattern(pattern).matchStartOfPath(parsePath(path)) != null);
+	}
+
+	@Override
+	public String extractPathWithinPattern(String pattern, String path) {
+		return getPathPattern(pattern).extractPathWithinPattern(parsePath(path)).value();
+	}
+
+	@Override
+	public Map<String, String> extractUriTemplateVariables(String pattern, String path) {
+		PathPattern.PathMatchInfo info = getPathPattern(pattern).matchAndExtract(parsePath(path));
+		if (info == null) {
+			throw new IllegalStateException("Pattern \"" + pattern + "\" is not a match for \"" + path + "\"");
+		}
+		return info.getUriVariables();
+	}
+
+	@Override
+	public Comparator<String> getPatternComparator(String path) {
+		return (pattern1, pattern2) -> {
+			if (pattern1 == null || pattern2 == null) {
+				return (pattern1 == pattern2 ? 0 : pattern1 == null ? 1 : -1);
+			}
+			boolean pattern1EqualsPath = pattern1.equals(path);
+			boolean pattern2EqualsPath = pattern2.equals(path);
+			if (pattern1EqualsPath || pattern2EqualsPath) {
+				return (pattern1EqualsPath == pattern2EqualsPath ? 0 : pattern1EqualsPath ? -1 : 1);
+			}
+			return PathPattern.SPECIFICITY_COMPARATOR.compare(getPathPattern(pattern1), getPathPattern(pattern2));
+		};
+	}
+
+	@Override
+	public String combine(String pattern1, String pattern2) {
+		if (!StringUtils.hasText(pattern1) && !StringUtils.hasText(pattern2)) {
+			return "";
+		}
+		if (!StringUtils.hasText(pattern1)) {
+			return pattern2;
+		}
+		if (!StringUtils.hasText(pattern2)) {
+			return pattern1;
+		}
+		return getPathPattern(pattern1).combine(getPathPattern(pattern2)).getPatternString();
+	}
+
+
+	/**
+	 * Return the parsed form of the given pattern, possibly from the cache.
+	 * @param pattern the pattern to parse
+	 * @return the parsed pattern
+	 * @throws PatternParseException if the pattern is invalid
+	 */
+	protected PathPattern getPathPattern(String pattern) {
+		PathPattern pathPattern = this.patternCache.get(pattern);
+		if (pathPattern == null) {
+			pathPattern = this.parser.parse(pattern);
+			if (this.patternCache.size() < CACHE_TURNOFF_THRESHOLD) {
+				this.patternCache.put(pattern, pathPattern);
+			}
+		}
+		return pathPattern;
+	}
+
+	private static PathContainer parsePath(String path) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return PathContainer.parsePath(path);
+		}
+		Object parsedPath = attributes.getAttribute(PARSED_PATH_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (parsedPath instanceof PathContainer && ((PathContainer) parsedPath).value().equals(path)) {
+			return (PathContainer) parsedPath;
+		}
+		PathContainer pathContainer = PathContainer.parsePath(path);
+		attributes.setAttribute(PARSED_PATH_ATTRIBUTE, pathContainer, RequestAttributes.SCOPE_REQUEST);
+		return pathContainer;
+	}
+
+}
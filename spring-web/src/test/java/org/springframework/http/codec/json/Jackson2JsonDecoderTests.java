@@ -31,6 +31,7 @@ import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import org.junit.Test;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import org.springframework.core.ResolvableType;
@@ -38,6 +39,7 @@ import org.springframework.core.codec.AbstractDecoderTestCase;
 import org.springframework.core.codec.CodecException;
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.Pojo;
 import org.springframework.util.MimeType;
@@ -202,6 +204,50 @@ public class Jackson2JsonDecoderTests extends AbstractDecoderTestCase<Jackson2Js
 		);
 	}
 
+	@Test
+	public void decodeInParallel() {
+		Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+		decoder.setDecodingScheduler(Schedulers.parallel());
+		decoder.setDecodingConcurrency(4);
+
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < 100; i++) {
+			builder.append(i > 0 ? "," : "").append("{\"bar\":\"b").append(i).append("\",\"foo\":\"f").append(i).append("\"}");
+		}
+		Flux<DataBuffer> input = Flux.from(stringBuffer(builder.append("]").toString()));
+
+		Flux<Object> result = decoder.decode(input, forClass(Pojo.class), null, emptyMap());
+		StepVerifier.create(result.map(pojo -> ((Pojo) pojo).getFoo()).collectList())
+				.consumeNextWith(foos -> {
+					assertEquals(100, foos.size());
+					for (int i = 0; i < foos.size(); i++) {
+						assertEquals("f" + i, foos.get(i));
+					}
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	public void maxInMemorySize() {
+		Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+		decoder.setMaxInMemorySize(30);
+
+		Flux<DataBuffer> input = Flux.concat(
+				stringBuffer("[{\"bar\":\"b1\",\"foo\":\"f1\"},"),
+				stringBuffer("{\"bar\":\"b2\",\"foo\":\"f2\"}]"));
+		StepVerifier.create(decoder.decode(input, forClass(Pojo.class), null, emptyMap()))
+				.expectNext(pojo1)
+				.expectNext(pojo2)
+				.verifyComplete();
+
+		input = Flux.concat(
+				stringBuffer("[{\"bar\":\"b1\",\"foo\":\"f1\"},"),
+				stringBuffer("{\"bar\":\"b2\",\"foo\":\"f2\"}]"));
+		StepVerifier.create(decoder.decodeToMono(input, forClass(List.class), null, emptyMap()))
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
 	private Mono<DataBuffer> stringBuffer(String value) {
 		return Mono.defer(() -> {
 			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,13 +29,16 @@ import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.json.JSONException;
 import org.junit.Before;
 import org.junit.Test;
+import org.reactivestreams.Subscription;
 import org.skyscreamer.jsonassert.JSONAssert;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.io.buffer.AbstractLeakCheckingTestCase;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
@@ -192,6 +195,23 @@ public class Jackson2TokenizerTests extends AbstractLeakCheckingTestCase {
 				.verify();
 	}
 
+	@Test
+	public void cancelReleasesBuffers() {
+		Flux<DataBuffer> source = Flux.just("[{\"id\":1},", "{\"id\":2},", "{\"id\":3}]")
+				.map(this::stringBuffer)
+				.hide();
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true);
+
+		// Buffers are prefetched, but no token is requested before cancelling
+		BaseSubscriber<TokenBuffer> subscriber = new BaseSubscriber<TokenBuffer>() {
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+			}
+		};
+		tokens.subscribe(subscriber);
+		subscriber.cancel();
+	}
+
 	@Test // SPR-16521
 	public void jsonEOFExceptionIsWrappedAsDecodingError() {
 		Flux<DataBuffer> source = Flux.just(stringBuffer("{\"status\": \"noClosingQuote}"));
@@ -203,6 +223,40 @@ public class Jackson2TokenizerTests extends AbstractLeakCheckingTestCase {
 	}
 
 
+	@Test
+	public void maxInMemorySizeForArrayElements() {
+		Flux<DataBuffer> source = Flux.just("[{\"id\":1,", "\"name\":\"foo\"},", "{\"id\":2,", "\"name\":\"bar\"}]")
+				.map(this::stringBuffer);
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 25);
+
+		StepVerifier.create(tokens)
+				.expectNextCount(2)
+				.verifyComplete();
+	}
+
+	@Test
+	public void maxInMemorySizeExceededByArrayElement() {
+		Flux<DataBuffer> source = Flux.just("[{\"id\":1}, {\"id\":2,", "\"name\":\"foo\",", "\"description\":\"bar\"}]")
+				.map(this::stringBuffer);
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 25);
+
+		StepVerifier.create(tokens)
+				.expectNextCount(1)
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
+	@Test
+	public void maxInMemorySizeExceededByValue() {
+		Flux<DataBuffer> source = Flux.just("[{\"id\":1,", "\"name\":\"foo\"},", "{\"id\":2,", "\"name\":\"bar\"}]")
+				.map(this::stringBuffer);
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, false, 25);
+
+		StepVerifier.create(tokens)
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
 	private void testTokenize(List<String> source, List<String> expected, boolean tokenizeArrayElements) {
 
 		Flux<TokenBuffer> tokenBufferFlux = Jackson2Tokenizer.tokenize(
@@ -0,0 +1,438 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.AbstractLeakCheckingTestCase;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDefaultDataBufferFactory;
+import org.springframework.core.io.buffer.support.DataBufferTestUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.test.MockClientHttpRequest;
+import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
+import org.springframework.util.MultiValueMap;
+
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+import static org.springframework.core.ResolvableType.*;
+
+/**
+ * Unit tests for {@link DefaultPartHttpMessageReader}.
+ *
+ * @author Nico Yates
+ */
+public class DefaultPartHttpMessageReaderTests extends AbstractLeakCheckingTestCase {
+
+	private static final String BOUNDARY = "simple-boundary";
+
+	private static final String BODY = "preamble\r\n" +
+			"--simple-boundary\r\n" +
+			"Content-Disposition: form-data; name=\"field\"\r\n" +
+			"\r\n" +
+			"value\r\n" +
+			"--simple-boundary\r\n" +
+			"Content-Disposition: form-data; name=\"file\"; filename=\"foo.txt\"\r\n" +
+			"Content-Type: text/plain\r\n" +
+			"\r\n" +
+			"Lorem\r\n--simple-boundar Ipsum\r\n" +
+			"--simple-boundary\r\n" +
+			"Content-Disposition: form-data; name=\"empty\"; filename=\"empty.txt\"\r\n" +
+			"\r\n" +
+			"\r\n" +
+			"--simple-boundary--\r\n" +
+			"epilogue";
+
+	private static final String FILE_CONTENT = "Lorem\r\n--simple-boundar Ipsum";
+
+
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private final DefaultPartHttpMessageReader reader = new DefaultPartHttpMessageReader();
+
+
+	@Test
+	public void canRead() {
+		assertTrue(this.reader.canRead(forClass(Part.class), MediaType.MULTIPART_FORM_DATA));
+		assertTrue(this.reader.canRead(forClass(Part.class), null));
+		assertFalse(this.reader.canRead(forClass(Part.class), MediaType.APPLICATION_FORM_URLENCODED));
+		assertFalse(this.reader.canRead(forClass(String.class), MediaType.MULTIPART_FORM_DATA));
+	}
+
+	@Test
+	public void readParts() {
+		StepVerifier.create(read(request(BODY, Integer.MAX_VALUE)))
+				.consumeNextWith(part -> {
+					assertTrue(part instanceof FormFieldPart);
+					assertEquals("field", part.name());
+					assertEquals("value", ((FormFieldPart) part).value());
+					assertEquals("value", content(part));
+				})
+				.consumeNextWith(part -> {
+					assertTrue(part instanceof FilePart);
+					assertEquals("file", part.name());
+					assertEquals("foo.txt", ((FilePart) part).filename());
+					assertEquals(MediaType.TEXT_PLAIN, part.headers().getContentType());
+					assertEquals(FILE_CONTENT, content(part));
+				})
+				.consumeNextWith(part -> {
+					assertEquals("empty.txt", ((FilePart) part).filename());
+					assertEquals("", content(part));
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	public void readPartsByteByByte() {
+		PooledDefaultDataBufferFactory bufferFactory = new PooledDefaultDataBufferFactory();
+		List<String> contents = read(request(BODY, 1, bufferFactory))
+				.map(DefaultPartHttpMessageReaderTests::content)
+				.collectList()
+				.block(Duration.ofSeconds(5));
+		assertEquals(Arrays.asList("value", FILE_CONTENT, ""), contents);
+		assertEquals(0, bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void readPartsWithQuotedBoundary() {
+		MediaType contentType = new MediaType(MediaType.MULTIPART_FORM_DATA, singletonMap("boundary", "\"" + BOUNDARY + "\""));
+		StepVerifier.create(read(request(contentType, BODY, 7, new DefaultDataBufferFactory())))
+				.expectNextCount(3)
+				.verifyComplete();
+	}
+
+	@Test
+	public void readMultipartHttpMessageWriterOutput() {
+		MultipartBodyBuilder partsBuilder = new MultipartBodyBuilder();
+		partsBuilder.part("fooPart", new ClassPathResource("org/springframework/http/codec/multipart/foo.txt"));
+		partsBuilder.part("barPart", "bar");
+
+		MockClientHttpRequest outputMessage = new MockClientHttpRequest(HttpMethod.POST, "/");
+		new MultipartHttpMessageWriter()
+				.write(Mono.just(partsBuilder.build()), null, MediaType.MULTIPART_FORM_DATA, outputMessage, null)
+				.block(Duration.ofSeconds(5));
+		ServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(outputMessage.getHeaders().getContentType())
+				.body(outputMessage.getBody());
+
+		MultipartHttpMessageReader multipartReader = new MultipartHttpMessageReader(this.reader);
+		ResolvableType elementType = forClassWithGenerics(MultiValueMap.class, String.class, Part.class);
+		MultiValueMap<String, Part> parts = multipartReader.readMono(elementType, request, emptyMap()).block();
+
+		assertNotNull(parts);
+		assertEquals(2, parts.size());
+		Part part = parts.getFirst("fooPart");
+		assertTrue(part instanceof FilePart);
+		assertEquals("foo.txt", ((FilePart) part).filename());
+		assertEquals("Lorem Ipsum.", content(part));
+		part = parts.getFirst("barPart");
+		assertTrue(part instanceof FormFieldPart);
+		assertEquals("bar", ((FormFieldPart) part).value());
+	}
+
+	@Test
+	public void transferToInMemory() throws IOException {
+		FilePart part = (FilePart) read(request(BODY, 16)).elementAt(1).block(Duration.ofSeconds(5));
+		Path dest = this.tempFolder.getRoot().toPath().resolve("dest.txt");
+		part.transferTo(dest).block(Duration.ofSeconds(5));
+		assertEquals(FILE_CONTENT, new String(Files.readAllBytes(dest), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void spillToDisk() throws IOException {
+		Path storage = this.tempFolder.getRoot().toPath().resolve("storage");
+		this.reader.setFileStorageDirectory(storage);
+		this.reader.setMaxInMemorySize(10);
+
+		List<Part> parts = read(request(BODY, 4)).collectList().block(Duration.ofSeconds(5));
+		assertEquals(3, parts.size());
+		assertEquals("value", ((FormFieldPart) parts.get(0)).value());
+		assertEquals(1, storedFiles(storage).size());
+		assertEquals("", content(parts.get(2)));
+
+		// Content can be read once, then the file is deleted
+		assertEquals(FILE_CONTENT, content(parts.get(1)));
+		awaitNoStoredFiles(storage);
+	}
+
+	@Test
+	public void deleteFromDisk() throws IOException {
+		Path storage = this.tempFolder.getRoot().toPath().resolve("storage");
+		this.reader.setFileStorageDirectory(storage);
+		this.reader.setMaxInMemorySize(10);
+
+		List<Part> parts = read(request(BODY, 4)).collectList().block(Duration.ofSeconds(5));
+		assertEquals(1, storedFiles(storage).size());
+		for (Part part : parts) {
+			part.delete().block(Duration.ofSeconds(5));
+		}
+		assertEquals(0, storedFiles(storage).size());
+	}
+
+	@Test
+	public void transferToFromDisk() throws IOException {
+		this.reader.setFileStorageDirectory(this.tempFolder.getRoot().toPath().resolve("storage"));
+		this.reader.setMaxInMemorySize(10);
+
+		FilePart part = (FilePart) read(request(BODY, 8)).elementAt(1).block(Duration.ofSeconds(5));
+		Path dest = this.tempFolder.newFile("dest.txt").toPath();
+		part.transferTo(dest).block(Duration.ofSeconds(5));
+		assertEquals(FILE_CONTENT, new String(Files.readAllBytes(dest), StandardCharsets.UTF_8));
+		assertEquals(0, storedFiles(this.reader.getFileStorageDirectory()).size());
+	}
+
+	@Test
+	public void largePart() {
+		this.reader.setFileStorageDirectory(this.tempFolder.getRoot().toPath());
+		this.reader.setMaxInMemorySize(1024);
+
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			content.append("line ").append(i).append("\r\n-");
+		}
+		String body = "--simple-boundary\r\n" +
+				"Content-Disposition: form-data; name=\"file\"; filename=\"large.txt\"\r\n" +
+				"\r\n" + content + "\r\n--simple-boundary--\r\n";
+
+		Part part = read(request(body, 1000)).single().block(Duration.ofSeconds(5));
+		assertEquals(content.toString(), content(part));
+	}
+
+	@Test
+	public void formFieldExceedsMaxInMemorySize() {
+		this.reader.setMaxInMemorySize(4);
+		StepVerifier.create(read(request(BODY, 3)))
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
+	@Test
+	public void maxHeadersSize() {
+		this.reader.setMaxHeadersSize(64);
+		StepVerifier.create(read(request(BODY, 5)))
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
+	@Test
+	public void maxDiskUsagePerPart() throws IOException {
+		Path storage = this.tempFolder.getRoot().toPath().resolve("storage");
+		this.reader.setFileStorageDirectory(storage);
+		this.reader.setMaxInMemorySize(10);
+		this.reader.setMaxDiskUsagePerPart(20);
+
+		StepVerifier.create(read(request(BODY, 4)))
+				.expectNextCount(1)
+				.expectError(DataBufferLimitException.class)
+				.verify();
+
+		awaitNoStoredFiles(storage);
+	}
+
+	@Test
+	public void maxParts() {
+		this.reader.setMaxParts(2);
+		StepVerifier.create(read(request(BODY, 64)))
+				.expectNextCount(2)
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
+	@Test
+	public void maxPartsDeletesStoredFiles() throws IOException {
+		Path storage = this.tempFolder.getRoot().toPath().resolve("storage");
+		this.reader.setFileStorageDirectory(storage);
+		this.reader.setMaxInMemorySize(10);
+		String body = BODY.replace("name=\"empty\"; filename=\"empty.txt\"\r\n\r\n",
+				"name=\"other\"; filename=\"other.txt\"\r\n\r\n" + FILE_CONTENT);
+		this.reader.setMaxParts(2);
+
+		StepVerifier.create(read(request(body, 4)))
+				.expectNextCount(2)
+				.expectError(DataBufferLimitException.class)
+				.verify();
+
+		awaitNoStoredFiles(storage);
+	}
+
+	@Test
+	public void cancelDeletesStoredFile() throws IOException {
+		Path storage = this.tempFolder.getRoot().toPath().resolve("storage");
+		this.reader.setFileStorageDirectory(storage);
+		this.reader.setMaxInMemorySize(10);
+
+		String body = "--simple-boundary\r\n" +
+				"Content-Disposition: form-data; name=\"file\"; filename=\"foo.txt\"\r\n" +
+				"\r\n" + FILE_CONTENT + FILE_CONTENT + FILE_CONTENT;
+		ServerHttpRequest request = request(body, 4);
+		Flux<DataBuffer> buffers = request.getBody().concatWith(Flux.never());
+		request = MockServerHttpRequest.post("/").headers(request.getHeaders()).body(buffers);
+
+		Disposable subscription = read(request).subscribe();
+		for (int i = 0; i < 50 && storedFiles(storage).isEmpty(); i++) {
+			sleep();
+		}
+		assertEquals(1, storedFiles(storage).size());
+		subscription.dispose();
+
+		awaitNoStoredFiles(storage);
+	}
+
+	@Test
+	public void cancelReleasesBuffers() {
+		StepVerifier.create(read(request(BODY, 4, this.bufferFactory)), 1)
+				.expectNextCount(1)
+				.thenCancel()
+				.verify();
+	}
+
+	@Test
+	public void errorReleasesBuffers() {
+		this.reader.setMaxHeadersSize(64);
+		StepVerifier.create(read(request(BODY, 5, this.bufferFactory)))
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
+	@Test
+	public void maxPartsReleasesBuffers() {
+		this.reader.setMaxParts(1);
+		StepVerifier.create(read(request(BODY, 4, this.bufferFactory)))
+				.expectNextCount(1)
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
+	@Test
+	public void noBoundary() {
+		ServerHttpRequest request = request(MediaType.MULTIPART_FORM_DATA, BODY, 64, new DefaultDataBufferFactory());
+		StepVerifier.create(read(request))
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	public void noEndBoundary() {
+		String body = BODY.substring(0, BODY.indexOf("--simple-boundary--"));
+		StepVerifier.create(read(request(body, 64)))
+				.expectNextCount(2)
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	public void bodyError() {
+		StepVerifier.create(read(request("invalid content", 64)))
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	public void readMono() {
+		StepVerifier.create(this.reader.readMono(forClass(Part.class), request(BODY, 64), emptyMap()))
+				.expectError(UnsupportedOperationException.class)
+				.verify();
+	}
+
+
+	private Flux<Part> read(ServerHttpRequest request) {
+		return this.reader.read(forClass(Part.class), request, emptyMap());
+	}
+
+	private static ServerHttpRequest request(String body, int chunkSize) {
+		return request(body, chunkSize, new DefaultDataBufferFactory());
+	}
+
+	private static ServerHttpRequest request(String body, int chunkSize, DataBufferFactory bufferFactory) {
+		MediaType contentType = new MediaType(MediaType.MULTIPART_FORM_DATA, singletonMap("boundary", BOUNDARY));
+		return request(contentType, body, chunkSize, bufferFactory);
+	}
+
+	private static ServerHttpRequest request(MediaType contentType, String body, int chunkSize,
+			DataBufferFactory bufferFactory) {
+
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		// Allocate buffers on demand, so that only requested buffers need to be released
+		Flux<DataBuffer> buffers = Flux.range(0, (bytes.length - 1) / chunkSize + 1)
+				.map(index -> {
+					int offset = index * chunkSize;
+					int length = Math.min(chunkSize, bytes.length - offset);
+					DataBuffer buffer = bufferFactory.allocateBuffer(length);
+					buffer.write(bytes, offset, length);
+					return buffer;
+				});
+		return MockServerHttpRequest.post("/").contentType(contentType).body(buffers);
+	}
+
+	private static String content(Part part) {
+		DataBuffer buffer = DataBufferUtils.join(part.content()).block(Duration.ofSeconds(5));
+		return (buffer != null ? DataBufferTestUtils.dumpString(buffer, StandardCharsets.UTF_8) : "");
+	}
+
+	private static List<Path> storedFiles(Path directory) throws IOException {
+		if (!Files.exists(directory)) {
+			return emptyList();
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.collect(Collectors.toList());
+		}
+	}
+
+	private static void awaitNoStoredFiles(Path directory) throws IOException {
+		for (int i = 0; i < 50 && !storedFiles(directory).isEmpty(); i++) {
+			sleep();
+		}
+		assertEquals(0, storedFiles(directory).size());
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(20);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
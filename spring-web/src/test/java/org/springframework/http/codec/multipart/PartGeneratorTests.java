@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.io.buffer.AbstractLeakCheckingTestCase;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PartGenerator}.
+ *
+ * @author Nico Yates
+ */
+public class PartGeneratorTests extends AbstractLeakCheckingTestCase {
+
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+
+	@Test
+	public void cancelWhileWritingReleasesBodyTokens() {
+		// Keep file writes pending, so that body tokens queue up
+		List<Runnable> pendingTasks = new ArrayList<>();
+
+		Disposable subscription = createParts(tokens(1, 10), 4, -1, Schedulers.fromExecutor(pendingTasks::add))
+				.subscribe();
+		assertFalse(pendingTasks.isEmpty());
+		subscription.dispose();
+	}
+
+	@Test
+	public void errorReleasesBodyTokens() {
+		StepVerifier.create(createParts(tokens(2, 10), -1, 1, Schedulers.elastic()))
+				.expectNextCount(1)
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
+
+	private Flux<Part> createParts(Flux<MultipartParser.Token> tokens, int maxInMemorySize, int maxParts,
+			Scheduler scheduler) {
+
+		return PartGenerator.createParts(tokens, maxInMemorySize, -1, maxParts,
+				() -> this.tempFolder.getRoot().toPath(), scheduler, new DefaultDataBufferFactory());
+	}
+
+	private Flux<MultipartParser.Token> tokens(int partCount, int bodyTokenCount) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentDispositionFormData("file", "foo.txt");
+		return Flux.range(0, partCount * (bodyTokenCount + 1)).map(index -> {
+			if (index % (bodyTokenCount + 1) == 0) {
+				return new MultipartParser.HeadersToken(headers);
+			}
+			byte[] bytes = ("chunk" + index).getBytes(StandardCharsets.UTF_8);
+			DataBuffer buffer = this.bufferFactory.allocateBuffer(bytes.length);
+			buffer.write(bytes);
+			return new MultipartParser.BodyToken(buffer);
+		});
+	}
+
+}
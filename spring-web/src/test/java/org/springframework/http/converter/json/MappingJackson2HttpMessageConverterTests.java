@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -322,6 +322,23 @@ public class MappingJackson2HttpMessageConverterTests {
 		assertEquals("{\ndata:  \"name\" : \"Jason\"\ndata:}", result);
 	}
 
+	@Test
+	public void prettyPrintAfterWrite() throws Exception {
+		PrettyPrintBean bean = new PrettyPrintBean();
+		bean.setName("Jason");
+
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		this.converter.writeInternal(bean, null, outputMessage);
+		assertEquals("{\"name\":\"Jason\"}", outputMessage.getBodyAsString(StandardCharsets.UTF_8));
+
+		outputMessage = new MockHttpOutputMessage();
+		this.converter.setPrettyPrint(true);
+		this.converter.writeInternal(bean, null, outputMessage);
+		assertEquals("{" + NEWLINE_SYSTEM_PROPERTY +
+				"  \"name\" : \"Jason\"" + NEWLINE_SYSTEM_PROPERTY + "}",
+				outputMessage.getBodyAsString(StandardCharsets.UTF_8));
+	}
+
 	@Test
 	public void prefixJson() throws Exception {
 		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.context.request;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.tests.sample.beans.DerivedTestBean;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link IndexedRequestScope}.
+ *
+ * @author Nico Yates
+ */
+public class IndexedRequestScopeTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@Before
+	public void setup() {
+		this.beanFactory.registerScope("request", new IndexedRequestScope());
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(this.beanFactory);
+		reader.loadBeanDefinitions(new ClassPathResource("requestScopedProxyTests.xml", getClass()));
+		this.beanFactory.preInstantiateSingletons();
+	}
+
+	@After
+	public void resetRequestAttributes() {
+		RequestContextHolder.setRequestAttributes(null);
+	}
+
+
+	@Test
+	public void getFromScope() {
+		TestBean bean = (TestBean) this.beanFactory.getBean("requestScopedObject");
+		assertTrue(AopUtils.isCglibProxy(bean));
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+		assertEquals("scoped", bean.getName());
+		TestBean target = (TestBean) request.getAttribute("scopedTarget.requestScopedObject");
+		assertNotNull(target);
+		bean.setAge(42);
+		assertEquals(42, target.getAge());
+
+		// Served from the slot table from now on
+		request.removeAttribute("scopedTarget.requestScopedObject");
+		assertEquals(42, bean.getAge());
+	}
+
+	@Test
+	public void getFromScopeAfterDispatch() {
+		TestBean bean = (TestBean) this.beanFactory.getBean("requestScopedObject");
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		bean.setAge(42);
+
+		// New RequestAttributes for the same request, as for an async dispatch
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		assertEquals(42, bean.getAge());
+	}
+
+	@Test
+	public void separateRequests() {
+		TestBean bean = (TestBean) this.beanFactory.getBean("requestScopedObject");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		bean.setAge(42);
+
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		assertEquals(0, bean.getAge());
+	}
+
+	@Test
+	public void destroyScopedBean() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+		String name = "scopedTarget.requestScopedDisposableObject";
+		DerivedTestBean target = (DerivedTestBean) this.beanFactory.getBean(name);
+		assertSame(target, this.beanFactory.getBean(name));
+
+		this.beanFactory.destroyScopedBean(name);
+		assertTrue(target.wasDestroyed());
+		assertNull(request.getAttribute(name));
+		assertNotSame(target, this.beanFactory.getBean(name));
+	}
+
+	@Test
+	public void destructionAtRequestCompletion() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		ServletRequestAttributes requestAttributes = new ServletRequestAttributes(request);
+		RequestContextHolder.setRequestAttributes(requestAttributes);
+
+		String name = "scopedTarget.requestScopedDisposableObject";
+		DerivedTestBean target = (DerivedTestBean) this.beanFactory.getBean(name);
+		requestAttributes.requestCompleted();
+		assertTrue(target.wasDestroyed());
+
+		try {
+			this.beanFactory.getBean(name);
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (Exception ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+	}
+
+}
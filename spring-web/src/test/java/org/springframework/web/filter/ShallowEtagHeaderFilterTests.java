@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,9 @@
 
 package org.springframework.web.filter;
 
+import java.io.PrintWriter;
 import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 
 import org.junit.Test;
@@ -262,4 +264,82 @@ public class ShallowEtagHeaderFilterTests {
 		assertArrayEquals("Invalid content", responseBody, response.getContentAsByteArray());
 	}
 
+
+	@Test
+	public void filterWithinContentCacheLimit() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		byte[] responseBody = "Hello World".getBytes("UTF-8");
+		FilterChain filterChain = (filterRequest, filterResponse) ->
+				FileCopyUtils.copy(responseBody, filterResponse.getOutputStream());
+		this.filter.setContentCacheLimit(responseBody.length);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertEquals(200, response.getStatus());
+		assertEquals("\"0b10a8db164e0754105b7a99be72e3fe5\"", response.getHeader("ETag"));
+		assertEquals(responseBody.length, response.getContentLength());
+		assertArrayEquals(responseBody, response.getContentAsByteArray());
+	}
+
+	@Test
+	public void filterBeyondContentCacheLimit() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("If-None-Match", "\"0b10a8db164e0754105b7a99be72e3fe5\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			ServletOutputStream outputStream = filterResponse.getOutputStream();
+			outputStream.write("Hello".getBytes("UTF-8"));
+			assertFalse(response.isCommitted());
+			outputStream.write(" World".getBytes("UTF-8"));
+		};
+		this.filter.setContentCacheLimit(8);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertEquals(200, response.getStatus());
+		assertNull(response.getHeader("ETag"));
+		assertEquals("Hello World", response.getContentAsString());
+	}
+
+	@Test
+	public void filterWriterBeyondContentCacheLimit() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			PrintWriter writer = filterResponse.getWriter();
+			writer.write("Hello");
+			writer.write(" World");
+			writer.write('!');
+		};
+		this.filter.setContentCacheLimit(8);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertEquals(200, response.getStatus());
+		assertNull(response.getHeader("ETag"));
+		assertEquals("Hello World!", response.getContentAsString());
+	}
+
+	@Test
+	public void filterContentLengthBeyondContentCacheLimit() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		byte[] responseBody = "Hello World".getBytes("UTF-8");
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			filterResponse.setContentLength(responseBody.length);
+			filterResponse.getOutputStream().write(responseBody, 0, 5);
+			assertEquals(5, response.getContentAsByteArray().length);
+			filterResponse.getOutputStream().write(responseBody, 5, 6);
+		};
+		this.filter.setContentCacheLimit(8);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertEquals(200, response.getStatus());
+		assertNull(response.getHeader("ETag"));
+		assertEquals(responseBody.length, response.getContentLength());
+		assertArrayEquals(responseBody, response.getContentAsByteArray());
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -79,6 +79,33 @@ public class HandlerMethodArgumentResolverCompositeTests {
 		this.resolverComposite.resolveArgument(paramStr, null, null, null);
 	}
 
+	@Test
+	public void getArgumentResolvers() {
+		StubArgumentResolver resolver = new StubArgumentResolver(Integer.class);
+		this.resolverComposite.addResolver(resolver);
+		MethodParameter[] parameters = new MethodParameter[] {paramInt, paramStr};
+
+		HandlerMethodArgumentResolver[] resolvers = this.resolverComposite.getArgumentResolvers(parameters);
+		assertEquals(2, resolvers.length);
+		assertSame(resolver, resolvers[0]);
+		assertNull(resolvers[1]);
+		assertSame(resolvers, this.resolverComposite.getArgumentResolvers(parameters));
+
+		this.resolverComposite.clear();
+		assertNull(this.resolverComposite.getArgumentResolvers(parameters)[0]);
+	}
+
+	@Test
+	public void getArgumentResolversAfterResolverAdded() {
+		this.resolverComposite.addResolver(new StubArgumentResolver(Integer.class));
+		MethodParameter[] parameters = new MethodParameter[] {paramInt, paramStr};
+		assertNull(this.resolverComposite.getArgumentResolvers(parameters)[1]);
+
+		StubArgumentResolver resolver = new StubArgumentResolver(String.class);
+		this.resolverComposite.addResolver(resolver);
+		assertSame(resolver, this.resolverComposite.getArgumentResolvers(parameters)[1]);
+	}
+
 
 	@SuppressWarnings("unused")
 	private void handle(Integer arg1, String arg2) {
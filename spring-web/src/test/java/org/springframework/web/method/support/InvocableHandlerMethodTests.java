@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -64,6 +64,25 @@ public class InvocableHandlerMethodTests {
 		assertEquals("stringArg", getStubResolver(1).getResolvedParameters().get(0).getParameterName());
 	}
 
+	@Test
+	public void resolveArgWithBoundResolvers() throws Exception {
+		this.composite.addResolver(new StubArgumentResolver(99));
+		this.composite.addResolver(new StubArgumentResolver("value"));
+		InvocableHandlerMethod invocable = getInvocable(Integer.class, String.class);
+		InvocableHandlerMethod copy = new InvocableHandlerMethod(invocable);
+		copy.setHandlerMethodArgumentResolvers(this.composite);
+
+		assertEquals("99-value", invocable.invokeForRequest(request, null));
+		assertEquals("99-value", copy.invokeForRequest(request, null));
+
+		HandlerMethodArgumentResolver[] resolvers = this.composite.getArgumentResolvers(copy.getMethodParameters());
+		assertSame(resolvers, this.composite.getArgumentResolvers(invocable.getMethodParameters()));
+		assertSame(getStubResolver(0), resolvers[0]);
+		assertSame(getStubResolver(1), resolvers[1]);
+		assertEquals(2, getStubResolver(0).getResolvedParameters().size());
+		assertEquals(2, getStubResolver(1).getResolvedParameters().size());
+	}
+
 	@Test
 	public void resolveNoArgValue() throws Exception {
 		this.composite.addResolver(new StubArgumentResolver(Integer.class));
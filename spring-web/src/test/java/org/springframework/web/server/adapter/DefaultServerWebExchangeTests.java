@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,24 @@
 
 package org.springframework.web.server.adapter;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.multipart.DefaultPartHttpMessageReader;
+import org.springframework.http.codec.multipart.MultipartHttpMessageReader;
+import org.springframework.http.codec.multipart.Part;
 import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
 import org.springframework.mock.http.server.reactive.test.MockServerHttpResponse;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
 import org.springframework.web.server.session.DefaultWebSessionManager;
@@ -35,6 +48,10 @@ import static org.junit.Assert.*;
  */
 public class DefaultServerWebExchangeTests {
 
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+
 	@Test
 	public void transformUrlDefault() {
 		ServerWebExchange exchange = createExchange();
@@ -56,6 +73,45 @@ public class DefaultServerWebExchangeTests {
 		assertEquals("/foo;p=abc?q=123", exchange.transformUrl("/foo"));
 	}
 
+	@Test
+	public void cleanupMultipart() throws IOException {
+		Path storage = this.tempFolder.getRoot().toPath();
+		DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+		partReader.setFileStorageDirectory(storage);
+		partReader.setMaxInMemorySize(4);
+		ServerCodecConfigurer codecConfigurer = ServerCodecConfigurer.create();
+		codecConfigurer.registerDefaults(false);
+		codecConfigurer.customCodecs().reader(new MultipartHttpMessageReader(partReader));
+
+		String body = "--boundary\r\n" +
+				"Content-Disposition: form-data; name=\"file\"; filename=\"foo.txt\"\r\n" +
+				"\r\n" +
+				"Lorem ipsum\r\n" +
+				"--boundary--\r\n";
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(MediaType.parseMediaType("multipart/form-data; boundary=boundary"))
+				.body(body);
+		DefaultServerWebExchange exchange = new DefaultServerWebExchange(request, new MockServerHttpResponse(),
+				new DefaultWebSessionManager(), codecConfigurer, new AcceptHeaderLocaleContextResolver());
+
+		// Not read yet: nothing to clean up
+		exchange.cleanupMultipart().block(Duration.ofSeconds(5));
+		assertEquals(0, storedFileCount(storage));
+
+		MultiValueMap<String, Part> parts = exchange.getMultipartData().block(Duration.ofSeconds(5));
+		assertEquals(1, parts.size());
+		assertEquals(1, storedFileCount(storage));
+
+		exchange.cleanupMultipart().block(Duration.ofSeconds(5));
+		assertEquals(0, storedFileCount(storage));
+	}
+
+
+	private static long storedFileCount(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
 
 	private DefaultServerWebExchange createExchange() {
 		MockServerHttpRequest request = MockServerHttpRequest.get("http://example.com").build();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -65,6 +65,21 @@ public class UrlPathHelperTests {
 		assertEquals("Incorrect path returned", "/welcome.html", helper.getPathWithinApplication(request));
 	}
 
+	@Test
+	public void resolveAndCacheLookupPath() {
+		request.setContextPath("/petclinic");
+		request.setRequestURI("/petclinic/welcome.html");
+
+		assertEquals("/welcome.html", helper.resolveAndCacheLookupPath(request));
+		assertEquals("/welcome.html", request.getAttribute(UrlPathHelper.PATH_ATTRIBUTE));
+
+		request.setRequestURI("/petclinic/other.html");
+		assertEquals("/welcome.html", helper.getResolvedLookupPath(request));
+
+		request.removeAttribute(UrlPathHelper.PATH_ATTRIBUTE);
+		assertEquals("/other.html", helper.getResolvedLookupPath(request));
+	}
+
 	@Test
 	public void getPathWithinServlet() {
 		request.setContextPath("/petclinic");
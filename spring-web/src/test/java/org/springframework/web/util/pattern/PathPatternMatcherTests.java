@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PathPatternMatcher}.
+ *
+ * @author Nico Yates
+ */
+public class PathPatternMatcherTests {
+
+	private final PathPatternMatcher matcher = new PathPatternMatcher();
+
+
+	@Test
+	public void isPattern() {
+		assertTrue(this.matcher.isPattern("/foo/*"));
+		assertTrue(this.matcher.isPattern("/foo/{id}"));
+		assertTrue(this.matcher.isPattern("/foo/ba?"));
+		assertFalse(this.matcher.isPattern("/foo/bar"));
+	}
+
+	@Test
+	public void match() {
+		assertTrue(this.matcher.match("/foo/{id}", "/foo/1"));
+		assertTrue(this.matcher.match("/foo/{id}", "/foo/1/"));
+		assertTrue(this.matcher.match("/foo/**", "/foo/bar/baz"));
+		assertTrue(this.matcher.match("/foo/*.html", "/foo/bar.html"));
+		assertFalse(this.matcher.match("/foo/{id}", "/foo/1/2"));
+		assertFalse(this.matcher.match("/foo/*.html", "/foo/bar.css"));
+	}
+
+	@Test
+	public void matchManyPatternsAgainstSamePath() {
+		List<String> patterns = Arrays.asList("/a/{x}", "/b/{x}", "/c/{x}", "/c/*");
+		long matches = patterns.stream().filter(pattern -> this.matcher.match(pattern, "/c/1")).count();
+		assertEquals(2, matches);
+		assertFalse(this.matcher.match("/c/{x}", "/d/1"));
+		assertTrue(this.matcher.match("/c/{x}", "/c/1"));
+	}
+
+	@Test
+	public void parsedPathCachedAsRequestAttribute() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		try {
+			assertTrue(this.matcher.match("/c/{x}", "/c/1"));
+			Object parsedPath = request.getAttribute(PathPatternMatcher.PARSED_PATH_ATTRIBUTE);
+			assertEquals("/c/1", ((PathContainer) parsedPath).value());
+			assertTrue(this.matcher.match("/c/*", "/c/1"));
+			assertSame(parsedPath, request.getAttribute(PathPatternMatcher.PARSED_PATH_ATTRIBUTE));
+			assertFalse(this.matcher.match("/c/{x}", "/d/1"));
+			assertNotSame(parsedPath, request.getAttribute(PathPatternMatcher.PARSED_PATH_ATTRIBUTE));
+		}
+		finally {
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+
+	@Test
+	public void matchStart() {
+		assertTrue(this.matcher.matchStart("/foo/{id}", "/foo/1/bar"));
+		assertFalse(this.matcher.matchStart("/foo/{id}", "/bar/1"));
+	}
+
+	@Test
+	public void extractPathWithinPattern() {
+		assertEquals("bar/baz.html", this.matcher.extractPathWithinPattern("/foo/**", "/foo/bar/baz.html"));
+		assertEquals("", this.matcher.extractPathWithinPattern("/foo/bar", "/foo/bar"));
+	}
+
+	@Test
+	public void extractUriTemplateVariables() {
+		Map<String, String> variables = this.matcher.extractUriTemplateVariables("/hotels/{hotel}/bookings/{booking}", "/hotels/1/bookings/2");
+		assertEquals("1", variables.get("hotel"));
+		assertEquals("2", variables.get("booking"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void extractUriTemplateVariablesNoMatch() {
+		this.matcher.extractUriTemplateVariables("/hotels/{hotel}", "/bookings/1");
+	}
+
+	@Test
+	public void patternComparator() {
+		List<String> patterns = Arrays.asList("/hotels/**", "/hotels/{hotel}", "/hotels/new", "/hotels/*");
+		Collections.sort(patterns, this.matcher.getPatternComparator("/hotels/new"));
+		assertEquals(Arrays.asList("/hotels/new", "/hotels/{hotel}", "/hotels/*", "/hotels/**"), patterns);
+	}
+
+	@Test
+	public void combine() {
+		assertEquals("", this.matcher.combine(null, null));
+		assertEquals("/hotels", this.matcher.combine("/hotels", null));
+		assertEquals("/hotels", this.matcher.combine(null, "/hotels"));
+		assertEquals("/hotels/{hotel}", this.matcher.combine("/hotels", "{hotel}"));
+		assertEquals("/hotels/{hotel}", this.matcher.combine("/hotels/*", "{hotel}"));
+	}
+
+	@Test(expected = PatternParseException.class)
+	public void invalidPattern() {
+		this.matcher.match("/foo/{bar", "/foo/bar");
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.web.reactive.result.method;
 
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +29,7 @@ import reactor.core.publisher.Mono;
 
 import org.springframework.core.MethodParameter;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.web.reactive.BindingContext;
 import org.springframework.web.server.ServerWebExchange;
 
@@ -41,6 +43,15 @@ import org.springframework.web.server.ServerWebExchange;
  */
 class HandlerMethodArgumentResolverComposite implements HandlerMethodArgumentResolver {
 
+	/**
+	 * Resolvers bound per shared parameter array of a handler method. Kept
+	 * across composite instances since those are created per invocable, i.e.
+	 * typically per request, and validated against the configured resolvers.
+	 */
+	private static final Map<MethodParameter[], BoundResolvers> boundResolversCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final List<HandlerMethodArgumentResolver> argumentResolvers = new LinkedList<>();
@@ -91,6 +102,7 @@ class HandlerMethodArgumentResolverComposite implements HandlerMethodArgumentRes
 	 */
 	public void clear() {
 		this.argumentResolvers.clear();
+		this.argumentResolverCache.clear();
 	}
 
 
@@ -123,6 +135,32 @@ class HandlerMethodArgumentResolverComposite implements HandlerMethodArgumentRes
 		return resolver.resolveArgument(parameter, bindingContext, exchange);
 	}
 
+	/**
+	 * Return the registered {@link HandlerMethodArgumentResolver} for each of
+	 * the given method parameters, bound once per parameter array so that
+	 * repeated invocations of the same handler method can go straight to the
+	 * resolver for every argument.
+	 * <p>The given array is expected to be the shared parameter array of a
+	 * {@link org.springframework.web.method.HandlerMethod} and is used as
+	 * cache key by identity; the returned array must not be modified.
+	 * @param parameters the method parameters to resolve arguments for
+	 * @return the resolver for each parameter, with a {@code null} element
+	 * for a parameter that is not supported by any registered resolver
+	 * @since 5.1.5
+	 */
+	public HandlerMethodArgumentResolver[] getArgumentResolvers(MethodParameter[] parameters) {
+		BoundResolvers bound = boundResolversCache.get(parameters);
+		if (bound == null || !bound.isBoundTo(this.argumentResolvers)) {
+			HandlerMethodArgumentResolver[] resolvers = new HandlerMethodArgumentResolver[parameters.length];
+			for (int i = 0; i < parameters.length; i++) {
+				resolvers[i] = getArgumentResolver(parameters[i]);
+			}
+			bound = new BoundResolvers(this.argumentResolvers, resolvers);
+			boundResolversCache.put(parameters, bound);
+		}
+		return bound.resolvers;
+	}
+
 	/**
 	 * Find a registered {@link HandlerMethodArgumentResolver} that supports
 	 * the given method parameter.
@@ -142,4 +180,34 @@ class HandlerMethodArgumentResolverComposite implements HandlerMethodArgumentRes
 		return result;
 	}
 
+
+	/**
+	 * The resolvers bound to a parameter array, along with the registered
+	 * resolvers they were selected from.
+	 */
+	private static class BoundResolvers {
+
+		private final HandlerMethodArgumentResolver[] candidates;
+
+		final HandlerMethodArgumentResolver[] resolvers;
+
+		BoundResolvers(List<HandlerMethodArgumentResolver> candidates, HandlerMethodArgumentResolver[] resolvers) {
+			this.candidates = candidates.toArray(new HandlerMethodArgumentResolver[0]);
+			this.resolvers = resolvers;
+		}
+
+		boolean isBoundTo(List<HandlerMethodArgumentResolver> candidates) {
+			if (this.candidates.length != candidates.size()) {
+				return false;
+			}
+			Iterator<HandlerMethodArgumentResolver> it = candidates.iterator();
+			for (HandlerMethodArgumentResolver candidate : this.candidates) {
+				if (candidate != it.next()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
 }
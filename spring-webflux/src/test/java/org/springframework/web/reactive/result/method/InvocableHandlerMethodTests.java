@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -36,6 +36,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
 import org.springframework.mock.web.test.server.MockServerWebExchange;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.ResolvableMethod;
 import org.springframework.web.reactive.BindingContext;
 import org.springframework.web.reactive.HandlerResult;
@@ -70,6 +71,23 @@ public class InvocableHandlerMethodTests {
 		assertHandlerResultValue(mono, "success:value1");
 	}
 
+	@Test
+	public void resolveArgWithBoundResolvers() {
+		HandlerMethodArgumentResolver resolver = stubResolver("value1");
+		this.resolvers.add(resolver);
+		Method method = ResolvableMethod.on(TestController.class).mockCall(o -> o.singleArg(null)).method();
+		HandlerMethod handlerMethod = new HandlerMethod(new TestController(), method);
+
+		for (int i = 0; i < 3; i++) {
+			InvocableHandlerMethod invocable = new InvocableHandlerMethod(handlerMethod);
+			invocable.setArgumentResolvers(this.resolvers);
+			assertHandlerResultValue(invocable.invoke(this.exchange, new BindingContext()), "success:value1");
+		}
+
+		verify(resolver, times(1)).supportsParameter(any());
+		verify(resolver, times(3)).resolveArgument(any(), any(), any());
+	}
+
 	@Test
 	public void resolveNoArgValue() {
 		this.resolvers.add(stubResolver(Mono.empty()));
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -391,6 +391,10 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 	/**
 	 * Look up a handler for the given request, falling back to the default
 	 * handler if no specific one is found.
+	 * <p>As of 5.1.5, the lookup path is resolved once and exposed as
+	 * {@link UrlPathHelper#PATH_ATTRIBUTE request attribute} for the duration
+	 * of the lookup, for reuse by handler lookups, interceptor mappings and
+	 * CORS configuration sources.
 	 * @param request current HTTP request
 	 * @return the corresponding handler instance, or the default handler
 	 * @see #getHandlerInternal
@@ -398,6 +402,23 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 	@Override
 	@Nullable
 	public final HandlerExecutionChain getHandler(HttpServletRequest request) throws Exception {
+		Object previousLookupPath = request.getAttribute(UrlPathHelper.PATH_ATTRIBUTE);
+		this.urlPathHelper.resolveAndCacheLookupPath(request);
+		try {
+			return doGetHandler(request);
+		}
+		finally {
+			if (previousLookupPath != null) {
+				request.setAttribute(UrlPathHelper.PATH_ATTRIBUTE, previousLookupPath);
+			}
+			else {
+				request.removeAttribute(UrlPathHelper.PATH_ATTRIBUTE);
+			}
+		}
+	}
+
+	@Nullable
+	private HandlerExecutionChain doGetHandler(HttpServletRequest request) throws Exception {
 		Object handler = getHandlerInternal(request);
 		if (handler == null) {
 			handler = getDefaultHandler();
@@ -473,7 +494,7 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 		HandlerExecutionChain chain = (handler instanceof HandlerExecutionChain ?
 				(HandlerExecutionChain) handler : new HandlerExecutionChain(handler));
 
-		String lookupPath = this.urlPathHelper.getLookupPathForRequest(request);
+		String lookupPath = this.urlPathHelper.getResolvedLookupPath(request);
 		for (HandlerInterceptor interceptor : this.adaptedInterceptors) {
 			if (interceptor instanceof MappedInterceptor) {
 				MappedInterceptor mappedInterceptor = (MappedInterceptor) interceptor;
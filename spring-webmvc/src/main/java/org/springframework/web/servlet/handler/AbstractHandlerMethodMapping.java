@@ -39,6 +39,7 @@ import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
 import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
@@ -91,6 +92,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 	private boolean detectHandlerMethodsInAncestorContexts = false;
 
+	private boolean usePathPatternIndex = false;
+
 	@Nullable
 	private HandlerMethodMappingNamingStrategy<T> namingStrategy;
 
@@ -110,6 +113,31 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		this.detectHandlerMethodsInAncestorContexts = detectHandlerMethodsInAncestorContexts;
 	}
 
+	/**
+	 * Whether to narrow down the mappings to check for a lookup path without
+	 * direct URL matches through an index of the leading literal path segments
+	 * of the mapped URL patterns, rather than going through all mappings.
+	 * <p>Default is "false". Only switch this flag on if
+	 * {@link #getMatchingMapping} matches the lookup path against the patterns
+	 * returned from {@link #getMappingPathPatterns} with the configured
+	 * {@link #getPathMatcher() PathMatcher} (possibly with suffix pattern or
+	 * trailing slash matching), and does not match mappings otherwise.
+	 * The index is only used with an {@link AntPathMatcher}.
+	 * @since 5.1.5
+	 */
+	public void setUsePathPatternIndex(boolean usePathPatternIndex) {
+		this.usePathPatternIndex = usePathPatternIndex;
+	}
+
+	/**
+	 * Whether to narrow down the mappings to check through an index of the
+	 * mapped URL patterns.
+	 * @since 5.1.5
+	 */
+	public boolean isUsePathPatternIndex() {
+		return this.usePathPatternIndex;
+	}
+
 	/**
 	 * Configure the naming strategy to use for assigning a default name to every
 	 * mapped handler method.
@@ -359,7 +387,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	 */
 	@Override
 	protected HandlerMethod getHandlerInternal(HttpServletRequest request) throws Exception {
-		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
+		String lookupPath = getUrlPathHelper().getResolvedLookupPath(request);
 		this.mappingRegistry.acquireReadLock();
 		try {
 			HandlerMethod handlerMethod = lookupHandlerMethod(lookupPath, request);
@@ -387,8 +415,15 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			Collection<T> candidates = (this.usePathPatternIndex && getPathMatcher() instanceof AntPathMatcher ?
+					this.mappingRegistry.getMappingsByPathPatternIndex(lookupPath) : null);
+			if (candidates != null) {
+				addMatchingMappings(candidates, matches, request);
+			}
+			else {
+				// No choice but to go through all mappings...
+				addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			}
 		}
 
 		if (!matches.isEmpty()) {
@@ -527,6 +562,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
 
+		private final MappingPathIndex<T> pathPatternIndex = new MappingPathIndex<>();
+
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
@@ -550,6 +587,19 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.urlLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings that may match the given URL path, as narrowed
+		 * down by their URL patterns. Not thread-safe.
+		 * @return the candidate mappings, or {@code null} if all mappings
+		 * need to be checked
+		 * @since 5.1.5
+		 * @see #acquireReadLock()
+		 */
+		@Nullable
+		public Collection<T> getMappingsByPathPatternIndex(String urlPath) {
+			return this.pathPatternIndex.getCandidates(urlPath);
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -590,6 +640,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				for (String url : directUrls) {
 					this.urlLookup.add(url, mapping);
 				}
+				this.pathPatternIndex.add(mapping, getMappingPathPatterns(mapping));
 
 				String name = null;
 				if (getNamingStrategy() != null) {
@@ -666,6 +717,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 						}
 					}
 				}
+				this.pathPatternIndex.remove(definition.getMapping(), getMappingPathPatterns(definition.getMapping()));
 
 				removeMappingName(definition);
 
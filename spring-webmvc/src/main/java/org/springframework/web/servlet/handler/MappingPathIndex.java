@@ -0,0 +1,193 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Segment trie of mappings, keyed by the leading literal path segments of
+ * their URL patterns, used to narrow down the mappings that may match a
+ * lookup path to those whose literal pattern prefix is a prefix of the path.
+ *
+ * <p>The index is conservative: the candidates returned for a lookup path are
+ * a superset of the mappings whose patterns match the path with an
+ * {@link org.springframework.util.AntPathMatcher}, including suffix pattern
+ * and trailing slash matching. The last segment of a pattern is never used as
+ * a key, and neither is a segment containing wildcards or URI variables;
+ * segments are compared in trimmed, lower-case form. Mappings without any
+ * indexable segment are kept in the root node and are always candidates.
+ *
+ * <p>Not thread-safe; access is guarded by the read-write lock of the
+ * {@link AbstractHandlerMethodMapping.MappingRegistry}.
+ *
+ * @author Nico Yates
+ * @since 5.1.5
+ * @param <T> the mapping type
+ * @see AbstractHandlerMethodMapping#setUsePathPatternIndex
+ */
+final class MappingPathIndex<T> {
+
+	private static final String PATH_SEPARATOR = "/";
+
+
+	private final Node<T> root = new Node<>();
+
+
+	/**
+	 * Add the given mapping for the given URL patterns.
+	 */
+	public void add(T mapping, Collection<String> patterns) {
+		if (patterns.isEmpty()) {
+			this.root.mappings.add(mapping);
+		}
+		for (String pattern : patterns) {
+			Node<T> node = this.root;
+			for (String segment : getLiteralPrefix(pattern)) {
+				node = node.children.computeIfAbsent(segment, key -> new Node<>());
+			}
+			node.mappings.add(mapping);
+		}
+	}
+
+	/**
+	 * Remove the given mapping, previously added for the given URL patterns.
+	 */
+	public void remove(T mapping, Collection<String> patterns) {
+		if (patterns.isEmpty()) {
+			this.root.mappings.remove(mapping);
+		}
+		for (String pattern : patterns) {
+			remove(this.root, getLiteralPrefix(pattern), 0, mapping);
+		}
+	}
+
+	private boolean remove(Node<T> node, List<String> prefix, int index, T mapping) {
+		if (index == prefix.size()) {
+			node.mappings.remove(mapping);
+		}
+		else {
+			Node<T> child = node.children.get(prefix.get(index));
+			if (child != null && remove(child, prefix, index + 1, mapping)) {
+				node.children.remove(prefix.get(index));
+			}
+		}
+		return (node.mappings.isEmpty() && node.children.isEmpty());
+	}
+
+	/**
+	 * Return the mappings that may match the given lookup path.
+	 * @param lookupPath the lookup path
+	 * @return the candidate mappings, or {@code null} if the lookup path
+	 * cannot be narrowed down safely and all mappings need to be checked
+	 */
+	@Nullable
+	public Collection<T> getCandidates(String lookupPath) {
+		if (lookupPath.indexOf(';') != -1 || lookupPath.indexOf('%') != -1) {
+			// Path parameters or encoded characters: possibly not in the form the mappings match against
+			return null;
+		}
+		// A mapping may be registered in several nodes for different patterns
+		Set<T> candidates = new LinkedHashSet<>(this.root.mappings);
+		Node<T> node = this.root;
+		for (String segment : lookupPath.split(PATH_SEPARATOR)) {
+			if (segment.isEmpty()) {
+				continue;
+			}
+			String key = toKey(segment);
+			if (key == null) {
+				return null;
+			}
+			node = node.children.get(key);
+			if (node == null) {
+				break;
+			}
+			candidates.addAll(node.mappings);
+		}
+		return candidates;
+	}
+
+
+	private static List<String> getLiteralPrefix(String pattern) {
+		String[] segments = pattern.split(PATH_SEPARATOR);
+		List<String> prefix = new ArrayList<>(segments.length);
+		// The last segment might be matched with a suffix pattern or a trailing slash
+		int lastSegment = segments.length - 1;
+		while (lastSegment >= 0 && segments[lastSegment].isEmpty()) {
+			lastSegment--;
+		}
+		for (int i = 0; i < lastSegment; i++) {
+			String segment = segments[i];
+			if (segment.isEmpty()) {
+				continue;
+			}
+			if (segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1) {
+				break;
+			}
+			String key = toKey(segment);
+			if (key == null) {
+				break;
+			}
+			prefix.add(key);
+		}
+		return prefix;
+	}
+
+	/**
+	 * Return the trimmed, lower-case form of the given segment,
+	 * or {@code null} if it contains non-ASCII characters.
+	 */
+	@Nullable
+	private static String toKey(String segment) {
+		String key = segment.trim();
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (c > 127) {
+				return null;
+			}
+			if (c >= 'A' && c <= 'Z') {
+				char[] chars = key.toCharArray();
+				for (int j = i; j < chars.length; j++) {
+					if (chars[j] > 127) {
+						return null;
+					}
+					if (chars[j] >= 'A' && chars[j] <= 'Z') {
+						chars[j] += 'a' - 'A';
+					}
+				}
+				return new String(chars);
+			}
+		}
+		return key;
+	}
+
+
+	private static class Node<T> {
+
+		final Map<String, Node<T>> children = new HashMap<>(4);
+
+		final Set<T> mappings = new LinkedHashSet<>(2);
+	}
+
+}
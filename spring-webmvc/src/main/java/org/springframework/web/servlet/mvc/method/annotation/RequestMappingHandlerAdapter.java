@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -405,7 +405,10 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 	 * a per-request basis by returning an {@link WebAsyncTask}.
 	 * <p>By default a {@link SimpleAsyncTaskExecutor} instance is used.
 	 * It's recommended to change that default in production as the simple executor
-	 * does not re-use threads.
+	 * does not re-use threads. On JDK 21 and higher, consider a
+	 * {@link org.springframework.core.task.VirtualThreadTaskExecutor} instead,
+	 * or switch the default executor to virtual threads through the
+	 * {@link SimpleAsyncTaskExecutor#VIRTUAL_THREADS_PROPERTY_NAME} system property.
 	 */
 	public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
 		this.taskExecutor = taskExecutor;
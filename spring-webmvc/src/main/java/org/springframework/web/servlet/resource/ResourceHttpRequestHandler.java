@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import javax.servlet.ServletException;
+import javax.servlet.ServletResponseWrapper;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -36,8 +37,10 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRange;
@@ -49,6 +52,7 @@ import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ResourceUtils;
 import org.springframework.util.StringUtils;
@@ -87,6 +91,12 @@ import org.springframework.web.util.UrlPathHelper;
  * (if present) so that a {@code 304} status code will be returned as appropriate,
  * avoiding unnecessary overhead for resources that are already cached by the client.
  *
+ * <p>For resources that do not change while the application is running, the
+ * content length and last-modified timestamp can be
+ * {@linkplain #setCacheResourceMetadata cached} rather than checked on every
+ * request, and file-based resources can be {@linkplain #setUseSendfile handed
+ * over} to the sendfile support of the Servlet container.
+ *
  * @author Keith Donald
  * @author Jeremy Grelle
  * @author Juergen Hoeller
@@ -102,6 +112,14 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 
 	private static final String URL_RESOURCE_CHARSET_PREFIX = "[charset=";
 
+	private static final String SENDFILE_SUPPORTED_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
 
 	private final List<String> locationValues = new ArrayList<>(4);
 
@@ -140,6 +158,12 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 	@Nullable
 	private StringValueResolver embeddedValueResolver;
 
+	private boolean cacheResourceMetadata = false;
+
+	private boolean useSendfile = false;
+
+	private final Map<Resource, ResourceMetadata> resourceMetadataCache = new ConcurrentReferenceHashMap<>(256);
+
 
 	public ResourceHttpRequestHandler() {
 		super(HttpMethod.GET.name(), HttpMethod.HEAD.name());
@@ -275,6 +299,56 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		return this.contentNegotiationManager;
 	}
 
+	/**
+	 * Whether to cache the content length and last-modified timestamp of the
+	 * resources served, as well as the file they are backed by, if any, instead
+	 * of checking them on every request. This avoids file system access and, for
+	 * resources in jar files, the opening of a {@code URLConnection} per request.
+	 * <p>Only enable this if the served resources do not change while the
+	 * application is running, e.g. when served from the classpath of a packaged
+	 * application. Resources that are held in memory are never cached.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.1.5
+	 */
+	public void setCacheResourceMetadata(boolean cacheResourceMetadata) {
+		this.cacheResourceMetadata = cacheResourceMetadata;
+		this.resourceMetadataCache.clear();
+	}
+
+	/**
+	 * Whether the metadata of the resources served is cached.
+	 * @since 5.1.5
+	 */
+	public boolean isCacheResourceMetadata() {
+		return this.cacheResourceMetadata;
+	}
+
+	/**
+	 * Whether to let the Servlet container write the content of file-based
+	 * resources with its sendfile support, transferring the file to the socket
+	 * without copying it through the heap. Full content as well as single byte
+	 * ranges are supported; multiple byte ranges are always written by this
+	 * handler.
+	 * <p>This is only applied if the container declares sendfile support for
+	 * the current request, as Tomcat does with the NIO, NIO2 and APR connectors,
+	 * and if the response is not wrapped, e.g. by a filter that needs to see the
+	 * content of the response.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.1.5
+	 */
+	public void setUseSendfile(boolean useSendfile) {
+		this.useSendfile = useSendfile;
+	}
+
+	/**
+	 * Whether file-based resources are written with the sendfile support of the
+	 * Servlet container, if available.
+	 * @since 5.1.5
+	 */
+	public boolean isUseSendfile() {
+		return this.useSendfile;
+	}
+
 	/**
 	 * Specify the CORS configuration for resources served by this handler.
 	 * <p>By default this is not set in which allows cross-origin requests.
@@ -464,7 +538,7 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		checkRequest(request);
 
 		// Header phase
-		if (new ServletWebRequest(request, response).checkNotModified(resource.lastModified())) {
+		if (new ServletWebRequest(request, response).checkNotModified(getLastModified(resource))) {
 			logger.trace("Resource not modified");
 			return;
 		}
@@ -482,10 +556,17 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		}
 
 		ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(response);
+		String sendfilePath = getSendfilePath(request, response, resource);
 		if (request.getHeader(HttpHeaders.RANGE) == null) {
 			Assert.state(this.resourceHttpMessageConverter != null, "Not initialized");
 			setHeaders(response, resource, mediaType);
-			this.resourceHttpMessageConverter.write(resource, mediaType, outputMessage);
+			long length = getContentLength(resource);
+			if (sendfilePath != null && length > 0) {
+				sendfile(request, sendfilePath, 0, length);
+			}
+			else {
+				this.resourceHttpMessageConverter.write(resource, mediaType, outputMessage);
+			}
 		}
 		else {
 			Assert.state(this.resourceRegionHttpMessageConverter != null, "Not initialized");
@@ -494,11 +575,25 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 			try {
 				List<HttpRange> httpRanges = inputMessage.getHeaders().getRange();
 				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-				this.resourceRegionHttpMessageConverter.write(
-						HttpRange.toResourceRegions(httpRanges, resource), mediaType, outputMessage);
+				List<ResourceRegion> regions = HttpRange.toResourceRegions(httpRanges, resource);
+				if (sendfilePath != null && regions.size() == 1) {
+					ResourceRegion region = regions.get(0);
+					long length = getContentLength(resource);
+					long start = region.getPosition();
+					long end = Math.min(start + region.getCount(), length);
+					if (mediaType != null) {
+						response.setContentType(mediaType.toString());
+					}
+					response.setHeader("Content-Range", "bytes " + start + '-' + (end - 1) + '/' + length);
+					response.setContentLengthLong(end - start);
+					sendfile(request, sendfilePath, start, end);
+				}
+				else {
+					this.resourceRegionHttpMessageConverter.write(regions, mediaType, outputMessage);
+				}
 			}
 			catch (IllegalArgumentException ex) {
-				response.setHeader("Content-Range", "bytes */" + resource.contentLength());
+				response.setHeader("Content-Range", "bytes */" + getContentLength(resource));
 				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
 			}
 		}
@@ -679,7 +774,7 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 	protected void setHeaders(HttpServletResponse response, Resource resource, @Nullable MediaType mediaType)
 			throws IOException {
 
-		long length = resource.contentLength();
+		long length = getContentLength(resource);
 		if (length > Integer.MAX_VALUE) {
 			response.setContentLengthLong(length);
 		}
@@ -708,6 +803,55 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
 	}
 
+	private long getContentLength(Resource resource) throws IOException {
+		ResourceMetadata metadata = getResourceMetadata(resource);
+		return (metadata != null ? metadata.contentLength : resource.contentLength());
+	}
+
+	private long getLastModified(Resource resource) throws IOException {
+		ResourceMetadata metadata = getResourceMetadata(resource);
+		return (metadata != null ? metadata.lastModified : resource.lastModified());
+	}
+
+	/**
+	 * Return the cached metadata for the given resource,
+	 * or {@code null} if not cached for the resource.
+	 */
+	@Nullable
+	private ResourceMetadata getResourceMetadata(Resource resource) throws IOException {
+		if (!this.cacheResourceMetadata || resource instanceof ByteArrayResource || resource.isOpen()) {
+			return null;
+		}
+		ResourceMetadata metadata = this.resourceMetadataCache.get(resource);
+		if (metadata == null) {
+			metadata = new ResourceMetadata(resource);
+			this.resourceMetadataCache.put(resource, metadata);
+		}
+		return metadata;
+	}
+
+	/**
+	 * Return the path of the file to hand over to the sendfile support of the
+	 * Servlet container, or {@code null} if not applicable.
+	 */
+	@Nullable
+	private String getSendfilePath(HttpServletRequest request, HttpServletResponse response, Resource resource)
+			throws IOException {
+
+		if (!this.useSendfile || response instanceof ServletResponseWrapper ||
+				!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTRIBUTE))) {
+			return null;
+		}
+		ResourceMetadata metadata = getResourceMetadata(resource);
+		return (metadata != null ? metadata.filePath : ResourceMetadata.getFilePath(resource));
+	}
+
+	private void sendfile(HttpServletRequest request, String filePath, long start, long end) {
+		request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, filePath);
+		request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+		request.setAttribute(SENDFILE_END_ATTRIBUTE, end);
+	}
+
 
 	@Override
 	public String toString() {
@@ -724,4 +868,37 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		return Collections.emptyList();
 	}
 
+
+	/**
+	 * The metadata of a resource that is needed to serve it.
+	 */
+	private static class ResourceMetadata {
+
+		final long contentLength;
+
+		final long lastModified;
+
+		@Nullable
+		final String filePath;
+
+		ResourceMetadata(Resource resource) throws IOException {
+			this.contentLength = resource.contentLength();
+			this.lastModified = resource.lastModified();
+			this.filePath = getFilePath(resource);
+		}
+
+		@Nullable
+		static String getFilePath(Resource resource) {
+			if (!resource.isFile()) {
+				return null;
+			}
+			try {
+				return resource.getFile().getAbsolutePath();
+			}
+			catch (IOException ex) {
+				return null;
+			}
+		}
+	}
+
 }
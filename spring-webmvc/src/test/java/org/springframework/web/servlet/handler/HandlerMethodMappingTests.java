@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -36,6 +36,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.context.support.StaticWebApplicationContext;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.util.UrlPathHelper;
 
@@ -99,6 +100,39 @@ public class HandlerMethodMappingTests {
 		assertEquals(result, request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
 	}
 
+	@Test
+	public void patternMatchWithPathPatternIndex() throws Exception {
+		this.mapping.setUsePathPatternIndex(true);
+		this.mapping.registerMapping("/foo/{id}", this.handler, this.method1);
+		this.mapping.registerMapping("/bar/**", this.handler, this.method2);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo/1");
+		assertEquals(method1, this.mapping.getHandlerInternal(request).getMethod());
+		request = new MockHttpServletRequest("GET", "/bar/foo/1");
+		assertEquals(method2, this.mapping.getHandlerInternal(request).getMethod());
+		assertNull(this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/baz/1")));
+
+		this.mapping.unregisterMapping("/foo/{id}");
+		assertNull(this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/foo/1")));
+	}
+
+	@Test
+	public void lookupPathExposedDuringGetHandler() throws Exception {
+		this.mapping.registerMapping("/foo", this.handler, this.method1);
+		this.mapping.setUrlPathHelper(new UrlPathHelper() {
+			@Override
+			public String getLookupPathForRequest(HttpServletRequest request) {
+				assertNull(request.getAttribute(PATH_ATTRIBUTE));
+				return super.getLookupPathForRequest(request);
+			}
+		});
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo");
+		HandlerExecutionChain chain = this.mapping.getHandler(request);
+		assertEquals(method1, ((HandlerMethod) chain.getHandler()).getMethod());
+		assertNull(request.getAttribute(UrlPathHelper.PATH_ATTRIBUTE));
+	}
+
 	@Test(expected = IllegalStateException.class)
 	public void ambiguousMatch() throws Exception {
 		this.mapping.registerMapping("/f?o", this.handler, this.method1);
@@ -271,7 +305,7 @@ public class HandlerMethodMappingTests {
 
 		@Override
 		protected Set<String> getMappingPathPatterns(String key) {
-			return (this.pathMatcher.isPattern(key) ? Collections.<String>emptySet() : Collections.singleton(key));
+			return Collections.singleton(key);
 		}
 
 		@Override
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MappingPathIndex}.
+ *
+ * @author Nico Yates
+ */
+public class MappingPathIndexTests {
+
+	private final MappingPathIndex<String> index = new MappingPathIndex<>();
+
+
+	@Test
+	public void literalPrefix() {
+		add("/api/users/{id}");
+		add("/api/orders/{id}/items/{item}");
+		add("/admin/**");
+
+		assertCandidates("/api/users/1", "/api/users/{id}");
+		assertCandidates("/api/orders/1/items/2", "/api/orders/{id}/items/{item}");
+		assertCandidates("/admin/settings/mail", "/admin/**");
+		assertCandidates("/admin", "/admin/**");
+		assertCandidates("/other/1");
+	}
+
+	@Test
+	public void lastSegmentNotIndexed() {
+		add("/api/users");
+		add("/api/users/{id}");
+
+		// Suffix pattern and trailing slash matches
+		assertCandidates("/api/users.json", "/api/users");
+		assertCandidates("/api/users/", "/api/users", "/api/users/{id}");
+	}
+
+	@Test
+	public void patternsWithoutLiteralPrefix() {
+		add("/{version}/users");
+		add("/*/orders");
+		add("");
+
+		assertCandidates("/v1/users", "/{version}/users", "/*/orders", "");
+	}
+
+	@Test
+	public void mappingWithoutPatterns() {
+		this.index.add("none", Collections.emptySet());
+		assertCandidates("/any/path", "none");
+		this.index.remove("none", Collections.emptySet());
+		assertCandidates("/any/path");
+	}
+
+	@Test
+	public void mappingWithSeveralPatterns() {
+		this.index.add("multi", Arrays.asList("/api/{id}", "/api/users/{id}"));
+		assertEquals(1, this.index.getCandidates("/api/users/1").size());
+
+		this.index.remove("multi", Arrays.asList("/api/{id}", "/api/users/{id}"));
+		assertCandidates("/api/users/1");
+	}
+
+	@Test
+	public void caseInsensitiveAndEmptySegments() {
+		add("/Api/Users/{id}");
+		assertCandidates("/api//USERS/1", "/Api/Users/{id}");
+	}
+
+	@Test
+	public void lookupPathNotNarrowedDown() {
+		add("/api/users/{id}");
+		assertNull(this.index.getCandidates("/api;jsessionid=1/users/1"));
+		assertNull(this.index.getCandidates("/api/%75sers/1"));
+		assertNull(this.index.getCandidates("/api/üsers/1"));
+	}
+
+
+	private void add(String pattern) {
+		this.index.add(pattern, Collections.singleton(pattern));
+	}
+
+	private void assertCandidates(String lookupPath, String... expected) {
+		Collection<String> candidates = this.index.getCandidates(lookupPath);
+		assertNotNull(candidates);
+		assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(candidates));
+	}
+
+}
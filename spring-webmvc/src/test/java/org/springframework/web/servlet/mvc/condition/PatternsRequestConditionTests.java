@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.web.servlet.mvc.condition;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import javax.servlet.http.HttpServletRequest;
@@ -23,6 +24,8 @@ import javax.servlet.http.HttpServletRequest;
 import org.junit.Test;
 
 import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPatternMatcher;
 
 import static org.junit.Assert.*;
 
@@ -97,6 +100,24 @@ public class PatternsRequestConditionTests {
 		assertEquals(expected, match);
 	}
 
+	@Test
+	public void matchResolvedLookupPath() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/foo/bar");
+		request.setAttribute(UrlPathHelper.PATH_ATTRIBUTE, "/foo/bar");
+
+		PatternsRequestCondition condition = new PatternsRequestCondition("/foo/*");
+		assertNotNull(condition.getMatchingCondition(request));
+	}
+
+	@Test
+	public void matchWithPathPatternMatcher() {
+		PatternsRequestCondition condition = new PatternsRequestCondition(new String[] {"/foo/{id}", "/foo/**"},
+				null, new PathPatternMatcher(), false, true);
+		PatternsRequestCondition match = condition.getMatchingCondition(new MockHttpServletRequest("GET", "/foo/bar"));
+		assertNotNull(match);
+		assertEquals(Arrays.asList("/foo/{id}", "/foo/**"), new ArrayList<>(match.getPatterns()));
+	}
+
 	@Test
 	public void matchSuffixPattern() {
 		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo.html");
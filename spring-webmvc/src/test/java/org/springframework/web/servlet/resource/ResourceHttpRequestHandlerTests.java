@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,7 @@ import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.accept.ContentNegotiationManagerFactoryBean;
 import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -649,6 +650,79 @@ public class ResourceHttpRequestHandlerTests {
 		assertEquals("t.", ranges[11]);
 	}
 
+	@Test
+	public void cacheResourceMetadata() throws Exception {
+		Resource resource = spy(new ClassPathResource("test/foo.css", getClass()));
+		ResourceResolver resolver = mock(ResourceResolver.class);
+		when(resolver.resolveResource(any(), any(), any(), any())).thenReturn(resource);
+		this.handler.setResourceResolvers(Collections.singletonList(resolver));
+		this.handler.setCacheResourceMetadata(true);
+		this.handler.afterPropertiesSet();
+
+		for (int i = 0; i < 2; i++) {
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			this.request.setMethod("HEAD");
+			this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.css");
+			this.handler.handleRequest(this.request, response);
+
+			assertEquals(17, response.getContentLength());
+			assertEquals(resourceLastModified("test/foo.css") / 1000, response.getDateHeader("Last-Modified") / 1000);
+		}
+		verify(resource, times(1)).contentLength();
+		verify(resource, times(1)).lastModified();
+	}
+
+	@Test
+	public void sendfile() throws Exception {
+		this.handler.setUseSendfile(true);
+		this.request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.txt");
+		this.handler.handleRequest(this.request, this.response);
+
+		assertEquals(200, this.response.getStatus());
+		assertEquals("text/plain", this.response.getContentType());
+		assertEquals(10, this.response.getContentLength());
+		assertEquals(0, this.response.getContentAsByteArray().length);
+		assertEquals(new ClassPathResource("test/foo.txt", getClass()).getFile().getAbsolutePath(),
+				this.request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals(0L, this.request.getAttribute("org.apache.tomcat.sendfile.start"));
+		assertEquals(10L, this.request.getAttribute("org.apache.tomcat.sendfile.end"));
+	}
+
+	@Test
+	public void sendfileByteRange() throws Exception {
+		this.handler.setUseSendfile(true);
+		this.request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		this.request.addHeader("Range", "bytes=2-5");
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.txt");
+		this.handler.handleRequest(this.request, this.response);
+
+		assertEquals(206, this.response.getStatus());
+		assertEquals("text/plain", this.response.getContentType());
+		assertEquals(4, this.response.getContentLength());
+		assertEquals("bytes 2-5/10", this.response.getHeader("Content-Range"));
+		assertEquals(0, this.response.getContentAsByteArray().length);
+		assertEquals(2L, this.request.getAttribute("org.apache.tomcat.sendfile.start"));
+		assertEquals(6L, this.request.getAttribute("org.apache.tomcat.sendfile.end"));
+	}
+
+	@Test
+	public void sendfileNotSupported() throws Exception {
+		this.handler.setUseSendfile(true);
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.txt");
+		this.handler.handleRequest(this.request, this.response);
+
+		assertEquals("Some text.", this.response.getContentAsString());
+		assertNull(this.request.getAttribute("org.apache.tomcat.sendfile.filename"));
+
+		this.request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(new MockHttpServletResponse());
+		this.handler.handleRequest(this.request, wrapper);
+
+		assertEquals("Some text.", new String(wrapper.getContentAsByteArray(), "UTF-8"));
+		assertNull(this.request.getAttribute("org.apache.tomcat.sendfile.filename"));
+	}
+
 	@Test  // SPR-14005
 	public void doOverwriteExistingCacheControlHeaders() throws Exception {
 		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.css");
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,18 +17,25 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.util.ClassUtils;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
 
 /**
  * Wrap a {@link org.springframework.web.socket.WebSocketSession WebSocketSession}
@@ -39,6 +46,12 @@ import org.springframework.web.socket.WebSocketSession;
  * At that time, the specified buffer-size limit and send-time limit will be checked
  * and the session will be closed if the limits are exceeded.
  *
+ * <p>If {@link #setBatchingEnabled batching} is enabled, the thread that flushes
+ * the buffer drains all messages buffered at that time and sends them as one
+ * batch, updating the buffer size once per batch. On JSR-356 based sessions,
+ * the messages in a batch are also written through the batching support of the
+ * underlying {@link javax.websocket.RemoteEndpoint}, and flushed together.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @since 4.0.3
@@ -47,6 +60,9 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 
 	private static final Log logger = LogFactory.getLog(ConcurrentWebSocketSessionDecorator.class);
 
+	private static final boolean jsr356Present = ClassUtils.isPresent(
+			"javax.websocket.Session", ConcurrentWebSocketSessionDecorator.class.getClassLoader());
+
 
 	private final int sendTimeLimit;
 
@@ -54,17 +70,23 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 
 	private final OverflowStrategy overflowStrategy;
 
-	private final Queue<WebSocketMessage<?>> buffer = new LinkedBlockingQueue<>();
+	private final Queue<WebSocketMessage<?>> buffer = new ConcurrentLinkedQueue<>();
 
 	private final AtomicInteger bufferSize = new AtomicInteger();
 
+	private final AtomicInteger bufferedMessageCount = new AtomicInteger();
+
+	private volatile boolean batchingEnabled;
+
 	private volatile long sendStartTime;
 
+	private volatile long lastFlushDuration;
+
 	private volatile boolean limitExceeded;
 
 	private volatile boolean closeInProgress;
 
-	private final Lock flushLock = new ReentrantLock();
+	private final AtomicBoolean flushInProgress = new AtomicBoolean();
 
 	private final Lock closeLock = new ReentrantLock();
 
@@ -114,13 +136,41 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return this.bufferSizeLimit;
 	}
 
+	/**
+	 * Specify whether to send all messages buffered at the time of a flush
+	 * as one batch, rather than one by one.
+	 * <p>By default this is set to "false".
+	 * @since 5.1.5
+	 */
+	public void setBatchingEnabled(boolean batchingEnabled) {
+		this.batchingEnabled = batchingEnabled;
+	}
+
+	/**
+	 * Return whether buffered messages are sent in batches.
+	 * @since 5.1.5
+	 */
+	public boolean isBatchingEnabled() {
+		return this.batchingEnabled;
+	}
+
 	/**
 	 * Return the current buffer size (number of bytes).
+	 * <p>When batching is enabled, this includes the batch being sent.
 	 */
 	public int getBufferSize() {
 		return this.bufferSize.get();
 	}
 
+	/**
+	 * Return the number of messages currently buffered.
+	 * <p>When batching is enabled, this includes the batch being sent.
+	 * @since 5.1.5
+	 */
+	public int getBufferedMessageCount() {
+		return this.bufferedMessageCount.get();
+	}
+
 	/**
 	 * Return the time (milliseconds) since the current send started,
 	 * or 0 if no send is currently in progress.
@@ -130,6 +180,16 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return (start > 0 ? (System.currentTimeMillis() - start) : 0);
 	}
 
+	/**
+	 * Return the time (milliseconds) the most recently completed flush of
+	 * the buffer took, i.e. the time to send all messages in it, or 0 if
+	 * no flush has completed yet.
+	 * @since 5.1.5
+	 */
+	public long getLastFlushDuration() {
+		return this.lastFlushDuration;
+	}
+
 
 	@Override
 	public void sendMessage(WebSocketMessage<?> message) throws IOException {
@@ -139,6 +199,7 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 
 		this.buffer.add(message);
 		this.bufferSize.addAndGet(message.getPayloadLength());
+		this.bufferedMessageCount.incrementAndGet();
 
 		do {
 			if (!tryFlushMessageBuffer()) {
@@ -159,28 +220,79 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 	}
 
 	private boolean tryFlushMessageBuffer() throws IOException {
-		if (this.flushLock.tryLock()) {
+		if (this.flushInProgress.compareAndSet(false, true)) {
+			long flushStartTime = System.currentTimeMillis();
 			try {
-				while (true) {
-					WebSocketMessage<?> message = this.buffer.poll();
-					if (message == null || shouldNotSend()) {
-						break;
-					}
-					this.bufferSize.addAndGet(-message.getPayloadLength());
-					this.sendStartTime = System.currentTimeMillis();
-					getDelegate().sendMessage(message);
-					this.sendStartTime = 0;
+				if (this.batchingEnabled) {
+					flushMessageBatches();
+				}
+				else {
+					flushMessages();
 				}
 			}
 			finally {
 				this.sendStartTime = 0;
-				this.flushLock.unlock();
+				this.lastFlushDuration = System.currentTimeMillis() - flushStartTime;
+				this.flushInProgress.set(false);
 			}
 			return true;
 		}
 		return false;
 	}
 
+	private void flushMessages() throws IOException {
+		while (true) {
+			WebSocketMessage<?> message = this.buffer.poll();
+			if (message == null || shouldNotSend()) {
+				break;
+			}
+			this.bufferSize.addAndGet(-message.getPayloadLength());
+			this.bufferedMessageCount.decrementAndGet();
+			this.sendStartTime = System.currentTimeMillis();
+			getDelegate().sendMessage(message);
+			this.sendStartTime = 0;
+		}
+	}
+
+	private void flushMessageBatches() throws IOException {
+		List<WebSocketMessage<?>> batch = new ArrayList<>();
+		while (!shouldNotSend()) {
+			int batchSize = 0;
+			WebSocketMessage<?> message;
+			while ((message = this.buffer.poll()) != null) {
+				batch.add(message);
+				batchSize += message.getPayloadLength();
+			}
+			if (batch.isEmpty()) {
+				break;
+			}
+			// Keep counting the batch against the buffer size limit until it has been sent
+			this.sendStartTime = System.currentTimeMillis();
+			try {
+				sendBatch(batch);
+			}
+			finally {
+				this.bufferSize.addAndGet(-batchSize);
+				this.bufferedMessageCount.addAndGet(-batch.size());
+			}
+			this.sendStartTime = 0;
+			batch.clear();
+		}
+	}
+
+	private void sendBatch(List<WebSocketMessage<?>> batch) throws IOException {
+		if (batch.size() > 1 && jsr356Present) {
+			WebSocketSession session = WebSocketSessionDecorator.unwrap(getDelegate());
+			if (session instanceof NativeWebSocketSession &&
+					StandardBatchDelegate.sendBatch((NativeWebSocketSession) session, getDelegate(), batch)) {
+				return;
+			}
+		}
+		for (WebSocketMessage<?> message : batch) {
+			getDelegate().sendMessage(message);
+		}
+	}
+
 	private void checkSessionLimits() {
 		if (!shouldNotSend() && this.closeLock.tryLock()) {
 			try {
@@ -204,6 +316,7 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 									break;
 								}
 								this.bufferSize.addAndGet(-message.getPayloadLength());
+								this.bufferedMessageCount.decrementAndGet();
 								i++;
 							}
 							if (logger.isDebugEnabled()) {
@@ -263,6 +376,41 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 	}
 
 
+	/**
+	 * Inner class to avoid a hard dependency on the JSR-356 API.
+	 */
+	private static class StandardBatchDelegate {
+
+		public static boolean sendBatch(NativeWebSocketSession nativeSession, WebSocketSession delegate,
+				List<WebSocketMessage<?>> batch) throws IOException {
+
+			Session session = nativeSession.getNativeSession(Session.class);
+			if (session == null) {
+				return false;
+			}
+			RemoteEndpoint.Basic remote = session.getBasicRemote();
+			remote.setBatchingAllowed(true);
+			try {
+				for (WebSocketMessage<?> message : batch) {
+					delegate.sendMessage(message);
+				}
+				remote.flushBatch();
+			}
+			catch (Throwable ex) {
+				try {
+					remote.setBatchingAllowed(false);
+				}
+				catch (Throwable resetEx) {
+					ex.addSuppressed(resetEx);
+				}
+				throw ex;
+			}
+			remote.setBatchingAllowed(false);
+			return true;
+		}
+	}
+
+
 	/**
 	 * Enum for options of what to do when the buffer fills up.
 	 * @since 5.1
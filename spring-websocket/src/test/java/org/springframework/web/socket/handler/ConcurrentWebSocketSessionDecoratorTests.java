@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,20 +17,29 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
 
 import org.junit.Test;
+import org.mockito.InOrder;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketSession;
 import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 
 import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
 
 /**
  * Unit tests for {@link ConcurrentWebSocketSessionDecorator}.
@@ -173,6 +182,210 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 
 	}
 
+	@Test
+	public void sendBatch() throws Exception {
+
+		BlockingSession session = new BlockingSession();
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 10 * 1000, 1024);
+		decorator.setBatchingEnabled(true);
+
+		sendBlockingMessage(decorator);
+
+		TextMessage payload = new TextMessage("payload");
+		for (int i = 0; i < 5; i++) {
+			decorator.sendMessage(payload);
+		}
+
+		// The blocked message is still counted until it has been sent
+		int blockedLength = session.getSentMessages().get(0).getPayloadLength();
+		assertEquals(6, decorator.getBufferedMessageCount());
+		assertEquals(5 * payload.getPayloadLength() + blockedLength, decorator.getBufferSize());
+		assertEquals(1, session.getSentMessages().size());
+
+		// Next flush drains the buffer as one batch, still counted until it has been sent
+		CountDownLatch sentMessageLatch = session.getSentMessageLatch();
+		session.release();
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+		assertEquals(5, decorator.getBufferedMessageCount());
+		assertEquals(5 * payload.getPayloadLength(), decorator.getBufferSize());
+
+		// Messages sent meanwhile are buffered on top of the batch in flight
+		decorator.sendMessage(payload);
+		assertEquals(6, decorator.getBufferedMessageCount());
+		assertEquals(6 * payload.getPayloadLength(), decorator.getBufferSize());
+
+		// The rest of the batch follows, then the next batch
+		for (int i = 1; i < 6; i++) {
+			sentMessageLatch = session.getSentMessageLatch();
+			session.release();
+			assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, decorator.getBufferedMessageCount());
+		session.release();
+		awaitBufferSize(decorator, 0);
+		assertEquals(0, decorator.getBufferedMessageCount());
+		assertEquals(7, session.getSentMessages().size());
+	}
+
+	@Test
+	public void sendBatchBufferSizeExceeded() throws Exception {
+
+		BlockingSession session = new BlockingSession();
+		session.setId("123");
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 10 * 1000, 1024);
+		decorator.setBatchingEnabled(true);
+
+		sendBlockingMessage(decorator);
+
+		// Fill up the buffer to the limit, including the blocked message
+		int blockedLength = session.getSentMessages().get(0).getPayloadLength();
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1024 - blockedLength; i++) {
+			sb.append("a");
+		}
+		TextMessage message = new TextMessage(sb.toString());
+		decorator.sendMessage(message);
+		assertEquals(1024, decorator.getBufferSize());
+
+		// The buffered message moves into a batch that blocks on sending
+		CountDownLatch sentMessageLatch = session.getSentMessageLatch();
+		session.release();
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+		assertEquals(message.getPayloadLength(), decorator.getBufferSize());
+
+		try {
+			decorator.sendMessage(message);
+			fail("Expected exception");
+		}
+		catch (SessionLimitExceededException ex) {
+			assertEquals(CloseStatus.SESSION_NOT_RELIABLE, ex.getStatus());
+		}
+		session.release();
+	}
+
+	@Test
+	public void sendBatchWithStandardSession() throws Exception {
+
+		Session nativeSession = mock(Session.class);
+		RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+		given(nativeSession.getBasicRemote()).willReturn(remote);
+		given(nativeSession.isOpen()).willReturn(true);
+
+		StandardWebSocketSession standardSession =
+				new StandardWebSocketSession(new HttpHeaders(), Collections.emptyMap(), null, null);
+		standardSession.initializeNativeSession(nativeSession);
+
+		CountDownLatch blockedLatch = new CountDownLatch(1);
+		CountDownLatch releaseLatch = new CountDownLatch(1);
+		WebSocketSession blockingSession = new WebSocketSessionDecorator(standardSession) {
+			@Override
+			public void sendMessage(WebSocketMessage<?> message) throws IOException {
+				super.sendMessage(message);
+				if (blockedLatch.getCount() > 0) {
+					blockedLatch.countDown();
+					try {
+						releaseLatch.await();
+					}
+					catch (InterruptedException ex) {
+						throw new IllegalStateException(ex);
+					}
+				}
+			}
+		};
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(blockingSession, 10 * 1000, 1024);
+		decorator.setBatchingEnabled(true);
+
+		Executors.newSingleThreadExecutor().submit(() -> {
+			decorator.sendMessage(new TextMessage("first"));
+			return null;
+		});
+		assertTrue(blockedLatch.await(5, TimeUnit.SECONDS));
+
+		decorator.sendMessage(new TextMessage("second"));
+		decorator.sendMessage(new TextMessage("third"));
+		releaseLatch.countDown();
+
+		verify(remote, timeout(5000)).setBatchingAllowed(false);
+		verify(remote, times(1)).setBatchingAllowed(true);
+		verify(remote, times(1)).flushBatch();
+		InOrder inOrder = inOrder(remote);
+		inOrder.verify(remote).sendText("first", true);
+		inOrder.verify(remote).setBatchingAllowed(true);
+		inOrder.verify(remote).sendText("second", true);
+		inOrder.verify(remote).sendText("third", true);
+		inOrder.verify(remote).flushBatch();
+		inOrder.verify(remote).setBatchingAllowed(false);
+		assertEquals(0, decorator.getBufferedMessageCount());
+	}
+
+	@Test
+	public void sendBatchWithStandardSessionFailure() throws Exception {
+
+		Session nativeSession = mock(Session.class);
+		RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+		given(nativeSession.getBasicRemote()).willReturn(remote);
+		given(nativeSession.isOpen()).willReturn(true);
+		IOException flushFailure = new IOException("flush failed");
+		IOException resetFailure = new IOException("reset failed");
+		willThrow(flushFailure).given(remote).flushBatch();
+		willThrow(resetFailure).given(remote).setBatchingAllowed(false);
+
+		StandardWebSocketSession standardSession =
+				new StandardWebSocketSession(new HttpHeaders(), Collections.emptyMap(), null, null);
+		standardSession.initializeNativeSession(nativeSession);
+
+		CountDownLatch blockedLatch = new CountDownLatch(1);
+		CountDownLatch releaseLatch = new CountDownLatch(1);
+		WebSocketSession blockingSession = new WebSocketSessionDecorator(standardSession) {
+			@Override
+			public void sendMessage(WebSocketMessage<?> message) throws IOException {
+				super.sendMessage(message);
+				if (blockedLatch.getCount() > 0) {
+					blockedLatch.countDown();
+					try {
+						releaseLatch.await();
+					}
+					catch (InterruptedException ex) {
+						throw new IllegalStateException(ex);
+					}
+				}
+			}
+		};
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(blockingSession, 10 * 1000, 1024);
+		decorator.setBatchingEnabled(true);
+
+		Future<?> future = Executors.newSingleThreadExecutor().submit(() -> {
+			decorator.sendMessage(new TextMessage("first"));
+			return null;
+		});
+		assertTrue(blockedLatch.await(5, TimeUnit.SECONDS));
+
+		decorator.sendMessage(new TextMessage("second"));
+		decorator.sendMessage(new TextMessage("third"));
+		releaseLatch.countDown();
+
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Expected exception");
+		}
+		catch (ExecutionException ex) {
+			assertSame(flushFailure, ex.getCause());
+			assertArrayEquals(new Throwable[] {resetFailure}, ex.getCause().getSuppressed());
+		}
+		assertEquals(0, decorator.getBufferedMessageCount());
+		assertEquals(0, decorator.getBufferSize());
+	}
+
 	@Test
 	public void closeStatusNormal() throws Exception {
 
@@ -223,6 +436,8 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 	}
 
 	private void sendBlockingMessage(ConcurrentWebSocketSessionDecorator session) throws InterruptedException {
+		BlockingSession delegate = (BlockingSession) session.getDelegate();
+		CountDownLatch sentMessageLatch = delegate.getSentMessageLatch();
 		Executors.newSingleThreadExecutor().submit(() -> {
 			TextMessage message = new TextMessage("slow message");
 			try {
@@ -232,8 +447,16 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 				e.printStackTrace();
 			}
 		});
-		BlockingSession delegate = (BlockingSession) session.getDelegate();
-		assertTrue(delegate.getSentMessageLatch().await(5, TimeUnit.SECONDS));
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
+	}
+
+	private void awaitBufferSize(ConcurrentWebSocketSessionDecorator session, int expected)
+			throws InterruptedException {
+
+		for (int i = 0; i < 500 && session.getBufferSize() != expected; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, session.getBufferSize());
 	}
 
 
@@ -253,15 +476,22 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 		@Override
 		public void sendMessage(WebSocketMessage<?> message) throws IOException {
 			super.sendMessage(message);
+			this.releaseLatch.set(new CountDownLatch(1));
 			if (this.nextMessageLatch != null) {
 				this.nextMessageLatch.get().countDown();
 			}
 			block();
 		}
 
+		public void release() {
+			CountDownLatch latch = this.releaseLatch.get();
+			if (latch != null) {
+				latch.countDown();
+			}
+		}
+
 		private void block() {
 			try {
-				this.releaseLatch.set(new CountDownLatch(1));
 				this.releaseLatch.get().await();
 			}
 			catch (InterruptedException e) {